@@ -4,6 +4,7 @@ plugins {
     java
     `maven-publish`
     id("com.github.johnrengelman.shadow") version "7.1.2"
+    id("me.champeau.jmh") version "0.6.8"
 }
 
 group = project.property("maven_group") as String
@@ -75,6 +76,10 @@ task("stage") {
     dependsOn.add("copyToLib")
 }
 
+jmh {
+    jmhVersion.set(project.property("jmh_version") as String)
+}
+
 tasks.getByName<Test>("test") {
     useJUnitPlatform()
 }
@@ -0,0 +1,94 @@
+package io.github.shaksternano.mediamanipulator.image.codec.gif;
+
+import io.github.shaksternano.mediamanipulator.image.codec.color.MedianCutQuantizer;
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+import io.github.shaksternano.mediamanipulator.image.util.AwtFrame;
+import io.github.shaksternano.mediamanipulator.image.util.ImageMediaBuilder;
+import io.github.shaksternano.mediamanipulator.image.writer.ScrimageAnimatedGifWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the time taken to encode a GIF with each quantizer, with and without dithering,
+ * against the Scrimage writer. The size of the output is printed once each benchmark has finished.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GifEncoderBenchmark {
+
+    @Param({"octree", "median-cut", "octree-dithered", "median-cut-dithered", "scrimage"})
+    public String encoder;
+
+    private ImageMedia image;
+    private GifEncoder gifEncoder;
+    private File scrimageOutput;
+    private long outputSize;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ImageMediaBuilder builder = new ImageMediaBuilder();
+        for (int i = 0; i < 20; i++) {
+            BufferedImage frame = new BufferedImage(320, 240, BufferedImage.TYPE_INT_ARGB);
+            for (int y = 0; y < frame.getHeight(); y++) {
+                for (int x = 0; x < frame.getWidth(); x++) {
+                    int red = x * 255 / frame.getWidth();
+                    int green = (y + i * 7) % frame.getHeight() * 255 / frame.getHeight();
+                    int blue = (x + y) % 256;
+                    frame.setRGB(x, y, 0xFF000000 | (red << 16) | (green << 8) | blue);
+                }
+            }
+            builder.add(new AwtFrame(frame, 50));
+        }
+        image = builder.build();
+
+        gifEncoder = switch (encoder) {
+            case "median-cut" -> new GifEncoder().withQuantizer(new MedianCutQuantizer());
+            case "octree-dithered" -> new GifEncoder().withDithering(true);
+            case "median-cut-dithered" -> new GifEncoder().withQuantizer(new MedianCutQuantizer()).withDithering(true);
+            default -> new GifEncoder();
+        };
+        scrimageOutput = File.createTempFile("gif-encoder-benchmark", ".gif");
+    }
+
+    @Benchmark
+    public long encode() throws IOException {
+        if (encoder.equals("scrimage")) {
+            new ScrimageAnimatedGifWriter().write(image, scrimageOutput, "gif");
+            outputSize = scrimageOutput.length();
+        } else {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            gifEncoder.encode(image, outputStream);
+            outputSize = outputStream.size();
+        }
+        return outputSize;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.out.println();
+        System.out.println(encoder + " output size: " + outputSize + " bytes");
+        Files.deleteIfExists(scrimageOutput.toPath());
+    }
+}
@@ -0,0 +1,94 @@
+package io.github.shaksternano.mediamanipulator.image.codec.png;
+
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+import io.github.shaksternano.mediamanipulator.image.util.AwtFrame;
+import io.github.shaksternano.mediamanipulator.image.util.ImageMediaBuilder;
+import io.github.shaksternano.mediamanipulator.image.writer.ImageWriter;
+import io.github.shaksternano.mediamanipulator.image.writer.JavaxImageWriter;
+import io.github.shaksternano.mediamanipulator.image.writer.ParallelApngWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+
+/**
+ * Compares the time taken to write a large still image as a PNG file with ImageIO against
+ * {@link ParallelApngWriter}, at the default and highest compression levels. The size of the output
+ * is printed once each benchmark has finished. The parallel writer should get faster with more cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PngEncoderBenchmark {
+
+    @Param({"javax", "parallel", "parallel-best"})
+    public String writer;
+
+    private ImageMedia image;
+    private ImageWriter imageWriter;
+    private File output;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        // A 4K image with a caption above a photo-like gradient, and a transparent corner.
+        BufferedImage frame = new BufferedImage(3840, 2160, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 400; y < frame.getHeight(); y++) {
+            for (int x = 0; x < frame.getWidth(); x++) {
+                int red = x * 255 / frame.getWidth();
+                int green = y * 255 / frame.getHeight();
+                int blue = (x * y >> 8) & 0xFF;
+                frame.setRGB(x, y, 0xFF000000 | (red << 16) | (green << 8) | blue);
+            }
+        }
+        Graphics2D graphics = frame.createGraphics();
+        graphics.setColor(Color.WHITE);
+        graphics.fillRect(0, 0, frame.getWidth(), 400);
+        graphics.setColor(Color.BLACK);
+        graphics.setFont(graphics.getFont().deriveFont(160F));
+        graphics.drawString("When the benchmark is 4K", 100, 260);
+        graphics.setComposite(AlphaComposite.Clear);
+        graphics.fillOval(frame.getWidth() - 600, frame.getHeight() - 600, 1200, 1200);
+        graphics.dispose();
+        image = new ImageMediaBuilder().add(new AwtFrame(frame, 0)).build();
+
+        imageWriter = switch (writer) {
+            case "javax" -> new JavaxImageWriter();
+            case "parallel-best" -> new ParallelApngWriter(new ApngEncoder().withCompressionLevel(Deflater.BEST_COMPRESSION));
+            default -> new ParallelApngWriter();
+        };
+        output = File.createTempFile("png-encoder-benchmark", ".png");
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        imageWriter.write(image, output, "png");
+        return output.length();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.out.println();
+        System.out.println(writer + " output size: " + output.length() + " bytes");
+        Files.deleteIfExists(output.toPath());
+    }
+}
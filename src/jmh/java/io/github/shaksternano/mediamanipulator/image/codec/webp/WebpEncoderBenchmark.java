@@ -0,0 +1,116 @@
+package io.github.shaksternano.mediamanipulator.image.codec.webp;
+
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+import io.github.shaksternano.mediamanipulator.image.util.AwtFrame;
+import io.github.shaksternano.mediamanipulator.image.util.ImageMediaBuilder;
+import io.github.shaksternano.mediamanipulator.image.writer.ImageWriter;
+import io.github.shaksternano.mediamanipulator.image.writer.ParallelGifWriter;
+import io.github.shaksternano.mediamanipulator.image.writer.ParallelWebpWriter;
+import io.github.shaksternano.mediamanipulator.image.writer.ScrimageAnimatedGifWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the time taken to write an animation as a WebP file against writing it as a GIF file,
+ * with both the Scrimage writer and {@link ParallelGifWriter}. The size of the output is printed
+ * once each benchmark has finished.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WebpEncoderBenchmark {
+
+    @Param({"webp", "scrimage-gif", "parallel-gif"})
+    public String writer;
+
+    /**
+     * Whether each frame has a smooth gradient with more than 256 colors, or flat shapes with a few colors.
+     */
+    @Param({"true", "false"})
+    public boolean gradient;
+
+    private ImageMedia image;
+    private ImageWriter imageWriter;
+    private String format;
+    private File output;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        ImageMediaBuilder builder = new ImageMediaBuilder();
+        for (int i = 0; i < 20; i++) {
+            BufferedImage frame = new BufferedImage(320, 240, BufferedImage.TYPE_INT_ARGB);
+            if (gradient) {
+                for (int y = 0; y < frame.getHeight(); y++) {
+                    for (int x = 0; x < frame.getWidth(); x++) {
+                        int red = x * 255 / frame.getWidth();
+                        int green = (y + i * 7) % frame.getHeight() * 255 / frame.getHeight();
+                        int blue = (x + y) % 256;
+                        frame.setRGB(x, y, 0xFF000000 | (red << 16) | (green << 8) | blue);
+                    }
+                }
+            } else {
+                Graphics2D graphics = frame.createGraphics();
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, frame.getWidth(), frame.getHeight());
+                graphics.setColor(Color.RED);
+                graphics.fillOval(i * 12, 60, 80, 80);
+                graphics.setColor(Color.BLACK);
+                graphics.setFont(graphics.getFont().deriveFont(32F));
+                graphics.drawString("Frame " + i, 20, 220);
+                graphics.dispose();
+            }
+            builder.add(new AwtFrame(frame, 50));
+        }
+        image = builder.build();
+
+        switch (writer) {
+            case "scrimage-gif" -> {
+                imageWriter = new ScrimageAnimatedGifWriter();
+                format = "gif";
+            }
+            case "parallel-gif" -> {
+                imageWriter = new ParallelGifWriter();
+                format = "gif";
+            }
+            default -> {
+                imageWriter = new ParallelWebpWriter();
+                format = "webp";
+            }
+        }
+        output = File.createTempFile("webp-encoder-benchmark", "." + format);
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        imageWriter.write(image, output, format);
+        return output.length();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.out.println();
+        System.out.println(writer + (gradient ? " gradient" : " shapes") + " output size: " + output.length() + " bytes");
+        Files.deleteIfExists(output.toPath());
+    }
+}
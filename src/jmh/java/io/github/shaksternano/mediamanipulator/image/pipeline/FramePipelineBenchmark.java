@@ -0,0 +1,79 @@
+package io.github.shaksternano.mediamanipulator.image.pipeline;
+
+import io.github.shaksternano.mediamanipulator.image.util.ImageUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the time taken to pixelate, and to stretch, rotate and convert a large frame, by applying
+ * each {@link ImageUtil} operation one after the other against applying them with a {@link FramePipeline},
+ * which creates one image for each of them rather than one image per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FramePipelineBenchmark {
+
+    @Param({"sequential", "pipeline"})
+    public String method;
+
+    private BufferedImage frame;
+    private FramePipeline pixelatePipeline;
+    private FramePipeline transformPipeline;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        frame = new BufferedImage(1920, 1080, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < frame.getHeight(); y++) {
+            for (int x = 0; x < frame.getWidth(); x++) {
+                frame.setRGB(x, y, 0xFF000000 | (x * 255 / frame.getWidth()) << 16 | (y * 255 / frame.getHeight()) << 8 | ((x * y >> 8) & 0xFF));
+            }
+        }
+
+        pixelatePipeline = new FramePipelineBuilder()
+                .pixelate(10)
+                .build();
+        transformPipeline = new FramePipelineBuilder()
+                .stretch(1.5F, 1.5F)
+                .rotate(30, null, null, null)
+                .convertType(BufferedImage.TYPE_INT_ARGB_PRE)
+                .build();
+    }
+
+    @Benchmark
+    public BufferedImage pixelate() {
+        if (method.equals("pipeline")) {
+            return pixelatePipeline.apply(frame);
+        } else {
+            BufferedImage shrunk = ImageUtil.stretch(frame, frame.getWidth() / 10, frame.getHeight() / 10, true);
+            return ImageUtil.stretch(shrunk, frame.getWidth(), frame.getHeight(), true);
+        }
+    }
+
+    @Benchmark
+    public BufferedImage stretchRotateAndConvert() {
+        if (method.equals("pipeline")) {
+            return transformPipeline.apply(frame);
+        } else {
+            BufferedImage stretched = ImageUtil.stretch(frame, (int) (frame.getWidth() * 1.5F), (int) (frame.getHeight() * 1.5F), true);
+            BufferedImage rotated = ImageUtil.rotate(stretched, 30, null, null, null);
+            return ImageUtil.convertType(rotated, BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+    }
+}
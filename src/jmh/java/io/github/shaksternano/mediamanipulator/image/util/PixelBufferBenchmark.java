@@ -0,0 +1,157 @@
+package io.github.shaksternano.mediamanipulator.image.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the time taken to scan every pixel of a large image for grey and near white pixels, as the caption
+ * finder does, and for transparent pixels, as the GIF writer does, by reading each pixel with
+ * {@link BufferedImage#getRGB(int, int)} into a {@link Color} against reading rows of packed ints with a {@link PixelBuffer}.
+ * The transparency scan reads column by column with {@link BufferedImage#getRGB(int, int)}, as the GIF writer used to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PixelBufferBenchmark {
+
+    @Param({"color", "pixelBuffer"})
+    public String method;
+
+    @Param({"TYPE_INT_ARGB", "TYPE_3BYTE_BGR"})
+    public String imageType;
+
+    private BufferedImage image;
+
+    @Setup(Level.Trial)
+    public void setup() throws ReflectiveOperationException {
+        int type = BufferedImage.class.getField(imageType).getInt(null);
+        image = new BufferedImage(1920, 1080, type);
+        // Light greys, so that every scan reads the whole image.
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int grey = 200 + (x * y) % 56;
+                image.setRGB(x, y, new Color(grey, grey, Math.max(grey - (x % 30), 0)).getRGB());
+            }
+        }
+    }
+
+    @Benchmark
+    public int greyScaleRows() {
+        int greyRows = 0;
+        if (method.equals("pixelBuffer")) {
+            PixelBuffer pixels = new PixelBuffer(image);
+            int[] row = new int[image.getWidth()];
+            for (int y = 0; y < image.getHeight(); y++) {
+                pixels.getRow(y, row);
+                boolean grey = true;
+                for (int rgb : row) {
+                    grey &= ImageUtil.isGreyScale(rgb);
+                }
+                greyRows += grey ? 1 : 0;
+            }
+        } else {
+            for (int y = 0; y < image.getHeight(); y++) {
+                boolean grey = true;
+                for (int x = 0; x < image.getWidth(); x++) {
+                    Color color = new Color(image.getRGB(x, y));
+                    grey &= isGreyScale(color);
+                }
+                greyRows += grey ? 1 : 0;
+            }
+        }
+        return greyRows;
+    }
+
+    @Benchmark
+    public int whiteRows() {
+        int colorTolerance = 150;
+        int whiteRows = 0;
+        if (method.equals("pixelBuffer")) {
+            int white = Color.WHITE.getRGB();
+            PixelBuffer pixels = new PixelBuffer(image);
+            int[] row = new int[image.getWidth()];
+            for (int y = 0; y < image.getHeight(); y++) {
+                pixels.getRow(y, row);
+                boolean rowIsWhite = true;
+                for (int rgb : row) {
+                    rowIsWhite &= ImageUtil.colorDistanceSquared(rgb, white) <= colorTolerance * colorTolerance;
+                }
+                whiteRows += rowIsWhite ? 1 : 0;
+            }
+        } else {
+            for (int y = 0; y < image.getHeight(); y++) {
+                boolean rowIsWhite = true;
+                for (int x = 0; x < image.getWidth(); x++) {
+                    Color color = new Color(image.getRGB(x, y));
+                    rowIsWhite &= colorDistance(color, Color.WHITE) <= colorTolerance;
+                }
+                whiteRows += rowIsWhite ? 1 : 0;
+            }
+        }
+        return whiteRows;
+    }
+
+    @Benchmark
+    public boolean fullyOpaque() {
+        if (method.equals("pixelBuffer")) {
+            for (PrimitiveIterator.OfInt pixels = new PixelBuffer(image).pixels(); pixels.hasNext(); ) {
+                if (pixels.nextInt() >>> 24 != 0xFF) {
+                    return false;
+                }
+            }
+        } else {
+            for (int x = 0; x < image.getWidth(); x++) {
+                for (int y = 0; y < image.getHeight(); y++) {
+                    Color pixelColor = new Color(image.getRGB(x, y), true);
+                    if (pixelColor.getAlpha() < 255) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The color distance as it was calculated before it worked on packed ints.
+     */
+    private static double colorDistance(Color color1, Color color2) {
+        if (color1.equals(color2)) {
+            return 0;
+        } else {
+            int red1 = color1.getRed();
+            int red2 = color2.getRed();
+            int redMean = (red1 + red2) / 2;
+            int redDifference = red1 - red2;
+            int greenDifference = color1.getGreen() - color2.getGreen();
+            int blueDifference = color1.getBlue() - color2.getBlue();
+            return Math.sqrt((((512 + redMean) * redDifference * redDifference) >> 8) + 4 * greenDifference * greenDifference + (((767 - redMean) * blueDifference * blueDifference) >> 8));
+        }
+    }
+
+    private static boolean isGreyScale(Color color) {
+        int tolerance = 40;
+        int red = color.getRed();
+        int green = color.getGreen();
+        int blue = color.getBlue();
+        return Math.abs(red - green) <= tolerance && Math.abs(red - blue) <= tolerance && Math.abs(green - blue) <= tolerance;
+    }
+}
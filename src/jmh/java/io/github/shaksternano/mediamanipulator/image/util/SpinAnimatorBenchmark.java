@@ -0,0 +1,116 @@
+package io.github.shaksternano.mediamanipulator.image.util;
+
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the time taken to spin a still image, and a short looping animation that is longer than a rotation,
+ * by rotating every frame with Java2D against {@link SpinAnimator}, which blends pixels straight from an int array,
+ * only rotates each image at each angle once, and makes frames that are quarter turns apart by moving pixels.
+ * The frames are rotated with Java2D both using nearest neighbour sampling, as in {@link ImageUtil#rotate(BufferedImage, float, Integer, Integer, Color)},
+ * and using bilinear sampling, which gives the same quality as {@link SpinAnimator}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SpinAnimatorBenchmark {
+
+    @Param({"nearest", "bilinear", "animator"})
+    public String method;
+
+    private List<BufferedImage> stillImages;
+    private List<BufferedImage> animatedImages;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BufferedImage image = createImage(0);
+        stillImages = List.of(image);
+
+        List<BufferedImage> loop = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            BufferedImage frame = createImage(i * 20);
+            for (int j = 0; j < 3; j++) {
+                loop.add(frame);
+            }
+        }
+        animatedImages = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            animatedImages.addAll(loop);
+        }
+    }
+
+    @Benchmark
+    public ImageMedia still() {
+        return spin(stillImages);
+    }
+
+    @Benchmark
+    public ImageMedia animated() {
+        return spin(animatedImages);
+    }
+
+    private ImageMedia spin(List<BufferedImage> images) {
+        if (method.equals("animator")) {
+            return SpinAnimator.spin(images, 1, null);
+        } else {
+            int size = Math.max(images.get(0).getWidth(), images.get(0).getHeight());
+            int frameCount = 150 * ((images.size() + 149) / 150);
+            BufferedImage[] rotated = new BufferedImage[frameCount];
+            ImageComputePool.forEach(frameCount, index -> {
+                float angle = 360 * (index / 150F);
+                BufferedImage image = images.get(index % images.size());
+                if (method.equals("nearest")) {
+                    rotated[index] = ImageUtil.rotate(image, angle, size, size, null);
+                } else {
+                    rotated[index] = rotateBilinear(image, angle, size);
+                }
+            });
+            ImageMediaBuilder builder = new ImageMediaBuilder();
+            for (BufferedImage image : rotated) {
+                builder.add(new AwtFrame(image, Frame.GIF_MINIMUM_FRAME_DURATION));
+            }
+            return builder.build();
+        }
+    }
+
+    private static BufferedImage rotateBilinear(BufferedImage image, float angle, int size) {
+        BufferedImage rotated = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = rotated.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.translate((size - image.getWidth()) / 2, (size - image.getHeight()) / 2);
+        graphics.rotate(Math.toRadians(angle), image.getWidth() / 2F, image.getHeight() / 2F);
+        graphics.drawRenderedImage(image, null);
+        graphics.dispose();
+        return rotated;
+    }
+
+    private static BufferedImage createImage(int offset) {
+        BufferedImage image = new BufferedImage(400, 300, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, 0xFF000000 | ((x + offset) & 0xFF) << 16 | (y & 0xFF) << 8 | ((x * y >> 6) & 0xFF));
+            }
+        }
+        return image;
+    }
+}
@@ -1,5 +1,6 @@
 package io.github.shaksternano.mediamanipulator;
 
+import com.google.common.collect.ImmutableSet;
 import io.github.shaksternano.mediamanipulator.command.Command;
 import io.github.shaksternano.mediamanipulator.command.util.Commands;
 import io.github.shaksternano.mediamanipulator.command.util.TerminalInputListener;
@@ -8,6 +9,7 @@ import io.github.shaksternano.mediamanipulator.image.backgroundimage.ResourceCon
 import io.github.shaksternano.mediamanipulator.image.reader.util.ImageReaders;
 import io.github.shaksternano.mediamanipulator.image.writer.util.ImageWriters;
 import io.github.shaksternano.mediamanipulator.listener.CommandListener;
+import io.github.shaksternano.mediamanipulator.listener.EmojiListener;
 import io.github.shaksternano.mediamanipulator.logging.DiscordLogger;
 import io.github.shaksternano.mediamanipulator.mediamanipulator.util.MediaManipulators;
 import io.github.shaksternano.mediamanipulator.util.Fonts;
@@ -23,6 +25,7 @@ import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -50,6 +53,12 @@ public class Main {
 
     private static final String DISCORD_LOG_CHANNEL_ID_ARGUMENT_NAME = "DISCORD_LOG_CHANNEL_ID";
 
+    /**
+     * The name of the program argument or environment variable that contains the comma separated IDs
+     * of the guilds that animated results are sent to as WebP files rather than GIF files.
+     */
+    private static final String WEBP_GUILD_IDS_ARGUMENT_NAME = "WEBP_GUILD_IDS";
+
     /**
      * The program's {@link JDA} instance.
      */
@@ -65,6 +74,11 @@ public class Main {
      */
     private static String tenorApiKey = "LIVDSRZULELA";
 
+    /**
+     * The IDs of the guilds that animated results are sent to as WebP files rather than GIF files.
+     */
+    private static Set<Long> webpGuildIds = Set.of();
+
     private static ProgramArguments arguments;
 
     /**
@@ -87,6 +101,7 @@ public class Main {
         getLogger().info("Starting!");
 
         initTenorApiKey();
+        initWebpGuildIds();
 
         Commands.registerCommands();
         MediaManipulators.registerMediaManipulators();
@@ -94,7 +109,7 @@ public class Main {
         Thread commandThread = new Thread(new TerminalInputListener());
         commandThread.start();
 
-        EmojiUtil.initEmojiUnicodeSet();
+        EmojiUtil.initEmojiUnicodeTrie();
         EmojiUtil.initEmojiShortCodesToUrlsMap();
         configureJda();
         Runtime.getRuntime().addShutdownHook(new Thread(() -> getLogger().info("Shutting down!")));
@@ -156,6 +171,26 @@ public class Main {
         }, () -> getLogger().warn("No Tenor API key provided, using default, restricted, rate limited example key (" + getTenorApiKey() + ")."));
     }
 
+    /**
+     * Sets the guilds that prefer WebP from the program arguments or the environment variable.
+     */
+    private static void initWebpGuildIds() {
+        arguments.getArgumentOrEnvironmentVariable(WEBP_GUILD_IDS_ARGUMENT_NAME).ifPresent(guildIdsString -> {
+            ImmutableSet.Builder<Long> builder = ImmutableSet.builder();
+            for (String guildId : guildIdsString.split(",")) {
+                try {
+                    if (!guildId.isBlank()) {
+                        builder.add(Long.parseLong(guildId.trim()));
+                    }
+                } catch (NumberFormatException e) {
+                    getLogger().error("Provided WebP guild ID \"" + guildId + "\" is not a number!");
+                }
+            }
+            webpGuildIds = builder.build();
+            getLogger().info("Sending animated results as WebP in " + webpGuildIds.size() + " guild" + (webpGuildIds.size() == 1 ? "" : "s") + ".");
+        });
+    }
+
     /**
      * Initializes the JDA instance.
      *
@@ -189,7 +224,7 @@ public class Main {
                 .addCommands(net.dv8tion.jda.api.interactions.commands.build.Commands.slash(helpCommand.getName(), helpCommand.getDescription()))
                 .queue(commands -> {
                 }, throwable -> getLogger().error("Failed to add slash commands!", throwable));
-        jda.addEventListener(new CommandListener());
+        jda.addEventListener(new CommandListener(), new EmojiListener());
     }
 
     /**
@@ -231,6 +266,15 @@ public class Main {
         return tenorApiKey;
     }
 
+    /**
+     * Gets the IDs of the guilds that animated results are sent to as WebP files rather than GIF files.
+     *
+     * @return The IDs of the guilds.
+     */
+    public static Set<Long> getWebpGuildIds() {
+        return webpGuildIds;
+    }
+
     public static String getRootPackage() {
         return Main.class.getPackageName();
     }
@@ -3,12 +3,14 @@ package io.github.shaksternano.mediamanipulator.command;
 import com.google.common.collect.ListMultimap;
 import io.github.shaksternano.mediamanipulator.command.util.CommandParser;
 import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaManipulator;
+import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaOperation;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 
 import java.awt.*;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 public class AutoCropCommand extends MediaCommand {
 
@@ -27,6 +29,19 @@ public class AutoCropCommand extends MediaCommand {
 
     @Override
     public File applyOperation(File media, String fileFormat, List<String> arguments, ListMultimap<String, String> extraArguments, MediaManipulator manipulator, MessageReceivedEvent event) throws IOException {
+        Color cropColor = parseCropColor(arguments, event);
+        int colorTolerance = parseColorTolerance(arguments, event);
+        return manipulator.autoCrop(media, fileFormat, cropColor, colorTolerance);
+    }
+
+    @Override
+    public Optional<MediaOperation> createOperation(List<String> arguments, ListMultimap<String, String> extraArguments, MessageReceivedEvent event) {
+        Color cropColor = parseCropColor(arguments, event);
+        int colorTolerance = parseColorTolerance(arguments, event);
+        return Optional.of((imageMedia, manipulator) -> manipulator.autoCrop(imageMedia, cropColor, colorTolerance));
+    }
+
+    private static Color parseCropColor(List<String> arguments, MessageReceivedEvent event) {
         int rgb = CommandParser.parseIntegerArgument(
                 arguments,
                 0,
@@ -35,7 +50,11 @@ public class AutoCropCommand extends MediaCommand {
                 event.getChannel(),
                 (argument, defaultValue) -> "RGB value \"" + argument + "\" is not a whole number, choosing transparent color."
         );
-        int colorTolerance = CommandParser.parseIntegerArgument(
+        return rgb < 0 ? new Color(0, 0, 0, 0) : new Color(rgb);
+    }
+
+    private static int parseColorTolerance(List<String> arguments, MessageReceivedEvent event) {
+        return CommandParser.parseIntegerArgument(
                 arguments,
                 1,
                 DEFAULT_COLOR_TOLERANCE,
@@ -43,6 +62,5 @@ public class AutoCropCommand extends MediaCommand {
                 event.getChannel(),
                 (argument, defaultValue) -> "Color tolerance \"" + argument + "\" is not a whole number, choosing default value of " + defaultValue + "."
         );
-        return manipulator.autoCrop(media, fileFormat, rgb < 0 ? new Color(0, 0, 0, 0) : new Color(rgb), colorTolerance);
     }
 }
@@ -2,14 +2,20 @@ package io.github.shaksternano.mediamanipulator.command;
 
 import com.google.common.collect.ListMultimap;
 import io.github.shaksternano.mediamanipulator.graphics.drawable.Drawable;
+import io.github.shaksternano.mediamanipulator.image.util.ImageSizeHint;
 import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaManipulator;
+import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaOperation;
+import io.github.shaksternano.mediamanipulator.util.DiscordUtil;
 import io.github.shaksternano.mediamanipulator.util.MessageUtil;
+import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * A command that adds a captions media.
@@ -31,9 +37,21 @@ public class CaptionCommand extends MediaCommand {
         CAPTION_2 = caption2;
     }
 
+    @Nullable
+    @Override
+    protected ImageSizeHint getInputSizeHint(@Nullable Guild guild) {
+        return DiscordUtil.getDecodeSizeHint(guild);
+    }
+
     @Override
     public File applyOperation(File media, String fileFormat, List<String> arguments, ListMultimap<String, String> extraArguments, MediaManipulator manipulator, MessageReceivedEvent event) throws IOException {
         Map<String, Drawable> nonTextParts = MessageUtil.getEmojiImages(event.getMessage());
         return manipulator.caption(media, fileFormat, arguments, nonTextParts, CAPTION_2);
     }
+
+    @Override
+    public Optional<MediaOperation> createOperation(List<String> arguments, ListMultimap<String, String> extraArguments, MessageReceivedEvent event) {
+        Map<String, Drawable> nonTextParts = MessageUtil.getEmojiImages(event.getMessage());
+        return Optional.of((imageMedia, manipulator) -> manipulator.caption(imageMedia, arguments, nonTextParts, CAPTION_2));
+    }
 }
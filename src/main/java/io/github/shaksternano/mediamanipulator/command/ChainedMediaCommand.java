@@ -0,0 +1,94 @@
+package io.github.shaksternano.mediamanipulator.command;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ListMultimap;
+import io.github.shaksternano.mediamanipulator.exception.InvalidArgumentException;
+import io.github.shaksternano.mediamanipulator.image.util.ImageSizeHint;
+import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaManipulator;
+import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaOperation;
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Runs several media commands one after the other on the same media, such as {@code %caption hi | speed 2 | spin}.
+ * The media is downloaded and read once at the start of the chain, and only written and compressed once at the end,
+ * with every command in between editing it in memory.
+ */
+public class ChainedMediaCommand extends MediaCommand {
+
+    /**
+     * The word that separates the commands of a chain. It only separates commands when it is followed by the name of
+     * a media command, so it can still be used in the arguments of a command, such as caption text.
+     */
+    public static final String SEPARATOR = "|";
+
+    private final List<Link> links;
+
+    /**
+     * The operations of the commands, which are created when the chain is executed.
+     */
+    private List<MediaOperation> operations = ImmutableList.of();
+
+    /**
+     * Creates a new chain of commands.
+     *
+     * @param links The commands to run, in order, with their arguments.
+     */
+    public ChainedMediaCommand(List<Link> links) {
+        super("chain", "Runs several commands one after the other.");
+        if (links.isEmpty()) {
+            throw new IllegalArgumentException("A chain must contain at least one command!");
+        }
+        this.links = ImmutableList.copyOf(links);
+    }
+
+    public List<Link> getLinks() {
+        return links;
+    }
+
+    @Override
+    public void execute(List<String> arguments, ListMultimap<String, String> extraArguments, MessageReceivedEvent event) {
+        // The arguments of every command are checked before the media is downloaded.
+        ImmutableList.Builder<MediaOperation> builder = ImmutableList.builder();
+        for (Link link : links) {
+            MediaCommand command = link.command();
+            builder.add(command.createOperation(link.arguments(), link.extraArguments(), event).orElseThrow(
+                    () -> new InvalidArgumentException(command.getNameWithPrefix() + " can't be chained with other commands!")
+            ));
+        }
+        operations = builder.build();
+        super.execute(arguments, extraArguments, event);
+    }
+
+    @Override
+    public File applyOperation(File media, String fileFormat, List<String> arguments, ListMultimap<String, String> extraArguments, MediaManipulator manipulator, MessageReceivedEvent event) throws IOException {
+        return manipulator.applyOperations(media, fileFormat, operations);
+    }
+
+    @Nullable
+    @Override
+    protected ImageSizeHint getInputSizeHint(@Nullable Guild guild) {
+        return links.get(0).command().getInputSizeHint(guild);
+    }
+
+    @Nullable
+    @Override
+    protected String getPreferredAnimatedFormat(@Nullable Guild guild) {
+        return links.get(links.size() - 1).command().getPreferredAnimatedFormat(guild);
+    }
+
+    /**
+     * A command in a chain.
+     *
+     * @param command        The command.
+     * @param arguments      The arguments of the command.
+     * @param extraArguments A multimap mapping the additional parameter names to a list of the arguments.
+     */
+    public record Link(MediaCommand command, List<String> arguments, ListMultimap<String, String> extraArguments) {
+    }
+}
@@ -0,0 +1,37 @@
+package io.github.shaksternano.mediamanipulator.command;
+
+import com.google.common.collect.ListMultimap;
+import io.github.shaksternano.mediamanipulator.image.reader.util.ImageReaderRegistry;
+import io.github.shaksternano.mediamanipulator.image.writer.util.ImageWriterRegistry;
+import net.dv8tion.jda.api.entities.Message;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+
+import java.util.List;
+
+/**
+ * Shows how well each image reader and writer has performed for each format,
+ * in the order they are currently tried.
+ */
+public class CodecStatisticsCommand extends BotOwnerCommand {
+
+    /**
+     * Creates a new command object.
+     *
+     * @param name        The name of the command. When a user sends a message starting with {@link Command#PREFIX}
+     *                    followed by this name, the command will be executed.
+     * @param description The description of the command. This is displayed in the help command.
+     */
+    public CodecStatisticsCommand(String name, String description) {
+        super(name, description);
+    }
+
+    @Override
+    protected void botOwnerOperation(List<String> arguments, ListMultimap<String, String> extraArguments, MessageReceivedEvent event) {
+        String statistics = "Readers:\n" + ImageReaderRegistry.getStatisticsSummary() + "\nWriters:\n" + ImageWriterRegistry.getStatisticsSummary();
+        String reply = "```\n" + statistics.strip() + "\n```";
+        if (reply.length() > Message.MAX_CONTENT_LENGTH) {
+            reply = reply.substring(0, Message.MAX_CONTENT_LENGTH - 4) + "\n```";
+        }
+        event.getMessage().reply(reply).queue();
+    }
+}
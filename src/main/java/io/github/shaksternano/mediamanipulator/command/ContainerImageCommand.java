@@ -3,10 +3,14 @@ package io.github.shaksternano.mediamanipulator.command;
 import com.google.common.collect.ListMultimap;
 import io.github.shaksternano.mediamanipulator.graphics.drawable.Drawable;
 import io.github.shaksternano.mediamanipulator.image.backgroundimage.ContainerImageInfo;
+import io.github.shaksternano.mediamanipulator.image.util.ImageSizeHint;
 import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaManipulator;
 import io.github.shaksternano.mediamanipulator.mediamanipulator.util.MediaManipulatorRegistry;
+import io.github.shaksternano.mediamanipulator.util.DiscordUtil;
 import io.github.shaksternano.mediamanipulator.util.MessageUtil;
+import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
@@ -29,6 +33,12 @@ public class ContainerImageCommand extends OptionalFileInputMediaCommand {
         this.CONTAINER_IMAGE_INFO = containerImageInfo;
     }
 
+    @Nullable
+    @Override
+    protected ImageSizeHint getInputSizeHint(@Nullable Guild guild) {
+        return DiscordUtil.getDecodeSizeHint(guild);
+    }
+
     @Override
     public File applyOperation(File media, String fileFormat, List<String> arguments, ListMultimap<String, String> extraArguments, MediaManipulator manipulator, MessageReceivedEvent event) throws IOException {
         return manipulator.containerImageWithImage(media, fileFormat, CONTAINER_IMAGE_INFO);
@@ -5,12 +5,14 @@ import com.google.common.collect.ListMultimap;
 import io.github.shaksternano.mediamanipulator.command.util.CommandParser;
 import io.github.shaksternano.mediamanipulator.exception.MissingArgumentException;
 import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaManipulator;
+import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaOperation;
 import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 public class CropCommand extends MediaCommand {
@@ -29,43 +31,40 @@ public class CropCommand extends MediaCommand {
     @Override
     public File applyOperation(File media, String fileFormat, List<String> arguments, ListMultimap<String, String> extraArguments, MediaManipulator manipulator, MessageReceivedEvent event) throws IOException {
         MessageChannel triggerChannel = event.getChannel();
-        float topRatio = CommandParser.parseFloatExtraArgument(
-                extraArguments,
-                "top",
-                0,
-                result -> result >= 0 && result < 1,
-                triggerChannel,
-                (argument, defaultValue) -> "Top crop ratio \"" + argument + "\" is not a positive number between 0 inclusive and 1 exclusive, ignoring value!"
-        );
-        float rightRatio = CommandParser.parseFloatExtraArgument(
-                extraArguments,
-                "right",
-                0,
-                result -> result >= 0 && result < 1,
-                triggerChannel,
-                (argument, defaultValue) -> "Right crop ratio \"" + argument + "\" is not a positive number between 0 inclusive and 1 exclusive, ignoring value!"
-        );
-        float bottomRatio = CommandParser.parseFloatExtraArgument(
-                extraArguments,
-                "bottom",
-                0,
-                result -> result >= 0 && result < 1,
-                triggerChannel,
-                (argument, defaultValue) -> "Bottom crop ratio \"" + argument + "\" is not a positive number between 0 inclusive and 1 exclusive, ignoring value!"
-        );
-        float leftRatio = CommandParser.parseFloatExtraArgument(
+        float topRatio = parseCropRatio(extraArguments, "top", triggerChannel);
+        float rightRatio = parseCropRatio(extraArguments, "right", triggerChannel);
+        float bottomRatio = parseCropRatio(extraArguments, "bottom", triggerChannel);
+        float leftRatio = parseCropRatio(extraArguments, "left", triggerChannel);
+        checkCropRatios(topRatio, rightRatio, bottomRatio, leftRatio);
+        return manipulator.crop(media, fileFormat, topRatio, rightRatio, bottomRatio, leftRatio);
+    }
+
+    @Override
+    public Optional<MediaOperation> createOperation(List<String> arguments, ListMultimap<String, String> extraArguments, MessageReceivedEvent event) {
+        MessageChannel triggerChannel = event.getChannel();
+        float topRatio = parseCropRatio(extraArguments, "top", triggerChannel);
+        float rightRatio = parseCropRatio(extraArguments, "right", triggerChannel);
+        float bottomRatio = parseCropRatio(extraArguments, "bottom", triggerChannel);
+        float leftRatio = parseCropRatio(extraArguments, "left", triggerChannel);
+        checkCropRatios(topRatio, rightRatio, bottomRatio, leftRatio);
+        return Optional.of((imageMedia, manipulator) -> manipulator.crop(imageMedia, topRatio, rightRatio, bottomRatio, leftRatio));
+    }
+
+    private static float parseCropRatio(ListMultimap<String, String> extraArguments, String side, MessageChannel triggerChannel) {
+        String sideName = side.substring(0, 1).toUpperCase() + side.substring(1);
+        return CommandParser.parseFloatExtraArgument(
                 extraArguments,
-                "left",
+                side,
                 0,
                 result -> result >= 0 && result < 1,
                 triggerChannel,
-                (argument, defaultValue) -> "Left crop ratio \"" + argument + "\" is not a positive number between 0 inclusive and 1 exclusive, ignoring value!"
+                (argument, defaultValue) -> sideName + " crop ratio \"" + argument + "\" is not a positive number between 0 inclusive and 1 exclusive, ignoring value!"
         );
+    }
 
+    private static void checkCropRatios(float topRatio, float rightRatio, float bottomRatio, float leftRatio) {
         if (topRatio == 0 && rightRatio == 0 && bottomRatio == 0 && leftRatio == 0) {
             throw new MissingArgumentException("No valid crop ratios were specified! Please specify at least one valid crop ratio.");
-        } else {
-            return manipulator.crop(media, fileFormat, topRatio, rightRatio, bottomRatio, leftRatio);
         }
     }
 
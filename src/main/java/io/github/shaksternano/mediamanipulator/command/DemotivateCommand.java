@@ -3,14 +3,20 @@ package io.github.shaksternano.mediamanipulator.command;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ListMultimap;
 import io.github.shaksternano.mediamanipulator.graphics.drawable.Drawable;
+import io.github.shaksternano.mediamanipulator.image.util.ImageSizeHint;
 import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaManipulator;
+import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaOperation;
+import io.github.shaksternano.mediamanipulator.util.DiscordUtil;
 import io.github.shaksternano.mediamanipulator.util.MessageUtil;
+import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 public class DemotivateCommand extends MediaCommand {
@@ -26,12 +32,25 @@ public class DemotivateCommand extends MediaCommand {
         super(name, description);
     }
 
+    @Nullable
+    @Override
+    protected ImageSizeHint getInputSizeHint(@Nullable Guild guild) {
+        return DiscordUtil.getDecodeSizeHint(guild);
+    }
+
     @Override
     public File applyOperation(File media, String fileFormat, List<String> arguments, ListMultimap<String, String> extraArguments, MediaManipulator manipulator, MessageReceivedEvent event) throws IOException {
         Map<String, Drawable> nonTextParts = MessageUtil.getEmojiImages(event.getMessage());
         return manipulator.demotivate(media, fileFormat, arguments, extraArguments.get("sub"), nonTextParts);
     }
 
+    @Override
+    public Optional<MediaOperation> createOperation(List<String> arguments, ListMultimap<String, String> extraArguments, MessageReceivedEvent event) {
+        Map<String, Drawable> nonTextParts = MessageUtil.getEmojiImages(event.getMessage());
+        List<String> subText = extraArguments.get("sub");
+        return Optional.of((imageMedia, manipulator) -> manipulator.demotivate(imageMedia, arguments, subText, nonTextParts));
+    }
+
     @Override
     public Set<String> getAdditionalParameterNames() {
         return ImmutableSet.of(
@@ -4,14 +4,20 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ListMultimap;
 import io.github.shaksternano.mediamanipulator.exception.MissingArgumentException;
 import io.github.shaksternano.mediamanipulator.graphics.drawable.Drawable;
+import io.github.shaksternano.mediamanipulator.image.util.ImageSizeHint;
 import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaManipulator;
+import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaOperation;
+import io.github.shaksternano.mediamanipulator.util.DiscordUtil;
 import io.github.shaksternano.mediamanipulator.util.MessageUtil;
+import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 public class ImpactCommand extends MediaCommand {
@@ -27,14 +33,32 @@ public class ImpactCommand extends MediaCommand {
         super(name, description);
     }
 
+    @Nullable
+    @Override
+    protected ImageSizeHint getInputSizeHint(@Nullable Guild guild) {
+        return DiscordUtil.getDecodeSizeHint(guild);
+    }
+
     @Override
     public File applyOperation(File media, String fileFormat, List<String> arguments, ListMultimap<String, String> extraArguments, MediaManipulator manipulator, MessageReceivedEvent event) throws IOException {
         Map<String, Drawable> nonTextParts = MessageUtil.getEmojiImages(event.getMessage());
+        List<String> bottomWords = getBottomWords(arguments, extraArguments);
+        return manipulator.impact(media, fileFormat, arguments, bottomWords, nonTextParts);
+    }
+
+    @Override
+    public Optional<MediaOperation> createOperation(List<String> arguments, ListMultimap<String, String> extraArguments, MessageReceivedEvent event) {
+        List<String> bottomWords = getBottomWords(arguments, extraArguments);
+        Map<String, Drawable> nonTextParts = MessageUtil.getEmojiImages(event.getMessage());
+        return Optional.of((imageMedia, manipulator) -> manipulator.impact(imageMedia, arguments, bottomWords, nonTextParts));
+    }
+
+    private static List<String> getBottomWords(List<String> arguments, ListMultimap<String, String> extraArguments) {
         List<String> bottomWords = extraArguments.get("bottom");
         if (arguments.isEmpty() && bottomWords.isEmpty()) {
             throw new MissingArgumentException("Please specify text!");
         } else {
-            return manipulator.impact(media, fileFormat, arguments, bottomWords, nonTextParts);
+            return bottomWords;
         }
     }
 
@@ -2,18 +2,24 @@ package io.github.shaksternano.mediamanipulator.command;
 
 import com.google.common.collect.ListMultimap;
 import io.github.shaksternano.mediamanipulator.Main;
+import io.github.shaksternano.mediamanipulator.exception.FileTooLargeException;
 import io.github.shaksternano.mediamanipulator.exception.InvalidMediaException;
 import io.github.shaksternano.mediamanipulator.exception.MissingArgumentException;
 import io.github.shaksternano.mediamanipulator.exception.UnsupportedFileFormatException;
+import io.github.shaksternano.mediamanipulator.image.util.ImageSizeHint;
 import io.github.shaksternano.mediamanipulator.io.FileUtil;
+import io.github.shaksternano.mediamanipulator.io.MediaFile;
 import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaManipulator;
+import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaOperation;
 import io.github.shaksternano.mediamanipulator.mediamanipulator.util.MediaManipulatorRegistry;
 import io.github.shaksternano.mediamanipulator.util.DiscordUtil;
 import io.github.shaksternano.mediamanipulator.util.MessageUtil;
 import io.github.shaksternano.mediamanipulator.util.MiscUtil;
+import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import net.dv8tion.jda.api.utils.FileUpload;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
@@ -39,7 +45,7 @@ public abstract class MediaCommand extends BaseCommand {
     }
 
     /**
-     * Gets a media file using {@link FileUtil#downloadFile(String, String)},
+     * Gets a media file using {@link MessageUtil#downloadMedia(Message, String, long)},
      * edits it using {@link #applyOperation(File, String, List, ListMultimap, MediaManipulator, MessageReceivedEvent)},
      * and then sends it to the channel where the command was triggered.
      *
@@ -51,19 +57,36 @@ public abstract class MediaCommand extends BaseCommand {
     @Override
     public void execute(List<String> arguments, ListMultimap<String, String> extraArguments, MessageReceivedEvent event) {
         Message userMessage = event.getMessage();
-        MessageUtil.downloadFile(userMessage, FileUtil.getTempDir().toString()).ifPresentOrElse(file -> {
-            String fileFormat = FileUtil.getFileFormat(file);
+        Optional<MediaFile> mediaOptional;
+        try {
+            mediaOptional = MessageUtil.downloadMedia(userMessage, FileUtil.getTempDir().toString(), DiscordUtil.getMaxDownloadSize(event.getGuild()));
+        } catch (UnsupportedFileFormatException e) {
+            userMessage.reply("Unsupported file type!").queue();
+            return;
+        } catch (FileTooLargeException e) {
+            userMessage.reply(e.getMessage()).queue();
+            return;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        mediaOptional.ifPresentOrElse(media -> {
+            File file = media.file();
+            String fileFormat = media.format();
 
             MediaManipulatorRegistry.getManipulator(fileFormat).ifPresentOrElse(manipulator -> {
                 File editedMedia = null;
                 File compressedMedia = null;
 
                 try {
-                    editedMedia = applyOperation(file, fileFormat, arguments, extraArguments, manipulator, event);
+                    ImageSizeHint sizeHint = getInputSizeHint(event.getGuild());
+                    editedMedia = applyOperation(file, fileFormat, arguments, extraArguments, manipulator.withInputSizeHint(sizeHint), event);
                     String newFileFormat = FileUtil.getFileFormat(editedMedia);
                     Optional<MediaManipulator> manipulatorOptional = MediaManipulatorRegistry.getManipulator(newFileFormat);
                     if (manipulatorOptional.isPresent()) {
-                        compressedMedia = manipulatorOptional.orElseThrow().compress(editedMedia, newFileFormat, event.getGuild());
+                        compressedMedia = manipulatorOptional.orElseThrow()
+                            .withPreferredAnimatedFormat(getPreferredAnimatedFormat(event.getGuild()))
+                            .compress(editedMedia, newFileFormat, event.getGuild());
                     } else {
                         compressedMedia = editedMedia;
                     }
@@ -130,7 +153,32 @@ public abstract class MediaCommand extends BaseCommand {
     }
 
     /**
-     * Applies an operation to the media file specified by {@link FileUtil#downloadFile(String, String)}.
+     * Gets the size that the media being edited is needed at. Commands whose output doesn't have
+     * to keep the full resolution of the input can use this to have large media shrunk while it's
+     * being decoded, which is faster and uses less memory than decoding it at full size.
+     *
+     * @param guild The guild the command was triggered in, or null if it wasn't triggered in a guild.
+     * @return The size that the media being edited is needed at, or null if it should be read at full size.
+     */
+    @Nullable
+    protected ImageSizeHint getInputSizeHint(@Nullable Guild guild) {
+        return null;
+    }
+
+    /**
+     * Gets the format that animated results of this command are sent in, if it isn't GIF.
+     * Commands whose results have to be GIF files can override this to always return null.
+     *
+     * @param guild The guild the command was triggered in, or null if it wasn't triggered in a guild.
+     * @return The format that animated results are sent in, or null if they are sent as GIF files.
+     */
+    @Nullable
+    protected String getPreferredAnimatedFormat(@Nullable Guild guild) {
+        return DiscordUtil.getPreferredAnimatedFormat(guild);
+    }
+
+    /**
+     * Applies an operation to the media file specified by {@link MessageUtil#downloadMedia(Message, String, long)}.
      *
      * @param media          The media file to apply the operation to
      * @param fileFormat     The type of the media file.
@@ -144,4 +192,19 @@ public abstract class MediaCommand extends BaseCommand {
      * @throws MissingArgumentException If the operation requires an argument but none was provided.
      */
     public abstract File applyOperation(File media, String fileFormat, List<String> arguments, ListMultimap<String, String> extraArguments, MediaManipulator manipulator, MessageReceivedEvent event) throws IOException;
+
+    /**
+     * Creates an in-memory version of this command's operation, so that it can be run as part of a
+     * {@link ChainedMediaCommand chain of commands} without the media being written to a file in between.
+     *
+     * @param arguments      The arguments of the command.
+     * @param extraArguments A multimap mapping the additional parameter names to a list of the arguments.
+     * @param event          The {@link MessageReceivedEvent} that triggered the command.
+     * @return An {@link Optional} describing the operation, or an empty {@link Optional} if this command can't be chained.
+     * @throws IllegalArgumentException If an argument is invalid.
+     * @throws MissingArgumentException If the operation requires an argument but none was provided.
+     */
+    public Optional<MediaOperation> createOperation(List<String> arguments, ListMultimap<String, String> extraArguments, MessageReceivedEvent event) {
+        return Optional.empty();
+    }
 }
@@ -2,17 +2,22 @@ package io.github.shaksternano.mediamanipulator.command;
 
 import com.google.common.collect.ListMultimap;
 import io.github.shaksternano.mediamanipulator.Main;
+import io.github.shaksternano.mediamanipulator.exception.FileTooLargeException;
 import io.github.shaksternano.mediamanipulator.exception.InvalidMediaException;
 import io.github.shaksternano.mediamanipulator.exception.UnsupportedFileFormatException;
+import io.github.shaksternano.mediamanipulator.image.util.ImageSizeHint;
 import io.github.shaksternano.mediamanipulator.io.FileUtil;
+import io.github.shaksternano.mediamanipulator.io.MediaFile;
 import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaManipulator;
 import io.github.shaksternano.mediamanipulator.mediamanipulator.util.MediaManipulatorRegistry;
 import io.github.shaksternano.mediamanipulator.util.DiscordUtil;
 import io.github.shaksternano.mediamanipulator.util.MessageUtil;
 import io.github.shaksternano.mediamanipulator.util.MiscUtil;
+import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 import net.dv8tion.jda.api.utils.FileUpload;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
@@ -39,9 +44,25 @@ public abstract class OptionalFileInputMediaCommand extends BaseCommand {
     public void execute(List<String> arguments, ListMultimap<String, String> extraArguments, MessageReceivedEvent event) {
         Message userMessage = event.getMessage();
 
-        File file = arguments.size() == 0 ? MessageUtil.downloadFile(userMessage, FileUtil.getTempDir().toString()).orElse(null) : null;
-        String fileFormat = file == null ? null : FileUtil.getFileFormat(file);
+        MediaFile media;
+        try {
+            media = arguments.size() == 0 ? MessageUtil.downloadMedia(userMessage, FileUtil.getTempDir().toString(), DiscordUtil.getMaxDownloadSize(event.getGuild())).orElse(null) : null;
+        } catch (UnsupportedFileFormatException e) {
+            userMessage.reply("Unsupported file type!").queue();
+            return;
+        } catch (FileTooLargeException e) {
+            userMessage.reply(e.getMessage()).queue();
+            return;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        File file = media == null ? null : media.file();
+        String fileFormat = media == null ? null : media.format();
         MediaManipulator manipulator = fileFormat == null ? null : MediaManipulatorRegistry.getManipulator(fileFormat).orElse(null);
+        if (manipulator != null) {
+            manipulator = manipulator.withInputSizeHint(getInputSizeHint(event.getGuild()));
+        }
 
         File editedMedia = null;
         File compressedMedia = null;
@@ -56,7 +77,9 @@ public abstract class OptionalFileInputMediaCommand extends BaseCommand {
             String newFileFormat = FileUtil.getFileFormat(editedMedia);
             Optional<MediaManipulator> manipulatorOptional = MediaManipulatorRegistry.getManipulator(newFileFormat);
             if (manipulatorOptional.isPresent()) {
-                compressedMedia = manipulatorOptional.orElseThrow().compress(editedMedia, newFileFormat, event.getGuild());
+                compressedMedia = manipulatorOptional.orElseThrow()
+                        .withPreferredAnimatedFormat(getPreferredAnimatedFormat(event.getGuild()))
+                        .compress(editedMedia, newFileFormat, event.getGuild());
             } else {
                 compressedMedia = editedMedia;
             }
@@ -122,6 +145,31 @@ public abstract class OptionalFileInputMediaCommand extends BaseCommand {
         }
     }
 
+    /**
+     * Gets the size that the media being edited is needed at. Commands whose output doesn't have
+     * to keep the full resolution of the input can use this to have large media shrunk while it's
+     * being decoded, which is faster and uses less memory than decoding it at full size.
+     *
+     * @param guild The guild the command was triggered in, or null if it wasn't triggered in a guild.
+     * @return The size that the media being edited is needed at, or null if it should be read at full size.
+     */
+    @Nullable
+    protected ImageSizeHint getInputSizeHint(@Nullable Guild guild) {
+        return null;
+    }
+
+    /**
+     * Gets the format that animated results of this command are sent in, if it isn't GIF.
+     * Commands whose results have to be GIF files can override this to always return null.
+     *
+     * @param guild The guild the command was triggered in, or null if it wasn't triggered in a guild.
+     * @return The format that animated results are sent in, or null if they are sent as GIF files.
+     */
+    @Nullable
+    protected String getPreferredAnimatedFormat(@Nullable Guild guild) {
+        return DiscordUtil.getPreferredAnimatedFormat(guild);
+    }
+
     public abstract File applyOperation(File media, String fileFormat, List<String> arguments, ListMultimap<String, String> extraArguments, MediaManipulator manipulator, MessageReceivedEvent event) throws IOException;
 
     public abstract File applyOperation(List<String> arguments, ListMultimap<String, String> extraArguments, MessageReceivedEvent event) throws IOException;
@@ -3,11 +3,13 @@ package io.github.shaksternano.mediamanipulator.command;
 import com.google.common.collect.ListMultimap;
 import io.github.shaksternano.mediamanipulator.command.util.CommandParser;
 import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaManipulator;
+import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaOperation;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 public class PixelateCommand extends MediaCommand {
 
@@ -26,7 +28,18 @@ public class PixelateCommand extends MediaCommand {
 
     @Override
     public File applyOperation(File media, String fileFormat, List<String> arguments, ListMultimap<String, String> extraArguments, MediaManipulator manipulator, MessageReceivedEvent event) throws IOException {
-        int pixelationMultiplier = CommandParser.parseIntegerArgument(
+        int pixelationMultiplier = parsePixelationMultiplier(arguments, event);
+        return manipulator.pixelate(media, fileFormat, pixelationMultiplier);
+    }
+
+    @Override
+    public Optional<MediaOperation> createOperation(List<String> arguments, ListMultimap<String, String> extraArguments, MessageReceivedEvent event) {
+        int pixelationMultiplier = parsePixelationMultiplier(arguments, event);
+        return Optional.of((imageMedia, manipulator) -> manipulator.pixelate(imageMedia, pixelationMultiplier));
+    }
+
+    private static int parsePixelationMultiplier(List<String> arguments, MessageReceivedEvent event) {
+        return CommandParser.parseIntegerArgument(
                 arguments,
                 0,
                 DEFAULT_PIXELATION_MULTIPLIER,
@@ -34,6 +47,5 @@ public class PixelateCommand extends MediaCommand {
                 event.getChannel(),
                 (argument, defaultValue) -> "Pixelation multiplier \"" + argument + "\" is not a number. Using default value of " + defaultValue + "."
         );
-        return manipulator.pixelate(media, fileFormat, pixelationMultiplier);
     }
 }
@@ -4,11 +4,13 @@ import com.google.common.collect.ListMultimap;
 import io.github.shaksternano.mediamanipulator.exception.InvalidArgumentException;
 import io.github.shaksternano.mediamanipulator.exception.MissingArgumentException;
 import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaManipulator;
+import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaOperation;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Resizes an image by a certain amount.
@@ -46,10 +48,20 @@ public class ResizeCommand extends MediaCommand {
      */
     @Override
     public File applyOperation(File media, String fileFormat, List<String> arguments, ListMultimap<String, String> extraArguments, MediaManipulator manipulator, MessageReceivedEvent event) throws IOException {
+        float resizeMultiplier = parseResizeMultiplier(arguments);
+        return manipulator.resize(media, fileFormat, resizeMultiplier, RAW, true);
+    }
+
+    @Override
+    public Optional<MediaOperation> createOperation(List<String> arguments, ListMultimap<String, String> extraArguments, MessageReceivedEvent event) {
+        float resizeMultiplier = parseResizeMultiplier(arguments);
+        return Optional.of((imageMedia, manipulator) -> manipulator.resize(imageMedia, resizeMultiplier, RAW));
+    }
+
+    private static float parseResizeMultiplier(List<String> arguments) {
         if (arguments.size() > 0) {
             try {
-                float resizeMultiplier = Float.parseFloat(arguments.get(0));
-                return manipulator.resize(media, fileFormat, resizeMultiplier, RAW, true);
+                return Float.parseFloat(arguments.get(0));
             } catch (NumberFormatException e) {
                 throw new InvalidArgumentException("Scale multiplier \"" + arguments.get(0) + "\" is not a number!");
             }
@@ -3,12 +3,15 @@ package io.github.shaksternano.mediamanipulator.command;
 import com.google.common.collect.ListMultimap;
 import io.github.shaksternano.mediamanipulator.command.util.CommandParser;
 import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaManipulator;
+import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaOperation;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import org.jetbrains.annotations.Nullable;
 
 import java.awt.*;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 public class RotateCommand extends MediaCommand {
 
@@ -27,7 +30,28 @@ public class RotateCommand extends MediaCommand {
 
     @Override
     public File applyOperation(File media, String fileFormat, List<String> arguments, ListMultimap<String, String> extraArguments, MediaManipulator manipulator, MessageReceivedEvent event) throws IOException {
-        float rotation = CommandParser.parseFloatArgument(
+        float rotation = parseRotation(arguments, event);
+        Color backgroundColor = parseBackgroundColor(arguments, event);
+        return manipulator.rotate(media, fileFormat, rotation, backgroundColor);
+    }
+
+    @Override
+    public Optional<MediaOperation> createOperation(List<String> arguments, ListMultimap<String, String> extraArguments, MessageReceivedEvent event) {
+        float rotation = parseRotation(arguments, event);
+        Color backgroundColor = parseBackgroundColor(arguments, event);
+        return Optional.of(createOperation(rotation, backgroundColor));
+    }
+
+    static MediaOperation createOperation(float rotation, @Nullable Color backgroundColor) {
+        // The corners are transparent, so the result of the chain is written as PNG.
+        return MediaOperation.withOutputFormat(
+                "png",
+                (imageMedia, manipulator) -> manipulator.rotate(imageMedia, rotation, backgroundColor)
+        );
+    }
+
+    private static float parseRotation(List<String> arguments, MessageReceivedEvent event) {
+        return CommandParser.parseFloatArgument(
                 arguments,
                 0,
                 DEFAULT_ROTATION,
@@ -35,6 +59,10 @@ public class RotateCommand extends MediaCommand {
                 event.getChannel(),
                 (argument, defaultValue) -> "Rotation \"" + argument + "\" is not a number. Using default value of " + defaultValue + "."
         );
+    }
+
+    @Nullable
+    private static Color parseBackgroundColor(List<String> arguments, MessageReceivedEvent event) {
         int rgb = CommandParser.parseIntegerArgument(
                 arguments,
                 1,
@@ -43,6 +71,6 @@ public class RotateCommand extends MediaCommand {
                 event.getChannel(),
                 (argument, defaultValue) -> "RGB value \"" + argument + "\" is not a whole number. Setting transparent background color."
         );
-        return manipulator.rotate(media, fileFormat, rotation, rgb < 0 ? null : new Color(rgb));
+        return rgb < 0 ? null : new Color(rgb);
     }
 }
@@ -1,12 +1,18 @@
 package io.github.shaksternano.mediamanipulator.command;
 
 import com.google.common.collect.ListMultimap;
+import io.github.shaksternano.mediamanipulator.image.util.ImageSizeHint;
 import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaManipulator;
+import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaOperation;
+import io.github.shaksternano.mediamanipulator.util.DiscordUtil;
+import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Adds a speech bubble on top of media.
@@ -40,8 +46,23 @@ public class SpeechBubbleCommand extends MediaCommand {
      * @return The edited media file.
      * @throws IOException If an error occurs while applying the operation.
      */
+    @Nullable
+    @Override
+    protected ImageSizeHint getInputSizeHint(@Nullable Guild guild) {
+        return DiscordUtil.getDecodeSizeHint(guild);
+    }
+
     @Override
     public File applyOperation(File media, String fileFormat, List<String> arguments, ListMultimap<String, String> extraArguments, MediaManipulator manipulator, MessageReceivedEvent event) throws IOException {
         return manipulator.speechBubble(media, fileFormat, CUT_OUT);
     }
+
+    @Override
+    public Optional<MediaOperation> createOperation(List<String> arguments, ListMultimap<String, String> extraArguments, MessageReceivedEvent event) {
+        // The cut out area is transparent, so the result of the chain is written as PNG.
+        return Optional.of(MediaOperation.withOutputFormat(
+                CUT_OUT ? "png" : null,
+                (imageMedia, manipulator) -> manipulator.speechBubble(imageMedia, CUT_OUT)
+        ));
+    }
 }
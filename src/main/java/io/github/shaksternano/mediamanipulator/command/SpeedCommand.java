@@ -3,11 +3,13 @@ package io.github.shaksternano.mediamanipulator.command;
 import com.google.common.collect.ListMultimap;
 import io.github.shaksternano.mediamanipulator.command.util.CommandParser;
 import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaManipulator;
+import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaOperation;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 public class SpeedCommand extends MediaCommand {
 
@@ -26,7 +28,18 @@ public class SpeedCommand extends MediaCommand {
 
     @Override
     public File applyOperation(File media, String fileFormat, List<String> arguments, ListMultimap<String, String> extraArguments, MediaManipulator manipulator, MessageReceivedEvent event) throws IOException {
-        float speedMultiplier = CommandParser.parseFloatArgument(
+        float speedMultiplier = parseSpeedMultiplier(arguments, event);
+        return manipulator.speed(media, fileFormat, speedMultiplier);
+    }
+
+    @Override
+    public Optional<MediaOperation> createOperation(List<String> arguments, ListMultimap<String, String> extraArguments, MessageReceivedEvent event) {
+        float speedMultiplier = parseSpeedMultiplier(arguments, event);
+        return Optional.of((imageMedia, manipulator) -> manipulator.speed(imageMedia, speedMultiplier));
+    }
+
+    private static float parseSpeedMultiplier(List<String> arguments, MessageReceivedEvent event) {
+        return CommandParser.parseFloatArgument(
                 arguments,
                 0,
                 DEFAULT_SPEED_MULTIPLIER,
@@ -34,6 +47,5 @@ public class SpeedCommand extends MediaCommand {
                 event.getChannel(),
                 (argument, defaultValue) -> "Speed multiplier \"" + argument + "\" is not a number. Using default value of " + defaultValue + "."
         );
-        return manipulator.speed(media, fileFormat, speedMultiplier);
     }
 }
@@ -2,13 +2,19 @@ package io.github.shaksternano.mediamanipulator.command;
 
 import com.google.common.collect.ListMultimap;
 import io.github.shaksternano.mediamanipulator.command.util.CommandParser;
+import io.github.shaksternano.mediamanipulator.image.util.ImageSizeHint;
 import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaManipulator;
+import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaOperation;
+import io.github.shaksternano.mediamanipulator.util.DiscordUtil;
+import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import org.jetbrains.annotations.Nullable;
 
 import java.awt.*;
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 public class SpinCommand extends MediaCommand {
 
@@ -25,15 +31,42 @@ public class SpinCommand extends MediaCommand {
         super(name, description);
     }
 
+    @Nullable
+    @Override
+    protected ImageSizeHint getInputSizeHint(@Nullable Guild guild) {
+        return DiscordUtil.getDecodeSizeHint(guild);
+    }
+
     @Override
     public File applyOperation(File media, String fileFormat, List<String> arguments, ListMultimap<String, String> extraArguments, MediaManipulator manipulator, MessageReceivedEvent event) throws IOException {
-        float spinSpeed = CommandParser.parseFloatArgument(arguments,
+        float spinSpeed = parseSpinSpeed(arguments, event);
+        Color backgroundColor = parseBackgroundColor(arguments, event);
+        return manipulator.spin(media, fileFormat, spinSpeed, backgroundColor);
+    }
+
+    @Override
+    public Optional<MediaOperation> createOperation(List<String> arguments, ListMultimap<String, String> extraArguments, MessageReceivedEvent event) {
+        float spinSpeed = parseSpinSpeed(arguments, event);
+        Color backgroundColor = parseBackgroundColor(arguments, event);
+        // Without a background color the corners are transparent, so the result of the chain is written as APNG.
+        return Optional.of(MediaOperation.withOutputFormat(
+                backgroundColor == null ? "png" : "gif",
+                (imageMedia, manipulator) -> manipulator.spin(imageMedia, spinSpeed, backgroundColor)
+        ));
+    }
+
+    private static float parseSpinSpeed(List<String> arguments, MessageReceivedEvent event) {
+        return CommandParser.parseFloatArgument(arguments,
                 0,
                 DEFAULT_SPIN_SPEED,
                 null,
                 event.getChannel(),
                 (argument, defaultValue) -> "Spin speed \"" + argument + "\" is not a number. Using default value of " + defaultValue + "."
         );
+    }
+
+    @Nullable
+    private static Color parseBackgroundColor(List<String> arguments, MessageReceivedEvent event) {
         int rgb = CommandParser.parseIntegerArgument(
                 arguments,
                 1,
@@ -42,6 +75,6 @@ public class SpinCommand extends MediaCommand {
                 event.getChannel(),
                 (argument, defaultValue) -> "RGB value \"" + argument + "\" is not a whole number. Setting transparent background color."
         );
-        return manipulator.spin(media, fileFormat, spinSpeed, rgb < 0 ? null : new Color(rgb));
+        return rgb < 0 ? null : new Color(rgb);
     }
 }
@@ -3,11 +3,13 @@ package io.github.shaksternano.mediamanipulator.command;
 import com.google.common.collect.ListMultimap;
 import io.github.shaksternano.mediamanipulator.command.util.CommandParser;
 import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaManipulator;
+import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaOperation;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * A command that stretches media.
@@ -55,7 +57,20 @@ public class StretchCommand extends MediaCommand {
      */
     @Override
     public File applyOperation(File media, String fileFormat, List<String> arguments, ListMultimap<String, String> extraArguments, MediaManipulator manipulator, MessageReceivedEvent event) throws IOException {
-        float widthMultiplier = CommandParser.parseFloatArgument(
+        float widthMultiplier = parseWidthMultiplier(arguments, event);
+        float heightMultiplier = parseHeightMultiplier(arguments, event);
+        return manipulator.stretch(media, fileFormat, widthMultiplier, heightMultiplier, RAW);
+    }
+
+    @Override
+    public Optional<MediaOperation> createOperation(List<String> arguments, ListMultimap<String, String> extraArguments, MessageReceivedEvent event) {
+        float widthMultiplier = parseWidthMultiplier(arguments, event);
+        float heightMultiplier = parseHeightMultiplier(arguments, event);
+        return Optional.of((imageMedia, manipulator) -> manipulator.stretch(imageMedia, widthMultiplier, heightMultiplier, RAW));
+    }
+
+    private static float parseWidthMultiplier(List<String> arguments, MessageReceivedEvent event) {
+        return CommandParser.parseFloatArgument(
                 arguments,
                 0,
                 DEFAULT_WIDTH_MULTIPLIER,
@@ -63,7 +78,10 @@ public class StretchCommand extends MediaCommand {
                 event.getChannel(),
                 (argument, defaultValue) -> "Width multiplier \"" + argument + "\" is not a number. Using default value of " + defaultValue + "."
         );
-        float heightMultiplier = CommandParser.parseFloatArgument(
+    }
+
+    private static float parseHeightMultiplier(List<String> arguments, MessageReceivedEvent event) {
+        return CommandParser.parseFloatArgument(
                 arguments,
                 1,
                 DEFAULT_HEIGHT_MULTIPLIER,
@@ -71,7 +89,5 @@ public class StretchCommand extends MediaCommand {
                 event.getChannel(),
                 (argument, defaultValue) -> "Height multiplier \"" + argument + "\" is not a number. Using default value of " + defaultValue + "."
         );
-
-        return manipulator.stretch(media, fileFormat, widthMultiplier, heightMultiplier, RAW);
     }
 }
@@ -2,7 +2,9 @@ package io.github.shaksternano.mediamanipulator.command;
 
 import com.google.common.collect.ListMultimap;
 import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaManipulator;
+import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
@@ -43,4 +45,13 @@ public class ToGifCommand extends MediaCommand {
     public File applyOperation(File media, String fileFormat, List<String> arguments, ListMultimap<String, String> extraArguments, MediaManipulator manipulator, MessageReceivedEvent event) throws IOException {
         return manipulator.makeGif(media, fileFormat, JUST_RENAME_FILE);
     }
+
+    /**
+     * The result is always a GIF file, so that it can be favorited as a GIF.
+     */
+    @Nullable
+    @Override
+    protected String getPreferredAnimatedFormat(@Nullable Guild guild) {
+        return null;
+    }
 }
@@ -4,7 +4,9 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ListMultimap;
 import io.github.shaksternano.mediamanipulator.Main;
+import io.github.shaksternano.mediamanipulator.command.ChainedMediaCommand;
 import io.github.shaksternano.mediamanipulator.command.Command;
+import io.github.shaksternano.mediamanipulator.command.MediaCommand;
 import io.github.shaksternano.mediamanipulator.exception.InvalidArgumentException;
 import io.github.shaksternano.mediamanipulator.exception.MissingArgumentException;
 import io.github.shaksternano.mediamanipulator.util.DiscordUtil;
@@ -44,6 +46,11 @@ public class CommandParser {
         if (commandParts.size() > 0) {
             Optional<Command> commandOptional = CommandRegistry.getCommand(commandParts.get(0));
 
+            List<List<String>> chain = splitChain(commandParts);
+            if (chain.size() > 1) {
+                commandOptional = Optional.of(createChain(chain));
+            }
+
             commandOptional.ifPresent(command -> {
                 try {
                     channel.sendTyping().queue();
@@ -91,6 +98,72 @@ public class CommandParser {
         return ImmutableList.of();
     }
 
+    /**
+     * Splits the parts of a message into the commands of a chain, which are separated by {@link ChainedMediaCommand#SEPARATOR}.
+     * A separator only starts a new command if the message starts with a {@link MediaCommand} and the part after
+     * the separator is the name of another one, with or without the {@link Command#PREFIX}. Any other separator is kept
+     * as an argument, so text such as {@code %caption cats | dogs} isn't split.
+     * The first part of each command is its command word, in lower case and without the {@link Command#PREFIX}.
+     *
+     * @param commandParts The parts of the message, starting with the command word.
+     * @return The parts of each command in the chain. If the message isn't a chain, this only contains the parts of the message.
+     */
+    static List<List<String>> splitChain(List<String> commandParts) {
+        if (commandParts.isEmpty() || !isMediaCommand(commandParts.get(0))) {
+            return ImmutableList.of(commandParts);
+        }
+
+        ImmutableList.Builder<List<String>> chainBuilder = new ImmutableList.Builder<>();
+        ImmutableList.Builder<String> partsBuilder = new ImmutableList.Builder<>();
+        partsBuilder.add(getCommandWord(commandParts.get(0)));
+        for (int i = 1; i < commandParts.size(); i++) {
+            String commandPart = commandParts.get(i);
+            if (commandPart.equals(ChainedMediaCommand.SEPARATOR) && i + 1 < commandParts.size() && isMediaCommand(commandParts.get(i + 1))) {
+                chainBuilder.add(partsBuilder.build());
+                partsBuilder = new ImmutableList.Builder<>();
+                i++;
+                partsBuilder.add(getCommandWord(commandParts.get(i)));
+            } else {
+                partsBuilder.add(commandPart);
+            }
+        }
+        chainBuilder.add(partsBuilder.build());
+        return chainBuilder.build();
+    }
+
+    private static String getCommandWord(String commandPart) {
+        String commandWord = commandPart.startsWith(Command.PREFIX) ? commandPart.substring(1) : commandPart;
+        return commandWord.toLowerCase();
+    }
+
+    private static boolean isMediaCommand(String commandPart) {
+        return CommandRegistry.getCommand(getCommandWord(commandPart)).orElse(null) instanceof MediaCommand;
+    }
+
+    /**
+     * Creates a chain of media commands.
+     *
+     * @param chain The parts of each command in the chain, as split by {@link #splitChain(List)}.
+     * @return The chain.
+     * @throws IllegalArgumentException If a command in the chain isn't a registered {@link MediaCommand}.
+     */
+    static ChainedMediaCommand createChain(List<List<String>> chain) {
+        ImmutableList.Builder<ChainedMediaCommand.Link> linksBuilder = new ImmutableList.Builder<>();
+        for (List<String> commandParts : chain) {
+            String commandWord = commandParts.get(0);
+            if (CommandRegistry.getCommand(commandWord).orElse(null) instanceof MediaCommand mediaCommand) {
+                linksBuilder.add(new ChainedMediaCommand.Link(
+                        mediaCommand,
+                        parseBaseArguments(commandParts, mediaCommand),
+                        parseExtraArguments(commandParts, mediaCommand)
+                ));
+            } else {
+                throw new IllegalArgumentException("\"" + commandWord + "\" isn't a media command!");
+            }
+        }
+        return new ChainedMediaCommand(linksBuilder.build());
+    }
+
     /**
      * Removes the command word from a message array, leaving only the arguments of the command.
      *
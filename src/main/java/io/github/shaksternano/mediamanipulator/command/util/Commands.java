@@ -241,6 +241,11 @@ public class Commands {
             "Get the memory usage of the bot."
     ));
 
+    public static final Command CODEC_STATISTICS = addCommandToRegister(new CodecStatisticsCommand(
+            "codecstats",
+            "Gets how well each image reader and writer has performed for each format."
+    ));
+
     public static final Command GARBAGE_COLLECTOR = addCommandToRegister(new GarbageCollectorCommand(
             "gc",
             "Runs the garbage collector."
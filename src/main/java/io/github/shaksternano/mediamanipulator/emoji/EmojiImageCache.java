@@ -0,0 +1,232 @@
+package io.github.shaksternano.mediamanipulator.emoji;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.github.shaksternano.mediamanipulator.Main;
+import io.github.shaksternano.mediamanipulator.graphics.drawable.Drawable;
+import io.github.shaksternano.mediamanipulator.graphics.drawable.ImageDrawable;
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+import io.github.shaksternano.mediamanipulator.image.reader.util.ImageReaders;
+import io.github.shaksternano.mediamanipulator.image.util.ImageUtil;
+import io.github.shaksternano.mediamanipulator.io.FileUtil;
+import io.github.shaksternano.mediamanipulator.util.NetworkUtil;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+
+/**
+ * A process wide cache of emoji images. Emojis are stored in two tiers, the raw downloaded bytes
+ * are stored on disk, and the decoded frames, along with any resized versions of them, are kept in memory.
+ */
+public class EmojiImageCache {
+
+    /**
+     * The maximum total number of pixels of the decoded emoji frames kept in memory.
+     */
+    private static final long MAXIMUM_CACHED_PIXELS = 4_000_000;
+
+    /**
+     * The maximum number of resized versions kept per emoji for each dimension.
+     */
+    private static final int MAXIMUM_SCALED_VARIANTS = 4;
+
+    /**
+     * The maximum size of an emoji image that will be downloaded, 8MB.
+     */
+    private static final int MAXIMUM_EMOJI_FILE_SIZE = 8388608;
+
+    /**
+     * The maximum total size of the emoji images kept on disk, 256MB.
+     */
+    private static final long MAXIMUM_DISK_CACHE_SIZE = 268435456;
+
+    private static final LoadingCache<String, CachedEmoji> DECODED_EMOJIS = CacheBuilder.newBuilder()
+            .maximumWeight(MAXIMUM_CACHED_PIXELS)
+            .weigher((String url, CachedEmoji emoji) -> emoji.getPixelCount())
+            .build(new CacheLoader<>() {
+                @Override
+                public CachedEmoji load(String url) throws IOException {
+                    return decode(url);
+                }
+            });
+
+    private static File diskCacheDirectory;
+
+    /**
+     * Gets a {@link Drawable} of the emoji image at the given URL.
+     * The image is only downloaded if it isn't already cached.
+     *
+     * @param url The URL of the emoji image.
+     * @return A new {@link Drawable} of the emoji image.
+     * @throws IOException If an error occurs while downloading or decoding the image.
+     */
+    public static Drawable getEmojiDrawable(String url) throws IOException {
+        try {
+            return new ImageDrawable(DECODED_EMOJIS.get(url));
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            } else if (cause instanceof UncheckedIOException uncheckedIOException) {
+                throw uncheckedIOException.getCause();
+            } else {
+                throw new IOException("Error loading emoji image from " + url + "!", cause);
+            }
+        }
+    }
+
+    private static CachedEmoji decode(String url) throws IOException {
+        byte[] imageBytes = getImageBytes(url);
+        String imageFormat = ImageUtil.getImageFormat(ByteBuffer.wrap(imageBytes));
+        ImageMedia imageMedia = ImageReaders.read(imageBytes, imageFormat, null);
+        return new CachedEmoji(imageMedia.toNormalisedImages());
+    }
+
+    private static byte[] getImageBytes(String url) throws IOException {
+        File cachedFile = new File(getDiskCacheDirectory(), Hashing.sha256().hashString(url, StandardCharsets.UTF_8).toString());
+        if (cachedFile.isFile()) {
+            try {
+                byte[] imageBytes = Files.readAllBytes(cachedFile.toPath());
+                // The modification time is used as the last time the file was used when evicting files.
+                cachedFile.setLastModified(System.currentTimeMillis());
+                return imageBytes;
+            } catch (IOException e) {
+                Main.getLogger().error("Error reading cached emoji image " + cachedFile + ", downloading it again.", e);
+            }
+        }
+
+        // One byte more than the limit is downloaded to tell a file that is exactly at the limit apart from a larger one.
+        byte[] imageBytes = NetworkUtil.getBytes(url, MAXIMUM_EMOJI_FILE_SIZE + 1);
+        if (imageBytes.length > MAXIMUM_EMOJI_FILE_SIZE) {
+            throw new IOException("Emoji image from " + url + " is larger than the maximum size of " + MAXIMUM_EMOJI_FILE_SIZE + " bytes!");
+        }
+
+        try {
+            File tempFile = FileUtil.getUniqueTempFile(cachedFile.getName() + ".download");
+            Files.write(tempFile.toPath(), imageBytes);
+            Files.move(tempFile.toPath(), cachedFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            evictDiskCache();
+        } catch (IOException e) {
+            Main.getLogger().error("Error caching emoji image from " + url + "!", e);
+        }
+
+        return imageBytes;
+    }
+
+    /**
+     * Deletes the least recently used emoji images on disk until their total size is under {@link #MAXIMUM_DISK_CACHE_SIZE}.
+     */
+    private static synchronized void evictDiskCache() {
+        File[] files = getDiskCacheDirectory().listFiles(File::isFile);
+        if (files == null) {
+            return;
+        }
+
+        // The sizes and times are read once, as other threads can use the files while they are being sorted.
+        List<DiskCacheEntry> entries = new ArrayList<>(files.length);
+        long totalSize = 0;
+        for (File file : files) {
+            DiskCacheEntry entry = new DiskCacheEntry(file, file.length(), file.lastModified());
+            entries.add(entry);
+            totalSize += entry.size();
+        }
+        if (totalSize <= MAXIMUM_DISK_CACHE_SIZE) {
+            return;
+        }
+
+        entries.sort(Comparator.comparingLong(DiskCacheEntry::lastModified));
+        for (DiskCacheEntry entry : entries) {
+            if (totalSize <= MAXIMUM_DISK_CACHE_SIZE) {
+                break;
+            }
+            if (entry.file().delete()) {
+                totalSize -= entry.size();
+            }
+        }
+    }
+
+    private static synchronized File getDiskCacheDirectory() {
+        if (diskCacheDirectory == null || !diskCacheDirectory.isDirectory()) {
+            diskCacheDirectory = FileUtil.getUniqueFile(FileUtil.getTempDir() + File.separator + "emoji_cache", true, false);
+        }
+
+        return diskCacheDirectory;
+    }
+
+    private record DiskCacheEntry(File file, long size, long lastModified) {
+    }
+
+    /**
+     * The decoded frames of an emoji, along with the resized versions of them that have been requested.
+     */
+    private static class CachedEmoji implements ImageDrawable.ScaledImages {
+
+        private final List<BufferedImage> images;
+        private final Map<Integer, List<BufferedImage>> imagesScaledToWidth = createScaledVariantMap();
+        private final Map<Integer, List<BufferedImage>> imagesScaledToHeight = createScaledVariantMap();
+
+        private CachedEmoji(List<BufferedImage> images) {
+            this.images = ImmutableList.copyOf(images);
+        }
+
+        @Override
+        public List<BufferedImage> getImages() {
+            return images;
+        }
+
+        @Override
+        public List<BufferedImage> getImagesScaledToWidth(int width) {
+            return imagesScaledToWidth.computeIfAbsent(width, key -> scaleImages(image -> ImageUtil.fitWidth(image, width)));
+        }
+
+        @Override
+        public List<BufferedImage> getImagesScaledToHeight(int height) {
+            return imagesScaledToHeight.computeIfAbsent(height, key -> scaleImages(image -> ImageUtil.fitHeight(image, height)));
+        }
+
+        /**
+         * Scales every image, making sure that frames that share the same image still do after scaling.
+         */
+        private List<BufferedImage> scaleImages(Function<BufferedImage, BufferedImage> scaler) {
+            Map<BufferedImage, BufferedImage> scaled = new IdentityHashMap<>();
+            ImmutableList.Builder<BufferedImage> builder = ImmutableList.builder();
+            for (BufferedImage image : images) {
+                builder.add(scaled.computeIfAbsent(image, scaler));
+            }
+            return builder.build();
+        }
+
+        private int getPixelCount() {
+            BufferedImage firstImage = images.get(0);
+            return firstImage.getWidth() * firstImage.getHeight() * images.size();
+        }
+
+        private static Map<Integer, List<BufferedImage>> createScaledVariantMap() {
+            return Collections.synchronizedMap(new LinkedHashMap<>(MAXIMUM_SCALED_VARIANTS, 0.75F, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, List<BufferedImage>> eldest) {
+                    return size() > MAXIMUM_SCALED_VARIANTS;
+                }
+            });
+        }
+    }
+}
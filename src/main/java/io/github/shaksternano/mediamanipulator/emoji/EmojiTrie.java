@@ -0,0 +1,90 @@
+package io.github.shaksternano.mediamanipulator.emoji;
+
+import java.util.Arrays;
+
+/**
+ * A trie of emoji code point sequences, used to find emojis in text in a single pass.
+ */
+public class EmojiTrie {
+
+    private final Node root = new Node();
+
+    /**
+     * Adds an emoji to the trie.
+     *
+     * @param codePoints The code points that make up the emoji.
+     */
+    public void add(int[] codePoints) {
+        if (codePoints.length == 0) {
+            throw new IllegalArgumentException("Emoji must have at least one code point!");
+        } else {
+            Node node = root;
+            for (int codePoint : codePoints) {
+                node = node.getOrCreateChild(codePoint);
+            }
+            node.isEmoji = true;
+        }
+    }
+
+    /**
+     * Finds the longest emoji that starts at the given index.
+     *
+     * @param codePoints The code points to search.
+     * @param start      The index of the code point to start searching from.
+     * @return The number of code points that make up the longest emoji starting at the given index,
+     * or 0 if no emoji starts at the given index.
+     */
+    public int getLongestMatchLength(int[] codePoints, int start) {
+        int longestMatchLength = 0;
+        Node node = root;
+        for (int i = start; i < codePoints.length; i++) {
+            node = node.getChild(codePoints[i]);
+            if (node == null) {
+                break;
+            } else if (node.isEmoji) {
+                longestMatchLength = i - start + 1;
+            }
+        }
+        return longestMatchLength;
+    }
+
+    /**
+     * A trie node. The children are stored in arrays sorted by code point
+     * so that looking up a child doesn't need to box the code point.
+     */
+    private static class Node {
+
+        private int[] childCodePoints = new int[0];
+        private Node[] children = new Node[0];
+        private boolean isEmoji = false;
+
+        private Node getChild(int codePoint) {
+            int index = Arrays.binarySearch(childCodePoints, codePoint);
+            return index < 0 ? null : children[index];
+        }
+
+        private Node getOrCreateChild(int codePoint) {
+            int index = Arrays.binarySearch(childCodePoints, codePoint);
+            if (index >= 0) {
+                return children[index];
+            } else {
+                int insertionIndex = -(index + 1);
+                int[] newChildCodePoints = new int[childCodePoints.length + 1];
+                Node[] newChildren = new Node[children.length + 1];
+
+                System.arraycopy(childCodePoints, 0, newChildCodePoints, 0, insertionIndex);
+                System.arraycopy(children, 0, newChildren, 0, insertionIndex);
+                System.arraycopy(childCodePoints, insertionIndex, newChildCodePoints, insertionIndex + 1, childCodePoints.length - insertionIndex);
+                System.arraycopy(children, insertionIndex, newChildren, insertionIndex + 1, children.length - insertionIndex);
+
+                Node child = new Node();
+                newChildCodePoints[insertionIndex] = codePoint;
+                newChildren[insertionIndex] = child;
+
+                childCodePoints = newChildCodePoints;
+                children = newChildren;
+                return child;
+            }
+        }
+    }
+}
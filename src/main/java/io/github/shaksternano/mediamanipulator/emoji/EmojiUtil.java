@@ -1,7 +1,6 @@
 package io.github.shaksternano.mediamanipulator.emoji;
 
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableSet;
 import com.google.gson.*;
 import io.github.shaksternano.mediamanipulator.Main;
 import io.github.shaksternano.mediamanipulator.io.FileUtil;
@@ -12,23 +11,28 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 import java.util.stream.Collectors;
 
 public class EmojiUtil {
 
     public static final String EMOJI_FILES_DIRECTORY = "src/main/resources/" + FileUtil.getResourcePathInRootPackage("emoji");
-    private static Set<String> emojiUnicodeSet = ImmutableSet.of();
+    private static EmojiTrie emojiUnicodeTrie = new EmojiTrie();
     private static Map<String, String> emojiShortcodesToUrls = ImmutableMap.of();
 
-    public static void initEmojiUnicodeSet() {
+    public static void initEmojiUnicodeTrie() {
         try (BufferedReader reader = new BufferedReader(new InputStreamReader(FileUtil.getResourceInRootPackage("emoji/emoji_unicodes.txt")))) {
-            ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+            EmojiTrie trie = new EmojiTrie();
             String line;
             while ((line = reader.readLine()) != null) {
-                builder.add(line.toLowerCase());
+                if (!line.isBlank()) {
+                    try {
+                        trie.add(parseEmojiUnicode(line.strip()));
+                    } catch (NumberFormatException e) {
+                        Main.getLogger().error("Invalid emoji unicode {}!", line, e);
+                    }
+                }
             }
-            emojiUnicodeSet = builder.build();
+            emojiUnicodeTrie = trie;
         } catch (IOException e) {
             Main.getLogger().error("Error while loading emoji unicodes!", e);
         }
@@ -65,8 +69,44 @@ public class EmojiUtil {
         }
     }
 
-    public static boolean isEmojiUnicode(String unicode) {
-        return emojiUnicodeSet.contains(unicode.toLowerCase());
+    /**
+     * Gets the number of code points that make up the longest emoji starting at the given index.
+     *
+     * @param codePoints The code points to search.
+     * @param start      The index of the code point to start searching from.
+     * @return The number of code points that make up the emoji, or 0 if no emoji starts at the given index.
+     */
+    public static int getEmojiLength(int[] codePoints, int start) {
+        return emojiUnicodeTrie.getLongestMatchLength(codePoints, start);
+    }
+
+    /**
+     * Gets the unicode of an emoji in the format used by the emoji unicode file and emoji URLs,
+     * which is the lowercase hex code points separated by dashes.
+     *
+     * @param codePoints The code points containing the emoji.
+     * @param start      The index of the first code point of the emoji.
+     * @param length     The number of code points that make up the emoji.
+     * @return The unicode of the emoji.
+     */
+    public static String getEmojiUnicode(int[] codePoints, int start, int length) {
+        StringBuilder unicodeBuilder = new StringBuilder();
+        for (int i = start; i < start + length; i++) {
+            if (i > start) {
+                unicodeBuilder.append('-');
+            }
+            unicodeBuilder.append(Integer.toHexString(codePoints[i]));
+        }
+        return unicodeBuilder.toString();
+    }
+
+    private static int[] parseEmojiUnicode(String unicode) {
+        String[] hexCodePoints = unicode.split("-");
+        int[] codePoints = new int[hexCodePoints.length];
+        for (int i = 0; i < hexCodePoints.length; i++) {
+            codePoints[i] = Integer.parseInt(hexCodePoints[i], 16);
+        }
+        return codePoints;
     }
 
     public static Optional<String> getEmojiUrlFromShortcode(String shortcode) {
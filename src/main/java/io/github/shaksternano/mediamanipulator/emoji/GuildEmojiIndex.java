@@ -0,0 +1,70 @@
+package io.github.shaksternano.mediamanipulator.emoji;
+
+import net.dv8tion.jda.api.entities.Guild;
+import net.dv8tion.jda.api.entities.emoji.RichCustomEmoji;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An index of each guild's custom emoji names to their image URLs, so that emojis written
+ * as {@code :name:} can be looked up without going through every emoji in the guild.
+ * The index for a guild is built the first time it is used, and is then kept up to date
+ * by {@link io.github.shaksternano.mediamanipulator.listener.EmojiListener}.
+ */
+public class GuildEmojiIndex {
+
+    private static final Map<Long, Map<String, String>> GUILD_EMOJI_URLS = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the image URL of a custom emoji in a guild.
+     *
+     * @param guild The guild to get the emoji from.
+     * @param name  The name of the emoji.
+     * @return An {@link Optional} describing the image URL of the emoji.
+     */
+    public static Optional<String> getEmojiUrl(Guild guild, String name) {
+        return Optional.ofNullable(getIndex(guild).get(name));
+    }
+
+    /**
+     * Updates the entry for an emoji name in a guild's index, using the guild's current emojis.
+     *
+     * @param guild          The guild the emoji is in.
+     * @param name           The name of the emoji.
+     * @param removedEmojiId The ID of an emoji that has been removed and should not be indexed,
+     *                       as the guild's emoji cache may not have been updated yet, or 0 if there is none.
+     */
+    public static void updateEmojiName(Guild guild, String name, long removedEmojiId) {
+        Map<String, String> index = GUILD_EMOJI_URLS.get(guild.getIdLong());
+        if (index != null) {
+            List<RichCustomEmoji> emojis = guild.getEmojisByName(name, false);
+            Optional<String> emojiUrl = emojis.stream()
+                    .filter(emoji -> emoji.getIdLong() != removedEmojiId)
+                    .reduce((first, second) -> second)
+                    .map(RichCustomEmoji::getImageUrl);
+            emojiUrl.ifPresentOrElse(url -> index.put(name, url), () -> index.remove(name));
+        }
+    }
+
+    /**
+     * Removes the index of a guild.
+     *
+     * @param guild The guild to remove the index of.
+     */
+    public static void removeGuild(Guild guild) {
+        GUILD_EMOJI_URLS.remove(guild.getIdLong());
+    }
+
+    private static Map<String, String> getIndex(Guild guild) {
+        return GUILD_EMOJI_URLS.computeIfAbsent(guild.getIdLong(), guildId -> {
+            Map<String, String> index = new ConcurrentHashMap<>();
+            for (RichCustomEmoji emoji : guild.getEmojiCache()) {
+                index.put(emoji.getName(), emoji.getImageUrl());
+            }
+            return index;
+        });
+    }
+}
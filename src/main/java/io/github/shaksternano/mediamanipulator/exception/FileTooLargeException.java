@@ -0,0 +1,10 @@
+package io.github.shaksternano.mediamanipulator.exception;
+
+import java.io.IOException;
+
+public class FileTooLargeException extends IOException {
+
+    public FileTooLargeException(String message) {
+        super(message);
+    }
+}
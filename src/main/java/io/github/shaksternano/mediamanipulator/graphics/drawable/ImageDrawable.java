@@ -2,6 +2,7 @@ package io.github.shaksternano.mediamanipulator.graphics.drawable;
 
 import com.google.common.collect.ImmutableList;
 import io.github.shaksternano.mediamanipulator.image.util.ImageUtil;
+import org.jetbrains.annotations.Nullable;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
@@ -12,11 +13,33 @@ import java.util.Objects;
 public class ImageDrawable implements Drawable {
 
     private final List<BufferedImage> images;
+
+    /**
+     * Provides the resized versions of the images.
+     * If null, the images are resized every time they are requested.
+     */
+    @Nullable
+    private final ScaledImages scaledImages;
+
     private int imageIndex = 0;
 
     public ImageDrawable(Iterable<BufferedImage> images) {
+        this(images, null);
+    }
+
+    /**
+     * Creates a new {@code ImageDrawable} that gets its resized images from a shared source.
+     *
+     * @param scaledImages The source of the images and their resized versions.
+     */
+    public ImageDrawable(ScaledImages scaledImages) {
+        this(scaledImages.getImages(), scaledImages);
+    }
+
+    private ImageDrawable(Iterable<BufferedImage> images, @Nullable ScaledImages scaledImages) {
         if (images.iterator().hasNext()) {
             this.images = ImmutableList.copyOf(images);
+            this.scaledImages = scaledImages;
         } else {
             throw new IllegalArgumentException("Image contains no frames!");
         }
@@ -45,6 +68,8 @@ public class ImageDrawable implements Drawable {
     public Drawable resizeToWidth(int width) {
         if (getWidth(null) == width) {
             return this;
+        } else if (scaledImages != null) {
+            return new ImageDrawable(scaledImages.getImagesScaledToWidth(width), scaledImages);
         } else {
             ImmutableList.Builder<BufferedImage> builder = ImmutableList.builder();
 
@@ -60,6 +85,8 @@ public class ImageDrawable implements Drawable {
     public Drawable resizeToHeight(int height) {
         if (getHeight(null) == height) {
             return this;
+        } else if (scaledImages != null) {
+            return new ImageDrawable(scaledImages.getImagesScaledToHeight(height), scaledImages);
         } else {
             ImmutableList.Builder<BufferedImage> builder = ImmutableList.builder();
 
@@ -122,4 +149,34 @@ public class ImageDrawable implements Drawable {
                 .append("]");
         return builder.toString();
     }
+
+    /**
+     * A source of images that can also provide resized versions of them,
+     * so that the resized images can be reused instead of being recreated.
+     */
+    public interface ScaledImages {
+
+        /**
+         * Gets the original images.
+         *
+         * @return The original images.
+         */
+        List<BufferedImage> getImages();
+
+        /**
+         * Gets the images scaled to the given width, keeping their aspect ratio.
+         *
+         * @param width The width to scale to.
+         * @return The scaled images.
+         */
+        List<BufferedImage> getImagesScaledToWidth(int width);
+
+        /**
+         * Gets the images scaled to the given height, keeping their aspect ratio.
+         *
+         * @param height The height to scale to.
+         * @return The scaled images.
+         */
+        List<BufferedImage> getImagesScaledToHeight(int height);
+    }
 }
@@ -0,0 +1,103 @@
+package io.github.shaksternano.mediamanipulator.graphics.layer;
+
+import io.github.shaksternano.mediamanipulator.graphics.drawable.Drawable;
+import io.github.shaksternano.mediamanipulator.image.util.Frame;
+import io.github.shaksternano.mediamanipulator.image.util.ImageUtil;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * A layer that draws a {@link Drawable}, such as a paragraph of text.
+ * Each frame of the drawable lasts for {@link Frame#GIF_MINIMUM_FRAME_DURATION}.
+ * <p>
+ * Drawables move on to their next frame every time they are drawn, so this layer keeps track of which
+ * frame the drawable is on, and draws any skipped frames off screen to keep it in step.
+ */
+public class DrawableLayer implements Layer {
+
+    private final Drawable drawable;
+    private final int x;
+    private final int y;
+    private final Font font;
+    private final Color color;
+    @Nullable
+    private final Shape clip;
+
+    /**
+     * The index of the frame that the drawable will draw next.
+     */
+    private int nextFrame = 0;
+
+    /**
+     * Creates a new drawable layer.
+     *
+     * @param drawable The drawable to draw.
+     * @param x        The x coordinate of the top left corner of the drawable.
+     * @param y        The y coordinate of the top left corner of the drawable.
+     * @param font     The font to draw text with.
+     * @param color    The colour to draw text with.
+     * @param clip     The area that the drawable is drawn inside, or null if it isn't clipped.
+     */
+    public DrawableLayer(Drawable drawable, int x, int y, Font font, Color color, @Nullable Shape clip) {
+        this.drawable = drawable;
+        this.x = x;
+        this.y = y;
+        this.font = font;
+        this.color = color;
+        this.clip = clip;
+    }
+
+    @Override
+    public int getFrameCount() {
+        // Empty drawables have no frames.
+        return Math.max(drawable.getFrameCount(), 1);
+    }
+
+    @Override
+    public int getFrameDuration(int index) {
+        return Frame.GIF_MINIMUM_FRAME_DURATION;
+    }
+
+    @Override
+    public boolean sameAsPreviousFrame(int index) {
+        if (getFrameCount() == 1) {
+            return true;
+        } else {
+            skipTo(index);
+            return drawable.sameAsPreviousFrame();
+        }
+    }
+
+    @Override
+    public void draw(Graphics2D graphics, int index) {
+        skipTo(index);
+        graphics.setFont(font);
+        graphics.setColor(color);
+        ImageUtil.configureTextDrawQuality(graphics);
+        if (clip != null) {
+            graphics.setClip(clip);
+        }
+        drawable.draw(graphics, x, y);
+        nextFrame = (index + 1) % getFrameCount();
+    }
+
+    private void skipTo(int index) {
+        if (nextFrame != index) {
+            BufferedImage offScreen = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = offScreen.createGraphics();
+            graphics.setFont(font);
+            while (nextFrame != index) {
+                drawable.draw(graphics, x, y);
+                nextFrame = (nextFrame + 1) % getFrameCount();
+            }
+            graphics.dispose();
+        }
+    }
+
+    @Override
+    public Layer normalise() {
+        return this;
+    }
+}
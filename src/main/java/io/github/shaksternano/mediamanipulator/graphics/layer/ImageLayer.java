@@ -0,0 +1,120 @@
+package io.github.shaksternano.mediamanipulator.graphics.layer;
+
+import com.google.common.collect.ImmutableList;
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+import io.github.shaksternano.mediamanipulator.image.util.Frame;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A layer that draws the frames of an image.
+ */
+public class ImageLayer implements Layer {
+
+    private final List<BufferedImage> images;
+    private final List<Integer> durations;
+    private final int x;
+    private final int y;
+    @Nullable
+    private final Shape clip;
+
+    /**
+     * Creates a new image layer.
+     *
+     * @param imageMedia The image to draw.
+     * @param x          The x coordinate of the top left corner of the image.
+     * @param y          The y coordinate of the top left corner of the image.
+     * @param clip       The area that the image is drawn inside, or null if it isn't clipped.
+     */
+    public ImageLayer(ImageMedia imageMedia, int x, int y, @Nullable Shape clip) {
+        this(
+                imageMedia.stream().map(Frame::getImage).collect(ImmutableList.toImmutableList()),
+                imageMedia.stream().map(Frame::getDuration).collect(ImmutableList.toImmutableList()),
+                x,
+                y,
+                clip
+        );
+    }
+
+    private ImageLayer(List<BufferedImage> images, List<Integer> durations, int x, int y, @Nullable Shape clip) {
+        if (images.isEmpty()) {
+            throw new IllegalArgumentException("Image contains no frames!");
+        }
+        this.images = images;
+        this.durations = durations;
+        this.x = x;
+        this.y = y;
+        this.clip = clip;
+    }
+
+    @Override
+    public int getFrameCount() {
+        return images.size();
+    }
+
+    @Override
+    public int getFrameDuration(int index) {
+        return durations.get(index);
+    }
+
+    @Override
+    public boolean sameAsPreviousFrame(int index) {
+        int previousIndex = index == 0 ? images.size() - 1 : index - 1;
+        return images.get(index) == images.get(previousIndex);
+    }
+
+    @Override
+    public void draw(Graphics2D graphics, int index) {
+        if (clip != null) {
+            graphics.setClip(clip);
+        }
+        graphics.drawImage(images.get(index), x, y, null);
+    }
+
+    @Override
+    public Layer normalise() {
+        boolean normalised = durations.stream().allMatch(duration -> duration == Frame.GIF_MINIMUM_FRAME_DURATION);
+        if (normalised) {
+            return this;
+        } else {
+            List<BufferedImage> normalisedImages = toNormalisedImages();
+            return new ImageLayer(
+                    normalisedImages,
+                    Collections.nCopies(normalisedImages.size(), Frame.GIF_MINIMUM_FRAME_DURATION),
+                    x,
+                    y,
+                    clip
+            );
+        }
+    }
+
+    /**
+     * Repeats each image once for every {@link Frame#GIF_MINIMUM_FRAME_DURATION} that it lasts for,
+     * in the same way as {@link ImageMedia#toNormalisedImages()}.
+     */
+    private List<BufferedImage> toNormalisedImages() {
+        int totalDuration = durations.stream().mapToInt(Integer::intValue).sum();
+        if (totalDuration < Frame.GIF_MINIMUM_FRAME_DURATION) {
+            return ImmutableList.of(images.get(0));
+        }
+        ImmutableList.Builder<BufferedImage> builder = ImmutableList.builder();
+        int millisCount = 0;
+        for (int i = 0; i < images.size(); i++) {
+            BufferedImage image = images.get(i);
+            int duration = durations.get(i);
+            for (int j = 0; j < duration / Frame.GIF_MINIMUM_FRAME_DURATION; j++) {
+                builder.add(image);
+            }
+            millisCount += duration % Frame.GIF_MINIMUM_FRAME_DURATION;
+            if (millisCount >= Frame.GIF_MINIMUM_FRAME_DURATION) {
+                builder.add(image);
+                millisCount -= Frame.GIF_MINIMUM_FRAME_DURATION;
+            }
+        }
+        return builder.build();
+    }
+}
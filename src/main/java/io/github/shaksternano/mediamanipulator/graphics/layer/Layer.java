@@ -0,0 +1,54 @@
+package io.github.shaksternano.mediamanipulator.graphics.layer;
+
+import java.awt.*;
+
+/**
+ * One layer of an image made up of several layers drawn on top of each other, such as an image with text over it.
+ * Layers can be animated, with each frame lasting a number of milliseconds.
+ *
+ * @see LayerCompositor
+ */
+public interface Layer {
+
+    /**
+     * Gets the number of frames in this layer.
+     *
+     * @return The number of frames.
+     */
+    int getFrameCount();
+
+    /**
+     * Gets how long a frame lasts for.
+     *
+     * @param index The index of the frame.
+     * @return The duration of the frame in milliseconds.
+     */
+    int getFrameDuration(int index);
+
+    /**
+     * Checks whether a frame looks the same as the frame before it, with the first frame following the last one.
+     * Frames are checked in order, before they are drawn.
+     *
+     * @param index The index of the frame.
+     * @return Whether the frame looks the same as the one before it.
+     */
+    boolean sameAsPreviousFrame(int index);
+
+    /**
+     * Draws a frame of this layer. This is called for frames in order, although frames that
+     * look the same as the one before them can be skipped.
+     *
+     * @param graphics The graphics to draw on. Any changes made to it, such as setting the clip,
+     *                 don't affect other layers.
+     * @param index    The index of the frame to draw.
+     */
+    void draw(Graphics2D graphics, int index);
+
+    /**
+     * Gets a version of this layer where every frame lasts for {@link io.github.shaksternano.mediamanipulator.image.util.Frame#GIF_MINIMUM_FRAME_DURATION},
+     * so that its frames line up with the frames of other normalised layers.
+     *
+     * @return The normalised layer, which may be this layer.
+     */
+    Layer normalise();
+}
@@ -0,0 +1,84 @@
+package io.github.shaksternano.mediamanipulator.graphics.layer;
+
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+import io.github.shaksternano.mediamanipulator.image.util.AwtFrame;
+import io.github.shaksternano.mediamanipulator.image.util.Frame;
+import io.github.shaksternano.mediamanipulator.image.util.ImageMediaBuilder;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+/**
+ * Draws layers on top of each other to create an image, drawing every layer straight onto each output frame,
+ * so that no intermediate copies of the frames are made.
+ */
+public class LayerCompositor {
+
+    private LayerCompositor() {
+    }
+
+    /**
+     * Draws layers on top of each other.
+     * <p>
+     * If only one layer is animated, the result has the same frames and frame durations as that layer.
+     * If several layers are animated, they are {@link Layer#normalise() normalised} so that their frames line up,
+     * and the shorter ones are looped until the longest one ends. Frames where no layer changes
+     * are merged into the frame before them.
+     *
+     * @param layers    The layers to draw, from the bottom to the top.
+     * @param width     The width of the result.
+     * @param height    The height of the result.
+     * @param imageType The {@link BufferedImage} type of the result.
+     * @return The resulting image.
+     */
+    public static ImageMedia composite(List<? extends Layer> layers, int width, int height, int imageType) {
+        if (layers.isEmpty()) {
+            throw new IllegalArgumentException("No layers to composite!");
+        }
+
+        long animatedLayers = layers.stream()
+                .filter(layer -> layer.getFrameCount() > 1)
+                .count();
+        List<? extends Layer> alignedLayers = animatedLayers > 1
+                ? layers.stream().map(Layer::normalise).toList()
+                : layers;
+
+        Layer longestLayer = alignedLayers.get(0);
+        for (Layer layer : alignedLayers) {
+            if (layer.getFrameCount() > longestLayer.getFrameCount()) {
+                longestLayer = layer;
+            }
+        }
+
+        ImageMediaBuilder builder = new ImageMediaBuilder();
+        int frameCount = longestLayer.getFrameCount();
+        for (int i = 0; i < frameCount; i++) {
+            int duration = longestLayer.getFrameDuration(i);
+            if (i > 0 && sameAsPreviousFrame(alignedLayers, i)) {
+                builder.increaseLastFrameDuration(duration);
+            } else {
+                BufferedImage image = new BufferedImage(width, height, imageType);
+                Graphics2D graphics = image.createGraphics();
+                for (Layer layer : alignedLayers) {
+                    Graphics2D layerGraphics = (Graphics2D) graphics.create();
+                    layer.draw(layerGraphics, i % layer.getFrameCount());
+                    layerGraphics.dispose();
+                }
+                graphics.dispose();
+                builder.add(new AwtFrame(image, duration));
+            }
+        }
+
+        return builder.build();
+    }
+
+    private static boolean sameAsPreviousFrame(List<? extends Layer> layers, int index) {
+        for (Layer layer : layers) {
+            if (!layer.sameAsPreviousFrame(index % layer.getFrameCount())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.shaksternano.mediamanipulator.graphics.layer;
+
+import io.github.shaksternano.mediamanipulator.image.util.Frame;
+
+import java.awt.*;
+
+/**
+ * A layer that fills a shape with a single colour, such as a background or a border.
+ */
+public class ShapeLayer implements Layer {
+
+    private final Shape shape;
+    private final Color color;
+
+    /**
+     * Creates a new shape layer.
+     *
+     * @param shape The shape to fill.
+     * @param color The colour to fill the shape with.
+     */
+    public ShapeLayer(Shape shape, Color color) {
+        this.shape = shape;
+        this.color = color;
+    }
+
+    @Override
+    public int getFrameCount() {
+        return 1;
+    }
+
+    @Override
+    public int getFrameDuration(int index) {
+        return Frame.GIF_MINIMUM_FRAME_DURATION;
+    }
+
+    @Override
+    public boolean sameAsPreviousFrame(int index) {
+        return true;
+    }
+
+    @Override
+    public void draw(Graphics2D graphics, int index) {
+        graphics.setColor(color);
+        graphics.fill(shape);
+    }
+
+    @Override
+    public Layer normalise() {
+        return this;
+    }
+}
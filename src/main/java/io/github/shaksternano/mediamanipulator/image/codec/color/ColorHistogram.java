@@ -0,0 +1,32 @@
+package io.github.shaksternano.mediamanipulator.image.codec.color;
+
+/**
+ * A histogram of the RGB555 colors of the opaque pixels in a raster, along with the sums of the
+ * full RGB channels of the pixels in each bin, so that the average color of a group of bins can be found.
+ */
+class ColorHistogram {
+
+    static final int SIZE = 1 << 15;
+
+    final int[] counts = new int[SIZE];
+    final long[] redSums = new long[SIZE];
+    final long[] greenSums = new long[SIZE];
+    final long[] blueSums = new long[SIZE];
+
+    /**
+     * Creates a histogram of the opaque pixels in a raster.
+     *
+     * @param pixels The ARGB pixels.
+     */
+    ColorHistogram(int[] pixels) {
+        for (int pixel : pixels) {
+            if (pixel >>> 24 >= Palette.ALPHA_THRESHOLD) {
+                int bin = Palette.toRgb555(pixel);
+                counts[bin]++;
+                redSums[bin] += (pixel >> 16) & 0xFF;
+                greenSums[bin] += (pixel >> 8) & 0xFF;
+                blueSums[bin] += pixel & 0xFF;
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package io.github.shaksternano.mediamanipulator.image.codec.color;
+
+/**
+ * Chooses the colors of a color table, such as a GIF or WebP color table, for a frame with more colors than fit in it.
+ * Pixels are then mapped to the nearest chosen color by the encoder.
+ */
+public interface ColorQuantizer {
+
+    /**
+     * Chooses the colors to represent the opaque pixels of a raster with.
+     * Pixels with an alpha value below 128 are written as transparent, so they should be ignored.
+     *
+     * @param pixels        The ARGB pixels. These must not be modified.
+     * @param maximumColors The maximum number of colors to choose, at most 256.
+     * @return The RGB colors, with at least one and at most the maximum number of colors.
+     */
+    int[] quantize(int[] pixels, int maximumColors);
+}
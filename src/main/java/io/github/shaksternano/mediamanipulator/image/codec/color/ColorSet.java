@@ -0,0 +1,87 @@
+package io.github.shaksternano.mediamanipulator.image.codec.color;
+
+import java.util.Arrays;
+
+/**
+ * A set of up to 256 RGB colors, stored in an open addressing hash table.
+ */
+public class ColorSet {
+
+    private static final int TABLE_SIZE = 512;
+    private static final int EMPTY = -1;
+
+    private final int[] table = new int[TABLE_SIZE];
+    private final int[] colors;
+    private int size = 0;
+    private int lastColor = EMPTY;
+
+    /**
+     * Creates an empty set.
+     *
+     * @param maximumSize The maximum number of colors the set can hold, at most 256.
+     */
+    public ColorSet(int maximumSize) {
+        Arrays.fill(table, EMPTY);
+        colors = new int[maximumSize];
+    }
+
+    /**
+     * Adds a color to the set.
+     *
+     * @param rgb The RGB color. The alpha bits are ignored.
+     * @return False if the color isn't in the set and the set is full, otherwise true.
+     */
+    public boolean add(int rgb) {
+        int color = rgb & 0xFFFFFF;
+        // Neighbouring pixels are often the same color, so skip looking them up again.
+        if (color == lastColor) {
+            return true;
+        }
+        int slot = findSlot(table, color);
+        if (table[slot] == EMPTY) {
+            if (size == colors.length) {
+                return false;
+            }
+            table[slot] = color;
+            colors[size++] = color;
+        }
+        lastColor = color;
+        return true;
+    }
+
+    /**
+     * Adds all the colors of another set to this set.
+     *
+     * @param other The set to add the colors of.
+     * @return False if not all the colors fit in this set, otherwise true.
+     */
+    public boolean addAll(ColorSet other) {
+        for (int i = 0; i < other.size; i++) {
+            if (!add(other.colors[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the colors in the order they were added.
+     *
+     * @return The colors.
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(colors, size);
+    }
+
+    static int findSlot(int[] table, int color) {
+        int slot = (color * 0x9E3779B1 >>> 23) & (TABLE_SIZE - 1);
+        while (table[slot] != EMPTY && table[slot] != color) {
+            slot = (slot + 1) & (TABLE_SIZE - 1);
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,226 @@
+package io.github.shaksternano.mediamanipulator.image.codec.color;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reduces the colors of a raster using median cut on a histogram of its RGB555 colors.
+ * The box with the most pixels spread over the largest range of colors is split at its median
+ * until there are enough boxes, and each box is represented by the average color of its pixels.
+ */
+public class MedianCutQuantizer implements ColorQuantizer {
+
+    @Override
+    public int[] quantize(int[] pixels, int maximumColors) {
+        ColorHistogram histogram = new ColorHistogram(pixels);
+        int[] counts = histogram.counts;
+        List<Box> boxes = new ArrayList<>(maximumColors);
+        Box initialBox = new Box(0, 31, 0, 31, 0, 31);
+        initialBox.shrink(counts);
+        boxes.add(initialBox);
+        while (boxes.size() < maximumColors) {
+            Box toSplit = null;
+            for (Box box : boxes) {
+                if (box.isSplittable() && (toSplit == null || box.getPriority() > toSplit.getPriority())) {
+                    toSplit = box;
+                }
+            }
+            if (toSplit == null) {
+                break;
+            }
+            boxes.add(toSplit.split(counts));
+        }
+
+        int[] colors = new int[boxes.size()];
+        for (int i = 0; i < boxes.size(); i++) {
+            colors[i] = boxes.get(i).getAverageColor(histogram);
+        }
+        return colors;
+    }
+
+    /**
+     * A box of RGB555 colors, with inclusive bounds on each channel.
+     */
+    private static class Box {
+
+        private int redMin;
+        private int redMax;
+        private int greenMin;
+        private int greenMax;
+        private int blueMin;
+        private int blueMax;
+        private long count;
+
+        private Box(int redMin, int redMax, int greenMin, int greenMax, int blueMin, int blueMax) {
+            this.redMin = redMin;
+            this.redMax = redMax;
+            this.greenMin = greenMin;
+            this.greenMax = greenMax;
+            this.blueMin = blueMin;
+            this.blueMax = blueMax;
+        }
+
+        private boolean isSplittable() {
+            return count > 1 && (redMax > redMin || greenMax > greenMin || blueMax > blueMin);
+        }
+
+        /**
+         * Boxes with many pixels spread over a large range of colors are split first.
+         */
+        private double getPriority() {
+            int longestSide = Math.max(redMax - redMin, Math.max(greenMax - greenMin, blueMax - blueMin)) + 1;
+            return (double) count * longestSide;
+        }
+
+        /**
+         * Shrinks the box to the smallest box containing all of its colors that are in the histogram, and counts its pixels.
+         */
+        private void shrink(int[] counts) {
+            int newRedMin = 31;
+            int newRedMax = 0;
+            int newGreenMin = 31;
+            int newGreenMax = 0;
+            int newBlueMin = 31;
+            int newBlueMax = 0;
+            count = 0;
+            for (int red = redMin; red <= redMax; red++) {
+                for (int green = greenMin; green <= greenMax; green++) {
+                    int binStart = (red << 10) | (green << 5);
+                    for (int blue = blueMin; blue <= blueMax; blue++) {
+                        int binCount = counts[binStart | blue];
+                        if (binCount > 0) {
+                            count += binCount;
+                            newRedMin = Math.min(newRedMin, red);
+                            newRedMax = Math.max(newRedMax, red);
+                            newGreenMin = Math.min(newGreenMin, green);
+                            newGreenMax = Math.max(newGreenMax, green);
+                            newBlueMin = Math.min(newBlueMin, blue);
+                            newBlueMax = Math.max(newBlueMax, blue);
+                        }
+                    }
+                }
+            }
+            if (count > 0) {
+                redMin = newRedMin;
+                redMax = newRedMax;
+                greenMin = newGreenMin;
+                greenMax = newGreenMax;
+                blueMin = newBlueMin;
+                blueMax = newBlueMax;
+            }
+        }
+
+        /**
+         * Splits the box at the median of its longest side. This box keeps the lower half.
+         *
+         * @return The box with the upper half.
+         */
+        private Box split(int[] counts) {
+            int redLength = redMax - redMin;
+            int greenLength = greenMax - greenMin;
+            int blueLength = blueMax - blueMin;
+            int axis;
+            if (redLength >= greenLength && redLength >= blueLength) {
+                axis = 0;
+            } else if (greenLength >= blueLength) {
+                axis = 1;
+            } else {
+                axis = 2;
+            }
+
+            int min = getMin(axis);
+            int max = getMax(axis);
+            long[] sliceCounts = new long[32];
+            for (int red = redMin; red <= redMax; red++) {
+                for (int green = greenMin; green <= greenMax; green++) {
+                    int binStart = (red << 10) | (green << 5);
+                    for (int blue = blueMin; blue <= blueMax; blue++) {
+                        int slice = switch (axis) {
+                            case 0 -> red;
+                            case 1 -> green;
+                            default -> blue;
+                        };
+                        sliceCounts[slice] += counts[binStart | blue];
+                    }
+                }
+            }
+
+            // The last slice of the lower half, which always leaves at least one slice in each half.
+            int splitPoint = min;
+            long lowerCount = sliceCounts[min];
+            while (splitPoint < max - 1 && lowerCount + sliceCounts[splitPoint + 1] <= count / 2) {
+                splitPoint++;
+                lowerCount += sliceCounts[splitPoint];
+            }
+
+            Box upper = new Box(redMin, redMax, greenMin, greenMax, blueMin, blueMax);
+            setMax(axis, splitPoint);
+            upper.setMin(axis, splitPoint + 1);
+            shrink(counts);
+            upper.shrink(counts);
+            return upper;
+        }
+
+        /**
+         * Gets the average RGB color of the pixels in the box.
+         */
+        private int getAverageColor(ColorHistogram histogram) {
+            long redSum = 0;
+            long greenSum = 0;
+            long blueSum = 0;
+            long totalCount = 0;
+            for (int red = redMin; red <= redMax; red++) {
+                for (int green = greenMin; green <= greenMax; green++) {
+                    int binStart = (red << 10) | (green << 5);
+                    for (int blue = blueMin; blue <= blueMax; blue++) {
+                        int bin = binStart | blue;
+                        totalCount += histogram.counts[bin];
+                        redSum += histogram.redSums[bin];
+                        greenSum += histogram.greenSums[bin];
+                        blueSum += histogram.blueSums[bin];
+                    }
+                }
+            }
+            if (totalCount == 0) {
+                return 0;
+            } else {
+                int red = (int) (redSum / totalCount);
+                int green = (int) (greenSum / totalCount);
+                int blue = (int) (blueSum / totalCount);
+                return (red << 16) | (green << 8) | blue;
+            }
+        }
+
+        private int getMin(int axis) {
+            return switch (axis) {
+                case 0 -> redMin;
+                case 1 -> greenMin;
+                default -> blueMin;
+            };
+        }
+
+        private int getMax(int axis) {
+            return switch (axis) {
+                case 0 -> redMax;
+                case 1 -> greenMax;
+                default -> blueMax;
+            };
+        }
+
+        private void setMin(int axis, int value) {
+            switch (axis) {
+                case 0 -> redMin = value;
+                case 1 -> greenMin = value;
+                default -> blueMin = value;
+            }
+        }
+
+        private void setMax(int axis, int value) {
+            switch (axis) {
+                case 0 -> redMax = value;
+                case 1 -> greenMax = value;
+                default -> blueMax = value;
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package io.github.shaksternano.mediamanipulator.image.codec.color;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Reduces the colors of a raster using an octree built from a histogram of its RGB555 colors.
+ * Each level of the tree splits the color cube in half along every channel, so the leaves are
+ * the RGB555 colors. Leaves are merged into their parents, starting with the deepest parents
+ * that have the fewest pixels, until there are few enough leaves. Each leaf is then represented
+ * by the average color of its pixels.
+ * <p>
+ * This is faster than {@link MedianCutQuantizer}, as it doesn't have to go through the histogram
+ * for every split, but it keeps fewer colors in sparsely used areas of the color cube.
+ */
+public class OctreeQuantizer implements ColorQuantizer {
+
+    private static final int DEPTH = 5;
+
+    @Override
+    public int[] quantize(int[] pixels, int maximumColors) {
+        ColorHistogram histogram = new ColorHistogram(pixels);
+        Node root = new Node();
+        List<List<Node>> parentsByLevel = new ArrayList<>(DEPTH);
+        for (int level = 0; level < DEPTH; level++) {
+            parentsByLevel.add(new ArrayList<>());
+        }
+        parentsByLevel.get(0).add(root);
+
+        int leafCount = 0;
+        for (int bin = 0; bin < ColorHistogram.SIZE; bin++) {
+            int count = histogram.counts[bin];
+            if (count > 0) {
+                Node node = root;
+                for (int level = 0; level < DEPTH; level++) {
+                    node.add(histogram, bin);
+                    int shift = DEPTH - 1 - level;
+                    int childIndex = (((bin >> (10 + shift)) & 1) << 2) | (((bin >> (5 + shift)) & 1) << 1) | ((bin >> shift) & 1);
+                    Node child = node.children[childIndex];
+                    if (child == null) {
+                        child = new Node();
+                        node.children[childIndex] = child;
+                        node.childCount++;
+                        if (level + 1 < DEPTH) {
+                            parentsByLevel.get(level + 1).add(child);
+                        }
+                    }
+                    node = child;
+                }
+                node.add(histogram, bin);
+                leafCount++;
+            }
+        }
+
+        // All of a node's children are leaves by the time it is merged, as deeper levels are merged first.
+        for (int level = DEPTH - 1; level >= 0 && leafCount > maximumColors; level--) {
+            List<Node> parents = parentsByLevel.get(level);
+            parents.sort(Comparator.comparingLong(node -> node.count));
+            for (int i = 0; i < parents.size() && leafCount > maximumColors; i++) {
+                Node parent = parents.get(i);
+                leafCount -= parent.childCount - 1;
+                parent.merge();
+            }
+        }
+
+        List<Integer> colors = new ArrayList<>(leafCount);
+        root.collectColors(colors);
+        if (colors.isEmpty()) {
+            return new int[1];
+        } else {
+            return colors.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private static class Node {
+
+        private final Node[] children = new Node[8];
+        private int childCount = 0;
+        private long count = 0;
+        private long redSum = 0;
+        private long greenSum = 0;
+        private long blueSum = 0;
+
+        private void add(ColorHistogram histogram, int bin) {
+            count += histogram.counts[bin];
+            redSum += histogram.redSums[bin];
+            greenSum += histogram.greenSums[bin];
+            blueSum += histogram.blueSums[bin];
+        }
+
+        /**
+         * Turns the node into a leaf. Its sums already include the pixels of its children.
+         */
+        private void merge() {
+            for (int i = 0; i < children.length; i++) {
+                children[i] = null;
+            }
+            childCount = 0;
+        }
+
+        private void collectColors(List<Integer> colors) {
+            if (childCount == 0) {
+                if (count > 0) {
+                    int red = (int) (redSum / count);
+                    int green = (int) (greenSum / count);
+                    int blue = (int) (blueSum / count);
+                    colors.add((red << 16) | (green << 8) | blue);
+                }
+            } else {
+                for (Node child : children) {
+                    if (child != null) {
+                        child.collectColors(colors);
+                    }
+                }
+            }
+        }
+    }
+}
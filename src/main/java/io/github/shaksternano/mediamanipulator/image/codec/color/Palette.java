@@ -0,0 +1,191 @@
+package io.github.shaksternano.mediamanipulator.image.codec.color;
+
+import io.github.shaksternano.mediamanipulator.image.util.ImageUtil;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * The colors of a color table, along with a fast way of finding the index of the color to use for a pixel.
+ */
+public final class Palette {
+
+    /**
+     * The alpha value below which a pixel is written as transparent.
+     */
+    public static final int ALPHA_THRESHOLD = 128;
+
+    private final int[] colors;
+
+    /**
+     * Maps each RGB555 color to a color index, or null if the colors are looked up in the hash table.
+     */
+    @Nullable
+    private final byte[] rgb555Lookup;
+
+    /**
+     * Hash table from RGB colors to color indices, used when the colors are looked up exactly
+     * and some of them share an RGB555 color. The slots are found using {@link ColorSet#findSlot(int[], int)}.
+     */
+    @Nullable
+    private final int[] exactColors;
+    @Nullable
+    private final byte[] exactIndices;
+
+    /**
+     * Maps each RGB555 color to the index of the nearest color, or -1 if the nearest color hasn't been found yet,
+     * or null if the colors are matched exactly. Entries are filled in as they are needed, as most frames only
+     * use a small part of the RGB555 colors. Filling in the same entry from two threads at once is harmless,
+     * as both threads write the same value.
+     */
+    @Nullable
+    private final short[] nearestLookup;
+
+    private Palette(int[] colors, @Nullable byte[] rgb555Lookup, @Nullable int[] exactColors, @Nullable byte[] exactIndices, @Nullable short[] nearestLookup) {
+        this.colors = colors;
+        this.rgb555Lookup = rgb555Lookup;
+        this.exactColors = exactColors;
+        this.exactIndices = exactIndices;
+        this.nearestLookup = nearestLookup;
+    }
+
+    /**
+     * Creates a palette whose colors are matched exactly. Only colors in the palette can be looked up.
+     * If every color has a different RGB555 color, which is usually the case, the colors are looked up
+     * with a table indexed by RGB555 color, otherwise they are looked up in a hash table.
+     *
+     * @param colors The RGB colors, at most 256.
+     * @return The palette.
+     */
+    public static Palette exact(int[] colors) {
+        byte[] lookup = new byte[1 << 15];
+        boolean[] used = new boolean[1 << 15];
+        boolean distinct = true;
+        for (int i = 0; i < colors.length && distinct; i++) {
+            int bin = toRgb555(colors[i]);
+            distinct = !used[bin];
+            used[bin] = true;
+            lookup[bin] = (byte) i;
+        }
+        if (distinct) {
+            return new Palette(colors, lookup, null, null, null);
+        }
+
+        int[] exactColors = new int[512];
+        byte[] exactIndices = new byte[512];
+        Arrays.fill(exactColors, -1);
+        for (int i = 0; i < colors.length; i++) {
+            int slot = ColorSet.findSlot(exactColors, colors[i]);
+            exactColors[slot] = colors[i];
+            exactIndices[slot] = (byte) i;
+        }
+        return new Palette(colors, null, exactColors, exactIndices, null);
+    }
+
+    /**
+     * Creates a palette that any color can be looked up in, giving the nearest color in the palette.
+     * Colors are matched by their RGB555 color, so the lookup for each RGB555 color is only worked out once.
+     *
+     * @param colors The RGB colors, at most 256.
+     * @return The palette.
+     */
+    public static Palette nearest(int[] colors) {
+        short[] nearestLookup = new short[1 << 15];
+        Arrays.fill(nearestLookup, (short) -1);
+        return new Palette(colors, null, null, null, nearestLookup);
+    }
+
+    /**
+     * Finds the distinct colors of the opaque pixels in a raster, if there are few enough of them.
+     *
+     * @param pixels        The ARGB pixels.
+     * @param maximumColors The maximum number of colors.
+     * @return A palette of the distinct colors, or null if there are more than the maximum number of colors.
+     */
+    @Nullable
+    public static Palette findExactColors(int[] pixels, int maximumColors) {
+        ColorSet colors = new ColorSet(maximumColors);
+        for (int pixel : pixels) {
+            if (pixel >>> 24 >= ALPHA_THRESHOLD && !colors.add(pixel)) {
+                return null;
+            }
+        }
+        return exact(colors.size() == 0 ? new int[1] : colors.toArray());
+    }
+
+    /**
+     * Gets the squared distance between two RGB colors, weighted by how sensitive the eye is to each channel.
+     * This is the square of {@link ImageUtil#colorDistance(int, int)},
+     * without the square root.
+     *
+     * @param rgb1 The first color. The alpha bits are ignored.
+     * @param rgb2 The second color. The alpha bits are ignored.
+     * @return The squared distance.
+     */
+    public static int distanceSquared(int rgb1, int rgb2) {
+        return ImageUtil.colorDistanceSquared(rgb1, rgb2);
+    }
+
+    static int toRgb555(int rgb) {
+        return ((rgb >> 9) & 0x7C00) | ((rgb >> 6) & 0x03E0) | ((rgb >> 3) & 0x001F);
+    }
+
+    public int size() {
+        return colors.length;
+    }
+
+    public int getColor(int index) {
+        return colors[index];
+    }
+
+    /**
+     * Whether any color can be looked up in the palette, rather than only the colors in it.
+     *
+     * @return True if the palette was created with {@link #nearest(int[])}, otherwise false.
+     */
+    public boolean isNearest() {
+        return nearestLookup != null;
+    }
+
+    /**
+     * Gets the index of the color to use for an opaque pixel.
+     *
+     * @param rgb The RGB color of the pixel. The alpha bits are ignored.
+     * @return The color index.
+     */
+    public int indexOf(int rgb) {
+        if (nearestLookup != null) {
+            int bin = toRgb555(rgb);
+            int index = nearestLookup[bin];
+            if (index < 0) {
+                index = findNearest(bin);
+                nearestLookup[bin] = (short) index;
+            }
+            return index;
+        } else if (rgb555Lookup == null) {
+            return exactIndices[ColorSet.findSlot(exactColors, rgb & 0xFFFFFF)] & 0xFF;
+        } else {
+            return rgb555Lookup[toRgb555(rgb)] & 0xFF;
+        }
+    }
+
+    /**
+     * Finds the index of the color nearest to the center of an RGB555 color.
+     */
+    private int findNearest(int rgb555) {
+        int red = (rgb555 >> 10) & 0x1F;
+        int green = (rgb555 >> 5) & 0x1F;
+        int blue = rgb555 & 0x1F;
+        int rgb = (((red << 3) | (red >> 2)) << 16) | (((green << 3) | (green >> 2)) << 8) | (blue << 3) | (blue >> 2);
+        int nearestIndex = 0;
+        int nearestDistance = Integer.MAX_VALUE;
+        for (int i = 0; i < colors.length && nearestDistance > 0; i++) {
+            int distance = distanceSquared(rgb, colors[i]);
+            if (distance < nearestDistance) {
+                nearestIndex = i;
+                nearestDistance = distance;
+            }
+        }
+        return nearestIndex;
+    }
+}
@@ -0,0 +1,218 @@
+package io.github.shaksternano.mediamanipulator.image.codec.gif;
+
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+import io.github.shaksternano.mediamanipulator.image.util.AwtFrame;
+import io.github.shaksternano.mediamanipulator.image.util.Frame;
+import io.github.shaksternano.mediamanipulator.image.util.ImageComputePool;
+import io.github.shaksternano.mediamanipulator.image.util.ImageMediaBuilder;
+import io.github.shaksternano.mediamanipulator.image.util.ImageSizeHint;
+import io.github.shaksternano.mediamanipulator.image.util.ImageUtil;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes GIF files using all available cores.
+ * <p>
+ * Decoding is split into two passes. First, the LZW compressed data of every frame is decompressed
+ * into color indices in parallel, as each frame is compressed independently of the others.
+ * Then the frames are drawn on to the canvas in order, following their disposal methods.
+ * Drawing only depends on the frames since the last keyframe, a frame that the canvas
+ * before it has no effect on, so the runs of frames between keyframes are drawn in parallel too.
+ */
+public class GifDecoder {
+
+    /**
+     * Decodes a GIF file.
+     *
+     * @param bytes     The bytes of the GIF file.
+     * @param imageType The {@link BufferedImage} type to convert the frames to, or null to use {@link BufferedImage#TYPE_INT_ARGB}.
+     * @param sizeHint  The size the frames are needed at, or null to decode them at full size.
+     * @return The decoded image.
+     * @throws IOException If the bytes are not a GIF file, don't contain any frames, or the canvas or a frame is too large.
+     */
+    public static ImageMedia decode(byte[] bytes, @Nullable Integer imageType, @Nullable ImageSizeHint sizeHint) throws IOException {
+        GifImage gif = GifParser.parse(bytes);
+        List<GifFrame> gifFrames = gif.frames();
+        int canvasWidth = gif.width();
+        int canvasHeight = gif.height();
+        if (canvasWidth == 0 || canvasHeight == 0) {
+            for (GifFrame frame : gifFrames) {
+                canvasWidth = Math.max(canvasWidth, frame.left() + frame.width());
+                canvasHeight = Math.max(canvasHeight, frame.top() + frame.height());
+            }
+            if (canvasWidth == 0 || canvasHeight == 0) {
+                throw new IOException("GIF has no area!");
+            }
+        }
+        ImageUtil.checkSize(canvasWidth, canvasHeight, "GIF canvas");
+        for (GifFrame frame : gifFrames) {
+            ImageUtil.checkSize(frame.width(), frame.height(), "GIF frame");
+        }
+
+        IndexedFrame[] indexedFrames = new IndexedFrame[gifFrames.size()];
+        ImageComputePool.forEach(indexedFrames.length, i -> indexedFrames[i] = IndexedFrame.decode(gifFrames.get(i)));
+
+        List<Integer> keyframes = getKeyframes(indexedFrames, canvasWidth, canvasHeight);
+        Frame[] frames = new Frame[indexedFrames.length];
+        int width = canvasWidth;
+        int height = canvasHeight;
+        ImageComputePool.forEach(keyframes.size(), i -> {
+            int start = keyframes.get(i);
+            int end = i + 1 < keyframes.size() ? keyframes.get(i + 1) : indexedFrames.length;
+            compose(indexedFrames, start, end, width, height, imageType, sizeHint, frames);
+        });
+
+        ImageMediaBuilder builder = new ImageMediaBuilder();
+        for (Frame frame : frames) {
+            builder.add(frame);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Finds the frames that can be drawn without knowing what was on the canvas before them.
+     * These are the first frame, frames that cover the whole canvas with no transparent pixels,
+     * and frames after a frame that covers the whole canvas and clears it afterwards.
+     *
+     * @param frames       The decompressed frames.
+     * @param canvasWidth  The width of the canvas.
+     * @param canvasHeight The height of the canvas.
+     * @return The indices of the keyframes, in ascending order. The first frame is always a keyframe.
+     */
+    private static List<Integer> getKeyframes(IndexedFrame[] frames, int canvasWidth, int canvasHeight) {
+        List<Integer> keyframes = new ArrayList<>();
+        keyframes.add(0);
+        for (int i = 1; i < frames.length; i++) {
+            GifFrame frame = frames[i].frame();
+            GifFrame previous = frames[i - 1].frame();
+            boolean coversCanvas = frame.covers(canvasWidth, canvasHeight)
+                    && frame.transparentIndex() < 0
+                    && frame.disposal() != GifFrame.DISPOSAL_RESTORE_TO_PREVIOUS
+                    && frames[i].isFullyDecoded();
+            boolean canvasCleared = previous.covers(canvasWidth, canvasHeight)
+                    && previous.disposal() == GifFrame.DISPOSAL_RESTORE_TO_BACKGROUND;
+            if (coversCanvas || canvasCleared) {
+                keyframes.add(i);
+            }
+        }
+        return keyframes;
+    }
+
+    /**
+     * Draws a run of frames that starts with a keyframe on to a canvas.
+     *
+     * @param indexedFrames The decompressed frames.
+     * @param start         The index of the keyframe that starts the run, inclusive.
+     * @param end           The index of the end of the run, exclusive.
+     * @param canvasWidth   The width of the canvas.
+     * @param canvasHeight  The height of the canvas.
+     * @param imageType     The type to convert the frames to, or null to keep them as {@link BufferedImage#TYPE_INT_ARGB}.
+     * @param sizeHint      The size the frames are needed at, or null to keep them at full size.
+     * @param frames        The array to put the drawn frames in.
+     */
+    private static void compose(
+            IndexedFrame[] indexedFrames,
+            int start,
+            int end,
+            int canvasWidth,
+            int canvasHeight,
+            @Nullable Integer imageType,
+            @Nullable ImageSizeHint sizeHint,
+            Frame[] frames
+    ) {
+        int[] canvas = new int[canvasWidth * canvasHeight];
+        for (int i = start; i < end; i++) {
+            IndexedFrame indexedFrame = indexedFrames[i];
+            GifFrame frame = indexedFrame.frame();
+            int left = frame.left();
+            int top = frame.top();
+            int right = Math.min(left + frame.width(), canvasWidth);
+            int bottom = Math.min(top + frame.height(), canvasHeight);
+
+            int[] previousArea = null;
+            if (frame.disposal() == GifFrame.DISPOSAL_RESTORE_TO_PREVIOUS) {
+                previousArea = copyArea(canvas, canvasWidth, left, top, right, bottom);
+            }
+
+            draw(indexedFrame, canvas, canvasWidth, right, bottom);
+            frames[i] = new AwtFrame(createImage(canvas, canvasWidth, canvasHeight, imageType, sizeHint), frame.duration());
+            // Free the color indices as soon as possible, as all the frames are decompressed up front.
+            indexedFrames[i] = null;
+
+            if (frame.disposal() == GifFrame.DISPOSAL_RESTORE_TO_BACKGROUND) {
+                for (int y = top; y < bottom; y++) {
+                    int rowStart = y * canvasWidth;
+                    for (int x = left; x < right; x++) {
+                        canvas[rowStart + x] = 0;
+                    }
+                }
+            } else if (previousArea != null) {
+                pasteArea(canvas, canvasWidth, previousArea, left, top, right, bottom);
+            }
+        }
+    }
+
+    private static void draw(IndexedFrame indexedFrame, int[] canvas, int canvasWidth, int right, int bottom) {
+        GifFrame frame = indexedFrame.frame();
+        byte[] indices = indexedFrame.indices();
+        int[] rowWidths = indexedFrame.rowWidths();
+        int[] palette = frame.palette();
+        int transparentIndex = frame.transparentIndex();
+        int left = frame.left();
+        int top = frame.top();
+        int frameWidth = frame.width();
+        for (int y = top; y < bottom; y++) {
+            int frameRow = y - top;
+            int rowEnd = Math.min(left + rowWidths[frameRow], right);
+            int indexOffset = frameRow * frameWidth - left;
+            int canvasOffset = y * canvasWidth;
+            for (int x = left; x < rowEnd; x++) {
+                int index = indices[indexOffset + x] & 0xFF;
+                if (index != transparentIndex) {
+                    canvas[canvasOffset + x] = palette[index];
+                }
+            }
+        }
+    }
+
+    private static BufferedImage createImage(int[] canvas, int canvasWidth, int canvasHeight, @Nullable Integer imageType, @Nullable ImageSizeHint sizeHint) {
+        BufferedImage image = new BufferedImage(canvasWidth, canvasHeight, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        System.arraycopy(canvas, 0, pixels, 0, canvas.length);
+
+        if (sizeHint != null) {
+            Dimension size = sizeHint.getSubsampledSize(canvasWidth, canvasHeight);
+            if (size.width != canvasWidth || size.height != canvasHeight) {
+                image = ImageUtil.stretch(image, size.width, size.height, false);
+            }
+        }
+
+        if (imageType != null) {
+            image = ImageUtil.convertType(image, imageType);
+        }
+
+        return image;
+    }
+
+    private static int[] copyArea(int[] canvas, int canvasWidth, int left, int top, int right, int bottom) {
+        int areaWidth = Math.max(right - left, 0);
+        int[] area = new int[areaWidth * Math.max(bottom - top, 0)];
+        for (int y = top; y < bottom; y++) {
+            System.arraycopy(canvas, y * canvasWidth + left, area, (y - top) * areaWidth, areaWidth);
+        }
+        return area;
+    }
+
+    private static void pasteArea(int[] canvas, int canvasWidth, int[] area, int left, int top, int right, int bottom) {
+        int areaWidth = Math.max(right - left, 0);
+        for (int y = top; y < bottom; y++) {
+            System.arraycopy(area, (y - top) * areaWidth, canvas, y * canvasWidth + left, areaWidth);
+        }
+    }
+}
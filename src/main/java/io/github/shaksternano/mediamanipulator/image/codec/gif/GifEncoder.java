@@ -0,0 +1,516 @@
+package io.github.shaksternano.mediamanipulator.image.codec.gif;
+
+import io.github.shaksternano.mediamanipulator.image.codec.color.ColorQuantizer;
+import io.github.shaksternano.mediamanipulator.image.codec.color.ColorSet;
+import io.github.shaksternano.mediamanipulator.image.codec.color.OctreeQuantizer;
+import io.github.shaksternano.mediamanipulator.image.codec.color.Palette;
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+import io.github.shaksternano.mediamanipulator.image.util.Frame;
+import io.github.shaksternano.mediamanipulator.image.util.ImageComputePool;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Encodes GIF files on the {@link ImageComputePool}.
+ * <p>
+ * Frames are encoded in batches. The pixels of every frame in a batch are read at once, then each frame's
+ * pixels are compared with the previous frame's to find out whether it can be written as a delta,
+ * with the pixels that haven't changed made transparent. This only depends on the two frames being compared,
+ * so each frame is then compared, quantised and LZW compressed, which is where most of the time goes,
+ * in parallel with the other frames in the batch. Finally, the compressed frames are written in order.
+ * Only one batch is in memory at once.
+ * <p>
+ * If all the frames together have few enough colors, which is common when the frames were decoded
+ * from a GIF and then edited a little, they share a single global color table. Then no frame
+ * has to be quantised, and no frame needs its own local color table. Otherwise, each frame's colors are
+ * chosen by a {@link ColorQuantizer}, and its pixels are mapped to the nearest of these colors,
+ * optionally with Floyd-Steinberg dithering. Frames can also be compressed lossily, which swaps
+ * color indices for ones with similar colors where that lets the LZW compression find longer matches.
+ * <p>
+ * Instances are immutable, so the same encoder can be used to encode many images at once.
+ */
+public class GifEncoder {
+
+    /**
+     * The number of frames encoded at once.
+     */
+    private static final int BATCH_SIZE = Math.max(ImageComputePool.THREAD_COUNT * 2, 2);
+
+    private static final int DISPOSAL_NONE = 1;
+    private static final int DISPOSAL_RESTORE_TO_BACKGROUND = 2;
+
+    private final ColorQuantizer quantizer;
+    private final boolean dither;
+    private final int lossiness;
+
+    /**
+     * Creates an encoder that quantises frames with {@link OctreeQuantizer}, without dithering, and compresses them losslessly.
+     */
+    public GifEncoder() {
+        this(new OctreeQuantizer(), false, 0);
+    }
+
+    private GifEncoder(ColorQuantizer quantizer, boolean dither, int lossiness) {
+        this.quantizer = quantizer;
+        this.dither = dither;
+        this.lossiness = lossiness;
+    }
+
+    /**
+     * Gets an encoder that chooses the colors of frames with too many colors using a different quantizer.
+     *
+     * @param quantizer The quantizer to use.
+     * @return An encoder with the given quantizer and the same settings as this encoder otherwise.
+     */
+    public GifEncoder withQuantizer(ColorQuantizer quantizer) {
+        return new GifEncoder(quantizer, dither, lossiness);
+    }
+
+    /**
+     * Gets an encoder that does or doesn't dither quantised frames. Dithering makes gradients look smoother,
+     * but the noise it adds makes frames compress worse.
+     *
+     * @param dither Whether to use Floyd-Steinberg dithering.
+     * @return An encoder with the given dithering setting and the same settings as this encoder otherwise.
+     */
+    public GifEncoder withDithering(boolean dither) {
+        return new GifEncoder(quantizer, dither, lossiness);
+    }
+
+    /**
+     * Gets an encoder that compresses frames lossily. Higher levels give smaller files with more noise.
+     * Around 20 is barely noticeable, while around 80 gives visible grain, especially on gradients.
+     *
+     * @param lossiness The maximum distance between the colors of a pixel and the color it is swapped for,
+     *                  on the same scale as {@link io.github.shaksternano.mediamanipulator.image.util.ImageUtil#colorDistance},
+     *                  or 0 to compress losslessly.
+     * @return An encoder with the given lossiness and the same settings as this encoder otherwise.
+     */
+    public GifEncoder withLossiness(int lossiness) {
+        if (lossiness < 0) {
+            throw new IllegalArgumentException("Lossiness must not be negative!");
+        }
+        return new GifEncoder(quantizer, dither, lossiness);
+    }
+
+    /**
+     * Encodes an image as a GIF file.
+     *
+     * @param image        The image to encode.
+     * @param outputStream The stream to write the GIF file to.
+     * @throws IOException If an error occurs while writing.
+     */
+    public void encode(ImageMedia image, OutputStream outputStream) throws IOException {
+        BufferedImage firstImage = image.getFirstImage();
+        int width = firstImage.getWidth();
+        int height = firstImage.getHeight();
+        int frameCount = image.getFrameCount();
+        boolean animated = frameCount > 1;
+        Palette globalPalette = findGlobalPalette(image);
+
+        writeHeader(outputStream, width, height, animated, globalPalette);
+
+        // A frame clears the canvas after it is shown if the next frame can't be drawn over it,
+        // so the pixels of the frame after each batch are read with the batch.
+        int[] firstPixels = getPixels(firstImage, width, height);
+        int[] previousPixels = null;
+        int[] nextPixels = firstPixels;
+        for (int start = 0; start < frameCount; start += BATCH_SIZE) {
+            int batchStart = start;
+            int batchSize = Math.min(BATCH_SIZE, frameCount - start);
+            int[][] pixels = new int[Math.min(batchSize + 1, frameCount - start)][];
+            pixels[0] = nextPixels;
+            ImageComputePool.forEach(pixels.length - 1, index -> pixels[index + 1] = getPixels(image.getFrame(batchStart + index + 1).getImage(), width, height));
+
+            byte[][] encodedFrames = new byte[batchSize][];
+            int[] batchPreviousPixels = previousPixels;
+            ImageComputePool.forEach(batchSize, index -> {
+                int[] framePixels = pixels[index];
+                int[] deltaBase = index == 0 ? batchPreviousPixels : pixels[index - 1];
+                boolean delta = deltaBase != null && canWriteDelta(framePixels, deltaBase);
+                boolean nextDelta;
+                if (batchStart + index + 1 < frameCount) {
+                    nextDelta = canWriteDelta(pixels[index + 1], framePixels);
+                } else {
+                    // When the animation loops, the first frame is drawn over the last one.
+                    nextDelta = !animated || canWriteDelta(firstPixels, framePixels);
+                }
+                int duration = image.getFrame(batchStart + index).getDuration();
+                encodedFrames[index] = encodeFrame(framePixels, delta ? deltaBase : null, !nextDelta, width, height, duration, animated, globalPalette);
+            });
+            for (byte[] encodedFrame : encodedFrames) {
+                outputStream.write(encodedFrame);
+            }
+
+            previousPixels = pixels[batchSize - 1];
+            nextPixels = batchSize < pixels.length ? pixels[batchSize] : null;
+        }
+
+        outputStream.write(0x3B);
+    }
+
+    /**
+     * Finds the colors of all the frames, if they fit in a global color table along with a transparent color.
+     * If every frame is an indexed image with the same color model, its colors are used without looking at the pixels.
+     *
+     * @param image The image being encoded.
+     * @return A palette of the colors of all the frames, or null if there are too many colors.
+     */
+    @Nullable
+    private static Palette findGlobalPalette(ImageMedia image) {
+        int maximumColors = 255;
+        ColorModel firstColorModel = image.getFirstImage().getColorModel();
+        if (firstColorModel instanceof IndexColorModel indexColorModel) {
+            boolean sharedColorModel = true;
+            for (Frame frame : image) {
+                if (!frame.getImage().getColorModel().equals(indexColorModel)) {
+                    sharedColorModel = false;
+                    break;
+                }
+            }
+            if (sharedColorModel) {
+                ColorSet colors = new ColorSet(maximumColors);
+                boolean fits = true;
+                for (int i = 0; i < indexColorModel.getMapSize() && fits; i++) {
+                    int rgb = indexColorModel.getRGB(i);
+                    fits = rgb >>> 24 < Palette.ALPHA_THRESHOLD || colors.add(rgb);
+                }
+                if (fits) {
+                    return Palette.exact(colors.size() == 0 ? new int[1] : colors.toArray());
+                }
+            }
+        }
+
+        AtomicBoolean tooManyColors = new AtomicBoolean(false);
+        ColorSet[] frameColors = new ColorSet[image.getFrameCount()];
+        ImageComputePool.forEach(frameColors.length, index -> {
+            BufferedImage frameImage = image.getFrame(index).getImage();
+            ColorSet colors = new ColorSet(maximumColors);
+            int frameWidth = frameImage.getWidth();
+            int[] row = new int[frameWidth];
+            for (int y = 0; y < frameImage.getHeight() && !tooManyColors.get(); y++) {
+                frameImage.getRGB(0, y, frameWidth, 1, row, 0, frameWidth);
+                for (int pixel : row) {
+                    if (!isTransparent(pixel) && !colors.add(pixel)) {
+                        tooManyColors.set(true);
+                        return;
+                    }
+                }
+            }
+            frameColors[index] = colors;
+        });
+        if (tooManyColors.get()) {
+            return null;
+        }
+
+        ColorSet globalColors = new ColorSet(maximumColors);
+        for (ColorSet colors : frameColors) {
+            if (!globalColors.addAll(colors)) {
+                return null;
+            }
+        }
+        return Palette.exact(globalColors.size() == 0 ? new int[1] : globalColors.toArray());
+    }
+
+    private static void writeHeader(OutputStream outputStream, int width, int height, boolean animated, @Nullable Palette globalPalette) throws IOException {
+        outputStream.write("GIF89a".getBytes(StandardCharsets.US_ASCII));
+        writeShort(outputStream, width);
+        writeShort(outputStream, height);
+        if (globalPalette == null) {
+            // No global color table, background color index and pixel aspect ratio.
+            outputStream.write(new byte[]{0, 0, 0});
+        } else {
+            // The global color table has an extra color at the end, which is used as the transparent color.
+            int tableBits = getTableBits(globalPalette.size() + 1);
+            outputStream.write(0x80 | ((tableBits - 1) << 4) | (tableBits - 1));
+            outputStream.write(new byte[]{0, 0});
+            outputStream.write(createColorTable(globalPalette, tableBits));
+        }
+        if (animated) {
+            // Netscape application extension, which makes the animation loop forever.
+            outputStream.write(new byte[]{0x21, (byte) 0xFF, 0x0B});
+            outputStream.write("NETSCAPE2.0".getBytes(StandardCharsets.US_ASCII));
+            outputStream.write(new byte[]{0x03, 0x01, 0x00, 0x00, 0x00});
+        }
+    }
+
+    /**
+     * Gets the number of bits needed to index a color table that holds a number of colors.
+     * Color tables hold a power of two number of colors, with at least 2 colors.
+     *
+     * @param colorCount The number of colors.
+     * @return The number of bits.
+     */
+    private static int getTableBits(int colorCount) {
+        int tableBits = 1;
+        while (1 << tableBits < colorCount) {
+            tableBits++;
+        }
+        return tableBits;
+    }
+
+    private static void writeShort(OutputStream outputStream, int value) throws IOException {
+        outputStream.write(value & 0xFF);
+        outputStream.write((value >> 8) & 0xFF);
+    }
+
+    private static byte[] createColorTable(Palette palette, int tableBits) {
+        byte[] table = new byte[3 << tableBits];
+        for (int i = 0; i < palette.size(); i++) {
+            int color = palette.getColor(i);
+            table[i * 3] = (byte) (color >> 16);
+            table[i * 3 + 1] = (byte) (color >> 8);
+            table[i * 3 + 2] = (byte) color;
+        }
+        return table;
+    }
+
+    private static int[] getPixels(BufferedImage image, int width, int height) {
+        if (image.getWidth() != width || image.getHeight() != height) {
+            BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = resized.createGraphics();
+            graphics.drawImage(image, 0, 0, null);
+            graphics.dispose();
+            image = resized;
+        }
+        return image.getRGB(0, 0, width, height, null, 0, width);
+    }
+
+    /**
+     * Whether a frame can be written as the pixels that changed since the previous frame,
+     * which is only possible if no pixel that was visible has become transparent.
+     */
+    private static boolean canWriteDelta(int[] currentPixels, int[] previousPixels) {
+        for (int i = 0; i < currentPixels.length; i++) {
+            if (isTransparent(currentPixels[i]) && !isTransparent(previousPixels[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isFullyOpaque(int[] pixels) {
+        for (int pixel : pixels) {
+            if (isTransparent(pixel)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isTransparent(int pixel) {
+        return pixel >>> 24 < Palette.ALPHA_THRESHOLD;
+    }
+
+    /**
+     * Whether a pixel is unchanged between two frames. Only exactly equal pixels count, as a pixel left out of
+     * a delta frame keeps the color it was last written with, so any difference would build up over frames.
+     */
+    private static boolean isUnchanged(int pixel1, int pixel2) {
+        return pixel1 == pixel2 || (isTransparent(pixel1) && isTransparent(pixel2));
+    }
+
+    /**
+     * Quantises and compresses a frame.
+     *
+     * @param pixels         The ARGB pixels of the frame.
+     * @param previousPixels The ARGB pixels of the previous frame if the frame is written as a delta, otherwise null.
+     * @param clearAfter     Whether the canvas is cleared after the frame is shown, because the next frame can't be drawn over it.
+     * @param width          The width of the canvas.
+     * @param height         The height of the canvas.
+     * @param duration       The duration of the frame in milliseconds.
+     * @param animated       Whether the image has more than one frame.
+     * @param globalPalette  The palette of the global color table, or null if the frame is quantised to its own local color table.
+     * @return The encoded graphic control extension and image.
+     */
+    private byte[] encodeFrame(int[] pixels, @Nullable int[] previousPixels, boolean clearAfter, int width, int height, int duration, boolean animated, @Nullable Palette globalPalette) {
+        int left = 0;
+        int top = 0;
+        int right = width;
+        int bottom = height;
+        int[] toWrite = pixels;
+        if (previousPixels != null) {
+            toWrite = new int[pixels.length];
+            right = 0;
+            bottom = 0;
+            left = width;
+            top = height;
+            for (int y = 0; y < height; y++) {
+                int rowStart = y * width;
+                for (int x = 0; x < width; x++) {
+                    int i = rowStart + x;
+                    if (!isUnchanged(pixels[i], previousPixels[i])) {
+                        toWrite[i] = pixels[i];
+                        left = Math.min(left, x);
+                        right = Math.max(right, x + 1);
+                        top = Math.min(top, y);
+                        bottom = Math.max(bottom, y + 1);
+                    }
+                }
+            }
+            // Only the area of a frame is cleared, so a frame that clears the canvas has to cover all of it.
+            if (clearAfter) {
+                left = 0;
+                top = 0;
+                right = width;
+                bottom = height;
+            } else if (right == 0) {
+                // Nothing changed, so write a single transparent pixel.
+                left = 0;
+                top = 0;
+                right = 1;
+                bottom = 1;
+            }
+        }
+
+        int frameWidth = right - left;
+        int frameHeight = bottom - top;
+        int[] area = new int[frameWidth * frameHeight];
+        boolean hasTransparency = false;
+        for (int y = 0; y < frameHeight; y++) {
+            System.arraycopy(toWrite, (top + y) * width + left, area, y * frameWidth, frameWidth);
+        }
+        for (int pixel : area) {
+            if (isTransparent(pixel)) {
+                hasTransparency = true;
+                break;
+            }
+        }
+
+        Palette palette;
+        int transparentIndex;
+        int tableBits;
+        if (globalPalette == null) {
+            int maximumColors = hasTransparency ? 255 : 256;
+            palette = Palette.findExactColors(area, maximumColors);
+            if (palette == null) {
+                palette = Palette.nearest(quantizer.quantize(area, maximumColors));
+            }
+            transparentIndex = hasTransparency ? palette.size() : -1;
+            tableBits = getTableBits(palette.size() + (hasTransparency ? 1 : 0));
+        } else {
+            palette = globalPalette;
+            transparentIndex = palette.size();
+            tableBits = getTableBits(palette.size() + 1);
+        }
+
+        byte[] indices = dither && palette.isNearest()
+                ? mapPixelsDithered(area, frameWidth, palette, transparentIndex)
+                : mapPixels(area, palette, transparentIndex);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(area.length / 2 + 1024);
+        if (animated || hasTransparency) {
+            outputStream.write(0x21);
+            outputStream.write(0xF9);
+            outputStream.write(4);
+            int disposal = clearAfter ? DISPOSAL_RESTORE_TO_BACKGROUND : DISPOSAL_NONE;
+            outputStream.write((disposal << 2) | (hasTransparency ? 1 : 0));
+            int delay = duration / 10;
+            outputStream.write(delay & 0xFF);
+            outputStream.write((delay >> 8) & 0xFF);
+            outputStream.write(hasTransparency ? transparentIndex : 0);
+            outputStream.write(0);
+        }
+
+        outputStream.write(0x2C);
+        writeShort(outputStream, left);
+        writeShort(outputStream, top);
+        writeShort(outputStream, frameWidth);
+        writeShort(outputStream, frameHeight);
+        if (globalPalette == null) {
+            // Local color table, not interlaced.
+            outputStream.write(0x80 | (tableBits - 1));
+            outputStream.writeBytes(createColorTable(palette, tableBits));
+        } else {
+            // Uses the global color table, not interlaced.
+            outputStream.write(0);
+        }
+
+        int minimumCodeSize = Math.max(tableBits, 2);
+        if (lossiness > 0) {
+            int[] colors = new int[1 << minimumCodeSize];
+            for (int i = 0; i < palette.size(); i++) {
+                colors[i] = palette.getColor(i);
+            }
+            LzwEncoder.encodeLossy(indices, minimumCodeSize, colors, transparentIndex, lossiness, outputStream);
+        } else {
+            LzwEncoder.encode(indices, minimumCodeSize, outputStream);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static byte[] mapPixels(int[] pixels, Palette palette, int transparentIndex) {
+        byte[] indices = new byte[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            int pixel = pixels[i];
+            indices[i] = (byte) (isTransparent(pixel) ? transparentIndex : palette.indexOf(pixel));
+        }
+        return indices;
+    }
+
+    /**
+     * Maps pixels to color indices with Floyd-Steinberg dithering, spreading the difference between
+     * each pixel and its chosen color over the pixels to its right and below it.
+     * Transparent pixels don't pass on any error, so the edges of delta frames stay clean.
+     */
+    private static byte[] mapPixelsDithered(int[] pixels, int width, Palette palette, int transparentIndex) {
+        byte[] indices = new byte[pixels.length];
+        // The errors of each channel for the current and next rows, in sixteenths, with a pixel of padding on each side.
+        int[] currentErrors = new int[(width + 2) * 3];
+        int[] nextErrors = new int[(width + 2) * 3];
+        int height = pixels.length / width;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int i = y * width + x;
+                int pixel = pixels[i];
+                if (isTransparent(pixel)) {
+                    indices[i] = (byte) transparentIndex;
+                    continue;
+                }
+
+                int errorIndex = (x + 1) * 3;
+                int red = clampChannel(((pixel >> 16) & 0xFF) + (currentErrors[errorIndex] >> 4));
+                int green = clampChannel(((pixel >> 8) & 0xFF) + (currentErrors[errorIndex + 1] >> 4));
+                int blue = clampChannel((pixel & 0xFF) + (currentErrors[errorIndex + 2] >> 4));
+                int index = palette.indexOf((red << 16) | (green << 8) | blue);
+                indices[i] = (byte) index;
+
+                int chosen = palette.getColor(index);
+                spreadError(red - ((chosen >> 16) & 0xFF), errorIndex, currentErrors, nextErrors);
+                spreadError(green - ((chosen >> 8) & 0xFF), errorIndex + 1, currentErrors, nextErrors);
+                spreadError(blue - (chosen & 0xFF), errorIndex + 2, currentErrors, nextErrors);
+            }
+            int[] swap = currentErrors;
+            currentErrors = nextErrors;
+            nextErrors = swap;
+            Arrays.fill(nextErrors, 0);
+        }
+        return indices;
+    }
+
+    private static void spreadError(int error, int errorIndex, int[] currentErrors, int[] nextErrors) {
+        currentErrors[errorIndex + 3] += error * 7;
+        nextErrors[errorIndex - 3] += error * 3;
+        nextErrors[errorIndex] += error * 5;
+        nextErrors[errorIndex + 3] += error;
+    }
+
+    private static int clampChannel(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+
+    private static void writeShort(ByteArrayOutputStream outputStream, int value) {
+        outputStream.write(value & 0xFF);
+        outputStream.write((value >> 8) & 0xFF);
+    }
+}
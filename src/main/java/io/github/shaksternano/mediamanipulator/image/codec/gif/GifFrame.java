@@ -0,0 +1,43 @@
+package io.github.shaksternano.mediamanipulator.image.codec.gif;
+
+/**
+ * A frame of a GIF file whose image data hasn't been decompressed yet.
+ *
+ * @param left             The x coordinate of the frame on the canvas.
+ * @param top              The y coordinate of the frame on the canvas.
+ * @param width            The width of the frame.
+ * @param height           The height of the frame.
+ * @param interlaced       Whether the rows of the frame are interlaced.
+ * @param palette          The ARGB colors of the frame, indexed by color index. This always has 256 entries.
+ * @param transparentIndex The color index that is transparent, or -1 if there is none.
+ * @param disposal         The disposal method, which says what happens to the frame's area before the next frame is drawn.
+ * @param duration         The amount of time the frame is shown for in milliseconds.
+ * @param minimumCodeSize  The LZW minimum code size.
+ * @param data             The LZW compressed image data, with the sub-block lengths removed.
+ */
+record GifFrame(
+        int left,
+        int top,
+        int width,
+        int height,
+        boolean interlaced,
+        int[] palette,
+        int transparentIndex,
+        int disposal,
+        int duration,
+        int minimumCodeSize,
+        byte[] data
+) {
+
+    static final int DISPOSAL_NONE = 1;
+    static final int DISPOSAL_RESTORE_TO_BACKGROUND = 2;
+    static final int DISPOSAL_RESTORE_TO_PREVIOUS = 3;
+
+    int getPixelCount() {
+        return width * height;
+    }
+
+    boolean covers(int canvasWidth, int canvasHeight) {
+        return left <= 0 && top <= 0 && left + width >= canvasWidth && top + height >= canvasHeight;
+    }
+}
@@ -0,0 +1,13 @@
+package io.github.shaksternano.mediamanipulator.image.codec.gif;
+
+import java.util.List;
+
+/**
+ * A GIF file split into its frames.
+ *
+ * @param width  The width of the canvas.
+ * @param height The height of the canvas.
+ * @param frames The frames, in the order they are shown.
+ */
+record GifImage(int width, int height, List<GifFrame> frames) {
+}
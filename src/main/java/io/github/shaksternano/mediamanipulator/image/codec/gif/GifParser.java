@@ -0,0 +1,166 @@
+package io.github.shaksternano.mediamanipulator.image.codec.gif;
+
+import com.google.common.collect.ImmutableList;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Splits a GIF file into its frames without decompressing them. This only has to step
+ * over the block structure of the file, so it is cheap compared to decompressing the frames.
+ */
+class GifParser {
+
+    private static final int EXTENSION_INTRODUCER = 0x21;
+    private static final int IMAGE_SEPARATOR = 0x2C;
+    private static final int TRAILER = 0x3B;
+    private static final int GRAPHIC_CONTROL_LABEL = 0xF9;
+
+    private static final int OPAQUE_BLACK = 0xFF000000;
+
+    /**
+     * Parses a GIF file. A file that is cut off part way through is read up to where it ends.
+     *
+     * @param bytes The bytes of the GIF file.
+     * @return The parsed GIF.
+     * @throws IOException If the bytes are not a GIF file, or don't contain any frames.
+     */
+    static GifImage parse(byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        int width;
+        int height;
+        int[] globalPalette = null;
+        try {
+            byte[] signature = new byte[6];
+            buffer.get(signature);
+            if (!Arrays.equals(signature, "GIF87a".getBytes()) && !Arrays.equals(signature, "GIF89a".getBytes())) {
+                throw new IOException("Not a GIF file!");
+            }
+
+            width = Short.toUnsignedInt(buffer.getShort());
+            height = Short.toUnsignedInt(buffer.getShort());
+            int packed = Byte.toUnsignedInt(buffer.get());
+            // Background color index and pixel aspect ratio, neither of which are used.
+            buffer.position(buffer.position() + 2);
+            if ((packed & 0x80) != 0) {
+                globalPalette = readPalette(buffer, 2 << (packed & 0x07));
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("GIF header is incomplete!", e);
+        }
+
+        ImmutableList.Builder<GifFrame> framesBuilder = ImmutableList.builder();
+        try {
+            int transparentIndex = -1;
+            int disposal = 0;
+            int duration = 0;
+            boolean reading = true;
+            while (reading) {
+                int blockType = Byte.toUnsignedInt(buffer.get());
+                switch (blockType) {
+                    case EXTENSION_INTRODUCER -> {
+                        int label = Byte.toUnsignedInt(buffer.get());
+                        if (label == GRAPHIC_CONTROL_LABEL) {
+                            int blockSize = Byte.toUnsignedInt(buffer.get());
+                            int blockEnd = buffer.position() + blockSize;
+                            if (blockSize >= 4) {
+                                int controlPacked = Byte.toUnsignedInt(buffer.get());
+                                disposal = (controlPacked >> 2) & 0x07;
+                                duration = Short.toUnsignedInt(buffer.getShort()) * 10;
+                                int transparentColor = Byte.toUnsignedInt(buffer.get());
+                                transparentIndex = (controlPacked & 0x01) == 0 ? -1 : transparentColor;
+                            }
+                            buffer.position(blockEnd);
+                        }
+                        skipSubBlocks(buffer);
+                    }
+                    case IMAGE_SEPARATOR -> {
+                        int left = Short.toUnsignedInt(buffer.getShort());
+                        int top = Short.toUnsignedInt(buffer.getShort());
+                        int frameWidth = Short.toUnsignedInt(buffer.getShort());
+                        int frameHeight = Short.toUnsignedInt(buffer.getShort());
+                        int descriptorPacked = Byte.toUnsignedInt(buffer.get());
+                        int[] palette = (descriptorPacked & 0x80) == 0
+                                ? globalPalette
+                                : readPalette(buffer, 2 << (descriptorPacked & 0x07));
+                        if (palette == null) {
+                            palette = new int[256];
+                            Arrays.fill(palette, OPAQUE_BLACK);
+                        }
+                        int minimumCodeSize = Byte.toUnsignedInt(buffer.get());
+                        byte[] data = readSubBlocks(buffer);
+                        framesBuilder.add(new GifFrame(
+                                left,
+                                top,
+                                frameWidth,
+                                frameHeight,
+                                (descriptorPacked & 0x40) != 0,
+                                palette,
+                                transparentIndex,
+                                disposal,
+                                duration,
+                                minimumCodeSize,
+                                data
+                        ));
+                        // Graphic control extensions only apply to the frame directly after them.
+                        transparentIndex = -1;
+                        disposal = 0;
+                        duration = 0;
+                    }
+                    case TRAILER -> reading = false;
+                    default -> throw new IOException("Unknown GIF block type " + blockType + "!");
+                }
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            // The file is truncated, so keep the frames that were read completely.
+        }
+
+        ImmutableList<GifFrame> frames = framesBuilder.build();
+        if (frames.isEmpty()) {
+            throw new IOException("Could not read any frames!");
+        } else {
+            return new GifImage(width, height, frames);
+        }
+    }
+
+    private static int[] readPalette(ByteBuffer buffer, int size) {
+        int[] palette = new int[256];
+        Arrays.fill(palette, OPAQUE_BLACK);
+        for (int i = 0; i < size; i++) {
+            int red = Byte.toUnsignedInt(buffer.get());
+            int green = Byte.toUnsignedInt(buffer.get());
+            int blue = Byte.toUnsignedInt(buffer.get());
+            palette[i] = OPAQUE_BLACK | (red << 16) | (green << 8) | blue;
+        }
+        return palette;
+    }
+
+    /**
+     * Reads data split into sub-blocks. If the file ends part way through, the data up to the end is returned.
+     */
+    private static byte[] readSubBlocks(ByteBuffer buffer) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        while (buffer.hasRemaining()) {
+            int blockSize = Byte.toUnsignedInt(buffer.get());
+            if (blockSize == 0) {
+                break;
+            }
+            int position = buffer.position();
+            int length = Math.min(blockSize, buffer.remaining());
+            outputStream.write(buffer.array(), buffer.arrayOffset() + position, length);
+            buffer.position(position + length);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static void skipSubBlocks(ByteBuffer buffer) {
+        int blockSize;
+        while ((blockSize = Byte.toUnsignedInt(buffer.get())) != 0) {
+            buffer.position(buffer.position() + blockSize);
+        }
+    }
+}
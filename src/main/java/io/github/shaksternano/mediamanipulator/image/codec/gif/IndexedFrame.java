@@ -0,0 +1,66 @@
+package io.github.shaksternano.mediamanipulator.image.codec.gif;
+
+/**
+ * A decompressed GIF frame, with its rows in top to bottom order.
+ *
+ * @param frame     The frame that was decompressed.
+ * @param indices   The color index of each pixel in the frame.
+ * @param rowWidths The number of pixels at the start of each row that were decoded.
+ *                  This is less than the width of the frame for rows that the data ended before.
+ */
+record IndexedFrame(GifFrame frame, byte[] indices, int[] rowWidths) {
+
+    /**
+     * Decompresses a frame.
+     *
+     * @param frame The frame to decompress.
+     * @return The decompressed frame.
+     */
+    static IndexedFrame decode(GifFrame frame) {
+        int width = frame.width();
+        int height = frame.height();
+        byte[] decoded = new byte[frame.getPixelCount()];
+        int decodedPixels = LzwDecoder.decode(frame.data(), frame.minimumCodeSize(), decoded);
+
+        int[] sourceRows = frame.interlaced() ? getInterlacedRows(height) : null;
+        byte[] indices = sourceRows == null ? decoded : new byte[decoded.length];
+        int[] rowWidths = new int[height];
+        for (int y = 0; y < height; y++) {
+            int sourceRow = sourceRows == null ? y : sourceRows[y];
+            rowWidths[y] = Math.max(Math.min(decodedPixels - sourceRow * width, width), 0);
+            if (sourceRows != null) {
+                System.arraycopy(decoded, sourceRow * width, indices, y * width, width);
+            }
+        }
+        return new IndexedFrame(frame, indices, rowWidths);
+    }
+
+    /**
+     * Gets the position in the data of each row of an interlaced frame. Interlaced frames
+     * store every 8th row starting from the first, then every 8th row starting from the 5th,
+     * then every 4th row starting from the 3rd, and finally every 2nd row starting from the 2nd.
+     *
+     * @param height The height of the frame.
+     * @return The position in the data of each row, indexed by the row's position in the image.
+     */
+    private static int[] getInterlacedRows(int height) {
+        int[] sourceRows = new int[height];
+        int sourceRow = 0;
+        int[][] passes = {{0, 8}, {4, 8}, {2, 4}, {1, 2}};
+        for (int[] pass : passes) {
+            for (int y = pass[0]; y < height; y += pass[1]) {
+                sourceRows[y] = sourceRow++;
+            }
+        }
+        return sourceRows;
+    }
+
+    boolean isFullyDecoded() {
+        for (int rowWidth : rowWidths) {
+            if (rowWidth < frame.width()) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,124 @@
+package io.github.shaksternano.mediamanipulator.image.codec.gif;
+
+/**
+ * Decompresses the LZW compressed image data of a GIF frame into color indices.
+ * Each frame is compressed separately, so frames can be decompressed in parallel.
+ */
+class LzwDecoder {
+
+    private static final int MAXIMUM_CODE_SIZE = 12;
+    private static final int MAXIMUM_CODES = 1 << MAXIMUM_CODE_SIZE;
+
+    /**
+     * Decompresses the image data of a frame.
+     *
+     * @param data            The compressed data, with the sub-block lengths removed.
+     * @param minimumCodeSize The LZW minimum code size.
+     * @param indices         The array to write the color indices to. Decoding stops when this is full.
+     * @return The number of color indices that were decoded, which is less than the length
+     * of the array if the data ends early.
+     */
+    static int decode(byte[] data, int minimumCodeSize, byte[] indices) {
+        if (minimumCodeSize < 1 || minimumCodeSize >= MAXIMUM_CODE_SIZE) {
+            return 0;
+        }
+
+        int clearCode = 1 << minimumCodeSize;
+        int endCode = clearCode + 1;
+        // The code each code's string is the previous code's string plus one index added on to, and that index.
+        short[] prefixes = new short[MAXIMUM_CODES];
+        byte[] suffixes = new byte[MAXIMUM_CODES];
+        // The first index of each code's string.
+        byte[] firstIndices = new byte[MAXIMUM_CODES];
+        int[] lengths = new int[MAXIMUM_CODES];
+        for (int code = 0; code < clearCode; code++) {
+            suffixes[code] = (byte) code;
+            firstIndices[code] = (byte) code;
+            lengths[code] = 1;
+        }
+
+        int codeSize = minimumCodeSize + 1;
+        int codeMask = (1 << codeSize) - 1;
+        int nextCode = endCode + 1;
+        int previousCode = -1;
+
+        int bitBuffer = 0;
+        int bitCount = 0;
+        int dataIndex = 0;
+        int written = 0;
+
+        while (written < indices.length) {
+            while (bitCount < codeSize) {
+                if (dataIndex >= data.length) {
+                    return written;
+                }
+                bitBuffer |= Byte.toUnsignedInt(data[dataIndex++]) << bitCount;
+                bitCount += 8;
+            }
+            int code = bitBuffer & codeMask;
+            bitBuffer >>>= codeSize;
+            bitCount -= codeSize;
+
+            if (code == clearCode) {
+                codeSize = minimumCodeSize + 1;
+                codeMask = (1 << codeSize) - 1;
+                nextCode = endCode + 1;
+                previousCode = -1;
+                continue;
+            } else if (code == endCode) {
+                return written;
+            }
+
+            int stringCode;
+            if (previousCode == -1) {
+                if (code >= clearCode) {
+                    // The first code after a clear must be a single index.
+                    return written;
+                }
+                stringCode = code;
+            } else if (code < nextCode) {
+                stringCode = code;
+                addCode(prefixes, suffixes, firstIndices, lengths, nextCode, previousCode, firstIndices[code]);
+                nextCode = Math.min(nextCode + 1, MAXIMUM_CODES);
+            } else if (code == nextCode && nextCode < MAXIMUM_CODES) {
+                // The code being defined by this code, which is the previous string plus its own first index.
+                addCode(prefixes, suffixes, firstIndices, lengths, nextCode, previousCode, firstIndices[previousCode]);
+                stringCode = code;
+                nextCode++;
+            } else {
+                return written;
+            }
+
+            int length = lengths[stringCode];
+            int end = Math.min(written + length, indices.length);
+            // Strings are stored back to front, so write them from the end.
+            int skipped = written + length - end;
+            int current = stringCode;
+            for (int i = 0; i < skipped; i++) {
+                current = prefixes[current];
+            }
+            for (int i = end - 1; i >= written; i--) {
+                indices[i] = suffixes[current];
+                current = prefixes[current];
+            }
+            written = end;
+            previousCode = code;
+
+            if (nextCode == codeMask + 1 && codeSize < MAXIMUM_CODE_SIZE) {
+                codeSize++;
+                codeMask = (1 << codeSize) - 1;
+            }
+        }
+
+        return written;
+    }
+
+    private static void addCode(short[] prefixes, byte[] suffixes, byte[] firstIndices, int[] lengths, int code, int prefix, byte suffix) {
+        if (code < MAXIMUM_CODES) {
+            prefixes[code] = (short) prefix;
+            suffixes[code] = suffix;
+            firstIndices[code] = firstIndices[prefix];
+            lengths[code] = lengths[prefix] + 1;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package io.github.shaksternano.mediamanipulator.image.codec.gif;
+
+import io.github.shaksternano.mediamanipulator.image.codec.color.Palette;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Compresses the color indices of a GIF frame using LZW compression.
+ * Each frame is compressed separately, so frames can be compressed in parallel.
+ * <p>
+ * Compression can also be lossy, in the same way as gifsicle's lossy mode. When the string
+ * being built can't be extended by the next index, it is extended by a similar color instead,
+ * if there is one, so longer strings are written and the data gets smaller.
+ * The decoder doesn't need to know about this, as the output is still valid LZW data.
+ */
+class LzwEncoder {
+
+    private static final int MAXIMUM_CODE_SIZE = 12;
+    private static final int MAXIMUM_CODES = 1 << MAXIMUM_CODE_SIZE;
+
+    /**
+     * The size of the hash table used to look up the code of a string. This is a power of two
+     * at least twice the maximum number of codes, so probe sequences stay short.
+     */
+    private static final int HASH_TABLE_SIZE = MAXIMUM_CODES * 2;
+
+    /**
+     * Compresses color indices, writing the LZW minimum code size,
+     * the compressed data split into sub-blocks, and the block terminator.
+     *
+     * @param indices         The color indices to compress.
+     * @param minimumCodeSize The LZW minimum code size, which is the number of bits needed to store every color index, and at least 2.
+     * @param outputStream    The stream to write to.
+     */
+    static void encode(byte[] indices, int minimumCodeSize, ByteArrayOutputStream outputStream) {
+        outputStream.write(minimumCodeSize);
+        SubBlockWriter writer = new SubBlockWriter(outputStream);
+
+        int clearCode = 1 << minimumCodeSize;
+        int endCode = clearCode + 1;
+        int codeSize = minimumCodeSize + 1;
+        int nextCode = endCode + 1;
+
+        // Each key is a code's prefix code shifted left by 8, combined with its suffix index, plus one so 0 means empty.
+        int[] keys = new int[HASH_TABLE_SIZE];
+        short[] codes = new short[HASH_TABLE_SIZE];
+
+        writer.writeCode(clearCode, codeSize);
+        if (indices.length > 0) {
+            int prefix = indices[0] & 0xFF;
+            for (int i = 1; i < indices.length; i++) {
+                int suffix = indices[i] & 0xFF;
+                int key = ((prefix << 8) | suffix) + 1;
+                int slot = hash(key);
+                while (keys[slot] != 0 && keys[slot] != key) {
+                    slot = (slot + 1) & (HASH_TABLE_SIZE - 1);
+                }
+
+                if (keys[slot] == key) {
+                    prefix = codes[slot];
+                } else {
+                    writer.writeCode(prefix, codeSize);
+                    if (nextCode < MAXIMUM_CODES) {
+                        keys[slot] = key;
+                        codes[slot] = (short) nextCode;
+                        nextCode++;
+                        // The decoder adds each code one code later than the encoder, so it grows its code size one code later too.
+                        if (nextCode > (1 << codeSize) && codeSize < MAXIMUM_CODE_SIZE) {
+                            codeSize++;
+                        }
+                    } else {
+                        writer.writeCode(clearCode, codeSize);
+                        Arrays.fill(keys, 0);
+                        codeSize = minimumCodeSize + 1;
+                        nextCode = endCode + 1;
+                    }
+                    prefix = suffix;
+                }
+            }
+            writer.writeCode(prefix, codeSize);
+        }
+        writer.writeCode(endCode, codeSize);
+        writer.finish();
+    }
+
+    /**
+     * Compresses color indices, allowing indices to be swapped for ones with similar colors to make the data smaller.
+     * Writes the LZW minimum code size, the compressed data split into sub-blocks, and the block terminator.
+     *
+     * @param indices          The color indices to compress.
+     * @param minimumCodeSize  The LZW minimum code size, which is the number of bits needed to store every color index, and at least 2.
+     * @param colors           The RGB color of each color index.
+     * @param transparentIndex The transparent color index, which is never swapped, or -1 if there is none.
+     * @param lossiness        The maximum distance between the colors of an index and the index swapped for it,
+     *                         measured with {@link Palette#distanceSquared(int, int)} before squaring.
+     * @param outputStream     The stream to write to.
+     */
+    static void encodeLossy(byte[] indices, int minimumCodeSize, int[] colors, int transparentIndex, int lossiness, ByteArrayOutputStream outputStream) {
+        outputStream.write(minimumCodeSize);
+        SubBlockWriter writer = new SubBlockWriter(outputStream);
+
+        int clearCode = 1 << minimumCodeSize;
+        int endCode = clearCode + 1;
+        int codeSize = minimumCodeSize + 1;
+        int nextCode = endCode + 1;
+        int maximumDistance = lossiness * lossiness;
+
+        // The codes are stored as a tree, with each code's children in a linked list,
+        // so every code that extends a string can be checked for a similar color.
+        short[] firstChildren = new short[MAXIMUM_CODES];
+        short[] nextSiblings = new short[MAXIMUM_CODES];
+        byte[] suffixes = new byte[MAXIMUM_CODES];
+        Arrays.fill(firstChildren, (short) -1);
+
+        writer.writeCode(clearCode, codeSize);
+        if (indices.length > 0) {
+            int prefix = indices[0] & 0xFF;
+            for (int i = 1; i < indices.length; i++) {
+                int suffix = indices[i] & 0xFF;
+                int match = -1;
+                int matchDistance = maximumDistance + 1;
+                for (int child = firstChildren[prefix]; child >= 0; child = nextSiblings[child]) {
+                    int childSuffix = suffixes[child] & 0xFF;
+                    if (childSuffix == suffix) {
+                        match = child;
+                        break;
+                    } else if (suffix != transparentIndex && childSuffix != transparentIndex) {
+                        int distance = Palette.distanceSquared(colors[suffix], colors[childSuffix]);
+                        if (distance < matchDistance) {
+                            match = child;
+                            matchDistance = distance;
+                        }
+                    }
+                }
+
+                if (match >= 0) {
+                    prefix = match;
+                } else {
+                    writer.writeCode(prefix, codeSize);
+                    if (nextCode < MAXIMUM_CODES) {
+                        suffixes[nextCode] = (byte) suffix;
+                        nextSiblings[nextCode] = firstChildren[prefix];
+                        firstChildren[prefix] = (short) nextCode;
+                        nextCode++;
+                        if (nextCode > (1 << codeSize) && codeSize < MAXIMUM_CODE_SIZE) {
+                            codeSize++;
+                        }
+                    } else {
+                        writer.writeCode(clearCode, codeSize);
+                        Arrays.fill(firstChildren, (short) -1);
+                        codeSize = minimumCodeSize + 1;
+                        nextCode = endCode + 1;
+                    }
+                    prefix = suffix;
+                }
+            }
+            writer.writeCode(prefix, codeSize);
+        }
+        writer.writeCode(endCode, codeSize);
+        writer.finish();
+    }
+
+    private static int hash(int key) {
+        return (key * 0x9E3779B1 >>> 16) & (HASH_TABLE_SIZE - 1);
+    }
+
+    /**
+     * Packs variable length codes into bytes, least significant bit first, and splits them into sub-blocks of up to 255 bytes.
+     */
+    private static class SubBlockWriter {
+
+        private static final int MAXIMUM_BLOCK_SIZE = 255;
+
+        private final ByteArrayOutputStream outputStream;
+        private final byte[] block = new byte[MAXIMUM_BLOCK_SIZE];
+        private int blockSize = 0;
+        private int bitBuffer = 0;
+        private int bitCount = 0;
+
+        private SubBlockWriter(ByteArrayOutputStream outputStream) {
+            this.outputStream = outputStream;
+        }
+
+        private void writeCode(int code, int codeSize) {
+            bitBuffer |= code << bitCount;
+            bitCount += codeSize;
+            while (bitCount >= 8) {
+                writeByte(bitBuffer & 0xFF);
+                bitBuffer >>>= 8;
+                bitCount -= 8;
+            }
+        }
+
+        private void writeByte(int value) {
+            block[blockSize++] = (byte) value;
+            if (blockSize == MAXIMUM_BLOCK_SIZE) {
+                flushBlock();
+            }
+        }
+
+        private void flushBlock() {
+            if (blockSize > 0) {
+                outputStream.write(blockSize);
+                outputStream.write(block, 0, blockSize);
+                blockSize = 0;
+            }
+        }
+
+        private void finish() {
+            if (bitCount > 0) {
+                writeByte(bitBuffer & 0xFF);
+                bitBuffer = 0;
+                bitCount = 0;
+            }
+            flushBlock();
+            outputStream.write(0);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package io.github.shaksternano.mediamanipulator.image.codec.jpeg;
+
+import io.github.shaksternano.mediamanipulator.image.util.ImageUtil;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Optional;
+
+/**
+ * Encodes JPEG files in memory with ImageIO at a chosen quality, and finds the highest quality
+ * that fits an image within a size limit.
+ * <p>
+ * Instances are immutable, so the same encoder can be used to encode many images at once.
+ */
+public class JpegEncoder {
+
+    /**
+     * The quality ImageIO uses by default.
+     */
+    private static final float DEFAULT_QUALITY = 0.75F;
+
+    /**
+     * The highest quality tried when searching for a quality, as qualities above this
+     * make files much larger without looking noticeably better.
+     */
+    private static final float MAXIMUM_SEARCH_QUALITY = 0.95F;
+
+    /**
+     * The number of halvings of the quality range after the highest and lowest qualities have been tried.
+     */
+    private static final int SEARCH_STEPS = 5;
+
+    private final float quality;
+
+    /**
+     * Creates an encoder that uses ImageIO's default quality.
+     */
+    public JpegEncoder() {
+        this(DEFAULT_QUALITY);
+    }
+
+    private JpegEncoder(float quality) {
+        this.quality = quality;
+    }
+
+    /**
+     * Gets an encoder that uses a different quality.
+     *
+     * @param quality The quality, from 0 to 1.
+     * @return An encoder with the given quality.
+     * @throws IllegalArgumentException If the quality is out of range.
+     */
+    public JpegEncoder withQuality(float quality) {
+        if (quality < 0 || quality > 1) {
+            throw new IllegalArgumentException("Quality must be between 0 and 1!");
+        }
+        return new JpegEncoder(quality);
+    }
+
+    /**
+     * Encodes an image as a JPEG file in memory. Any alpha channel is dropped.
+     *
+     * @param image The image to encode.
+     * @return The bytes of the JPEG file.
+     * @throws IOException If ImageIO has no JPEG writer, or an error occurs while encoding.
+     */
+    public byte[] encode(BufferedImage image) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        if (!writers.hasNext()) {
+            throw new IOException("No ImageIO writer found for JPEG!");
+        }
+
+        ImageWriter writer = writers.next();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ImageOutputStream imageOutputStream = new MemoryCacheImageOutputStream(outputStream)) {
+            ImageWriteParam writeParam = writer.getDefaultWriteParam();
+            writeParam.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            writeParam.setCompressionQuality(quality);
+            writer.setOutput(imageOutputStream);
+            writer.write(null, new IIOImage(toRgb(image), null, null), writeParam);
+        } finally {
+            writer.dispose();
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Binary searches for the highest quality that encodes an image within a size limit.
+     * At most {@code SEARCH_STEPS + 2} encodes are done, all in memory.
+     *
+     * @param image          The image to encode.
+     * @param maximumSize    The maximum size of the JPEG file, in bytes.
+     * @param minimumQuality The lowest quality that is acceptable.
+     * @return An {@link Optional} describing the bytes of the JPEG file with the highest quality found
+     * that fits within the size limit, or an empty {@link Optional} if the image is still too large
+     * at the minimum quality.
+     * @throws IOException If an error occurs while encoding.
+     */
+    public static Optional<byte[]> encodeWithin(BufferedImage image, long maximumSize, float minimumQuality) throws IOException {
+        BufferedImage rgbImage = toRgb(image);
+        JpegEncoder encoder = new JpegEncoder();
+        byte[] highest = encoder.withQuality(MAXIMUM_SEARCH_QUALITY).encode(rgbImage);
+        if (highest.length <= maximumSize) {
+            return Optional.of(highest);
+        }
+
+        byte[] best = encoder.withQuality(minimumQuality).encode(rgbImage);
+        if (best.length > maximumSize) {
+            return Optional.empty();
+        }
+
+        float low = minimumQuality;
+        float high = MAXIMUM_SEARCH_QUALITY;
+        for (int i = 0; i < SEARCH_STEPS; i++) {
+            float middle = (low + high) / 2;
+            byte[] encoded = encoder.withQuality(middle).encode(rgbImage);
+            if (encoded.length <= maximumSize) {
+                best = encoded;
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return Optional.of(best);
+    }
+
+    /**
+     * Converts an image to a type without an alpha channel, as ImageIO's JPEG writer can't write alpha.
+     */
+    private static BufferedImage toRgb(BufferedImage image) {
+        if (image.getColorModel().hasAlpha()) {
+            return ImageUtil.convertType(image, BufferedImage.TYPE_INT_RGB);
+        } else {
+            return image;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package io.github.shaksternano.mediamanipulator.image.codec.png;
+
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+import io.github.shaksternano.mediamanipulator.image.util.AwtFrame;
+import io.github.shaksternano.mediamanipulator.image.util.Frame;
+import io.github.shaksternano.mediamanipulator.image.util.ImageComputePool;
+import io.github.shaksternano.mediamanipulator.image.util.ImageMediaBuilder;
+import io.github.shaksternano.mediamanipulator.image.util.ImageSizeHint;
+import io.github.shaksternano.mediamanipulator.image.util.ImageUtil;
+import org.jetbrains.annotations.Nullable;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes APNG files using all available cores.
+ * <p>
+ * The file is first split into its frames by reading only the chunk headers and frame control chunks.
+ * The image data of every frame is then decompressed in parallel, as each frame is compressed
+ * independently of the others. Each frame is decompressed by wrapping it in a PNG file of its own
+ * and reading that with ImageIO, so every bit depth and color type PNG supports can be read.
+ * Finally, the frames are drawn on to the canvas, following their blend and dispose operations.
+ * Drawing only depends on the frames since the last keyframe, so the runs of frames between
+ * keyframes are drawn in parallel too.
+ */
+public class ApngDecoder {
+
+    /**
+     * Checks whether a PNG file is animated.
+     *
+     * @param bytes The bytes of the PNG file.
+     * @return Whether the file is an animated PNG.
+     */
+    public static boolean isAnimated(byte[] bytes) {
+        return ApngParser.isAnimated(bytes);
+    }
+
+    /**
+     * Decodes an APNG file. PNG files that aren't animated are decoded as a single frame.
+     *
+     * @param bytes     The bytes of the PNG file.
+     * @param imageType The {@link BufferedImage} type to convert the frames to, or null to use {@link BufferedImage#TYPE_INT_ARGB}.
+     * @param sizeHint  The size the frames are needed at, or null to decode them at full size.
+     * @return The decoded image.
+     * @throws IOException If the bytes are not a PNG file, the canvas or a frame has more than
+     *                     {@link ImageUtil#MAXIMUM_PIXELS} pixels, or a frame couldn't be decoded.
+     */
+    public static ImageMedia decode(byte[] bytes, @Nullable Integer imageType, @Nullable ImageSizeHint sizeHint) throws IOException {
+        ApngImage apng = ApngParser.parse(bytes);
+        List<ApngFrame> apngFrames = apng.frames();
+        int[][] framePixels = new int[apngFrames.size()][];
+        try {
+            ImageComputePool.forEach(framePixels.length, i -> framePixels[i] = decodeFrame(apng, apngFrames.get(i)));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        List<Integer> keyframes = getKeyframes(apngFrames, apng.width(), apng.height());
+        Frame[] frames = new Frame[framePixels.length];
+        ImageComputePool.forEach(keyframes.size(), i -> {
+            int start = keyframes.get(i);
+            int end = i + 1 < keyframes.size() ? keyframes.get(i + 1) : framePixels.length;
+            compose(apngFrames, framePixels, start, end, apng.width(), apng.height(), imageType, sizeHint, frames);
+        });
+
+        ImageMediaBuilder builder = new ImageMediaBuilder();
+        for (Frame frame : frames) {
+            builder.add(frame);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Decompresses the image data of a frame.
+     *
+     * @return The ARGB pixels of the frame.
+     */
+    private static int[] decodeFrame(ApngImage apng, ApngFrame frame) {
+        try {
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(toPng(apng, frame)));
+            if (image == null) {
+                throw new IOException("Could not decode APNG frame!");
+            }
+            if (image.getWidth() != frame.width() || image.getHeight() != frame.height()) {
+                throw new IOException("APNG frame has the wrong size!");
+            }
+            int[] pixels = image.getRGB(0, 0, frame.width(), frame.height(), null, 0, frame.width());
+            image.flush();
+            return pixels;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Creates a PNG file containing only a single frame of an APNG file.
+     */
+    private static byte[] toPng(ApngImage apng, ApngFrame frame) {
+        int dataSize = 0;
+        for (ByteBuffer data : frame.data()) {
+            dataSize += data.remaining();
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(dataSize + 1024);
+        outputStream.writeBytes(PngChunks.SIGNATURE);
+
+        byte[] header = apng.header().clone();
+        ByteBuffer.wrap(header)
+                .putInt(frame.width())
+                .putInt(frame.height());
+        PngChunks.writeChunk(outputStream, PngChunks.IHDR, header);
+        for (ByteBuffer colorChunk : apng.colorChunks()) {
+            writeBuffer(outputStream, colorChunk);
+        }
+
+        byte[] data = new byte[dataSize];
+        ByteBuffer dataBuffer = ByteBuffer.wrap(data);
+        for (ByteBuffer part : frame.data()) {
+            dataBuffer.put(part.duplicate());
+        }
+        PngChunks.writeChunk(outputStream, PngChunks.IDAT, data);
+        PngChunks.writeChunk(outputStream, PngChunks.IEND, new byte[0]);
+        return outputStream.toByteArray();
+    }
+
+    private static void writeBuffer(ByteArrayOutputStream outputStream, ByteBuffer buffer) {
+        ByteBuffer duplicate = buffer.duplicate();
+        byte[] bytes = new byte[duplicate.remaining()];
+        duplicate.get(bytes);
+        outputStream.writeBytes(bytes);
+    }
+
+    /**
+     * Finds the frames that can be drawn without knowing what was on the canvas before them.
+     * These are the first frame, frames that replace the whole canvas,
+     * and frames after a frame that covers the whole canvas and clears it afterwards.
+     *
+     * @param frames       The frames.
+     * @param canvasWidth  The width of the canvas.
+     * @param canvasHeight The height of the canvas.
+     * @return The indices of the keyframes, in ascending order. The first frame is always a keyframe.
+     */
+    private static List<Integer> getKeyframes(List<ApngFrame> frames, int canvasWidth, int canvasHeight) {
+        List<Integer> keyframes = new ArrayList<>();
+        keyframes.add(0);
+        for (int i = 1; i < frames.size(); i++) {
+            ApngFrame frame = frames.get(i);
+            ApngFrame previous = frames.get(i - 1);
+            boolean replacesCanvas = frame.covers(canvasWidth, canvasHeight)
+                    && frame.blend() == PngChunks.BLEND_SOURCE
+                    && frame.dispose() != PngChunks.DISPOSE_PREVIOUS;
+            boolean canvasCleared = previous.covers(canvasWidth, canvasHeight)
+                    && previous.dispose() == PngChunks.DISPOSE_BACKGROUND;
+            if (replacesCanvas || canvasCleared) {
+                keyframes.add(i);
+            }
+        }
+        return keyframes;
+    }
+
+    /**
+     * Draws a run of frames that starts with a keyframe on to a canvas.
+     *
+     * @param apngFrames   The frames.
+     * @param framePixels  The decompressed pixels of each frame.
+     * @param start        The index of the keyframe that starts the run, inclusive.
+     * @param end          The index of the end of the run, exclusive.
+     * @param canvasWidth  The width of the canvas.
+     * @param canvasHeight The height of the canvas.
+     * @param imageType    The type to convert the frames to, or null to keep them as {@link BufferedImage#TYPE_INT_ARGB}.
+     * @param sizeHint     The size the frames are needed at, or null to keep them at full size.
+     * @param frames       The array to put the drawn frames in.
+     */
+    private static void compose(
+            List<ApngFrame> apngFrames,
+            int[][] framePixels,
+            int start,
+            int end,
+            int canvasWidth,
+            int canvasHeight,
+            @Nullable Integer imageType,
+            @Nullable ImageSizeHint sizeHint,
+            Frame[] frames
+    ) {
+        int[] canvas = new int[canvasWidth * canvasHeight];
+        for (int i = start; i < end; i++) {
+            ApngFrame frame = apngFrames.get(i);
+            int left = Math.max(frame.left(), 0);
+            int top = Math.max(frame.top(), 0);
+            int right = Math.min(frame.left() + frame.width(), canvasWidth);
+            int bottom = Math.min(frame.top() + frame.height(), canvasHeight);
+
+            int dispose = frame.dispose();
+            // Restoring the first frame to the previous canvas clears it, as there is no previous canvas.
+            if (i == 0 && dispose == PngChunks.DISPOSE_PREVIOUS) {
+                dispose = PngChunks.DISPOSE_BACKGROUND;
+            }
+            int[] previousArea = null;
+            if (dispose == PngChunks.DISPOSE_PREVIOUS) {
+                previousArea = copyArea(canvas, canvasWidth, left, top, right, bottom);
+            }
+
+            draw(frame, framePixels[i], canvas, canvasWidth, left, top, right, bottom);
+            frames[i] = new AwtFrame(createImage(canvas, canvasWidth, canvasHeight, imageType, sizeHint), frame.duration());
+            // Free the pixels as soon as possible, as all the frames are decompressed up front.
+            framePixels[i] = null;
+
+            if (dispose == PngChunks.DISPOSE_BACKGROUND) {
+                for (int y = top; y < bottom; y++) {
+                    int rowStart = y * canvasWidth;
+                    for (int x = left; x < right; x++) {
+                        canvas[rowStart + x] = 0;
+                    }
+                }
+            } else if (previousArea != null) {
+                pasteArea(canvas, canvasWidth, previousArea, left, top, right, bottom);
+            }
+        }
+    }
+
+    private static void draw(ApngFrame frame, int[] pixels, int[] canvas, int canvasWidth, int left, int top, int right, int bottom) {
+        int frameWidth = frame.width();
+        boolean blend = frame.blend() == PngChunks.BLEND_OVER;
+        for (int y = top; y < bottom; y++) {
+            int pixelOffset = (y - frame.top()) * frameWidth - frame.left();
+            int canvasOffset = y * canvasWidth;
+            for (int x = left; x < right; x++) {
+                int pixel = pixels[pixelOffset + x];
+                int canvasIndex = canvasOffset + x;
+                canvas[canvasIndex] = blend ? blend(pixel, canvas[canvasIndex]) : pixel;
+            }
+        }
+    }
+
+    /**
+     * Draws a non-premultiplied ARGB pixel over another.
+     */
+    private static int blend(int source, int destination) {
+        int sourceAlpha = source >>> 24;
+        if (sourceAlpha == 0xFF) {
+            return source;
+        } else if (sourceAlpha == 0) {
+            return destination;
+        } else {
+            int destinationAlpha = destination >>> 24;
+            // The destination's contribution, scaled by 255 to avoid dividing twice.
+            int destinationWeight = destinationAlpha * (0xFF - sourceAlpha);
+            int sourceWeight = sourceAlpha * 0xFF;
+            int totalWeight = sourceWeight + destinationWeight;
+            int alpha = totalWeight / 0xFF;
+            int red = blendChannel(source >> 16, destination >> 16, sourceWeight, destinationWeight, totalWeight);
+            int green = blendChannel(source >> 8, destination >> 8, sourceWeight, destinationWeight, totalWeight);
+            int blue = blendChannel(source, destination, sourceWeight, destinationWeight, totalWeight);
+            return (alpha << 24) | (red << 16) | (green << 8) | blue;
+        }
+    }
+
+    private static int blendChannel(int source, int destination, int sourceWeight, int destinationWeight, int totalWeight) {
+        return ((source & 0xFF) * sourceWeight + (destination & 0xFF) * destinationWeight) / totalWeight;
+    }
+
+    private static BufferedImage createImage(int[] canvas, int canvasWidth, int canvasHeight, @Nullable Integer imageType, @Nullable ImageSizeHint sizeHint) {
+        BufferedImage image = new BufferedImage(canvasWidth, canvasHeight, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        System.arraycopy(canvas, 0, pixels, 0, canvas.length);
+
+        if (sizeHint != null) {
+            Dimension size = sizeHint.getSubsampledSize(canvasWidth, canvasHeight);
+            if (size.width != canvasWidth || size.height != canvasHeight) {
+                image = ImageUtil.stretch(image, size.width, size.height, false);
+            }
+        }
+
+        if (imageType != null) {
+            image = ImageUtil.convertType(image, imageType);
+        }
+
+        return image;
+    }
+
+    private static int[] copyArea(int[] canvas, int canvasWidth, int left, int top, int right, int bottom) {
+        int areaWidth = Math.max(right - left, 0);
+        int[] area = new int[areaWidth * Math.max(bottom - top, 0)];
+        for (int y = top; y < bottom; y++) {
+            System.arraycopy(canvas, y * canvasWidth + left, area, (y - top) * areaWidth, areaWidth);
+        }
+        return area;
+    }
+
+    private static void pasteArea(int[] canvas, int canvasWidth, int[] area, int left, int top, int right, int bottom) {
+        int areaWidth = Math.max(right - left, 0);
+        for (int y = top; y < bottom; y++) {
+            System.arraycopy(area, (y - top) * areaWidth, canvas, y * canvasWidth + left, areaWidth);
+        }
+    }
+}
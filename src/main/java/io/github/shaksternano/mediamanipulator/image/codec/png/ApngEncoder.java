@@ -0,0 +1,309 @@
+package io.github.shaksternano.mediamanipulator.image.codec.png;
+
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+import io.github.shaksternano.mediamanipulator.image.util.Frame;
+import io.github.shaksternano.mediamanipulator.image.util.ImageComputePool;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+
+/**
+ * Encodes APNG files on the {@link ImageComputePool}, with every frame stored losslessly and with full alpha.
+ * <p>
+ * Each frame of an animation is compared with the previous frame, and only the area that changed is stored.
+ * If every pixel that changed is fully opaque, the pixels in that area that haven't changed are made
+ * transparent and the frame is drawn over the previous one, otherwise the area replaces what was there.
+ * This only depends on the two frames being compared, so frames are filtered and compressed in batches,
+ * with the frames of a batch compressed in parallel, each thread keeping its own {@link Deflater}.
+ * Each batch is written once it has finished, so only one batch is in memory at once.
+ * <p>
+ * Still images are written as ordinary PNG files. These are split into stripes of rows,
+ * which are filtered and deflated in parallel, then joined into a single zlib stream,
+ * so the time taken to encode a large image goes down with the number of cores.
+ * <p>
+ * Instances are immutable, so the same encoder can be used to encode many images at once.
+ */
+public class ApngEncoder {
+
+    /**
+     * The number of frames, or stripes of a still image, encoded at once.
+     */
+    private static final int BATCH_SIZE = Math.max(ImageComputePool.THREAD_COUNT * 2, 2);
+
+    /**
+     * The approximate number of bytes of filtered image data in each stripe of a still image.
+     * This is the same as the block size pigz uses by default.
+     */
+    private static final int STRIPE_SIZE = 1 << 17;
+
+    /**
+     * The largest delay numerator, and the duration in milliseconds of the longest frame
+     * that can be stored with millisecond precision.
+     */
+    private static final int MAXIMUM_DELAY = 0xFFFF;
+
+    private final int compressionLevel;
+
+    /**
+     * Creates an encoder that uses zlib's default compression level.
+     */
+    public ApngEncoder() {
+        this(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    private ApngEncoder(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Gets an encoder that uses a different compression level. Higher levels give smaller files,
+     * but take longer to encode.
+     *
+     * @param compressionLevel The compression level, from {@link Deflater#NO_COMPRESSION} to {@link Deflater#BEST_COMPRESSION},
+     *                         or {@link Deflater#DEFAULT_COMPRESSION}.
+     * @return An encoder with the given compression level.
+     * @throws IllegalArgumentException If the compression level is out of range.
+     */
+    public ApngEncoder withCompressionLevel(int compressionLevel) {
+        if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Compression level must be between " + Deflater.DEFAULT_COMPRESSION + " and " + Deflater.BEST_COMPRESSION + "!");
+        }
+        return new ApngEncoder(compressionLevel);
+    }
+
+    /**
+     * Encodes an image as an APNG file, or a PNG file if it isn't animated. Animations loop forever.
+     *
+     * @param image        The image to encode.
+     * @param outputStream The stream to write the file to.
+     * @throws IOException If an error occurs while writing.
+     */
+    public void encode(ImageMedia image, OutputStream outputStream) throws IOException {
+        BufferedImage firstImage = image.getFirstImage();
+        int width = firstImage.getWidth();
+        int height = firstImage.getHeight();
+        if (image.isAnimated()) {
+            encodeAnimated(image, width, height, outputStream);
+        } else {
+            encodeStill(getPixels(firstImage, width, height), width, height, outputStream);
+        }
+    }
+
+    /**
+     * Encodes a still image. Each stripe is primed with the filtered rows of the stripe before it,
+     * so the stripes are filtered and then compressed in batches, keeping the last filtered stripe
+     * of each batch for the next one. The stripes are written as separate IDAT chunks.
+     */
+    private void encodeStill(int[] pixels, int width, int height, OutputStream outputStream) throws IOException {
+        boolean alpha = hasTransparency(pixels);
+        outputStream.write(PngChunks.SIGNATURE);
+        PngChunks.writeChunk(outputStream, PngChunks.IHDR, PngChunks.createHeader(width, height, alpha ? PngChunks.COLOR_TYPE_RGBA : PngChunks.COLOR_TYPE_RGB));
+
+        int rowsPerStripe = Math.max(STRIPE_SIZE / PngFilter.getFilteredSize(width, 1, alpha), 1);
+        int stripeCount = (height + rowsPerStripe - 1) / rowsPerStripe;
+        long adler32 = 1;
+        byte[] previousFiltered = null;
+        for (int start = 0; start < stripeCount; start += BATCH_SIZE) {
+            int batchStart = start;
+            byte[][] filtered = new byte[Math.min(BATCH_SIZE, stripeCount - start)][];
+            ImageComputePool.forEach(filtered.length, index -> {
+                int startRow = (batchStart + index) * rowsPerStripe;
+                int endRow = Math.min(startRow + rowsPerStripe, height);
+                byte[] filteredRows = new byte[PngFilter.getFilteredSize(width, endRow - startRow, alpha)];
+                PngFilter.filter(pixels, width, alpha, startRow, endRow, filteredRows, 0);
+                filtered[index] = filteredRows;
+            });
+
+            Stripe[] stripes = new Stripe[filtered.length];
+            byte[] batchPreviousFiltered = previousFiltered;
+            ImageComputePool.forEach(stripes.length, index -> {
+                byte[] currentRows = filtered[index];
+                byte[] previousRows = index == 0 ? batchPreviousFiltered : filtered[index - 1];
+                boolean last = batchStart + index == stripeCount - 1;
+                stripes[index] = new Stripe(
+                        ParallelDeflater.deflateStripe(currentRows, previousRows, compressionLevel, last),
+                        ParallelDeflater.adler32(currentRows),
+                        currentRows.length
+                );
+            });
+
+            for (int index = 0; index < stripes.length; index++) {
+                Stripe stripe = stripes[index];
+                adler32 = ParallelDeflater.combineAdler32(adler32, stripe.adler32(), stripe.length());
+                ByteArrayOutputStream data = new ByteArrayOutputStream(stripe.data().length + 6);
+                if (batchStart + index == 0) {
+                    ParallelDeflater.writeHeader(data, compressionLevel);
+                }
+                data.writeBytes(stripe.data());
+                if (batchStart + index == stripeCount - 1) {
+                    PngChunks.writeInt(data, (int) adler32);
+                }
+                PngChunks.writeChunk(outputStream, PngChunks.IDAT, data.toByteArray());
+            }
+            previousFiltered = filtered[filtered.length - 1];
+        }
+        PngChunks.writeChunk(outputStream, PngChunks.IEND, new byte[0]);
+    }
+
+    private void encodeAnimated(ImageMedia image, int width, int height, OutputStream outputStream) throws IOException {
+        int frameCount = image.getFrameCount();
+        outputStream.write(PngChunks.SIGNATURE);
+        // Whether an animation has transparency isn't known until every frame has been looked at, so RGBA is always used.
+        PngChunks.writeChunk(outputStream, PngChunks.IHDR, PngChunks.createHeader(width, height, PngChunks.COLOR_TYPE_RGBA));
+        ByteArrayOutputStream animationControl = new ByteArrayOutputStream(8);
+        PngChunks.writeInt(animationControl, frameCount);
+        // Loop forever.
+        PngChunks.writeInt(animationControl, 0);
+        PngChunks.writeChunk(outputStream, PngChunks.ACTL, animationControl.toByteArray());
+
+        int[] previousPixels = null;
+        for (int start = 0; start < frameCount; start += BATCH_SIZE) {
+            int batchStart = start;
+            int[][] pixels = new int[Math.min(BATCH_SIZE, frameCount - start)][];
+            ImageComputePool.forEach(pixels.length, index -> pixels[index] = getPixels(image.getFrame(batchStart + index).getImage(), width, height));
+
+            byte[][] encodedFrames = new byte[pixels.length][];
+            int[] batchPreviousPixels = previousPixels;
+            ImageComputePool.forEach(encodedFrames.length, index -> {
+                Frame frame = image.getFrame(batchStart + index);
+                int[] lastPixels = index == 0 ? batchPreviousPixels : pixels[index - 1];
+                encodedFrames[index] = encodeFrame(pixels[index], lastPixels, width, height, frame.getDuration(), batchStart + index, compressionLevel);
+            });
+            for (byte[] encodedFrame : encodedFrames) {
+                outputStream.write(encodedFrame);
+            }
+            previousPixels = pixels[pixels.length - 1];
+        }
+        PngChunks.writeChunk(outputStream, PngChunks.IEND, new byte[0]);
+    }
+
+    private static int[] getPixels(BufferedImage image, int width, int height) {
+        if (image.getWidth() != width || image.getHeight() != height) {
+            BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = resized.createGraphics();
+            graphics.drawImage(image, 0, 0, null);
+            graphics.dispose();
+            image = resized;
+        }
+        return image.getRGB(0, 0, width, height, null, 0, width);
+    }
+
+    /**
+     * Encodes a frame of an animation.
+     *
+     * @param pixels         The ARGB pixels of the frame.
+     * @param previousPixels The ARGB pixels of the previous frame, or null if this is the first frame.
+     * @param width          The width of the canvas.
+     * @param height         The height of the canvas.
+     * @param duration       The duration of the frame in milliseconds.
+     * @param index          The index of the frame.
+     * @param level          The compression level.
+     * @return The fcTL chunk of the frame, followed by its IDAT or fdAT chunk.
+     */
+    private static byte[] encodeFrame(int[] pixels, @Nullable int[] previousPixels, int width, int height, int duration, int index, int level) {
+        int left = 0;
+        int top = 0;
+        int right = width;
+        int bottom = height;
+        boolean blend = false;
+        if (previousPixels != null) {
+            right = 0;
+            bottom = 0;
+            left = width;
+            top = height;
+            blend = true;
+            for (int y = 0; y < height; y++) {
+                int rowStart = y * width;
+                for (int x = 0; x < width; x++) {
+                    int i = rowStart + x;
+                    if (pixels[i] != previousPixels[i]) {
+                        blend &= pixels[i] >>> 24 == 0xFF;
+                        left = Math.min(left, x);
+                        right = Math.max(right, x + 1);
+                        top = Math.min(top, y);
+                        bottom = Math.max(bottom, y + 1);
+                    }
+                }
+            }
+            if (right == 0) {
+                // Nothing changed, so draw a single transparent pixel over the previous frame.
+                left = 0;
+                top = 0;
+                right = 1;
+                bottom = 1;
+                blend = true;
+            }
+        }
+
+        int frameWidth = right - left;
+        int frameHeight = bottom - top;
+        int[] area = new int[frameWidth * frameHeight];
+        for (int y = 0; y < frameHeight; y++) {
+            int rowStart = (top + y) * width + left;
+            if (blend) {
+                for (int x = 0; x < frameWidth; x++) {
+                    int pixel = pixels[rowStart + x];
+                    area[y * frameWidth + x] = pixel == previousPixels[rowStart + x] ? 0 : pixel;
+                }
+            } else {
+                System.arraycopy(pixels, rowStart, area, y * frameWidth, frameWidth);
+            }
+        }
+        byte[] data = ParallelDeflater.deflate(PngFilter.filter(area, frameWidth, frameHeight, true), level);
+
+        // Frame control chunks and frame data chunks share a sequence number, and the first frame is stored in IDAT chunks.
+        int sequenceNumber = index == 0 ? 0 : index * 2 - 1;
+        ByteArrayOutputStream frameControl = new ByteArrayOutputStream(26);
+        PngChunks.writeInt(frameControl, sequenceNumber);
+        PngChunks.writeInt(frameControl, frameWidth);
+        PngChunks.writeInt(frameControl, frameHeight);
+        PngChunks.writeInt(frameControl, left);
+        PngChunks.writeInt(frameControl, top);
+        if (duration <= MAXIMUM_DELAY) {
+            PngChunks.writeShort(frameControl, duration);
+            PngChunks.writeShort(frameControl, 1000);
+        } else {
+            PngChunks.writeShort(frameControl, Math.min(duration / 10, MAXIMUM_DELAY));
+            PngChunks.writeShort(frameControl, 100);
+        }
+        // The frame is never disposed, as later frames cover exactly the area they change.
+        frameControl.write(PngChunks.DISPOSE_NONE);
+        frameControl.write(blend ? PngChunks.BLEND_OVER : PngChunks.BLEND_SOURCE);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(frameControl.size() + data.length + 40);
+        PngChunks.writeChunk(outputStream, PngChunks.FCTL, frameControl.toByteArray());
+        if (index == 0) {
+            PngChunks.writeChunk(outputStream, PngChunks.IDAT, data);
+        } else {
+            ByteArrayOutputStream frameData = new ByteArrayOutputStream(data.length + 4);
+            PngChunks.writeInt(frameData, sequenceNumber + 1);
+            frameData.writeBytes(data);
+            PngChunks.writeChunk(outputStream, PngChunks.FDAT, frameData.toByteArray());
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static boolean hasTransparency(int[] pixels) {
+        for (int pixel : pixels) {
+            if (pixel >>> 24 < 0xFF) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A compressed stripe of a still image.
+     *
+     * @param data    The raw deflate data of the stripe.
+     * @param adler32 The Adler-32 checksum of the uncompressed stripe.
+     * @param length  The length of the uncompressed stripe.
+     */
+    private record Stripe(byte[] data, long adler32, int length) {
+    }
+}
@@ -0,0 +1,33 @@
+package io.github.shaksternano.mediamanipulator.image.codec.png;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * A frame of an APNG file whose image data hasn't been decompressed yet.
+ *
+ * @param left     The x coordinate of the frame on the canvas.
+ * @param top      The y coordinate of the frame on the canvas.
+ * @param width    The width of the frame.
+ * @param height   The height of the frame.
+ * @param duration The amount of time the frame is shown for in milliseconds.
+ * @param dispose  The dispose operation, which says what happens to the frame's area before the next frame is drawn.
+ * @param blend    The blend operation, which says whether the frame replaces its area or is drawn over it.
+ * @param data     The zlib compressed image data, split across the chunks it was stored in.
+ *                 These are views of the bytes of the file, with the sequence numbers of fdAT chunks removed.
+ */
+record ApngFrame(
+        int left,
+        int top,
+        int width,
+        int height,
+        int duration,
+        int dispose,
+        int blend,
+        List<ByteBuffer> data
+) {
+
+    boolean covers(int canvasWidth, int canvasHeight) {
+        return left <= 0 && top <= 0 && left + width >= canvasWidth && top + height >= canvasHeight;
+    }
+}
@@ -0,0 +1,17 @@
+package io.github.shaksternano.mediamanipulator.image.codec.png;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * An APNG file split into its frames.
+ *
+ * @param width       The width of the canvas.
+ * @param height      The height of the canvas.
+ * @param header      The data of the IHDR chunk.
+ * @param colorChunks The chunks before the image data that affect how the colors of every frame are read,
+ *                    such as the palette, including their lengths and CRCs.
+ * @param frames      The frames, in the order they are shown.
+ */
+record ApngImage(int width, int height, byte[] header, List<ByteBuffer> colorChunks, List<ApngFrame> frames) {
+}
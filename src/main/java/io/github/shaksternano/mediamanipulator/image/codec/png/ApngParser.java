@@ -0,0 +1,222 @@
+package io.github.shaksternano.mediamanipulator.image.codec.png;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.github.shaksternano.mediamanipulator.image.util.ImageUtil;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Splits an APNG file into its frames without decompressing them. Only the chunk headers and the
+ * frame control chunks are read, and the image data of each frame is kept as views of the file's bytes,
+ * so this is cheap compared to decompressing the frames.
+ */
+class ApngParser {
+
+    /**
+     * The chunks before the image data that change how the image data is read.
+     */
+    private static final Set<String> COLOR_CHUNKS = ImmutableSet.of(
+            PngChunks.PLTE,
+            "tRNS",
+            "gAMA",
+            "cHRM",
+            "sRGB",
+            "iCCP",
+            "sBIT"
+    );
+
+    /**
+     * The denominator used for frame delays that have a denominator of 0.
+     */
+    private static final int DEFAULT_DELAY_DENOMINATOR = 100;
+
+    /**
+     * Checks whether a PNG file is animated, by looking for an acTL chunk before the image data.
+     *
+     * @param bytes The bytes of the PNG file.
+     * @return Whether the file is an animated PNG.
+     */
+    static boolean isAnimated(byte[] bytes) {
+        if (!PngChunks.hasSignature(bytes)) {
+            return false;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.position(PngChunks.SIGNATURE.length);
+        try {
+            while (buffer.hasRemaining()) {
+                int length = buffer.getInt();
+                String type = readType(buffer);
+                if (type.equals(PngChunks.ACTL)) {
+                    return true;
+                } else if (type.equals(PngChunks.IDAT) || type.equals(PngChunks.IEND)) {
+                    return false;
+                }
+                // Skip the data and the CRC.
+                buffer.position(buffer.position() + length + 4);
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            // The file is truncated before the image data.
+        }
+        return false;
+    }
+
+    /**
+     * Parses a PNG file, which may or may not be animated. A still image is parsed as a single frame
+     * covering the canvas. A file that is cut off part way through is read up to where it ends.
+     *
+     * @param bytes The bytes of the PNG file.
+     * @return The parsed PNG.
+     * @throws IOException If the bytes are not a PNG file, don't contain any frames,
+     *                     or the canvas or a frame has more than {@link ImageUtil#MAXIMUM_PIXELS} pixels.
+     */
+    static ApngImage parse(byte[] bytes) throws IOException {
+        if (!PngChunks.hasSignature(bytes)) {
+            throw new IOException("Not a PNG file!");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.position(PngChunks.SIGNATURE.length);
+        int width = 0;
+        int height = 0;
+        byte[] header = null;
+        boolean animated = false;
+        ImmutableList.Builder<ByteBuffer> colorChunksBuilder = ImmutableList.builder();
+        List<ByteBuffer> defaultImageData = new ArrayList<>();
+        ImmutableList.Builder<ApngFrame> framesBuilder = ImmutableList.builder();
+        FrameControl control = null;
+        List<ByteBuffer> frameData = new ArrayList<>();
+        try {
+            boolean reading = true;
+            while (reading) {
+                int chunkStart = buffer.position();
+                int length = buffer.getInt();
+                String type = readType(buffer);
+                int dataStart = buffer.position();
+                if (length < 0 || length > buffer.remaining()) {
+                    // The file is truncated part way through this chunk.
+                    break;
+                }
+                switch (type) {
+                    case PngChunks.IHDR -> {
+                        width = buffer.getInt();
+                        height = buffer.getInt();
+                        header = new byte[length];
+                        buffer.get(dataStart, header);
+                    }
+                    case PngChunks.ACTL -> animated = true;
+                    case PngChunks.FCTL -> {
+                        if (control != null && !frameData.isEmpty()) {
+                            framesBuilder.add(control.toFrame(frameData));
+                        }
+                        frameData = new ArrayList<>();
+                        // The sequence number isn't needed, as the chunks are already in order.
+                        buffer.getInt();
+                        int frameWidth = buffer.getInt();
+                        int frameHeight = buffer.getInt();
+                        int left = buffer.getInt();
+                        int top = buffer.getInt();
+                        int delayNumerator = Short.toUnsignedInt(buffer.getShort());
+                        int delayDenominator = Short.toUnsignedInt(buffer.getShort());
+                        if (delayDenominator == 0) {
+                            delayDenominator = DEFAULT_DELAY_DENOMINATOR;
+                        }
+                        int dispose = Byte.toUnsignedInt(buffer.get());
+                        int blend = Byte.toUnsignedInt(buffer.get());
+                        control = new FrameControl(
+                                left,
+                                top,
+                                frameWidth,
+                                frameHeight,
+                                delayNumerator * 1000 / delayDenominator,
+                                dispose,
+                                blend
+                        );
+                    }
+                    case PngChunks.IDAT -> {
+                        ByteBuffer data = buffer.slice(dataStart, length);
+                        defaultImageData.add(data);
+                        // The default image is only part of the animation if a frame control chunk comes before it.
+                        if (control != null) {
+                            frameData.add(data);
+                        }
+                    }
+                    case PngChunks.FDAT -> {
+                        if (control != null && length >= 4) {
+                            frameData.add(buffer.slice(dataStart + 4, length - 4));
+                        }
+                    }
+                    case PngChunks.IEND -> reading = false;
+                    default -> {
+                        if (COLOR_CHUNKS.contains(type) && defaultImageData.isEmpty()) {
+                            colorChunksBuilder.add(buffer.slice(chunkStart, length + 12));
+                        }
+                    }
+                }
+                // Skip to the end of the data, then skip the CRC.
+                buffer.position(dataStart + length);
+                buffer.getInt();
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            // The file is truncated, so keep the frames that were read completely.
+        }
+
+        if (header == null || width <= 0 || height <= 0) {
+            throw new IOException("PNG header is missing!");
+        }
+        ImageUtil.checkSize(width, height, "PNG canvas");
+
+        ImmutableList<ApngFrame> frames;
+        if (animated) {
+            if (control != null && !frameData.isEmpty()) {
+                framesBuilder.add(control.toFrame(frameData));
+            }
+            frames = framesBuilder.build();
+        } else {
+            frames = ImmutableList.of();
+        }
+        // Programs that don't understand APNG show the default image, so use it if there are no readable frames.
+        if (frames.isEmpty() && !defaultImageData.isEmpty()) {
+            frames = ImmutableList.of(new ApngFrame(
+                    0,
+                    0,
+                    width,
+                    height,
+                    0,
+                    PngChunks.DISPOSE_NONE,
+                    PngChunks.BLEND_SOURCE,
+                    ImmutableList.copyOf(defaultImageData)
+            ));
+        }
+
+        if (frames.isEmpty()) {
+            throw new IOException("Could not read any frames!");
+        }
+        for (ApngFrame frame : frames) {
+            ImageUtil.checkSize(frame.width(), frame.height(), "APNG frame");
+        }
+        return new ApngImage(width, height, header, colorChunksBuilder.build(), frames);
+    }
+
+    private static String readType(ByteBuffer buffer) {
+        byte[] type = new byte[4];
+        buffer.get(type);
+        return new String(type, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * The contents of a frame control chunk, which is waiting for the image data after it.
+     */
+    private record FrameControl(int left, int top, int width, int height, int duration, int dispose, int blend) {
+
+        private ApngFrame toFrame(List<ByteBuffer> data) {
+            return new ApngFrame(left, top, width, height, duration, dispose, blend, ImmutableList.copyOf(data));
+        }
+    }
+}
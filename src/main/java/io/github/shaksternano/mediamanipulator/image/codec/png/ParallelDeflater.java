@@ -0,0 +1,168 @@
+package io.github.shaksternano.mediamanipulator.image.codec.png;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.Adler32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses PNG image data into a zlib stream, either all at once or in stripes that are compressed
+ * independently of each other, in the same way as pigz.
+ * <p>
+ * Each stripe is compressed as raw deflate data that ends on a byte boundary without being the final block,
+ * so the compressed stripes can be joined together into a single stream. Each stripe is primed with the
+ * end of the stripe before it as a preset dictionary, so matches can still refer back across stripes,
+ * and the stream is only slightly larger than if it was compressed in one go. The Adler-32 checksums of
+ * the stripes are combined to get the checksum of the whole stream.
+ */
+final class ParallelDeflater {
+
+    /**
+     * The size of the window that deflate matches can refer back within.
+     */
+    private static final int DICTIONARY_SIZE = 1 << 15;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final int ADLER_BASE = 65521;
+
+    private static final int ZLIB_DEFLATE_METHOD = 0x78;
+
+    /**
+     * The deflaters of each thread, indexed by compression level plus one, which are reset rather than
+     * recreated for every stripe. Changing the level of a deflater that already has input can flush it
+     * part way through, so each level has its own deflater. Deflaters are mostly used by the threads of the
+     * {@link io.github.shaksternano.mediamanipulator.image.util.ImageComputePool}, which live as long as the program,
+     * so the deflaters are never ended. The deflaters of other threads that encode images are freed once those threads end.
+     */
+    private static final ThreadLocal<Deflater[]> DEFLATERS = ThreadLocal.withInitial(() -> new Deflater[Deflater.BEST_COMPRESSION + 2]);
+
+    private ParallelDeflater() {
+    }
+
+    /**
+     * Compresses data into a complete zlib stream on the current thread.
+     *
+     * @param data  The data to compress.
+     * @param level The compression level, from 0 to 9, or {@link Deflater#DEFAULT_COMPRESSION}.
+     * @return The zlib stream.
+     */
+    static byte[] deflate(byte[] data, int level) {
+        byte[] compressed = deflateStripe(data, null, level, true);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(compressed.length + 6);
+        writeHeader(outputStream, level);
+        outputStream.writeBytes(compressed);
+        PngChunks.writeInt(outputStream, (int) adler32(data));
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Compresses a stripe of data as raw deflate data.
+     *
+     * @param stripe         The data to compress.
+     * @param previousStripe The uncompressed data of the stripe before this one, or null if this is the first stripe.
+     * @param level          The compression level, from 0 to 9, or {@link Deflater#DEFAULT_COMPRESSION}.
+     * @param last           Whether this is the last stripe, which ends the stream.
+     * @return The compressed stripe. Unless this is the last stripe, this ends on a byte boundary, and doesn't end the stream.
+     */
+    static byte[] deflateStripe(byte[] stripe, @Nullable byte[] previousStripe, int level, boolean last) {
+        Deflater deflater = getDeflater(level);
+        if (previousStripe != null && previousStripe.length > 0) {
+            int dictionaryLength = Math.min(previousStripe.length, DICTIONARY_SIZE);
+            deflater.setDictionary(previousStripe, previousStripe.length - dictionaryLength, dictionaryLength);
+        }
+        deflater.setInput(stripe);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(stripe.length / 4 + 64);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        if (last) {
+            deflater.finish();
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                outputStream.write(buffer, 0, length);
+            }
+        } else {
+            // A sync flush ends the data on a byte boundary without ending the stream.
+            // The first call after the strategy is set only applies it, without using any input.
+            int length;
+            do {
+                length = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                outputStream.write(buffer, 0, length);
+            } while (length == buffer.length || !deflater.needsInput());
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static Deflater getDeflater(int level) {
+        Deflater[] deflaters = DEFLATERS.get();
+        Deflater deflater = deflaters[level + 1];
+        if (deflater == null) {
+            deflater = new Deflater(level, true);
+            deflater.setStrategy(Deflater.FILTERED);
+            deflaters[level + 1] = deflater;
+        } else {
+            deflater.reset();
+        }
+        return deflater;
+    }
+
+    /**
+     * Writes the two byte zlib header that starts the stream.
+     *
+     * @param outputStream The stream to write to.
+     * @param level        The compression level, which the header records.
+     */
+    static void writeHeader(ByteArrayOutputStream outputStream, int level) {
+        int levelFlag;
+        if (level == Deflater.DEFAULT_COMPRESSION || level == 6) {
+            levelFlag = 2;
+        } else if (level <= 1) {
+            levelFlag = 0;
+        } else if (level <= 5) {
+            levelFlag = 1;
+        } else {
+            levelFlag = 3;
+        }
+        int flags = levelFlag << 6;
+        // The header, read as a big endian number, must be a multiple of 31.
+        flags += (31 - (ZLIB_DEFLATE_METHOD << 8 | flags) % 31) % 31;
+        outputStream.write(ZLIB_DEFLATE_METHOD);
+        outputStream.write(flags);
+    }
+
+    static long adler32(byte[] data) {
+        Adler32 adler32 = new Adler32();
+        adler32.update(data);
+        return adler32.getValue();
+    }
+
+    /**
+     * Combines the Adler-32 checksums of two pieces of data into the checksum of the two joined together,
+     * in the same way as zlib's {@code adler32_combine}.
+     *
+     * @param first        The checksum of the first piece of data.
+     * @param second       The checksum of the second piece of data.
+     * @param secondLength The length of the second piece of data.
+     * @return The checksum of the joined data.
+     */
+    static long combineAdler32(long first, long second, long secondLength) {
+        long remainder = secondLength % ADLER_BASE;
+        long sum1 = first & 0xFFFF;
+        long sum2 = (remainder * sum1) % ADLER_BASE;
+        sum1 += (second & 0xFFFF) + ADLER_BASE - 1;
+        sum2 += ((first >> 16) & 0xFFFF) + ((second >> 16) & 0xFFFF) + ADLER_BASE - remainder;
+        if (sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum1 >= ADLER_BASE) {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum2 >= ((long) ADLER_BASE << 1)) {
+            sum2 -= ((long) ADLER_BASE << 1);
+        }
+        if (sum2 >= ADLER_BASE) {
+            sum2 -= ADLER_BASE;
+        }
+        return (sum2 << 16) | sum1;
+    }
+}
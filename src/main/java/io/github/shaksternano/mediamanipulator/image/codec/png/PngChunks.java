@@ -0,0 +1,111 @@
+package io.github.shaksternano.mediamanipulator.image.codec.png;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Constants and helpers for reading and writing the chunks that PNG files are made of.
+ */
+final class PngChunks {
+
+    static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    static final String IHDR = "IHDR";
+    static final String PLTE = "PLTE";
+    static final String IDAT = "IDAT";
+    static final String IEND = "IEND";
+    static final String ACTL = "acTL";
+    static final String FCTL = "fcTL";
+    static final String FDAT = "fdAT";
+
+    static final int COLOR_TYPE_RGB = 2;
+    static final int COLOR_TYPE_RGBA = 6;
+
+    static final int DISPOSE_NONE = 0;
+    static final int DISPOSE_BACKGROUND = 1;
+    static final int DISPOSE_PREVIOUS = 2;
+
+    static final int BLEND_SOURCE = 0;
+    static final int BLEND_OVER = 1;
+
+    private PngChunks() {
+    }
+
+    static boolean hasSignature(byte[] bytes) {
+        if (bytes.length < SIGNATURE.length) {
+            return false;
+        }
+        for (int i = 0; i < SIGNATURE.length; i++) {
+            if (bytes[i] != SIGNATURE[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes a chunk, with its length before it and its CRC after it.
+     *
+     * @param outputStream The stream to write to.
+     * @param type         The four letter type of the chunk.
+     * @param data         The data of the chunk.
+     * @throws IOException If an error occurs while writing.
+     */
+    static void writeChunk(OutputStream outputStream, String type, byte[] data) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream(8);
+        writeChunkHeader(header, type, data.length);
+        header.writeTo(outputStream);
+        outputStream.write(data);
+        ByteArrayOutputStream footer = new ByteArrayOutputStream(4);
+        writeInt(footer, getCrc(type, data));
+        footer.writeTo(outputStream);
+    }
+
+    static void writeChunk(ByteArrayOutputStream outputStream, String type, byte[] data) {
+        writeChunkHeader(outputStream, type, data.length);
+        outputStream.writeBytes(data);
+        writeInt(outputStream, getCrc(type, data));
+    }
+
+    private static void writeChunkHeader(ByteArrayOutputStream outputStream, String type, int length) {
+        writeInt(outputStream, length);
+        outputStream.writeBytes(type.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static int getCrc(String type, byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(type.getBytes(StandardCharsets.US_ASCII));
+        crc.update(data);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Creates the data of an IHDR chunk for an 8 bit, non-interlaced image.
+     */
+    static byte[] createHeader(int width, int height, int colorType) {
+        ByteArrayOutputStream header = new ByteArrayOutputStream(13);
+        writeInt(header, width);
+        writeInt(header, height);
+        // Bit depth.
+        header.write(8);
+        header.write(colorType);
+        // Compression method, filter method and interlace method.
+        header.write(0);
+        header.write(0);
+        header.write(0);
+        return header.toByteArray();
+    }
+
+    static void writeShort(ByteArrayOutputStream outputStream, int value) {
+        outputStream.write((value >> 8) & 0xFF);
+        outputStream.write(value & 0xFF);
+    }
+
+    static void writeInt(ByteArrayOutputStream outputStream, int value) {
+        writeShort(outputStream, value >> 16);
+        writeShort(outputStream, value);
+    }
+}
@@ -0,0 +1,162 @@
+package io.github.shaksternano.mediamanipulator.image.codec.png;
+
+/**
+ * Filters the rows of an image before it is compressed, which makes them much more compressible.
+ * Each row is filtered with every filter type, and the one giving the smallest sum of absolute
+ * differences is kept, which is the heuristic recommended by the PNG specification.
+ */
+final class PngFilter {
+
+    private static final int NONE = 0;
+    private static final int SUB = 1;
+    private static final int UP = 2;
+    private static final int AVERAGE = 3;
+    private static final int PAETH = 4;
+    private static final int FILTER_COUNT = 5;
+
+    private PngFilter() {
+    }
+
+    /**
+     * Gets the number of bytes that filtered rows of an image take up, including the filter type byte of each row.
+     *
+     * @param width  The width of the image.
+     * @param height The number of rows.
+     * @param alpha  Whether the alpha channel is stored.
+     * @return The number of bytes.
+     */
+    static int getFilteredSize(int width, int height, boolean alpha) {
+        return (width * (alpha ? 4 : 3) + 1) * height;
+    }
+
+    /**
+     * Filters an image.
+     *
+     * @param pixels The ARGB pixels of the image.
+     * @param width  The width of the image.
+     * @param height The height of the image.
+     * @param alpha  Whether to store the alpha channel, as 8 bit RGBA, or not, as 8 bit RGB.
+     * @return The filtered rows.
+     */
+    static byte[] filter(int[] pixels, int width, int height, boolean alpha) {
+        byte[] filtered = new byte[getFilteredSize(width, height, alpha)];
+        filter(pixels, width, alpha, 0, height, filtered, 0);
+        return filtered;
+    }
+
+    /**
+     * Filters a range of rows of an image. Rows only depend on the row above them, so ranges of rows
+     * can be filtered independently of each other.
+     *
+     * @param pixels      The ARGB pixels of the image.
+     * @param width       The width of the image.
+     * @param alpha       Whether to store the alpha channel.
+     * @param startRow    The first row to filter, inclusive.
+     * @param endRow      The last row to filter, exclusive.
+     * @param destination The array to write the filtered rows to.
+     * @param offset      The index in the destination to write the first filtered row to.
+     */
+    static void filter(int[] pixels, int width, boolean alpha, int startRow, int endRow, byte[] destination, int offset) {
+        int bytesPerPixel = alpha ? 4 : 3;
+        int rowLength = width * bytesPerPixel;
+        byte[] previousRow = new byte[rowLength];
+        byte[] row = new byte[rowLength];
+        byte[][] candidates = new byte[FILTER_COUNT][rowLength];
+        if (startRow > 0) {
+            toBytes(pixels, (startRow - 1) * width, width, alpha, previousRow);
+        }
+        for (int y = startRow; y < endRow; y++) {
+            toBytes(pixels, y * width, width, alpha, row);
+            int bestFilter = NONE;
+            long bestSum = Long.MAX_VALUE;
+            for (int filter = 0; filter < FILTER_COUNT; filter++) {
+                long sum = apply(filter, row, previousRow, bytesPerPixel, candidates[filter]);
+                if (sum < bestSum) {
+                    bestSum = sum;
+                    bestFilter = filter;
+                }
+            }
+            destination[offset++] = (byte) bestFilter;
+            System.arraycopy(candidates[bestFilter], 0, destination, offset, rowLength);
+            offset += rowLength;
+
+            byte[] swap = previousRow;
+            previousRow = row;
+            row = swap;
+        }
+    }
+
+    private static void toBytes(int[] pixels, int start, int width, boolean alpha, byte[] row) {
+        int i = 0;
+        for (int x = 0; x < width; x++) {
+            int pixel = pixels[start + x];
+            row[i++] = (byte) (pixel >> 16);
+            row[i++] = (byte) (pixel >> 8);
+            row[i++] = (byte) pixel;
+            if (alpha) {
+                row[i++] = (byte) (pixel >>> 24);
+            }
+        }
+    }
+
+    /**
+     * Filters a row with a filter type. Each filter type has its own loop, as this is run for every byte of the image.
+     *
+     * @return The sum of the absolute values of the filtered bytes, treated as signed.
+     */
+    private static long apply(int filter, byte[] row, byte[] previousRow, int bytesPerPixel, byte[] result) {
+        int length = row.length;
+        switch (filter) {
+            case SUB -> {
+                System.arraycopy(row, 0, result, 0, Math.min(bytesPerPixel, length));
+                for (int i = bytesPerPixel; i < length; i++) {
+                    result[i] = (byte) (row[i] - row[i - bytesPerPixel]);
+                }
+            }
+            case UP -> {
+                for (int i = 0; i < length; i++) {
+                    result[i] = (byte) (row[i] - previousRow[i]);
+                }
+            }
+            case AVERAGE -> {
+                for (int i = 0; i < Math.min(bytesPerPixel, length); i++) {
+                    result[i] = (byte) (row[i] - ((previousRow[i] & 0xFF) >> 1));
+                }
+                for (int i = bytesPerPixel; i < length; i++) {
+                    result[i] = (byte) (row[i] - (((row[i - bytesPerPixel] & 0xFF) + (previousRow[i] & 0xFF)) >> 1));
+                }
+            }
+            case PAETH -> {
+                // With no pixel to the left, the Paeth predictor is always the pixel above.
+                for (int i = 0; i < Math.min(bytesPerPixel, length); i++) {
+                    result[i] = (byte) (row[i] - previousRow[i]);
+                }
+                for (int i = bytesPerPixel; i < length; i++) {
+                    int predicted = paeth(row[i - bytesPerPixel] & 0xFF, previousRow[i] & 0xFF, previousRow[i - bytesPerPixel] & 0xFF);
+                    result[i] = (byte) (row[i] - predicted);
+                }
+            }
+            default -> System.arraycopy(row, 0, result, 0, length);
+        }
+
+        long sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += Math.abs(result[i]);
+        }
+        return sum;
+    }
+
+    private static int paeth(int left, int up, int upLeft) {
+        int estimate = left + up - upLeft;
+        int leftDistance = Math.abs(estimate - left);
+        int upDistance = Math.abs(estimate - up);
+        int upLeftDistance = Math.abs(estimate - upLeft);
+        if (leftDistance <= upDistance && leftDistance <= upLeftDistance) {
+            return left;
+        } else if (upDistance <= upLeftDistance) {
+            return up;
+        } else {
+            return upLeft;
+        }
+    }
+}
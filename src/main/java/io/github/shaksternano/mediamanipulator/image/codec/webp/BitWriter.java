@@ -0,0 +1,50 @@
+package io.github.shaksternano.mediamanipulator.image.codec.webp;
+
+import java.util.Arrays;
+
+/**
+ * Writes values to a byte array as a stream of bits, least significant bit first, as WebP lossless images are stored.
+ */
+final class BitWriter {
+
+    private byte[] bytes;
+    private int length;
+    private long buffer;
+    private int bufferedBits;
+
+    BitWriter(int initialCapacity) {
+        bytes = new byte[Math.max(initialCapacity, 16)];
+    }
+
+    /**
+     * Writes the low bits of a value.
+     *
+     * @param value    The value to write.
+     * @param bitCount The number of bits to write, at most 32.
+     */
+    void write(int value, int bitCount) {
+        buffer |= (value & ((1L << bitCount) - 1)) << bufferedBits;
+        bufferedBits += bitCount;
+        while (bufferedBits >= 8) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            bytes[length++] = (byte) buffer;
+            buffer >>>= 8;
+            bufferedBits -= 8;
+        }
+    }
+
+    /**
+     * Gets the written bytes, with the last byte padded with zero bits.
+     *
+     * @return The written bytes.
+     */
+    byte[] toByteArray() {
+        byte[] result = Arrays.copyOf(bytes, length + (bufferedBits > 0 ? 1 : 0));
+        if (bufferedBits > 0) {
+            result[length] = (byte) buffer;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,278 @@
+package io.github.shaksternano.mediamanipulator.image.codec.webp;
+
+import java.util.PriorityQueue;
+
+/**
+ * A canonical Huffman code, as used by WebP lossless images to store the symbols of each channel.
+ */
+final class HuffmanCode {
+
+    /**
+     * The order that the code lengths of the code length code are written in.
+     */
+    private static final int[] CODE_LENGTH_CODE_ORDER = {17, 18, 0, 1, 2, 3, 4, 5, 16, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15};
+
+    private static final int MAXIMUM_CODE_LENGTH = 15;
+    private static final int MAXIMUM_CODE_LENGTH_CODE_LENGTH = 7;
+
+    /**
+     * The code length that code length symbol 16 repeats before any non-zero code length has been written.
+     */
+    private static final int INITIAL_REPEATED_CODE_LENGTH = 8;
+
+    private static final int REPEAT_PREVIOUS = 16;
+    private static final int REPEAT_ZERO_SHORT = 17;
+    private static final int REPEAT_ZERO_LONG = 18;
+
+    private final int[] lengths;
+
+    /**
+     * The codes of each symbol, bit reversed, as codes are read from the most significant bit first.
+     */
+    private final int[] codes;
+
+    private final int usedSymbolCount;
+
+    /**
+     * The used symbols in ascending order, if there are at most two of them.
+     */
+    private final int[] usedSymbols;
+
+    private HuffmanCode(int[] lengths, int[] codes, int usedSymbolCount, int[] usedSymbols) {
+        this.lengths = lengths;
+        this.codes = codes;
+        this.usedSymbolCount = usedSymbolCount;
+        this.usedSymbols = usedSymbols;
+    }
+
+    /**
+     * Creates a code for symbols that occur with the given frequencies.
+     *
+     * @param frequencies The number of times each symbol occurs. The length of the array is the size of the alphabet.
+     * @return The code.
+     */
+    static HuffmanCode create(int[] frequencies) {
+        return create(frequencies, MAXIMUM_CODE_LENGTH);
+    }
+
+    /**
+     * Creates a code for symbols that occur with the given frequencies, with no code longer than a maximum length.
+     * If the optimal code has longer codes, the frequencies are flattened until it doesn't.
+     */
+    private static HuffmanCode create(int[] frequencies, int maximumLength) {
+        int usedSymbolCount = 0;
+        int[] usedSymbols = new int[2];
+        for (int symbol = 0; symbol < frequencies.length; symbol++) {
+            if (frequencies[symbol] > 0) {
+                if (usedSymbolCount < 2) {
+                    usedSymbols[usedSymbolCount] = symbol;
+                }
+                usedSymbolCount++;
+            }
+        }
+
+        int[] lengths = new int[frequencies.length];
+        if (usedSymbolCount == 1) {
+            // A code with a single symbol is stored with its symbol having a length of 1, but takes no bits to write.
+            lengths[usedSymbols[0]] = 1;
+        } else if (usedSymbolCount > 1) {
+            int[] scaledFrequencies = frequencies.clone();
+            while (!buildLengths(scaledFrequencies, lengths, maximumLength)) {
+                for (int symbol = 0; symbol < scaledFrequencies.length; symbol++) {
+                    if (scaledFrequencies[symbol] > 0) {
+                        scaledFrequencies[symbol] = (scaledFrequencies[symbol] >> 1) | 1;
+                    }
+                }
+            }
+        }
+        return new HuffmanCode(lengths, createCodes(lengths), usedSymbolCount, usedSymbols);
+    }
+
+    /**
+     * Works out the code lengths of an optimal code by building a Huffman tree.
+     *
+     * @return Whether all the code lengths are within the maximum length.
+     */
+    private static boolean buildLengths(int[] frequencies, int[] lengths, int maximumLength) {
+        int symbolCount = frequencies.length;
+        // Node IDs are below twice the alphabet size, so they fit in the low 10 bits of a queue entry, below the weight.
+        PriorityQueue<Long> queue = new PriorityQueue<>();
+        for (int symbol = 0; symbol < symbolCount; symbol++) {
+            if (frequencies[symbol] > 0) {
+                queue.add(((long) frequencies[symbol] << 10) | symbol);
+            }
+        }
+
+        int[] parents = new int[symbolCount * 2];
+        int nextNode = symbolCount;
+        while (queue.size() > 1) {
+            long first = queue.remove();
+            long second = queue.remove();
+            parents[(int) (first & 0x3FF)] = nextNode;
+            parents[(int) (second & 0x3FF)] = nextNode;
+            queue.add((((first >>> 10) + (second >>> 10)) << 10) | nextNode);
+            nextNode++;
+        }
+
+        // Parents always have higher IDs than their children, so depths can be worked out from the root down.
+        int root = nextNode - 1;
+        int[] depths = new int[nextNode];
+        for (int node = root - 1; node >= symbolCount; node--) {
+            depths[node] = depths[parents[node]] + 1;
+        }
+        boolean withinMaximum = true;
+        for (int symbol = 0; symbol < symbolCount; symbol++) {
+            lengths[symbol] = frequencies[symbol] > 0 ? depths[parents[symbol]] + 1 : 0;
+            withinMaximum &= lengths[symbol] <= maximumLength;
+        }
+        return withinMaximum;
+    }
+
+    private static int[] createCodes(int[] lengths) {
+        int[] lengthCounts = new int[MAXIMUM_CODE_LENGTH + 1];
+        for (int length : lengths) {
+            lengthCounts[length]++;
+        }
+        lengthCounts[0] = 0;
+        int[] nextCodes = new int[MAXIMUM_CODE_LENGTH + 1];
+        int code = 0;
+        for (int length = 1; length <= MAXIMUM_CODE_LENGTH; length++) {
+            code = (code + lengthCounts[length - 1]) << 1;
+            nextCodes[length] = code;
+        }
+
+        int[] codes = new int[lengths.length];
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            int length = lengths[symbol];
+            if (length > 0) {
+                codes[symbol] = Integer.reverse(nextCodes[length]++) >>> (32 - length);
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * Gets the length of the code for a symbol.
+     *
+     * @param symbol The symbol.
+     * @return The length of the code, or 0 if the symbol isn't used.
+     */
+    int getLength(int symbol) {
+        return lengths[symbol];
+    }
+
+    /**
+     * Writes the code for a symbol.
+     *
+     * @param writer The writer to write to.
+     * @param symbol The symbol, which must be used by this code.
+     */
+    void writeSymbol(BitWriter writer, int symbol) {
+        if (usedSymbolCount > 1) {
+            writer.write(codes[symbol], lengths[symbol]);
+        }
+    }
+
+    /**
+     * Writes the code itself, so that it can be rebuilt when decoding. Codes with one or two symbols below 256
+     * are written as the symbols, otherwise the code lengths are written, run-length encoded and compressed
+     * with another Huffman code.
+     *
+     * @param writer The writer to write to.
+     */
+    void write(BitWriter writer) {
+        if (usedSymbolCount <= 2 && usedSymbols[Math.max(usedSymbolCount - 1, 0)] < 256) {
+            writeSimple(writer);
+        } else {
+            writeNormal(writer);
+        }
+    }
+
+    private void writeSimple(BitWriter writer) {
+        writer.write(1, 1);
+        writer.write(Math.max(usedSymbolCount - 1, 0), 1);
+        int firstSymbol = usedSymbols[0];
+        if (firstSymbol < 2) {
+            writer.write(0, 1);
+            writer.write(firstSymbol, 1);
+        } else {
+            writer.write(1, 1);
+            writer.write(firstSymbol, 8);
+        }
+        if (usedSymbolCount == 2) {
+            writer.write(usedSymbols[1], 8);
+        }
+    }
+
+    private void writeNormal(BitWriter writer) {
+        // Each token is a code length symbol in the low 5 bits, followed by the value of its extra bits.
+        int[] tokens = new int[lengths.length];
+        int tokenCount = 0;
+        int previousLength = INITIAL_REPEATED_CODE_LENGTH;
+        int i = 0;
+        while (i < lengths.length) {
+            int length = lengths[i];
+            int run = 1;
+            while (i + run < lengths.length && lengths[i + run] == length) {
+                run++;
+            }
+            i += run;
+
+            if (length == 0) {
+                while (run >= 11) {
+                    int repeat = Math.min(run, 138);
+                    tokens[tokenCount++] = REPEAT_ZERO_LONG | ((repeat - 11) << 5);
+                    run -= repeat;
+                }
+                if (run >= 3) {
+                    tokens[tokenCount++] = REPEAT_ZERO_SHORT | ((run - 3) << 5);
+                    run = 0;
+                }
+            } else {
+                if (length != previousLength) {
+                    tokens[tokenCount++] = length;
+                    previousLength = length;
+                    run--;
+                }
+                while (run >= 3) {
+                    int repeat = Math.min(run, 6);
+                    tokens[tokenCount++] = REPEAT_PREVIOUS | ((repeat - 3) << 5);
+                    run -= repeat;
+                }
+            }
+            for (int j = 0; j < run; j++) {
+                tokens[tokenCount++] = length;
+            }
+        }
+
+        int[] frequencies = new int[CODE_LENGTH_CODE_ORDER.length];
+        for (int j = 0; j < tokenCount; j++) {
+            frequencies[tokens[j] & 0x1F]++;
+        }
+        HuffmanCode codeLengthCode = create(frequencies, MAXIMUM_CODE_LENGTH_CODE_LENGTH);
+        int codeLengthCount = CODE_LENGTH_CODE_ORDER.length;
+        while (codeLengthCount > 4 && codeLengthCode.lengths[CODE_LENGTH_CODE_ORDER[codeLengthCount - 1]] == 0) {
+            codeLengthCount--;
+        }
+
+        writer.write(0, 1);
+        writer.write(codeLengthCount - 4, 4);
+        for (int j = 0; j < codeLengthCount; j++) {
+            writer.write(codeLengthCode.lengths[CODE_LENGTH_CODE_ORDER[j]], 3);
+        }
+        // The code lengths of every symbol in the alphabet are written, rather than a smaller maximum symbol.
+        writer.write(0, 1);
+        for (int j = 0; j < tokenCount; j++) {
+            int symbol = tokens[j] & 0x1F;
+            int extra = tokens[j] >>> 5;
+            codeLengthCode.writeSymbol(writer, symbol);
+            switch (symbol) {
+                case REPEAT_PREVIOUS -> writer.write(extra, 2);
+                case REPEAT_ZERO_SHORT -> writer.write(extra, 3);
+                case REPEAT_ZERO_LONG -> writer.write(extra, 7);
+                default -> {
+                }
+            }
+        }
+    }
+}
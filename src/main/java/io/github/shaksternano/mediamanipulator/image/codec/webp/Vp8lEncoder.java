@@ -0,0 +1,333 @@
+package io.github.shaksternano.mediamanipulator.image.codec.webp;
+
+import java.util.Arrays;
+
+/**
+ * Encodes a single image in the WebP lossless (VP8L) format. Each image is encoded independently
+ * of any other, so the frames of an animation can be encoded in parallel.
+ * <p>
+ * Pixels are stored as LZ77 backward references to earlier pixels, falling back to literal pixels,
+ * with each channel of the literals and the lengths and distances of the references Huffman coded.
+ * Images with a color table are stored as color indices, packed several to a pixel when there are few colors.
+ */
+final class Vp8lEncoder {
+
+    private static final int SIGNATURE = 0x2F;
+
+    /**
+     * The maximum width or height of a WebP lossless image.
+     */
+    static final int MAXIMUM_DIMENSION = 1 << 14;
+
+    private static final int SUBTRACT_GREEN_TRANSFORM = 2;
+    private static final int COLOR_INDEXING_TRANSFORM = 3;
+
+    private static final int LITERAL_SYMBOL_COUNT = 256;
+    private static final int LENGTH_SYMBOL_COUNT = 24;
+    private static final int DISTANCE_SYMBOL_COUNT = 40;
+
+    private static final int MINIMUM_MATCH_LENGTH = 3;
+    private static final int MAXIMUM_MATCH_LENGTH = 4096;
+
+    /**
+     * Distances up to this are coded directly as the distance plus {@link #PLANE_CODE_COUNT}.
+     */
+    private static final int MAXIMUM_DISTANCE = (1 << 20) - 120;
+
+    /**
+     * The number of distance codes that refer to nearby pixels by their x and y offsets rather than by distance.
+     */
+    private static final int PLANE_CODE_COUNT = 120;
+
+    /**
+     * The x and y offsets of the first few plane codes, which cover the pixel to the left and the three pixels above.
+     * The remaining plane codes refer to pixels further away, which are rarely the best match.
+     */
+    private static final int[] PLANE_X_OFFSETS = {0, 1, 1, -1};
+    private static final int[] PLANE_Y_OFFSETS = {1, 0, 1, 1};
+
+    private static final int HASH_BITS = 16;
+    private static final int MAXIMUM_CHAIN_LENGTH = 32;
+
+    private Vp8lEncoder() {
+    }
+
+    /**
+     * Encodes an image as color indices into a color table.
+     *
+     * @param indices    The color index of each pixel, row by row.
+     * @param colorTable The ARGB colors, at most 256.
+     * @param width      The width of the image.
+     * @param height     The height of the image.
+     * @param hasAlpha   Whether any of the colors are transparent.
+     * @return The contents of the VP8L chunk.
+     */
+    static byte[] encodeIndexed(byte[] indices, int[] colorTable, int width, int height, boolean hasAlpha) {
+        int colorCount = colorTable.length;
+        int widthBits = colorCount <= 2 ? 3 : colorCount <= 4 ? 2 : colorCount <= 16 ? 1 : 0;
+        int bitsPerIndex = 8 >> widthBits;
+        int packedWidth = (width + (1 << widthBits) - 1) >> widthBits;
+        int[] packed = new int[packedWidth * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int i = y * packedWidth + (x >> widthBits);
+                packed[i] |= (indices[y * width + x] & 0xFF) << (8 + bitsPerIndex * (x & ((1 << widthBits) - 1)));
+            }
+        }
+        for (int i = 0; i < packed.length; i++) {
+            packed[i] |= 0xFF000000;
+        }
+
+        // Each color is stored as the difference from the previous color.
+        int[] colorTableDeltas = new int[colorCount];
+        int previous = 0;
+        for (int i = 0; i < colorCount; i++) {
+            colorTableDeltas[i] = subtractPixels(colorTable[i], previous);
+            previous = colorTable[i];
+        }
+
+        BitWriter writer = new BitWriter(packed.length);
+        writeHeader(writer, width, height, hasAlpha);
+        writer.write(1, 1);
+        writer.write(COLOR_INDEXING_TRANSFORM, 2);
+        writer.write(colorCount - 1, 8);
+        writeImage(writer, colorTableDeltas, colorCount, false);
+        writer.write(0, 1);
+        writeImage(writer, packed, packedWidth, true);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Encodes an image as ARGB pixels. The green channel is subtracted from the red and blue channels first,
+     * as the channels of most images are closely related.
+     *
+     * @param pixels   The ARGB pixels, row by row.
+     * @param width    The width of the image.
+     * @param height   The height of the image.
+     * @param hasAlpha Whether any of the pixels are transparent.
+     * @return The contents of the VP8L chunk.
+     */
+    static byte[] encodeArgb(int[] pixels, int width, int height, boolean hasAlpha) {
+        int[] transformed = new int[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            int pixel = pixels[i];
+            int green = (pixel >> 8) & 0xFF;
+            int red = (((pixel >> 16) & 0xFF) - green) & 0xFF;
+            int blue = ((pixel & 0xFF) - green) & 0xFF;
+            transformed[i] = (pixel & 0xFF00FF00) | (red << 16) | blue;
+        }
+
+        BitWriter writer = new BitWriter(pixels.length * 2);
+        writeHeader(writer, width, height, hasAlpha);
+        writer.write(1, 1);
+        writer.write(SUBTRACT_GREEN_TRANSFORM, 2);
+        writer.write(0, 1);
+        writeImage(writer, transformed, width, true);
+        return writer.toByteArray();
+    }
+
+    private static void writeHeader(BitWriter writer, int width, int height, boolean hasAlpha) {
+        writer.write(SIGNATURE, 8);
+        writer.write(width - 1, 14);
+        writer.write(height - 1, 14);
+        writer.write(hasAlpha ? 1 : 0, 1);
+        // Version.
+        writer.write(0, 3);
+    }
+
+    private static int subtractPixels(int pixel1, int pixel2) {
+        int alpha = ((pixel1 >>> 24) - (pixel2 >>> 24)) & 0xFF;
+        int red = (((pixel1 >> 16) & 0xFF) - ((pixel2 >> 16) & 0xFF)) & 0xFF;
+        int green = (((pixel1 >> 8) & 0xFF) - ((pixel2 >> 8) & 0xFF)) & 0xFF;
+        int blue = ((pixel1 & 0xFF) - (pixel2 & 0xFF)) & 0xFF;
+        return (alpha << 24) | (red << 16) | (green << 8) | blue;
+    }
+
+    /**
+     * Writes the pixels of an image, or of the color table, along with the Huffman codes used to store them.
+     *
+     * @param writer  The writer to write to.
+     * @param pixels  The ARGB pixels.
+     * @param xSize   The width of the image.
+     * @param spatial Whether this is the main image, which can have more than one group of Huffman codes.
+     */
+    private static void writeImage(BitWriter writer, int[] pixels, int xSize, boolean spatial) {
+        // No color cache.
+        writer.write(0, 1);
+        if (spatial) {
+            // A single group of Huffman codes is used for the whole image.
+            writer.write(0, 1);
+        }
+
+        // For each token, the length of the backward reference, or 0 for a literal pixel, and the pixel or distance code.
+        int[] lengths = new int[pixels.length];
+        int[] values = new int[pixels.length];
+        int tokenCount = findBackwardReferences(pixels, xSize, lengths, values);
+
+        int[] greenFrequencies = new int[LITERAL_SYMBOL_COUNT + LENGTH_SYMBOL_COUNT];
+        int[] redFrequencies = new int[LITERAL_SYMBOL_COUNT];
+        int[] blueFrequencies = new int[LITERAL_SYMBOL_COUNT];
+        int[] alphaFrequencies = new int[LITERAL_SYMBOL_COUNT];
+        int[] distanceFrequencies = new int[DISTANCE_SYMBOL_COUNT];
+        for (int i = 0; i < tokenCount; i++) {
+            int value = values[i];
+            if (lengths[i] == 0) {
+                greenFrequencies[(value >> 8) & 0xFF]++;
+                redFrequencies[(value >> 16) & 0xFF]++;
+                blueFrequencies[value & 0xFF]++;
+                alphaFrequencies[value >>> 24]++;
+            } else {
+                greenFrequencies[LITERAL_SYMBOL_COUNT + getPrefixCode(lengths[i])]++;
+                distanceFrequencies[getPrefixCode(value)]++;
+            }
+        }
+
+        HuffmanCode greenCode = HuffmanCode.create(greenFrequencies);
+        HuffmanCode redCode = HuffmanCode.create(redFrequencies);
+        HuffmanCode blueCode = HuffmanCode.create(blueFrequencies);
+        HuffmanCode alphaCode = HuffmanCode.create(alphaFrequencies);
+        HuffmanCode distanceCode = HuffmanCode.create(distanceFrequencies);
+        greenCode.write(writer);
+        redCode.write(writer);
+        blueCode.write(writer);
+        alphaCode.write(writer);
+        distanceCode.write(writer);
+
+        for (int i = 0; i < tokenCount; i++) {
+            int value = values[i];
+            int length = lengths[i];
+            if (length == 0) {
+                greenCode.writeSymbol(writer, (value >> 8) & 0xFF);
+                redCode.writeSymbol(writer, (value >> 16) & 0xFF);
+                blueCode.writeSymbol(writer, value & 0xFF);
+                alphaCode.writeSymbol(writer, value >>> 24);
+            } else {
+                greenCode.writeSymbol(writer, LITERAL_SYMBOL_COUNT + getPrefixCode(length));
+                writeExtraBits(writer, length);
+                distanceCode.writeSymbol(writer, getPrefixCode(value));
+                writeExtraBits(writer, value);
+            }
+        }
+    }
+
+    /**
+     * Splits pixels into literals and backward references, using hash chains of pairs of pixels to find
+     * earlier matches. The pixel to the left and the pixel above are always tried, as they are
+     * the most common matches and have the shortest distance codes.
+     *
+     * @return The number of tokens.
+     */
+    private static int findBackwardReferences(int[] pixels, int xSize, int[] lengths, int[] values) {
+        int[] head = new int[1 << HASH_BITS];
+        Arrays.fill(head, -1);
+        int[] chain = new int[pixels.length];
+        int tokenCount = 0;
+        int i = 0;
+        while (i < pixels.length) {
+            int maximumLength = Math.min(MAXIMUM_MATCH_LENGTH, pixels.length - i);
+            int bestLength = 0;
+            int bestDistance = 0;
+            if (maximumLength >= MINIMUM_MATCH_LENGTH) {
+                if (i >= 1) {
+                    bestLength = matchLength(pixels, i - 1, i, maximumLength);
+                    bestDistance = 1;
+                }
+                if (i >= xSize) {
+                    int length = matchLength(pixels, i - xSize, i, maximumLength);
+                    if (length > bestLength) {
+                        bestLength = length;
+                        bestDistance = xSize;
+                    }
+                }
+                int candidate = head[hash(pixels, i)];
+                for (int tries = 0; candidate >= 0 && tries < MAXIMUM_CHAIN_LENGTH && bestLength < maximumLength; tries++) {
+                    int distance = i - candidate;
+                    if (distance > MAXIMUM_DISTANCE) {
+                        break;
+                    }
+                    // A candidate can only be longer than the best match so far if it matches at the end of that match.
+                    if (pixels[candidate + bestLength] == pixels[i + bestLength]) {
+                        int length = matchLength(pixels, candidate, i, maximumLength);
+                        if (length > bestLength) {
+                            bestLength = length;
+                            bestDistance = distance;
+                        }
+                    }
+                    candidate = chain[candidate];
+                }
+            }
+
+            int tokenLength;
+            if (bestLength >= MINIMUM_MATCH_LENGTH) {
+                lengths[tokenCount] = bestLength;
+                values[tokenCount] = getDistanceCode(bestDistance, xSize);
+                tokenLength = bestLength;
+            } else {
+                lengths[tokenCount] = 0;
+                values[tokenCount] = pixels[i];
+                tokenLength = 1;
+            }
+            tokenCount++;
+
+            for (int end = i + tokenLength; i < end; i++) {
+                if (i + 1 < pixels.length) {
+                    int hash = hash(pixels, i);
+                    chain[i] = head[hash];
+                    head[hash] = i;
+                }
+            }
+        }
+        return tokenCount;
+    }
+
+    private static int hash(int[] pixels, int i) {
+        int key = pixels[i] * 0x9E3779B1 + pixels[i + 1];
+        return (key * 0x85EBCA6B) >>> (32 - HASH_BITS);
+    }
+
+    private static int matchLength(int[] pixels, int from, int to, int maximumLength) {
+        int length = 0;
+        while (length < maximumLength && pixels[from + length] == pixels[to + length]) {
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Gets the distance code for a distance, using a plane code if one refers to the same pixel.
+     */
+    private static int getDistanceCode(int distance, int xSize) {
+        for (int code = 0; code < PLANE_X_OFFSETS.length; code++) {
+            int planeDistance = Math.max(PLANE_X_OFFSETS[code] + PLANE_Y_OFFSETS[code] * xSize, 1);
+            if (planeDistance == distance) {
+                return code + 1;
+            }
+        }
+        return distance + PLANE_CODE_COUNT;
+    }
+
+    /**
+     * Gets the prefix code of a length or distance code. Small values have their own prefix code,
+     * while larger values share a prefix code with the values in the same range, told apart by extra bits.
+     *
+     * @param value The value, at least 1.
+     * @return The prefix code.
+     */
+    private static int getPrefixCode(int value) {
+        int offset = value - 1;
+        if (offset < 4) {
+            return offset;
+        } else {
+            int highestBit = 31 - Integer.numberOfLeadingZeros(offset);
+            return 2 * highestBit + ((offset >> (highestBit - 1)) & 1);
+        }
+    }
+
+    private static void writeExtraBits(BitWriter writer, int value) {
+        int offset = value - 1;
+        if (offset >= 4) {
+            int extraBitCount = 30 - Integer.numberOfLeadingZeros(offset);
+            writer.write(offset & ((1 << extraBitCount) - 1), extraBitCount);
+        }
+    }
+}
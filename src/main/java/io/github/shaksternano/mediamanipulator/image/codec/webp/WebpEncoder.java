@@ -0,0 +1,370 @@
+package io.github.shaksternano.mediamanipulator.image.codec.webp;
+
+import io.github.shaksternano.mediamanipulator.image.codec.color.ColorQuantizer;
+import io.github.shaksternano.mediamanipulator.image.codec.color.OctreeQuantizer;
+import io.github.shaksternano.mediamanipulator.image.codec.color.Palette;
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+import io.github.shaksternano.mediamanipulator.image.util.Frame;
+import io.github.shaksternano.mediamanipulator.image.util.ImageComputePool;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Encodes WebP files on the {@link ImageComputePool}, using the lossless (VP8L) format.
+ * Still images are stored losslessly, while animation frames are reduced to a color table
+ * with fully opaque or fully transparent pixels, as the frames of a GIF are.
+ * <p>
+ * Each frame of an animation is compared with the previous frame, and only the area that changed is stored.
+ * If no pixel that was visible has become transparent, the pixels in that area that haven't changed are
+ * made transparent and the frame is blended over the previous one, otherwise the area replaces what was there.
+ * This only depends on the two frames being compared, so frames are encoded in batches, with the frames
+ * of a batch encoded in parallel. Only the pixels of one batch are in memory at once.
+ * <p>
+ * Animation frames are stored as indices into a color table. If a frame has too many colors for this,
+ * its colors are chosen by a {@link ColorQuantizer}, as when encoding a GIF. As the color indices are
+ * compressed with LZ77 and Huffman coding rather than LZW, the result is usually much smaller than a GIF.
+ * Still images with too many colors are stored as full ARGB pixels instead, so they keep all their colors.
+ * <p>
+ * Instances are immutable, so the same encoder can be used to encode many images at once.
+ */
+public class WebpEncoder {
+
+    /**
+     * The number of frames encoded at once.
+     */
+    private static final int BATCH_SIZE = Math.max(ImageComputePool.THREAD_COUNT * 2, 2);
+
+    /**
+     * The longest duration a frame can have, in milliseconds.
+     */
+    private static final int MAXIMUM_DURATION = 0xFFFFFF;
+
+    private static final int ANIMATION_FLAG = 0x02;
+    private static final int ALPHA_FLAG = 0x10;
+    private static final int NO_BLEND_FLAG = 0x02;
+
+    private final ColorQuantizer quantizer;
+
+    /**
+     * Creates an encoder that quantises animation frames with too many colors with {@link OctreeQuantizer}.
+     */
+    public WebpEncoder() {
+        this(new OctreeQuantizer());
+    }
+
+    private WebpEncoder(ColorQuantizer quantizer) {
+        this.quantizer = quantizer;
+    }
+
+    /**
+     * Gets an encoder that chooses the colors of animation frames with too many colors using a different quantizer.
+     *
+     * @param quantizer The quantizer to use.
+     * @return An encoder with the given quantizer.
+     */
+    public WebpEncoder withQuantizer(ColorQuantizer quantizer) {
+        return new WebpEncoder(quantizer);
+    }
+
+    /**
+     * Encodes an image as a WebP file. Animations loop forever.
+     *
+     * @param image        The image to encode.
+     * @param outputStream The stream to write the WebP file to.
+     * @throws IOException If the image is too large to encode, or an error occurs while writing.
+     */
+    public void encode(ImageMedia image, OutputStream outputStream) throws IOException {
+        BufferedImage firstImage = image.getFirstImage();
+        int width = firstImage.getWidth();
+        int height = firstImage.getHeight();
+        if (width > Vp8lEncoder.MAXIMUM_DIMENSION || height > Vp8lEncoder.MAXIMUM_DIMENSION) {
+            throw new IOException("Image is too large to encode as WebP, the maximum width and height is " + Vp8lEncoder.MAXIMUM_DIMENSION + "!");
+        }
+
+        if (image.isAnimated()) {
+            encodeAnimated(image, width, height, outputStream);
+        } else {
+            byte[] vp8l = encodeStill(getPixels(firstImage, width, height), width, height);
+            writeHeader(outputStream, 8 + vp8l.length + (vp8l.length & 1));
+            writeChunk(outputStream, "VP8L", vp8l);
+        }
+    }
+
+    /**
+     * Encodes the frames of an animation. The size of the file has to be written before the frames,
+     * so the encoded frames are kept until they have all finished.
+     */
+    private void encodeAnimated(ImageMedia image, int width, int height, OutputStream outputStream) throws IOException {
+        int frameCount = image.getFrameCount();
+        List<EncodedFrame> encodedFrames = new ArrayList<>(frameCount);
+        int[] previousPixels = null;
+        for (int start = 0; start < frameCount; start += BATCH_SIZE) {
+            int batchStart = start;
+            int[][] pixels = new int[Math.min(BATCH_SIZE, frameCount - start)][];
+            ImageComputePool.forEach(pixels.length, index -> pixels[index] = getThresholdedPixels(image.getFrame(batchStart + index).getImage(), width, height));
+
+            EncodedFrame[] batch = new EncodedFrame[pixels.length];
+            int[] batchPreviousPixels = previousPixels;
+            ImageComputePool.forEach(batch.length, index -> {
+                Frame frame = image.getFrame(batchStart + index);
+                int[] lastPixels = index == 0 ? batchPreviousPixels : pixels[index - 1];
+                batch[index] = encodeFrame(pixels[index], lastPixels, width, height, frame.getDuration());
+            });
+            encodedFrames.addAll(Arrays.asList(batch));
+            previousPixels = pixels[pixels.length - 1];
+        }
+
+        boolean hasAlpha = false;
+        int framesSize = 0;
+        for (EncodedFrame frame : encodedFrames) {
+            hasAlpha |= frame.hasAlpha();
+            framesSize += frame.chunk().length;
+        }
+
+        ByteArrayOutputStream vp8x = new ByteArrayOutputStream(10);
+        vp8x.write(ANIMATION_FLAG | (hasAlpha ? ALPHA_FLAG : 0));
+        writeInt24(vp8x, 0);
+        writeInt24(vp8x, width - 1);
+        writeInt24(vp8x, height - 1);
+
+        ByteArrayOutputStream anim = new ByteArrayOutputStream(6);
+        // Transparent background color, in BGRA order.
+        writeInt32(anim, 0);
+        // Loop forever.
+        anim.write(0);
+        anim.write(0);
+
+        writeHeader(outputStream, 8 + vp8x.size() + 8 + anim.size() + framesSize);
+        writeChunk(outputStream, "VP8X", vp8x.toByteArray());
+        writeChunk(outputStream, "ANIM", anim.toByteArray());
+        for (EncodedFrame frame : encodedFrames) {
+            outputStream.write(frame.chunk());
+        }
+    }
+
+    private static int[] getPixels(BufferedImage image, int width, int height) {
+        if (image.getWidth() != width || image.getHeight() != height) {
+            BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = resized.createGraphics();
+            graphics.drawImage(image, 0, 0, null);
+            graphics.dispose();
+            image = resized;
+        }
+        return image.getRGB(0, 0, width, height, null, 0, width);
+    }
+
+    /**
+     * Gets the pixels of an animation frame, with every pixel made either fully transparent or fully opaque,
+     * so that frames can be blended over the previous frame where their pixels haven't changed.
+     */
+    private static int[] getThresholdedPixels(BufferedImage image, int width, int height) {
+        int[] pixels = getPixels(image, width, height);
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = isTransparent(pixels[i]) ? 0 : pixels[i] | 0xFF000000;
+        }
+        return pixels;
+    }
+
+    /**
+     * Encodes a still image. Images with few enough colors and no partially transparent pixels
+     * are stored as color indices, otherwise all the channels of each pixel are stored.
+     */
+    private static byte[] encodeStill(int[] pixels, int width, int height) {
+        boolean hasTransparency = false;
+        boolean hasPartialTransparency = false;
+        for (int pixel : pixels) {
+            int alpha = pixel >>> 24;
+            hasTransparency |= alpha < 0xFF;
+            hasPartialTransparency |= alpha > 0 && alpha < 0xFF;
+        }
+        Palette palette = hasPartialTransparency ? null : Palette.findExactColors(pixels, hasTransparency ? 255 : 256);
+        if (palette == null) {
+            return Vp8lEncoder.encodeArgb(pixels, width, height, hasTransparency);
+        } else {
+            return encodeIndexed(pixels, palette, width, height, hasTransparency);
+        }
+    }
+
+    /**
+     * Encodes a frame of an animation.
+     *
+     * @param pixels         The ARGB pixels of the frame.
+     * @param previousPixels The ARGB pixels of the previous frame, or null if this is the first frame.
+     * @param width          The width of the canvas.
+     * @param height         The height of the canvas.
+     * @param duration       The duration of the frame in milliseconds.
+     * @return The ANMF chunk of the frame.
+     */
+    private EncodedFrame encodeFrame(int[] pixels, @Nullable int[] previousPixels, int width, int height, int duration) {
+        int left = 0;
+        int top = 0;
+        int right = width;
+        int bottom = height;
+        boolean blend = false;
+        int[] toWrite = pixels;
+        if (previousPixels != null) {
+            blend = canBlend(pixels, previousPixels);
+            if (blend) {
+                toWrite = new int[pixels.length];
+            }
+            right = 0;
+            bottom = 0;
+            left = width;
+            top = height;
+            // Only exactly equal pixels are left out, as they keep the color they were last written with.
+            // The pixels are thresholded, so every transparent pixel is 0.
+            for (int y = 0; y < height; y++) {
+                int rowStart = y * width;
+                for (int x = 0; x < width; x++) {
+                    int i = rowStart + x;
+                    if (pixels[i] != previousPixels[i]) {
+                        if (blend) {
+                            toWrite[i] = pixels[i];
+                        }
+                        left = Math.min(left, x);
+                        right = Math.max(right, x + 1);
+                        top = Math.min(top, y);
+                        bottom = Math.max(bottom, y + 1);
+                    }
+                }
+            }
+            if (right == 0) {
+                // Nothing changed, so blend a single transparent pixel.
+                left = 0;
+                top = 0;
+                right = 1;
+                bottom = 1;
+                blend = true;
+                toWrite = new int[pixels.length];
+            }
+            // Frame offsets are stored halved, so they have to be even.
+            left &= ~1;
+            top &= ~1;
+        }
+
+        int frameWidth = right - left;
+        int frameHeight = bottom - top;
+        int[] area = new int[frameWidth * frameHeight];
+        for (int y = 0; y < frameHeight; y++) {
+            System.arraycopy(toWrite, (top + y) * width + left, area, y * frameWidth, frameWidth);
+        }
+
+        boolean hasTransparency = hasTransparency(area);
+        int maximumColors = hasTransparency ? 255 : 256;
+        Palette palette = Palette.findExactColors(area, maximumColors);
+        if (palette == null) {
+            palette = Palette.nearest(quantizer.quantize(area, maximumColors));
+        }
+        byte[] vp8l = encodeIndexed(area, palette, frameWidth, frameHeight, hasTransparency);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(24 + vp8l.length + 1);
+        outputStream.writeBytes("ANMF".getBytes(StandardCharsets.US_ASCII));
+        writeInt32(outputStream, 16 + 8 + vp8l.length + (vp8l.length & 1));
+        writeInt24(outputStream, left / 2);
+        writeInt24(outputStream, top / 2);
+        writeInt24(outputStream, frameWidth - 1);
+        writeInt24(outputStream, frameHeight - 1);
+        writeInt24(outputStream, Math.min(duration, MAXIMUM_DURATION));
+        // The frame is never disposed, as later frames cover exactly the area they change.
+        outputStream.write(blend ? 0 : NO_BLEND_FLAG);
+        outputStream.writeBytes("VP8L".getBytes(StandardCharsets.US_ASCII));
+        writeInt32(outputStream, vp8l.length);
+        outputStream.writeBytes(vp8l);
+        if ((vp8l.length & 1) != 0) {
+            outputStream.write(0);
+        }
+        return new EncodedFrame(outputStream.toByteArray(), hasTransparency);
+    }
+
+    /**
+     * Encodes pixels as indices into a color table, with an extra transparent color at the end if needed.
+     */
+    private static byte[] encodeIndexed(int[] pixels, Palette palette, int width, int height, boolean hasTransparency) {
+        int transparentIndex = palette.size();
+        int[] colorTable = new int[palette.size() + (hasTransparency ? 1 : 0)];
+        for (int i = 0; i < palette.size(); i++) {
+            colorTable[i] = palette.getColor(i) | 0xFF000000;
+        }
+        byte[] indices = new byte[pixels.length];
+        for (int i = 0; i < pixels.length; i++) {
+            int pixel = pixels[i];
+            indices[i] = (byte) (isTransparent(pixel) ? transparentIndex : palette.indexOf(pixel));
+        }
+        return Vp8lEncoder.encodeIndexed(indices, colorTable, width, height, hasTransparency);
+    }
+
+    /**
+     * Whether a frame can be blended over the previous frame, which is only possible
+     * if no pixel that was visible has become transparent.
+     */
+    private static boolean canBlend(int[] currentPixels, int[] previousPixels) {
+        for (int i = 0; i < currentPixels.length; i++) {
+            if (isTransparent(currentPixels[i]) && !isTransparent(previousPixels[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasTransparency(int[] pixels) {
+        for (int pixel : pixels) {
+            if (isTransparent(pixel)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isTransparent(int pixel) {
+        return pixel >>> 24 < Palette.ALPHA_THRESHOLD;
+    }
+
+    private static void writeHeader(OutputStream outputStream, int chunksSize) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream(12);
+        header.writeBytes("RIFF".getBytes(StandardCharsets.US_ASCII));
+        writeInt32(header, 4 + chunksSize);
+        header.writeBytes("WEBP".getBytes(StandardCharsets.US_ASCII));
+        header.writeTo(outputStream);
+    }
+
+    private static void writeChunk(OutputStream outputStream, String fourCc, byte[] data) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream(8);
+        header.writeBytes(fourCc.getBytes(StandardCharsets.US_ASCII));
+        writeInt32(header, data.length);
+        header.writeTo(outputStream);
+        outputStream.write(data);
+        // Chunks are padded to an even size.
+        if ((data.length & 1) != 0) {
+            outputStream.write(0);
+        }
+    }
+
+    private static void writeInt24(ByteArrayOutputStream outputStream, int value) {
+        outputStream.write(value & 0xFF);
+        outputStream.write((value >> 8) & 0xFF);
+        outputStream.write((value >> 16) & 0xFF);
+    }
+
+    private static void writeInt32(ByteArrayOutputStream outputStream, int value) {
+        writeInt24(outputStream, value);
+        outputStream.write((value >> 24) & 0xFF);
+    }
+
+    /**
+     * An encoded animation frame.
+     *
+     * @param chunk    The ANMF chunk of the frame.
+     * @param hasAlpha Whether the frame has transparent pixels.
+     */
+    private record EncodedFrame(byte[] chunk, boolean hasAlpha) {
+    }
+}
@@ -40,9 +40,4 @@ public abstract class BaseImageMedia implements ImageMedia {
     public Stream<Frame> stream() {
         return StreamSupport.stream(spliterator(), false);
     }
-
-    @Override
-    public Stream<Frame> parallelStream() {
-        return StreamSupport.stream(spliterator(), true);
-    }
 }
@@ -1,9 +1,11 @@
 package io.github.shaksternano.mediamanipulator.image.imagemedia;
 
 import io.github.shaksternano.mediamanipulator.image.util.Frame;
+import io.github.shaksternano.mediamanipulator.image.util.ImageComputePool;
 
 import java.awt.image.BufferedImage;
 import java.util.List;
+import java.util.Spliterator;
 import java.util.stream.Stream;
 
 public interface ImageMedia extends Iterable<Frame> {
@@ -35,5 +37,13 @@ public interface ImageMedia extends Iterable<Frame> {
 
     Stream<Frame> stream();
 
-    Stream<Frame> parallelStream();
+    /**
+     * Gets a {@link Spliterator} over the frames of this ImageMedia. It knows the exact number of frames,
+     * and so does every part it's split into, so streams of the frames can be split evenly.
+     * To process the frames in parallel, use {@link ImageComputePool}.
+     *
+     * @return A {@link Spliterator#SIZED} and {@link Spliterator#SUBSIZED} {@link Spliterator} over the frames.
+     */
+    @Override
+    Spliterator<Frame> spliterator();
 }
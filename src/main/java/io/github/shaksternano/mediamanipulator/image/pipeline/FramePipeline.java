@@ -0,0 +1,53 @@
+package io.github.shaksternano.mediamanipulator.image.pipeline;
+
+import com.google.common.collect.ImmutableList;
+
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Several operations applied to a frame one after the other, with as few intermediate images as possible.
+ * Geometry operations next to each other, such as scaling and rotating, are composed into one transform
+ * and drawn in one go, and pixel operations next to each other are run in one loop over the pixels.
+ * Operations that come after the first stage edit the frame in place where they can.
+ *
+ * @see FramePipelineBuilder
+ */
+public final class FramePipeline implements Function<BufferedImage, BufferedImage> {
+
+    private final List<FrameStage> stages;
+
+    FramePipeline(List<FrameStage> stages) {
+        this.stages = ImmutableList.copyOf(stages);
+    }
+
+    /**
+     * Applies the operations to a frame. The frame itself is never changed.
+     *
+     * @param image The frame.
+     * @return The resulting frame, which may share its pixels with the original frame if it's only cropped,
+     * or be the original frame if there are no operations.
+     */
+    @Override
+    public BufferedImage apply(BufferedImage image) {
+        boolean owned = false;
+        for (FrameStage stage : stages) {
+            BufferedImage result = stage.apply(image, owned);
+            if (result != image) {
+                owned = result.getRaster().getDataBuffer() != image.getRaster().getDataBuffer();
+            }
+            image = result;
+        }
+        return image;
+    }
+
+    /**
+     * Gets the number of times a frame is drawn or looped over by this pipeline.
+     *
+     * @return The number of stages.
+     */
+    public int getStageCount() {
+        return stages.size();
+    }
+}
@@ -0,0 +1,188 @@
+package io.github.shaksternano.mediamanipulator.image.pipeline;
+
+import io.github.shaksternano.mediamanipulator.image.util.ImageUtil;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Builds a {@link FramePipeline}, fusing operations that can be applied together as they are added.
+ */
+public class FramePipelineBuilder {
+
+    private final List<FrameStage> stages = new ArrayList<>();
+
+    /**
+     * Stretches the frame, in the same way as {@link ImageUtil#stretch(BufferedImage, int, int, boolean)} with raw set to true.
+     *
+     * @param widthMultiplier  The stretch width multiplier.
+     * @param heightMultiplier The stretch height multiplier.
+     * @return This builder.
+     */
+    public FramePipelineBuilder stretch(float widthMultiplier, float heightMultiplier) {
+        return addGeometryStep((width, height) -> {
+            int newWidth = (int) (width * widthMultiplier);
+            int newHeight = (int) (height * heightMultiplier);
+            AffineTransform transform = AffineTransform.getScaleInstance((double) newWidth / width, (double) newHeight / height);
+            return new GeometryStep.Placement(transform, newWidth, newHeight);
+        }, false, false, false, false, null);
+    }
+
+    /**
+     * Rotates the frame, in the same way as {@link ImageUtil#rotate(BufferedImage, float, Integer, Integer, Color)}.
+     *
+     * @param degrees         The angle to rotate the frame by, in degrees.
+     * @param newWidth        The width of the result, or null to fit the whole rotated frame.
+     * @param newHeight       The height of the result, or null to fit the whole rotated frame.
+     * @param backgroundColor The colour of the area not covered by the frame, or null to leave it transparent.
+     * @return This builder.
+     */
+    public FramePipelineBuilder rotate(float degrees, @Nullable Integer newWidth, @Nullable Integer newHeight, @Nullable Color backgroundColor) {
+        return addGeometryStep((width, height) -> {
+            double radians = Math.toRadians(degrees);
+            double sin = Math.abs(Math.sin(radians));
+            double cos = Math.abs(Math.cos(radians));
+            int rotatedWidth = newWidth == null ? (int) Math.floor(width * cos + height * sin) : newWidth;
+            int rotatedHeight = newHeight == null ? (int) Math.floor(height * cos + width * sin) : newHeight;
+            AffineTransform transform = AffineTransform.getTranslateInstance((rotatedWidth - width) / 2, (rotatedHeight - height) / 2);
+            transform.rotate(radians, width / 2F, height / 2F);
+            return new GeometryStep.Placement(transform, rotatedWidth, rotatedHeight);
+        }, false, newWidth != null || newHeight != null, true, true, backgroundColor);
+    }
+
+    /**
+     * Crops the frame. If nothing else is drawn, the result shares its pixels with the frame.
+     *
+     * @param area The area of the frame to keep.
+     * @return This builder.
+     */
+    public FramePipelineBuilder crop(Rectangle area) {
+        AffineTransform transform = AffineTransform.getTranslateInstance(-area.getX(), -area.getY());
+        GeometryStep.Placement placement = new GeometryStep.Placement(transform, area.width, area.height);
+        return addGeometryStep((width, height) -> placement, true, true, false, false, null);
+    }
+
+    /**
+     * Adds space around the frame, which is transparent if the frame has an alpha channel.
+     *
+     * @param top    The space to add above the frame.
+     * @param right  The space to add to the right of the frame.
+     * @param bottom The space to add below the frame.
+     * @param left   The space to add to the left of the frame.
+     * @return This builder.
+     */
+    public FramePipelineBuilder expand(int top, int right, int bottom, int left) {
+        AffineTransform transform = AffineTransform.getTranslateInstance(left, top);
+        return addGeometryStep((width, height) -> new GeometryStep.Placement(transform, width + left + right, height + top + bottom), true, false, true, false, null);
+    }
+
+    /**
+     * Draws an image over the frame, after any geometry operations before this one.
+     *
+     * @param image The image to draw.
+     * @param x     The x coordinate of the top left corner of the image.
+     * @param y     The y coordinate of the top left corner of the image.
+     * @param fill  The colour to fill the area of the image with before it's drawn, or null to not fill it.
+     * @return This builder.
+     */
+    public FramePipelineBuilder overlay(BufferedImage image, int x, int y, @Nullable Color fill) {
+        TransformStage stage;
+        if (getLastStage() instanceof TransformStage lastStage && !lastStage.hasOutputType()) {
+            stage = lastStage;
+        } else {
+            stage = new TransformStage();
+            stages.add(stage);
+        }
+        stage.addOverlay(new TransformStage.Overlay(image, x, y, fill));
+        return this;
+    }
+
+    /**
+     * Pixelates the frame, in the same way as shrinking it by the pixelation multiplier
+     * and stretching it back to its original size, without either image being created.
+     *
+     * @param pixelationMultiplier The size of the blocks to pixelate the frame into.
+     * @return This builder.
+     */
+    public FramePipelineBuilder pixelate(int pixelationMultiplier) {
+        if (pixelationMultiplier < 1) {
+            throw new IllegalArgumentException("Pixelation multiplier must be positive!");
+        }
+        stages.add(new PixelStage(pixelationMultiplier));
+        return this;
+    }
+
+    /**
+     * Changes the colour of every pixel of the frame.
+     *
+     * @param operation The operation to apply to every pixel.
+     * @return This builder.
+     */
+    public FramePipelineBuilder map(PixelOperation operation) {
+        PixelStage stage;
+        if (getLastStage() instanceof PixelStage lastStage && !lastStage.hasOutputType()) {
+            stage = lastStage;
+        } else {
+            stage = new PixelStage(1);
+            stages.add(stage);
+        }
+        stage.addOperation(operation);
+        return this;
+    }
+
+    /**
+     * Converts the frame to another {@link BufferedImage} type. If the operation before this one creates
+     * a new image, that image is created with this type, rather than being converted afterwards.
+     *
+     * @param imageType The type to convert to.
+     * @return This builder.
+     */
+    public FramePipelineBuilder convertType(int imageType) {
+        FrameStage lastStage = getLastStage();
+        if (lastStage instanceof TransformStage transformStage && !transformStage.hasOutputType()) {
+            transformStage.setOutputType(imageType);
+        } else if (lastStage instanceof PixelStage pixelStage && !pixelStage.hasOutputType()) {
+            pixelStage.setOutputType(imageType);
+        } else {
+            stages.add((image, owned) -> ImageUtil.convertType(image, imageType));
+        }
+        return this;
+    }
+
+    /**
+     * Applies an operation that can't be fused with any others.
+     *
+     * @param operation The operation to apply.
+     * @return This builder.
+     */
+    public FramePipelineBuilder then(Function<BufferedImage, BufferedImage> operation) {
+        stages.add((image, owned) -> operation.apply(image));
+        return this;
+    }
+
+    public FramePipeline build() {
+        return new FramePipeline(stages);
+    }
+
+    private FramePipelineBuilder addGeometryStep(GeometryStep step, boolean translation, boolean cuts, boolean uncovers, boolean transparent, @Nullable Color backgroundColor) {
+        TransformStage stage;
+        if (getLastStage() instanceof TransformStage lastStage && lastStage.canAddStep(translation, uncovers, backgroundColor != null)) {
+            stage = lastStage;
+        } else {
+            stage = new TransformStage();
+            stages.add(stage);
+        }
+        stage.addStep(step, translation, cuts, uncovers, transparent, backgroundColor);
+        return this;
+    }
+
+    @Nullable
+    private FrameStage getLastStage() {
+        return stages.isEmpty() ? null : stages.get(stages.size() - 1);
+    }
+}
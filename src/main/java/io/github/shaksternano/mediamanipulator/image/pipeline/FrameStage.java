@@ -0,0 +1,18 @@
+package io.github.shaksternano.mediamanipulator.image.pipeline;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * One or more operations of a {@link FramePipeline} that are applied to a frame together.
+ */
+interface FrameStage {
+
+    /**
+     * Applies the operations to a frame.
+     *
+     * @param image The frame.
+     * @param owned Whether the frame was created by an earlier stage of the pipeline, so can be edited in place.
+     * @return The resulting frame.
+     */
+    BufferedImage apply(BufferedImage image, boolean owned);
+}
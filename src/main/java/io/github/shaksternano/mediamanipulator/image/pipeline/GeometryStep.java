@@ -0,0 +1,26 @@
+package io.github.shaksternano.mediamanipulator.image.pipeline;
+
+import java.awt.geom.AffineTransform;
+
+/**
+ * An operation that moves the pixels of a frame around, such as scaling, rotating or cropping it.
+ * The transform can depend on the size of the frame, so it's worked out for every frame.
+ */
+@FunctionalInterface
+interface GeometryStep {
+
+    /**
+     * Works out where the pixels of a frame are moved to.
+     *
+     * @param width  The width of the frame.
+     * @param height The height of the frame.
+     * @return The transform from the frame to the result, and the size of the result.
+     */
+    Placement place(int width, int height);
+
+    /**
+     * The transform from a frame to the result of a {@link GeometryStep}, and the size of the result.
+     */
+    record Placement(AffineTransform transform, int width, int height) {
+    }
+}
@@ -0,0 +1,29 @@
+package io.github.shaksternano.mediamanipulator.image.pipeline;
+
+/**
+ * Changes the colour of a single pixel, such as making it transparent.
+ * Pixel operations next to each other in a {@link FramePipeline} are run in a single loop over the pixels of a frame.
+ */
+@FunctionalInterface
+public interface PixelOperation {
+
+    /**
+     * Changes the colour of a pixel.
+     *
+     * @param argb The colour of the pixel, as a packed ARGB int.
+     * @param x    The x coordinate of the pixel.
+     * @param y    The y coordinate of the pixel.
+     * @return The new colour of the pixel, as a packed ARGB int.
+     */
+    int apply(int argb, int x, int y);
+
+    /**
+     * Gets an operation that applies this operation, and then another one to the result.
+     *
+     * @param after The operation to apply after this one.
+     * @return The combined operation.
+     */
+    default PixelOperation andThen(PixelOperation after) {
+        return (argb, x, y) -> after.apply(apply(argb, x, y), x, y);
+    }
+}
@@ -0,0 +1,149 @@
+package io.github.shaksternano.mediamanipulator.image.pipeline;
+
+import io.github.shaksternano.mediamanipulator.image.util.ImageUtil;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Pixel operations fused into a single loop over the pixels of a frame. The stage can start by pixelating the frame,
+ * in which case each pixel is read from the block of the frame it falls in, rather than the frame being
+ * shrunk and then stretched back to its original size.
+ */
+final class PixelStage implements FrameStage {
+
+    private final int pixelationMultiplier;
+    @Nullable
+    private PixelOperation operation;
+    @Nullable
+    private Integer outputType;
+
+    /**
+     * Creates a new pixel stage.
+     *
+     * @param pixelationMultiplier The size of the blocks to pixelate the frame into, or 1 to not pixelate it.
+     */
+    PixelStage(int pixelationMultiplier) {
+        this.pixelationMultiplier = pixelationMultiplier;
+    }
+
+    void addOperation(PixelOperation operation) {
+        this.operation = this.operation == null ? operation : this.operation.andThen(operation);
+    }
+
+    boolean hasOutputType() {
+        return outputType != null;
+    }
+
+    void setOutputType(int outputType) {
+        this.outputType = outputType;
+    }
+
+    @Override
+    public BufferedImage apply(BufferedImage image, boolean owned) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean pixelate = pixelationMultiplier > 1;
+
+        if (owned
+                && !pixelate
+                && isIntRaster(image)
+                && (outputType == null || outputType == image.getType())
+        ) {
+            if (operation != null) {
+                applyInPlace(image, operation);
+            }
+            return image;
+        }
+
+        int[] source;
+        if (isIntRaster(image) && image.getType() == BufferedImage.TYPE_INT_ARGB) {
+            source = getPixels(image);
+        } else {
+            source = image.getRGB(0, 0, width, height, null, 0, width);
+        }
+
+        int[] columns = pixelate ? pixelateIndices(width, pixelationMultiplier) : null;
+        int[] rows = pixelate ? pixelateIndices(height, pixelationMultiplier) : null;
+
+        int resultType;
+        if (outputType == null) {
+            resultType = image.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        } else {
+            resultType = outputType == BufferedImage.TYPE_INT_RGB ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        }
+        BufferedImage result = new BufferedImage(width, height, resultType);
+        int[] pixels = getPixels(result);
+
+        int i = 0;
+        for (int y = 0; y < height; y++) {
+            int rowStart = rows == null ? y * width : rows[y] * width;
+            for (int x = 0; x < width; x++) {
+                int argb = source[columns == null ? rowStart + x : rowStart + columns[x]];
+                pixels[i++] = operation == null ? argb : operation.apply(argb, x, y);
+            }
+        }
+
+        if (outputType != null && outputType != resultType) {
+            return ImageUtil.convertType(result, outputType);
+        } else {
+            return result;
+        }
+    }
+
+    private static void applyInPlace(BufferedImage image, PixelOperation operation) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = getPixels(image);
+        int alpha = image.getType() == BufferedImage.TYPE_INT_RGB ? 0xFF000000 : 0;
+        int i = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                pixels[i] = operation.apply(pixels[i] | alpha, x, y);
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Checks whether the pixels of an image are stored one int per pixel, row by row with no gaps,
+     * so that they can be read and written directly.
+     */
+    private static boolean isIntRaster(BufferedImage image) {
+        int type = image.getType();
+        return (type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_RGB)
+                && image.getRaster().getParent() == null
+                && image.getRaster().getDataBuffer() instanceof DataBufferInt;
+    }
+
+    private static int[] getPixels(BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Works out which pixel of a row or column each pixel is read from when it's pixelated.
+     * This gives the same result as shrinking the row by the pixelation multiplier and stretching it back
+     * with nearest neighbour sampling, which Java 2D does in 32 bit fixed point.
+     *
+     * @param length               The length of the row or column.
+     * @param pixelationMultiplier The size of the blocks to pixelate into.
+     * @return The index of the pixel each pixel is read from.
+     */
+    static int[] pixelateIndices(int length, int pixelationMultiplier) {
+        int shrunkLength = Math.max(length / pixelationMultiplier, 1);
+        int[] indices = new int[length];
+        for (int i = 0; i < length; i++) {
+            int shrunkIndex = nearestNeighbour(i, shrunkLength, length);
+            indices[i] = nearestNeighbour(shrunkIndex, length, shrunkLength);
+        }
+        return indices;
+    }
+
+    private static int nearestNeighbour(int index, int sourceLength, int destinationLength) {
+        double scale = (double) sourceLength / destinationLength;
+        long step = (long) (scale * (1L << 32));
+        long start = (long) (0.5 * scale * (1L << 32));
+        return (int) ((start + index * step) >> 32);
+    }
+}
@@ -0,0 +1,213 @@
+package io.github.shaksternano.mediamanipulator.image.pipeline;
+
+import io.github.shaksternano.mediamanipulator.image.util.ImageUtil;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Several geometry steps composed into one transform, so that a frame is only drawn once,
+ * onto a canvas that can have a background colour and images drawn over it.
+ */
+final class TransformStage implements FrameStage {
+
+    private final List<GeometryStep> steps = new ArrayList<>();
+    private final List<Overlay> overlays = new ArrayList<>();
+    private int leadingCrops = 0;
+    private boolean translationOnly = true;
+    private boolean cutsFrame = false;
+    private boolean uncoversArea = false;
+    private boolean transparentResult = false;
+    @Nullable
+    private Color backgroundColor;
+    @Nullable
+    private Integer outputType;
+
+    /**
+     * Adds a geometry step to the end of this stage.
+     *
+     * @param step            The step to add.
+     * @param translation     Whether the step only moves the frame, without resampling it.
+     * @param cuts            Whether the step can cut off parts of the frame.
+     * @param uncovers        Whether the step can leave parts of the result not covered by the frame.
+     * @param transparent     Whether the result should always have an alpha channel.
+     * @param backgroundColor The colour to fill the result with before the frame is drawn, or null to not fill it.
+     */
+    void addStep(GeometryStep step, boolean translation, boolean cuts, boolean uncovers, boolean transparent, @Nullable Color backgroundColor) {
+        if (translation && cuts && leadingCrops == steps.size()) {
+            leadingCrops++;
+        }
+        steps.add(step);
+        translationOnly &= translation;
+        cutsFrame |= cuts;
+        uncoversArea |= uncovers;
+        transparentResult |= transparent;
+        if (backgroundColor != null) {
+            this.backgroundColor = backgroundColor;
+        }
+    }
+
+    /**
+     * Checks whether another geometry step can be composed into this stage.
+     * Steps can't be composed after anything has been drawn over the frame, or after the type of the result
+     * has been set. The background colour fills the whole result, so a step with a background colour can't
+     * come after a step that leaves part of the frame uncovered, and the other way around. A step that resamples
+     * the frame can't come after a step that cuts off part of it, unless only crops come before it, so that
+     * the frame never has to be clipped to a shape that isn't lined up with the pixels.
+     *
+     * @param translation        Whether the step only moves the frame, without resampling it.
+     * @param uncovers           Whether the step can leave parts of the result not covered by the frame.
+     * @param hasBackgroundColor Whether the step has a background colour.
+     * @return Whether the step can be added.
+     */
+    boolean canAddStep(boolean translation, boolean uncovers, boolean hasBackgroundColor) {
+        return overlays.isEmpty()
+                && outputType == null
+                && !(hasBackgroundColor && uncoversArea)
+                && !(uncovers && backgroundColor != null)
+                && (translation || !cutsFrame || leadingCrops == steps.size());
+    }
+
+    void addOverlay(Overlay overlay) {
+        overlays.add(overlay);
+    }
+
+    boolean hasOutputType() {
+        return outputType != null;
+    }
+
+    void setOutputType(int outputType) {
+        this.outputType = outputType;
+    }
+
+    @Override
+    public BufferedImage apply(BufferedImage image, boolean owned) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        AffineTransform transform = new AffineTransform();
+        // Each step only keeps the part of the frame that lands inside its result,
+        // so the frame is clipped to the area inside every intermediate result.
+        Area clip = new Area(new Rectangle(width, height));
+        for (int i = 0; i < steps.size(); i++) {
+            GeometryStep.Placement placement = steps.get(i).place(width, height);
+            if (i < leadingCrops && transform.isIdentity() && steps.size() > leadingCrops) {
+                // Crops before a resampling step are done by drawing only part of the frame.
+                Rectangle area = new Rectangle(
+                        (int) -placement.transform().getTranslateX(),
+                        (int) -placement.transform().getTranslateY(),
+                        placement.width(),
+                        placement.height()
+                );
+                if (new Rectangle(width, height).contains(area)) {
+                    image = image.getSubimage(area.x, area.y, area.width, area.height);
+                    width = area.width;
+                    height = area.height;
+                    clip = new Area(new Rectangle(width, height));
+                    continue;
+                }
+            }
+            transform.preConcatenate(placement.transform());
+            width = placement.width();
+            height = placement.height();
+            clip.transform(placement.transform());
+            clip.intersect(new Area(new Rectangle(width, height)));
+        }
+
+        if (canCropInPlace(image, transform, width, height)) {
+            return image.getSubimage((int) -transform.getTranslateX(), (int) -transform.getTranslateY(), width, height);
+        }
+
+        int type;
+        if (outputType != null) {
+            type = outputType;
+        } else if (transparentResult) {
+            type = BufferedImage.TYPE_INT_ARGB;
+        } else {
+            type = ImageUtil.getType(image);
+        }
+
+        BufferedImage result = new BufferedImage(width, height, type);
+        Graphics2D graphics = result.createGraphics();
+
+        if (backgroundColor != null) {
+            graphics.setColor(backgroundColor);
+            graphics.fillRect(0, 0, width, height);
+        }
+
+        Area drawnArea = new Area(new Rectangle(image.getWidth(), image.getHeight())).createTransformedArea(transform);
+        drawnArea.intersect(new Area(new Rectangle(width, height)));
+        if (!clip.equals(drawnArea)) {
+            graphics.clip(clip);
+        }
+
+        if (transform.isIdentity()) {
+            graphics.drawImage(image, 0, 0, null);
+        } else if ((transform.getType() & ~(AffineTransform.TYPE_TRANSLATION | AffineTransform.TYPE_MASK_SCALE)) == 0
+                && transform.getScaleX() > 0
+                && transform.getScaleY() > 0
+        ) {
+            // Drawn the same way as ImageUtil.stretch, so scaling through a pipeline gives the same pixels.
+            int x = (int) Math.round(transform.getTranslateX());
+            int y = (int) Math.round(transform.getTranslateY());
+            int scaledWidth = (int) Math.round(image.getWidth() * transform.getScaleX());
+            int scaledHeight = (int) Math.round(image.getHeight() * transform.getScaleY());
+            graphics.drawImage(image, x, y, scaledWidth, scaledHeight, null);
+        } else {
+            graphics.drawImage(image, transform, null);
+        }
+
+        graphics.setClip(null);
+        for (Overlay overlay : overlays) {
+            overlay.draw(graphics);
+        }
+
+        graphics.dispose();
+        return result;
+    }
+
+    /**
+     * Checks whether the result is just an area of the frame, which can then share the pixels of the frame.
+     */
+    private boolean canCropInPlace(BufferedImage image, AffineTransform transform, int width, int height) {
+        if (!translationOnly
+                || backgroundColor != null
+                || !overlays.isEmpty()
+                || (outputType != null && outputType != image.getType())
+        ) {
+            return false;
+        }
+
+        double x = -transform.getTranslateX();
+        double y = -transform.getTranslateY();
+        return x == Math.rint(x)
+                && y == Math.rint(y)
+                && x >= 0
+                && y >= 0
+                && x + width <= image.getWidth()
+                && y + height <= image.getHeight();
+    }
+
+    /**
+     * An image drawn over the result of a stage.
+     *
+     * @param image The image to draw.
+     * @param x     The x coordinate of the top left corner of the image.
+     * @param y     The y coordinate of the top left corner of the image.
+     * @param fill  The colour to fill the area of the image with before it's drawn, or null to not fill it.
+     */
+    record Overlay(BufferedImage image, int x, int y, @Nullable Color fill) {
+
+        void draw(Graphics2D graphics) {
+            if (fill != null) {
+                graphics.setColor(fill);
+                graphics.fillRect(x, y, image.getWidth(), image.getHeight());
+            }
+            graphics.drawImage(image, x, y, null);
+        }
+    }
+}
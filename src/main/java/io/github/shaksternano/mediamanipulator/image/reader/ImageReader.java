@@ -1,6 +1,7 @@
 package io.github.shaksternano.mediamanipulator.image.reader;
 
 import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+import io.github.shaksternano.mediamanipulator.image.util.ImageSizeHint;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
@@ -14,5 +15,37 @@ public interface ImageReader {
 
     ImageMedia read(File file, @Nullable Integer type) throws IOException;
 
+    /**
+     * Reads an image, shrinking it while decoding if a size hint is given and the reader supports it.
+     *
+     * @param inputStream The stream to read the image from.
+     * @param type        The {@link java.awt.image.BufferedImage} type to convert the image to, or null to keep the original type.
+     * @param sizeHint    The size the image is needed at, or null to read the image at full size.
+     * @return The read image.
+     * @throws IOException If an error occurs while reading the image.
+     */
+    default ImageMedia read(InputStream inputStream, @Nullable Integer type, @Nullable ImageSizeHint sizeHint) throws IOException {
+        return read(inputStream, type);
+    }
+
+    /**
+     * Whether this reader shrinks images while decoding them when given a size hint.
+     *
+     * @return Whether this reader supports size hints.
+     */
+    default boolean supportsSizeHint() {
+        return false;
+    }
+
+    /**
+     * Whether this reader reads every frame of animated images, rather than only the first one.
+     * Readers that do are always tried before ones that don't, however fast the others are.
+     *
+     * @return Whether this reader supports animation.
+     */
+    default boolean supportsAnimation() {
+        return false;
+    }
+
     Set<String> getSupportedFormats();
 }
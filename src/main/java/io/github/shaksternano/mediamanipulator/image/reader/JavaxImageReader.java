@@ -3,14 +3,18 @@ package io.github.shaksternano.mediamanipulator.image.reader;
 import com.google.common.collect.ImmutableSet;
 import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
 import io.github.shaksternano.mediamanipulator.image.imagemedia.StaticImage;
+import io.github.shaksternano.mediamanipulator.image.util.ImageSizeHint;
 import io.github.shaksternano.mediamanipulator.image.util.ImageUtil;
 import org.jetbrains.annotations.Nullable;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.stream.ImageInputStream;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Iterator;
 import java.util.Set;
 
 public class JavaxImageReader implements ImageReader {
@@ -27,6 +31,42 @@ public class JavaxImageReader implements ImageReader {
         return processImage(image, type);
     }
 
+    @Override
+    public ImageMedia read(InputStream inputStream, @Nullable Integer type, @Nullable ImageSizeHint sizeHint) throws IOException {
+        if (sizeHint == null) {
+            return read(inputStream, type);
+        } else {
+            try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream)) {
+                if (imageInputStream == null) {
+                    throw new IOException("Could not create an image input stream!");
+                }
+
+                Iterator<javax.imageio.ImageReader> readers = ImageIO.getImageReaders(imageInputStream);
+                if (!readers.hasNext()) {
+                    throw new IOException("No ImageIO reader found for the image!");
+                }
+
+                javax.imageio.ImageReader reader = readers.next();
+                try {
+                    reader.setInput(imageInputStream, true, true);
+                    int subsamplingFactor = sizeHint.getSubsamplingFactor(reader.getWidth(0), reader.getHeight(0));
+                    ImageReadParam readParam = reader.getDefaultReadParam();
+                    if (subsamplingFactor > 1) {
+                        readParam.setSourceSubsampling(subsamplingFactor, subsamplingFactor, 0, 0);
+                    }
+                    return processImage(reader.read(0, readParam), type);
+                } finally {
+                    reader.dispose();
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean supportsSizeHint() {
+        return true;
+    }
+
     private static ImageMedia processImage(@Nullable BufferedImage image, @Nullable Integer type) throws IOException {
         if (image == null) {
             throw new IOException();
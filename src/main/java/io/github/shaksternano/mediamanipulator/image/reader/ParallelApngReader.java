@@ -0,0 +1,51 @@
+package io.github.shaksternano.mediamanipulator.image.reader;
+
+import com.google.common.collect.ImmutableSet;
+import io.github.shaksternano.mediamanipulator.image.codec.png.ApngDecoder;
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+import io.github.shaksternano.mediamanipulator.image.util.ImageSizeHint;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Set;
+
+/**
+ * Reads APNG files using {@link ApngDecoder}, which decompresses the frames in parallel.
+ */
+public class ParallelApngReader implements ImageReader {
+
+    @Override
+    public ImageMedia read(InputStream inputStream, @Nullable Integer type) throws IOException {
+        return read(inputStream, type, null);
+    }
+
+    @Override
+    public ImageMedia read(File file, @Nullable Integer type) throws IOException {
+        return ApngDecoder.decode(Files.readAllBytes(file.toPath()), type, null);
+    }
+
+    @Override
+    public ImageMedia read(InputStream inputStream, @Nullable Integer type, @Nullable ImageSizeHint sizeHint) throws IOException {
+        return ApngDecoder.decode(inputStream.readAllBytes(), type, sizeHint);
+    }
+
+    @Override
+    public boolean supportsSizeHint() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsAnimation() {
+        return true;
+    }
+
+    @Override
+    public Set<String> getSupportedFormats() {
+        return ImmutableSet.of(
+                "apng"
+        );
+    }
+}
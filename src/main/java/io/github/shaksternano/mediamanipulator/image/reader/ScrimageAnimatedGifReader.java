@@ -7,9 +7,11 @@ import com.sksamuel.scrimage.nio.ImageSource;
 import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
 import io.github.shaksternano.mediamanipulator.image.util.AwtFrame;
 import io.github.shaksternano.mediamanipulator.image.util.ImageMediaBuilder;
+import io.github.shaksternano.mediamanipulator.image.util.ImageSizeHint;
 import io.github.shaksternano.mediamanipulator.image.util.ImageUtil;
 import org.jetbrains.annotations.Nullable;
 
+import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
@@ -20,17 +22,27 @@ public class ScrimageAnimatedGifReader implements ImageReader {
 
     @Override
     public ImageMedia read(InputStream inputStream, @Nullable Integer type) throws IOException {
-        AnimatedGif gif = AnimatedGifReader.read(ImageSource.of(inputStream));
-        return processGif(gif, type);
+        return read(inputStream, type, null);
     }
 
     @Override
     public ImageMedia read(File file, @Nullable Integer type) throws IOException {
         AnimatedGif gif = AnimatedGifReader.read(ImageSource.of(file));
-        return processGif(gif, type);
+        return processGif(gif, type, null);
     }
 
-    private static ImageMedia processGif(AnimatedGif gif, @Nullable Integer type) throws IOException {
+    @Override
+    public ImageMedia read(InputStream inputStream, @Nullable Integer type, @Nullable ImageSizeHint sizeHint) throws IOException {
+        AnimatedGif gif = AnimatedGifReader.read(ImageSource.of(inputStream));
+        return processGif(gif, type, sizeHint);
+    }
+
+    @Override
+    public boolean supportsSizeHint() {
+        return true;
+    }
+
+    private static ImageMedia processGif(AnimatedGif gif, @Nullable Integer type, @Nullable ImageSizeHint sizeHint) throws IOException {
         ImageMediaBuilder builder = new ImageMediaBuilder();
         if (gif.getFrameCount() <= 0) {
             throw new IOException("Could not read any frames!");
@@ -39,6 +51,14 @@ public class ScrimageAnimatedGifReader implements ImageReader {
                 BufferedImage image = gif.getFrame(i).awt();
                 int duration = (int) gif.getDelay(i).toMillis();
 
+                if (sizeHint != null) {
+                    // Scale each frame as it is decoded, so that only one full size frame is kept in memory at a time.
+                    Dimension size = sizeHint.getSubsampledSize(image.getWidth(), image.getHeight());
+                    if (size.width != image.getWidth() || size.height != image.getHeight()) {
+                        image = ImageUtil.stretch(image, size.width, size.height, false);
+                    }
+                }
+
                 if (type != null) {
                     image = ImageUtil.convertType(image, type);
                 }
@@ -50,6 +70,11 @@ public class ScrimageAnimatedGifReader implements ImageReader {
         }
     }
 
+    @Override
+    public boolean supportsAnimation() {
+        return true;
+    }
+
     @Override
     public Set<String> getSupportedFormats() {
         return ImmutableSet.of(
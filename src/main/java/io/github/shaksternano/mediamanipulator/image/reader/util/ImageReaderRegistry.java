@@ -2,7 +2,9 @@ package io.github.shaksternano.mediamanipulator.image.reader.util;
 
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.MultimapBuilder;
+import com.google.common.collect.Multimaps;
 import io.github.shaksternano.mediamanipulator.image.reader.ImageReader;
+import io.github.shaksternano.mediamanipulator.image.util.CodecStatistics;
 
 import java.util.Collections;
 import java.util.List;
@@ -11,6 +13,7 @@ import java.util.Set;
 public class ImageReaderRegistry {
 
     private static final ListMultimap<String, ImageReader> registry = MultimapBuilder.hashKeys().arrayListValues().build();
+    private static final CodecStatistics<ImageReader> statistics = new CodecStatistics<>(ImageReader::supportsAnimation);
 
     public static void register(ImageReader reader) {
         for (String format : reader.getSupportedFormats()) {
@@ -18,8 +21,27 @@ public class ImageReaderRegistry {
         }
     }
 
+    /**
+     * Gets the readers for a format, ordered by how quickly each is expected to successfully read the format,
+     * with the readers that read animations first.
+     *
+     * @param format The format to get the readers for.
+     * @return The readers in the order they should be tried.
+     */
     public static List<ImageReader> getReaders(String format) {
-        return Collections.unmodifiableList(registry.get(format.toLowerCase()));
+        return statistics.order(format, registry.get(format.toLowerCase()));
+    }
+
+    public static void recordSuccess(String format, ImageReader reader, long nanos) {
+        statistics.recordSuccess(format, reader, nanos);
+    }
+
+    public static void recordFailure(String format, ImageReader reader, long nanos) {
+        statistics.recordFailure(format, reader, nanos);
+    }
+
+    public static String getStatisticsSummary() {
+        return statistics.getSummary(Multimaps.asMap(registry));
     }
 
     public static Set<String> getSupportedFormats() {
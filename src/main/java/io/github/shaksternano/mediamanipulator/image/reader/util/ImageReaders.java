@@ -1,60 +1,220 @@
 package io.github.shaksternano.mediamanipulator.image.reader.util;
 
+import com.google.common.collect.ImmutableList;
 import io.github.shaksternano.mediamanipulator.Main;
 import io.github.shaksternano.mediamanipulator.exception.UnreadableFileException;
+import io.github.shaksternano.mediamanipulator.image.codec.png.ApngDecoder;
 import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
 import io.github.shaksternano.mediamanipulator.image.reader.ImageReader;
 import io.github.shaksternano.mediamanipulator.image.reader.JavaxImageReader;
+import io.github.shaksternano.mediamanipulator.image.reader.ParallelApngReader;
+import io.github.shaksternano.mediamanipulator.image.reader.ParallelGifReader;
 import io.github.shaksternano.mediamanipulator.image.reader.ScrimageAnimatedGifReader;
 import io.github.shaksternano.mediamanipulator.image.reader.ScrimageImageReader;
+import io.github.shaksternano.mediamanipulator.image.util.AwtFrame;
+import io.github.shaksternano.mediamanipulator.image.util.ImageComputePool;
+import io.github.shaksternano.mediamanipulator.image.util.ImageMediaBuilder;
+import io.github.shaksternano.mediamanipulator.image.util.ImageSizeHint;
+import io.github.shaksternano.mediamanipulator.image.util.ImageUtil;
 import org.jetbrains.annotations.Nullable;
 
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.io.*;
+import java.nio.file.Files;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ImageReaders {
 
+    /**
+     * The reader that last successfully read an image, for each image format and signature.
+     * This is more specific than the per-format order kept by {@link ImageReaderRegistry}, so it is tried first.
+     */
+    private static final Map<String, ImageReader> SUCCESSFUL_READERS = new ConcurrentHashMap<>();
+
     public static void registerImageReaders() {
+        // Images are always read from memory, so there is no need for ImageIO to cache them on disk.
+        ImageIO.setUseCache(false);
+
+        ImageReaderRegistry.register(new ParallelGifReader());
         ImageReaderRegistry.register(new ScrimageAnimatedGifReader());
+        ImageReaderRegistry.register(new ParallelApngReader());
         ImageReaderRegistry.register(new ScrimageImageReader());
         ImageReaderRegistry.register(new JavaxImageReader());
     }
 
     public static ImageMedia read(File file, String imageFormat, @Nullable Integer imageType) throws IOException {
+        return read(file, imageFormat, imageType, null);
+    }
+
+    public static ImageMedia read(File file, String imageFormat, @Nullable Integer imageType, @Nullable ImageSizeHint sizeHint) throws IOException {
+        return read(Files.readAllBytes(file.toPath()), imageFormat, imageType, sizeHint);
+    }
+
+    public static ImageMedia read(InputStream inputStream, String imageFormat, @Nullable Integer imageType) throws IOException {
+        byte[] bytes;
+        try (inputStream) {
+            bytes = inputStream.readAllBytes();
+        }
+        return read(bytes, imageFormat, imageType);
+    }
+
+    /**
+     * Reads an image. The bytes are shared between all the readers that are tried, without being copied.
+     * The reader that last succeeded for images with the same format and signature is tried first.
+     *
+     * @param bytes       The bytes of the image. These must not be modified.
+     * @param imageFormat The format of the image.
+     * @param imageType   The {@link java.awt.image.BufferedImage} type to convert the image frames to,
+     *                    or null to keep the original type.
+     * @return The read image.
+     * @throws IOException If none of the readers could read the image.
+     */
+    public static ImageMedia read(byte[] bytes, String imageFormat, @Nullable Integer imageType) throws IOException {
+        return read(bytes, imageFormat, imageType, null);
+    }
+
+    /**
+     * Reads an image, shrinking it to the size given by a size hint. Readers that can shrink the image
+     * while decoding it are tried first. If the image is read by a reader that can't, it is shrunk
+     * afterwards, so the size of the result doesn't depend on which reader was used.
+     *
+     * @param bytes       The bytes of the image. These must not be modified.
+     * @param imageFormat The format of the image.
+     * @param imageType   The {@link BufferedImage} type to convert the image frames to,
+     *                    or null to keep the original type.
+     * @param sizeHint    The size the image is needed at, or null to read the image at full size.
+     * @return The read image.
+     * @throws IOException If none of the readers could read the image.
+     */
+    public static ImageMedia read(byte[] bytes, String imageFormat, @Nullable Integer imageType, @Nullable ImageSizeHint sizeHint) throws IOException {
+        imageFormat = getReaderFormat(bytes, imageFormat);
         List<ImageReader> readers = ImageReaderRegistry.getReaders(imageFormat);
         if (readers.isEmpty()) {
             throw new UnreadableFileException("No image reader found for image type " + imageFormat + "!");
         } else {
-            for (ImageReader reader : readers) {
+            String signatureKey = imageFormat.toLowerCase() + ":" + HexFormat.of().formatHex(getSignature(bytes, imageFormat));
+            IOException lastException = null;
+            List<ImageReader> orderedReaders = orderReaders(readers, SUCCESSFUL_READERS.get(signatureKey));
+            if (sizeHint != null) {
+                orderedReaders = preferSizeHintReaders(orderedReaders);
+            }
+
+            for (ImageReader reader : orderedReaders) {
+                long startTime = System.nanoTime();
                 try {
-                    return reader.read(file, imageType);
+                    ImageMedia imageMedia = reader.read(new ByteArrayInputStream(bytes), imageType, sizeHint);
+                    ImageReaderRegistry.recordSuccess(imageFormat, reader, System.nanoTime() - startTime);
+                    SUCCESSFUL_READERS.put(signatureKey, reader);
+                    return sizeHint == null ? imageMedia : shrinkToSizeHint(imageMedia, sizeHint);
                 } catch (IOException e) {
-                    Main.getLogger().error("Error reading image with reader " + reader.getClass().getSimpleName() + "!", e);
+                    ImageReaderRegistry.recordFailure(imageFormat, reader, System.nanoTime() - startTime);
+                    Main.getLogger().warn("Reader " + reader.getClass().getSimpleName() + " could not read image with type " + imageFormat + ": " + e);
+                    lastException = e;
                 }
             }
 
+            Main.getLogger().error("Could not read image with type " + imageFormat + " with any reader!", lastException);
             throw new UnreadableFileException("Could not read image with type " + imageFormat + "!");
         }
     }
 
-    public static ImageMedia read(InputStream inputStream, String imageFormat, @Nullable Integer imageType) throws IOException {
-        List<ImageReader> readers = ImageReaderRegistry.getReaders(imageFormat);
-        if (readers.isEmpty()) {
-            throw new UnreadableFileException("No image reader found for image type " + imageFormat + "!");
+    /**
+     * Moves the reader that last succeeded for a signature ahead of the other readers that read the same number of frames.
+     * It is never moved ahead of a reader that reads animations when it doesn't, as it would then read only
+     * the first frame of every later image with the same signature.
+     */
+    private static List<ImageReader> orderReaders(List<ImageReader> readers, @Nullable ImageReader successfulReader) {
+        if (successfulReader == null || !readers.contains(successfulReader)) {
+            return readers;
         } else {
-            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-            inputStream.transferTo(outputStream);
-            inputStream.close();
+            ImmutableList.Builder<ImageReader> builder = ImmutableList.builder();
+            boolean added = false;
             for (ImageReader reader : readers) {
-                try {
-                    return reader.read(new ByteArrayInputStream(outputStream.toByteArray()), imageType);
-                } catch (IOException e) {
-                    Main.getLogger().error("Error reading image with reader " + reader.getClass().getSimpleName() + "!", e);
+                if (!added && reader.supportsAnimation() == successfulReader.supportsAnimation()) {
+                    builder.add(successfulReader);
+                    added = true;
+                }
+                if (!reader.equals(successfulReader)) {
+                    builder.add(reader);
                 }
             }
-            outputStream.close();
+            return builder.build();
+        }
+    }
 
-            throw new UnreadableFileException("Could not read image with type " + imageFormat + "!");
+    private static List<ImageReader> preferSizeHintReaders(List<ImageReader> readers) {
+        ImmutableList.Builder<ImageReader> builder = ImmutableList.builder();
+        readers.stream().filter(ImageReader::supportsSizeHint).forEach(builder::add);
+        readers.stream().filter(reader -> !reader.supportsSizeHint()).forEach(builder::add);
+        return builder.build();
+    }
+
+    private static ImageMedia shrinkToSizeHint(ImageMedia imageMedia, ImageSizeHint sizeHint) {
+        BufferedImage firstImage = imageMedia.getFirstImage();
+        Dimension size = sizeHint.getSubsampledSize(firstImage.getWidth(), firstImage.getHeight());
+        if (size.width == firstImage.getWidth() && size.height == firstImage.getHeight()) {
+            return imageMedia;
+        } else {
+            return ImageMediaBuilder.fromCollection(ImageComputePool.mapFrames(imageMedia, frame -> {
+                BufferedImage shrunkImage = ImageUtil.stretch(frame.getImage(), size.width, size.height, false);
+                int duration = frame.getDuration();
+                frame.flush();
+                return new AwtFrame(shrunkImage, duration);
+            }));
+        }
+    }
+
+    /**
+     * Gets the format used to look up the readers for an image. Animated PNG files have the same extension
+     * as still ones, but most PNG readers only read their first frame, so they are looked up as APNG files.
+     * This also keeps the statistics used to order the readers separate for the two.
+     *
+     * @param bytes       The bytes of the image.
+     * @param imageFormat The format of the image.
+     * @return The format to look up the readers with.
+     */
+    private static String getReaderFormat(byte[] bytes, String imageFormat) {
+        if (imageFormat.equalsIgnoreCase("png") && ApngDecoder.isAnimated(bytes)) {
+            return "apng";
+        } else {
+            return imageFormat;
+        }
+    }
+
+    /**
+     * Gets the header bytes that distinguish between variants of an image format,
+     * which different readers may or may not be able to read.
+     *
+     * @param bytes       The bytes of the image.
+     * @param imageFormat The format of the image.
+     * @return The signature bytes.
+     */
+    private static byte[] getSignature(byte[] bytes, String imageFormat) {
+        return switch (imageFormat.toLowerCase()) {
+            // GIF version.
+            case "gif" -> copyRange(bytes, 0, 6);
+            // Bit depth and color type.
+            case "png" -> copyRange(bytes, 24, 26);
+            // The first marker, such as JFIF or Exif.
+            case "jpeg", "jpg" -> copyRange(bytes, 2, 4);
+            // Lossy, lossless or extended.
+            case "webp" -> copyRange(bytes, 12, 16);
+            default -> new byte[0];
+        };
+    }
+
+    private static byte[] copyRange(byte[] bytes, int from, int to) {
+        if (from >= bytes.length) {
+            return new byte[0];
+        } else {
+            byte[] range = new byte[Math.min(to, bytes.length) - from];
+            System.arraycopy(bytes, from, range, 0, range.length);
+            return range;
         }
     }
 }
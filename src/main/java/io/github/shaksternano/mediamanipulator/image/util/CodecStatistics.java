@@ -0,0 +1,165 @@
+package io.github.shaksternano.mediamanipulator.image.util;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Records how often image readers or writers succeed for each format and how long they take,
+ * and uses this to order them so that the one expected to finish the job soonest is tried first.
+ * Readers or writers that support animation are always tried before ones that don't,
+ * as the others only read or write the first frame, however fast and reliable they are.
+ *
+ * @param <T> The type of the reader or writer.
+ */
+public class CodecStatistics<T> {
+
+    /**
+     * The number of attempts a reader or writer needs to have made
+     * with a format before it is reordered based on its statistics.
+     */
+    private static final int MINIMUM_ATTEMPTS = 5;
+
+    private final Map<String, Map<T, Statistics>> statistics = new ConcurrentHashMap<>();
+    private final Predicate<T> supportsAnimation;
+
+    /**
+     * Creates a new {@code CodecStatistics}.
+     *
+     * @param supportsAnimation Whether a reader or writer reads or writes every frame of animated images.
+     */
+    public CodecStatistics(Predicate<T> supportsAnimation) {
+        this.supportsAnimation = supportsAnimation;
+    }
+
+    public void recordSuccess(String format, T codec, long nanos) {
+        Statistics codecStatistics = getStatistics(format, codec);
+        codecStatistics.successes.increment();
+        codecStatistics.totalNanos.add(nanos);
+    }
+
+    public void recordFailure(String format, T codec, long nanos) {
+        Statistics codecStatistics = getStatistics(format, codec);
+        codecStatistics.failures.increment();
+        codecStatistics.totalNanos.add(nanos);
+    }
+
+    /**
+     * Orders readers or writers by their expected cost, which is their average time per attempt divided
+     * by their chance of succeeding. Trying them in this order minimises the expected total time taken.
+     * Readers or writers are only ordered against others that support animation in the same way,
+     * with the ones that support it first. Within each group, readers or writers that haven't been tried
+     * enough times yet are kept after the others, in their original order.
+     *
+     * @param format     The format being read or written.
+     * @param candidates The readers or writers in registration order.
+     * @return The readers or writers in the order they should be tried.
+     */
+    public List<T> order(String format, List<T> candidates) {
+        Map<T, Statistics> formatStatistics = statistics.getOrDefault(format.toLowerCase(), Map.of());
+        List<T> animated = new ArrayList<>();
+        List<T> still = new ArrayList<>();
+        for (T candidate : candidates) {
+            if (supportsAnimation.test(candidate)) {
+                animated.add(candidate);
+            } else {
+                still.add(candidate);
+            }
+        }
+        return ImmutableList.<T>builder()
+                .addAll(orderByCost(animated, formatStatistics))
+                .addAll(orderByCost(still, formatStatistics))
+                .build();
+    }
+
+    private static <T> List<T> orderByCost(List<T> candidates, Map<T, Statistics> formatStatistics) {
+        List<T> sampled = new ArrayList<>();
+        List<T> unsampled = new ArrayList<>();
+        for (T candidate : candidates) {
+            Statistics candidateStatistics = formatStatistics.get(candidate);
+            if (candidateStatistics != null && candidateStatistics.getAttempts() >= MINIMUM_ATTEMPTS) {
+                sampled.add(candidate);
+            } else {
+                unsampled.add(candidate);
+            }
+        }
+
+        // The costs are read once, as other threads can record attempts while sorting.
+        Map<T, Double> costs = new HashMap<>();
+        for (T candidate : sampled) {
+            costs.put(candidate, formatStatistics.get(candidate).getExpectedCost());
+        }
+        sampled.sort(Comparator.comparingDouble(costs::get));
+        sampled.addAll(unsampled);
+        return sampled;
+    }
+
+    /**
+     * Gets a human-readable summary of the statistics, one line per format and reader or writer,
+     * in the order they are currently tried.
+     *
+     * @param registered The registered readers or writers for each format, in registration order.
+     * @return The summary.
+     */
+    public String getSummary(Map<String, List<T>> registered) {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, List<T>> entry : new TreeMap<>(registered).entrySet()) {
+            String format = entry.getKey();
+            Map<T, Statistics> formatStatistics = statistics.getOrDefault(format, Map.of());
+            for (T codec : order(format, entry.getValue())) {
+                Statistics codecStatistics = formatStatistics.get(codec);
+                builder.append(format)
+                        .append(": ")
+                        .append(codec.getClass().getSimpleName());
+                if (codecStatistics == null) {
+                    builder.append(" unused");
+                } else {
+                    builder.append(' ')
+                            .append(codecStatistics.successes.sum())
+                            .append(" succeeded, ")
+                            .append(codecStatistics.failures.sum())
+                            .append(" failed, ")
+                            .append(String.format("%.1f", codecStatistics.getAverageNanos() / 1_000_000))
+                            .append("ms average");
+                }
+                builder.append('\n');
+            }
+        }
+        return builder.toString();
+    }
+
+    private Statistics getStatistics(String format, T codec) {
+        return statistics.computeIfAbsent(format.toLowerCase(), key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(codec, key -> new Statistics());
+    }
+
+    private static class Statistics {
+
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+
+        private long getAttempts() {
+            return successes.sum() + failures.sum();
+        }
+
+        private double getAverageNanos() {
+            long attempts = getAttempts();
+            return attempts == 0 ? 0 : (double) totalNanos.sum() / attempts;
+        }
+
+        private double getExpectedCost() {
+            long successCount = successes.sum();
+            double successChance = (successCount + 1D) / (getAttempts() + 2D);
+            return getAverageNanos() / successChance;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package io.github.shaksternano.mediamanipulator.image.util;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs the per-frame work of image operations on a pool with one thread per physical core,
+ * rather than on the common pool, which is shared with everything else in the process and has a thread
+ * per logical core. Pixel loops gain little from hyperthreading, and having more threads than cores
+ * only makes each job take longer.
+ * <p>
+ * Each job is given a share of the pool when it starts, so that one job with many frames can't
+ * take every thread while other jobs wait behind it. A job gets all the threads if it's the only one running,
+ * half of them if there is one other, and so on, with at least one thread each. The thread that starts
+ * a job always works on it too, so a job started from inside another job never waits for a free thread.
+ */
+public class ImageComputePool {
+
+    /**
+     * The number of threads in the pool.
+     */
+    public static final int THREAD_COUNT = getPhysicalCoreCount();
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(THREAD_COUNT, new ThreadFactoryBuilder()
+            .setNameFormat("image-compute-%d")
+            .setDaemon(true)
+            .build());
+
+    /**
+     * The amount of work, in pixels, that a thread takes at a time when tasks are cheap.
+     */
+    private static final long CHUNK_COST = 1 << 18;
+
+    private static final AtomicInteger RUNNING_JOBS = new AtomicInteger();
+
+    /**
+     * Applies an operation to every frame of some media, with the frames split between the threads of this job.
+     *
+     * @param imageMedia The media to apply the operation to.
+     * @param operation  The operation to apply to each frame.
+     * @return The resulting frames, in the same order as the original frames.
+     */
+    public static List<Frame> mapFrames(ImageMedia imageMedia, Function<Frame, Frame> operation) {
+        return mapFrames(imageMedia, 1, operation);
+    }
+
+    /**
+     * Applies an operation to every frame of some media, with the frames split between the threads of this job.
+     * Frames that are cheap to process are handed out a few at a time rather than one by one.
+     *
+     * @param imageMedia      The media to apply the operation to.
+     * @param operationWeight Roughly how much work the operation does per pixel, compared to drawing the frame once.
+     * @param operation       The operation to apply to each frame.
+     * @return The resulting frames, in the same order as the original frames.
+     */
+    public static List<Frame> mapFrames(ImageMedia imageMedia, float operationWeight, Function<Frame, Frame> operation) {
+        Frame[] frames = new Frame[imageMedia.getFrameCount()];
+        if (frames.length > 0) {
+            BufferedImage firstImage = imageMedia.getFirstImage();
+            long cost = (long) ((long) firstImage.getWidth() * firstImage.getHeight() * operationWeight);
+            forEach(frames.length, cost, index -> frames[index] = operation.apply(imageMedia.getFrame(index)));
+        }
+        return ImmutableList.copyOf(frames);
+    }
+
+    /**
+     * Applies an operation to every element of a list, with the elements split between the threads of this job.
+     *
+     * @param elements  The elements to apply the operation to.
+     * @param operation The operation to apply to each element.
+     * @param <T>       The type of the elements.
+     * @param <R>       The type of the results.
+     * @return The results, in the same order as the elements.
+     */
+    public static <T, R> List<R> map(List<T> elements, Function<? super T, ? extends R> operation) {
+        Object[] results = new Object[elements.size()];
+        forEach(results.length, index -> results[index] = operation.apply(elements.get(index)));
+        @SuppressWarnings("unchecked")
+        List<R> resultList = (List<R>) Arrays.asList(results);
+        return resultList;
+    }
+
+    /**
+     * Runs a task for every index from 0 up to, but not including, the count, and waits for all of them to finish.
+     * The indices are handed out one at a time.
+     *
+     * @param count The number of indices.
+     * @param task  The task to run for each index.
+     * @see #forEach(int, long, IntConsumer)
+     */
+    public static void forEach(int count, IntConsumer task) {
+        forEach(count, Long.MAX_VALUE, task);
+    }
+
+    /**
+     * Runs a task for every index from 0 up to, but not including, the count, and waits for all of them to finish.
+     * Each thread of the job takes the next indices that haven't been taken yet, so a few slow indices
+     * don't hold up the rest. Cheap tasks are taken several at a time, so that threads spend their time
+     * running tasks rather than taking them, but never so many that some threads are left with nothing to do.
+     * If a task throws an exception, no more indices are started, and the exception is thrown once
+     * the tasks that had already started have finished.
+     *
+     * @param count        The number of indices.
+     * @param costPerIndex Roughly how much work each task does, such as the number of pixels it processes.
+     * @param task         The task to run for each index.
+     */
+    public static void forEach(int count, long costPerIndex, IntConsumer task) {
+        if (count <= 0) {
+            return;
+        }
+
+        int runningJobs = RUNNING_JOBS.incrementAndGet();
+        try {
+            int quota = Math.max(THREAD_COUNT / runningJobs, 1);
+            int helpers = Math.min(quota, count) - 1;
+            if (helpers <= 0) {
+                for (int i = 0; i < count; i++) {
+                    task.accept(i);
+                }
+                return;
+            }
+
+            int chunkSize = getChunkSize(count, costPerIndex, helpers + 1);
+            Job job = new Job(count, chunkSize, task);
+            for (int i = 0; i < helpers; i++) {
+                EXECUTOR.execute(job::work);
+            }
+            job.work();
+            job.await();
+        } finally {
+            RUNNING_JOBS.decrementAndGet();
+        }
+    }
+
+    /**
+     * Gets the number of indices a thread takes at a time. This is enough indices to add up to {@link #CHUNK_COST},
+     * but no more than a quarter of each thread's fair share, so that threads that finish early can still help.
+     */
+    private static int getChunkSize(int count, long costPerIndex, int threads) {
+        long cheapChunkSize = CHUNK_COST / Math.max(costPerIndex, 1);
+        long balancedChunkSize = count / (threads * 4L);
+        return (int) Math.max(Math.min(cheapChunkSize, balancedChunkSize), 1);
+    }
+
+    /**
+     * Gets the number of physical cores, which on Linux is worked out from the core IDs of each processor.
+     * Elsewhere, and if that fails, every processor available to the JVM is counted as a core.
+     */
+    private static int getPhysicalCoreCount() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        try {
+            Set<String> cores = new HashSet<>();
+            String physicalId = "";
+            for (String line : Files.readAllLines(Path.of("/proc/cpuinfo"))) {
+                String[] parts = line.split(":", 2);
+                if (parts.length == 2) {
+                    String key = parts[0].trim();
+                    if (key.equals("physical id")) {
+                        physicalId = parts[1].trim();
+                    } else if (key.equals("core id")) {
+                        cores.add(physicalId + ":" + parts[1].trim());
+                    }
+                }
+            }
+            if (!cores.isEmpty()) {
+                // The JVM can be limited to fewer processors than the machine has.
+                return Math.max(Math.min(cores.size(), processors), 1);
+            }
+        } catch (IOException | RuntimeException ignored) {
+        }
+        return processors;
+    }
+
+    private static class Job {
+
+        private final int count;
+        private final int chunkSize;
+        private final IntConsumer task;
+        private final AtomicInteger nextIndex = new AtomicInteger();
+        private final CountDownLatch finished;
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        private Job(int count, int chunkSize, IntConsumer task) {
+            this.count = count;
+            this.chunkSize = chunkSize;
+            this.task = task;
+            finished = new CountDownLatch(count);
+        }
+
+        private void work() {
+            int start;
+            while ((start = nextIndex.getAndAdd(chunkSize)) < count) {
+                int end = Math.min(start + chunkSize, count);
+                for (int index = start; index < end; index++) {
+                    try {
+                        if (failure.get() == null) {
+                            task.accept(index);
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        finished.countDown();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Waits for the indices taken by other threads to finish. Every index has been taken by the time
+         * this is called, and indices are only taken by running threads, so this never waits on a queued thread.
+         */
+        private void await() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    finished.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+
+            Throwable throwable = failure.get();
+            if (throwable instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            } else if (throwable instanceof Error error) {
+                throw error;
+            } else if (throwable != null) {
+                throw new IllegalStateException(throwable);
+            }
+        }
+    }
+}
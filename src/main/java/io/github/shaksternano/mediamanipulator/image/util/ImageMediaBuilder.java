@@ -76,23 +76,9 @@ public class ImageMediaBuilder {
         }
     }
 
-    public static ImageMedia fromCollection(Iterable<Frame> frames) {
-        int frameCount = 0;
-        BufferedImage firstImage = null;
-        for (Frame frame : frames) {
-            if (firstImage == null) {
-                firstImage = frame.getImage();
-            }
-
-            frameCount++;
-
-            if (frameCount > 1) {
-                break;
-            }
-        }
-
-        if (frameCount == 1) {
-            return new StaticImage(firstImage);
+    public static ImageMedia fromCollection(Collection<Frame> frames) {
+        if (frames.size() == 1) {
+            return new StaticImage(frames.iterator().next().getImage());
         } else {
             return new AnimatedImage(frames);
         }
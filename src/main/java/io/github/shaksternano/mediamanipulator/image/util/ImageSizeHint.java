@@ -0,0 +1,50 @@
+package io.github.shaksternano.mediamanipulator.image.util;
+
+import java.awt.*;
+
+/**
+ * A hint that an image is only needed at a certain size, so large images can be shrunk while they are decoded
+ * instead of being decoded at full size first. Images are only shrunk by a whole number factor, and never
+ * so much that the shorter side is smaller than the shorter side of the hint, or the longer side is
+ * smaller than the longer side of the hint, so the orientation of the image doesn't matter.
+ *
+ * @param width  The width the image is needed at.
+ * @param height The height the image is needed at.
+ */
+public record ImageSizeHint(int width, int height) {
+
+    public ImageSizeHint {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Size hint dimensions must be positive!");
+        }
+    }
+
+    /**
+     * Gets the factor an image should be shrunk by in each dimension.
+     *
+     * @param imageWidth  The width of the image.
+     * @param imageHeight The height of the image.
+     * @return The factor to shrink by, 1 if the image shouldn't be shrunk.
+     */
+    public int getSubsamplingFactor(int imageWidth, int imageHeight) {
+        int shorterFactor = Math.min(imageWidth, imageHeight) / Math.min(width, height);
+        int longerFactor = Math.max(imageWidth, imageHeight) / Math.max(width, height);
+        return Math.max(Math.min(shorterFactor, longerFactor), 1);
+    }
+
+    /**
+     * Gets the size an image should be shrunk to. This is the same size that ImageIO
+     * produces when reading an image with the {@link #getSubsamplingFactor subsampling factor}.
+     *
+     * @param imageWidth  The width of the image.
+     * @param imageHeight The height of the image.
+     * @return The size the image should be shrunk to.
+     */
+    public Dimension getSubsampledSize(int imageWidth, int imageHeight) {
+        int factor = getSubsamplingFactor(imageWidth, imageHeight);
+        return new Dimension(
+                (imageWidth + factor - 1) / factor,
+                (imageHeight + factor - 1) / factor
+        );
+    }
+}
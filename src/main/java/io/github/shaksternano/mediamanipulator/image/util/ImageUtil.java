@@ -5,6 +5,7 @@ import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
 import io.github.shaksternano.mediamanipulator.image.imagemedia.StaticImage;
 import io.github.shaksternano.mediamanipulator.image.reader.util.ImageReaders;
 import io.github.shaksternano.mediamanipulator.io.FileUtil;
+import io.github.shaksternano.mediamanipulator.util.NetworkUtil;
 import org.jetbrains.annotations.Nullable;
 
 import javax.imageio.ImageIO;
@@ -17,23 +18,40 @@ import java.awt.image.BufferedImage;
 import java.awt.image.ColorConvertOp;
 import java.io.*;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.PrimitiveIterator;
 
 /**
  * Contains static methods for dealing with images.
  */
 public class ImageUtil {
 
-    public static ImageMedia getImageResourceInRootPackage(String imageResourcePath) throws IOException {
-        try (InputStream imageTypeInputStream = FileUtil.getResourceInRootPackage(imageResourcePath)) {
-            String imageFormat = getImageFormat(imageTypeInputStream);
+    /**
+     * The maximum number of bytes read from the start of an image to detect its format.
+     */
+    public static final int FORMAT_SIGNATURE_LENGTH = 64;
 
-            try (InputStream loadImageInputStream = FileUtil.getResourceInRootPackage(imageResourcePath)) {
-                return ImageReaders.read(loadImageInputStream, imageFormat, null);
-            }
+    /**
+     * The maximum number of pixels in the canvas or in a single frame of an image being decoded.
+     * Image formats allow dimensions that are too large to fit in an array, so files claiming
+     * to be larger than this are rejected before anything is allocated.
+     */
+    public static final long MAXIMUM_PIXELS = 1 << 26;
+
+    public static ImageMedia getImageResourceInRootPackage(String imageResourcePath) throws IOException {
+        byte[] imageBytes;
+        try (InputStream inputStream = FileUtil.getResourceInRootPackage(imageResourcePath)) {
+            imageBytes = inputStream.readAllBytes();
         }
+
+        String imageFormat = getImageFormat(ByteBuffer.wrap(imageBytes));
+        return ImageReaders.read(imageBytes, imageFormat, null);
     }
 
     public static void configureTextDrawQuality(Graphics2D graphics) {
@@ -286,10 +304,42 @@ public class ImageUtil {
         }
     }
 
+    /**
+     * Checks that an area of an image being decoded has no more than {@link #MAXIMUM_PIXELS} pixels.
+     *
+     * @param width  The width of the area.
+     * @param height The height of the area.
+     * @param area   What the area is, such as "GIF canvas", used in the error message.
+     * @throws IOException If the area has too many pixels.
+     */
+    public static void checkSize(int width, int height, String area) throws IOException {
+        if ((long) width * height > MAXIMUM_PIXELS) {
+            throw new IOException(area + " of " + width + "x" + height + " is larger than the maximum of " + MAXIMUM_PIXELS + " pixels!");
+        }
+    }
+
     public static boolean isTransparent(int rgb) {
         return (rgb >> 24) == 0;
     }
 
+    /**
+     * Checks whether any pixel of an image isn't fully opaque.
+     *
+     * @param image The image to check.
+     * @return Whether the image has any transparency.
+     */
+    public static boolean hasTransparency(BufferedImage image) {
+        if (!image.getColorModel().hasAlpha()) {
+            return false;
+        }
+        for (PrimitiveIterator.OfInt pixels = new PixelBuffer(image).pixels(); pixels.hasNext(); ) {
+            if (pixels.nextInt() >>> 24 != 0xFF) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public static int get1dIndex(int x, int y, int width) {
         return y * width + x;
     }
@@ -333,32 +383,110 @@ public class ImageUtil {
         return rotated;
     }
 
+    /**
+     * Detects the format of an image from the first {@link #FORMAT_SIGNATURE_LENGTH} bytes of a stream.
+     * Only those bytes are read from the stream.
+     *
+     * @param inputStream The stream to read the image from.
+     * @return The format of the image.
+     * @throws IOException              If an error occurred while reading the stream.
+     * @throws IllegalArgumentException If the format couldn't be determined.
+     */
     public static String getImageFormat(InputStream inputStream) throws IOException {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        inputStream.transferTo(outputStream);
-        InputStream copy = new ByteArrayInputStream(outputStream.toByteArray());
-        try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(copy)) {
-            if (imageInputStream != null) {
-                Iterator<ImageReader> imageReaders = ImageIO.getImageReaders(imageInputStream);
-
-                if (imageReaders.hasNext()) {
-                    ImageReader reader = imageReaders.next();
-                    return reader.getFormatName();
+        byte[] signature = inputStream.readNBytes(FORMAT_SIGNATURE_LENGTH);
+        return getImageFormat(ByteBuffer.wrap(signature));
+    }
+
+    public static String getImageFormat(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer signature = ByteBuffer.allocate(FORMAT_SIGNATURE_LENGTH);
+            while (signature.hasRemaining() && channel.read(signature) >= 0) {
+                // Keep reading until the buffer is full or the end of the file is reached.
+            }
+            signature.flip();
+            return getImageFormat(signature);
+        }
+    }
+
+    /**
+     * Detects the format of an image from its first bytes. The magic numbers of GIF, PNG, JPEG, WebP,
+     * BMP, TIFF and ICO images are checked directly, and other formats are detected using ImageIO.
+     *
+     * @param signature The first bytes of the image, between the buffer's position and limit.
+     *                  The buffer's position is not changed.
+     * @return The format of the image.
+     * @throws IOException              If an error occurred while using ImageIO to detect the format.
+     * @throws IllegalArgumentException If the format couldn't be determined.
+     */
+    public static String getImageFormat(ByteBuffer signature) throws IOException {
+        ByteBuffer bytes = signature.slice().order(ByteOrder.LITTLE_ENDIAN);
+        if (startsWith(bytes, 0, "GIF87a") || startsWith(bytes, 0, "GIF89a")) {
+            return "gif";
+        } else if (startsWith(bytes, 0, 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n')) {
+            return "png";
+        } else if (startsWith(bytes, 0, 0xFF, 0xD8, 0xFF)) {
+            return "jpeg";
+        } else if (startsWith(bytes, 0, "RIFF") && startsWith(bytes, 8, "WEBP")) {
+            return "webp";
+        } else if (startsWith(bytes, 0, "BM") && bytes.remaining() >= 18 && isBmpInfoHeaderSize(bytes.getInt(14))) {
+            return "bmp";
+        } else if (startsWith(bytes, 0, 'I', 'I', 0x2A, 0x00) || startsWith(bytes, 0, 'M', 'M', 0x00, 0x2A)) {
+            return "tiff";
+        } else if (startsWith(bytes, 0, 0x00, 0x00, 0x01, 0x00) && bytes.remaining() >= 10 && bytes.getShort(4) > 0 && bytes.get(9) == 0) {
+            return "ico";
+        } else {
+            byte[] copy = new byte[bytes.remaining()];
+            bytes.get(copy);
+            try (ImageInputStream imageInputStream = ImageIO.createImageInputStream(new ByteArrayInputStream(copy))) {
+                if (imageInputStream != null) {
+                    Iterator<ImageReader> imageReaders = ImageIO.getImageReaders(imageInputStream);
+
+                    if (imageReaders.hasNext()) {
+                        ImageReader reader = imageReaders.next();
+                        return reader.getFormatName();
+                    }
                 }
+
+                throw new IllegalArgumentException("Unable to determine image type");
             }
+        }
+    }
 
-            throw new IllegalArgumentException("Unable to determine image type");
+    private static boolean startsWith(ByteBuffer bytes, int offset, String magic) {
+        if (bytes.remaining() < offset + magic.length()) {
+            return false;
+        } else {
+            for (int i = 0; i < magic.length(); i++) {
+                if (bytes.get(offset + i) != (byte) magic.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
         }
     }
 
-    public static String getImageFormat(File file) throws IOException {
-        try (InputStream inputStream = new FileInputStream(file)) {
-            return getImageFormat(inputStream);
+    private static boolean startsWith(ByteBuffer bytes, int offset, int... magic) {
+        if (bytes.remaining() < offset + magic.length) {
+            return false;
+        } else {
+            for (int i = 0; i < magic.length; i++) {
+                if (bytes.get(offset + i) != (byte) magic[i]) {
+                    return false;
+                }
+            }
+            return true;
         }
     }
 
+    private static boolean isBmpInfoHeaderSize(int size) {
+        return switch (size) {
+            case 12, 16, 40, 52, 56, 64, 108, 124 -> true;
+            default -> false;
+        };
+    }
+
     public static String getImageFormat(URL url) throws IOException {
-        try (InputStream inputStream = url.openStream()) {
+        try (InputStream inputStream = NetworkUtil.getInputStream(url.toString())) {
             return getImageFormat(inputStream);
         }
     }
@@ -388,13 +516,24 @@ public class ImageUtil {
     }
 
     public static Area getArea(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        // The pixels are read row by row, as they are stored, but the path is built column by column.
+        boolean[] opaque = new boolean[width * height];
+        PixelBuffer pixels = new PixelBuffer(image);
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            pixels.getRow(y, row);
+            for (int x = 0; x < width; x++) {
+                opaque[get1dIndex(x, y, width)] = !isTransparent(row[x]);
+            }
+        }
+
         GeneralPath path = new GeneralPath();
         boolean cont = false;
-        for (int x = 0; x < image.getWidth(); x++) {
-            for (int y = 0; y < image.getHeight(); y++) {
-                if (isTransparent(image.getRGB(x, y))) {
-                    cont = false;
-                } else {
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                if (opaque[get1dIndex(x, y, width)]) {
                     if (cont) {
                         path.lineTo(x, y);
                         path.lineTo(x, y + 1);
@@ -405,6 +544,8 @@ public class ImageUtil {
                         path.moveTo(x, y);
                     }
                     cont = true;
+                } else {
+                    cont = false;
                 }
             }
             cont = false;
@@ -458,24 +599,55 @@ public class ImageUtil {
      * @return A value between 0 and 765 representing the distance between the two colors.
      */
     public static double colorDistance(Color color1, Color color2) {
-        if (color1.equals(color2)) {
-            return 0;
-        } else {
-            int red1 = color1.getRed();
-            int red2 = color2.getRed();
-            int redMean = (red1 + red2) / 2;
-            int redDifference = red1 - red2;
-            int greenDifference = color1.getGreen() - color2.getGreen();
-            int blueDifference = color1.getBlue() - color2.getBlue();
-            return Math.sqrt((((512 + redMean) * redDifference * redDifference) >> 8) + 4 * greenDifference * greenDifference + (((767 - redMean) * blueDifference * blueDifference) >> 8));
-        }
+        return colorDistance(color1.getRGB(), color2.getRGB());
+    }
+
+    /**
+     * Gets the distance between two RGB colors.
+     *
+     * @param rgb1 The first color. The alpha bits are ignored.
+     * @param rgb2 The second color. The alpha bits are ignored.
+     * @return A value between 0 and 765 representing the distance between the two colors.
+     */
+    public static double colorDistance(int rgb1, int rgb2) {
+        return Math.sqrt(colorDistanceSquared(rgb1, rgb2));
+    }
+
+    /**
+     * Gets the square of {@link #colorDistance(int, int)}. Comparing this against the square of a tolerance
+     * gives the same result as comparing the distance against the tolerance, without taking a square root per pixel.
+     *
+     * @param rgb1 The first color. The alpha bits are ignored.
+     * @param rgb2 The second color. The alpha bits are ignored.
+     * @return The squared distance.
+     */
+    public static int colorDistanceSquared(int rgb1, int rgb2) {
+        int red1 = (rgb1 >> 16) & 0xFF;
+        int red2 = (rgb2 >> 16) & 0xFF;
+        int redMean = (red1 + red2) / 2;
+        int redDifference = red1 - red2;
+        int greenDifference = ((rgb1 >> 8) & 0xFF) - ((rgb2 >> 8) & 0xFF);
+        int blueDifference = (rgb1 & 0xFF) - (rgb2 & 0xFF);
+        return (((512 + redMean) * redDifference * redDifference) >> 8)
+                + 4 * greenDifference * greenDifference
+                + (((767 - redMean) * blueDifference * blueDifference) >> 8);
     }
 
     public static boolean isGreyScale(Color color) {
+        return isGreyScale(color.getRGB());
+    }
+
+    /**
+     * Checks whether an RGB color is close to a shade of grey.
+     *
+     * @param rgb The color. The alpha bits are ignored.
+     * @return Whether the color is close to grey.
+     */
+    public static boolean isGreyScale(int rgb) {
         int tolerance = 40;
-        int red = color.getRed();
-        int green = color.getGreen();
-        int blue = color.getBlue();
+        int red = (rgb >> 16) & 0xFF;
+        int green = (rgb >> 8) & 0xFF;
+        int blue = rgb & 0xFF;
         return Math.abs(red - green) <= tolerance && Math.abs(red - blue) <= tolerance && Math.abs(green - blue) <= tolerance;
     }
 
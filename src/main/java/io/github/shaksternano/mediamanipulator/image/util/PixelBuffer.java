@@ -0,0 +1,199 @@
+package io.github.shaksternano.mediamanipulator.image.util;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Reads the pixels of a {@link BufferedImage} as packed ARGB ints, in the same format as {@link BufferedImage#getRGB(int, int)}.
+ * When the image is stored as {@link BufferedImage#TYPE_INT_ARGB}, {@link BufferedImage#TYPE_INT_RGB},
+ * {@link BufferedImage#TYPE_3BYTE_BGR} or {@link BufferedImage#TYPE_4BYTE_ABGR}, which covers almost every image
+ * that is decoded or created here, the pixels are read straight from the int or byte array behind the image,
+ * rather than being converted through the color model one at a time. Other images are read through
+ * {@link BufferedImage#getRGB(int, int, int, int, int[], int, int)} a row at a time.
+ * <p>
+ * Pixels are read fastest a row at a time, from left to right, as that is the order they are stored in.
+ */
+public class PixelBuffer {
+
+    private final BufferedImage image;
+    private final int width;
+    private final int height;
+    private final int type;
+    @Nullable
+    private final int[] intData;
+    @Nullable
+    private final byte[] byteData;
+    /**
+     * The index in the data array of the top left pixel.
+     */
+    private final int offset;
+    /**
+     * The number of array elements between the start of one row and the start of the next.
+     */
+    private final int scanlineStride;
+
+    public PixelBuffer(BufferedImage image) {
+        this.image = image;
+        width = image.getWidth();
+        height = image.getHeight();
+        Raster raster = image.getRaster();
+        SampleModel sampleModel = raster.getSampleModel();
+        DataBuffer dataBuffer = raster.getDataBuffer();
+        int imageType = image.getType();
+        int[] ints = null;
+        byte[] bytes = null;
+        int pixelStride = 1;
+        int stride = 0;
+        if ((imageType == BufferedImage.TYPE_INT_ARGB || imageType == BufferedImage.TYPE_INT_RGB)
+                && dataBuffer instanceof DataBufferInt intBuffer
+                && sampleModel instanceof SinglePixelPackedSampleModel packedSampleModel) {
+            ints = intBuffer.getData();
+            stride = packedSampleModel.getScanlineStride();
+        } else if ((imageType == BufferedImage.TYPE_3BYTE_BGR || imageType == BufferedImage.TYPE_4BYTE_ABGR)
+                && dataBuffer instanceof DataBufferByte byteBuffer
+                && sampleModel instanceof ComponentSampleModel componentSampleModel) {
+            bytes = byteBuffer.getData();
+            pixelStride = componentSampleModel.getPixelStride();
+            stride = componentSampleModel.getScanlineStride();
+        }
+
+        if (ints == null && bytes == null) {
+            type = BufferedImage.TYPE_CUSTOM;
+            offset = 0;
+        } else {
+            type = imageType;
+            // Subimages share the data of their parent, starting part way into it.
+            offset = dataBuffer.getOffset()
+                    - raster.getSampleModelTranslateY() * stride
+                    - raster.getSampleModelTranslateX() * pixelStride;
+        }
+        intData = ints;
+        byteData = bytes;
+        scanlineStride = stride;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Gets a single pixel. Reading a whole row with {@link #getRow(int, int[])} is faster when more than a few pixels are needed.
+     *
+     * @param x The x coordinate of the pixel.
+     * @param y The y coordinate of the pixel.
+     * @return The pixel as a packed ARGB int.
+     */
+    public int getRgb(int x, int y) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            throw new IndexOutOfBoundsException("Pixel " + x + ", " + y + " is outside of the " + width + "x" + height + " image");
+        }
+        int index = offset + y * scanlineStride;
+        return switch (type) {
+            case BufferedImage.TYPE_INT_ARGB -> intData[index + x];
+            case BufferedImage.TYPE_INT_RGB -> intData[index + x] | 0xFF000000;
+            case BufferedImage.TYPE_3BYTE_BGR -> getBgr(byteData, index + x * 3);
+            case BufferedImage.TYPE_4BYTE_ABGR -> getAbgr(byteData, index + x * 4);
+            default -> image.getRGB(x, y);
+        };
+    }
+
+    /**
+     * Reads a row of pixels into an array.
+     *
+     * @param y   The y coordinate of the row.
+     * @param row The array to read the row into, which must be at least as long as the width of the image.
+     * @return The array the row was read into.
+     */
+    public int[] getRow(int y, int[] row) {
+        if (y < 0 || y >= height) {
+            throw new IndexOutOfBoundsException("Row " + y + " is outside of the " + width + "x" + height + " image");
+        }
+        if (row.length < width) {
+            throw new IllegalArgumentException("Row array of length " + row.length + " is shorter than the image width " + width);
+        }
+        int index = offset + y * scanlineStride;
+        switch (type) {
+            case BufferedImage.TYPE_INT_ARGB -> System.arraycopy(intData, index, row, 0, width);
+            case BufferedImage.TYPE_INT_RGB -> {
+                for (int x = 0; x < width; x++) {
+                    row[x] = intData[index + x] | 0xFF000000;
+                }
+            }
+            case BufferedImage.TYPE_3BYTE_BGR -> {
+                for (int x = 0; x < width; x++) {
+                    row[x] = getBgr(byteData, index);
+                    index += 3;
+                }
+            }
+            case BufferedImage.TYPE_4BYTE_ABGR -> {
+                for (int x = 0; x < width; x++) {
+                    row[x] = getAbgr(byteData, index);
+                    index += 4;
+                }
+            }
+            default -> image.getRGB(0, y, width, 1, row, 0, width);
+        }
+        return row;
+    }
+
+    /**
+     * Iterates over every pixel of the image, row by row from the top, and from left to right within each row.
+     *
+     * @return An iterator over the pixels as packed ARGB ints.
+     */
+    public PrimitiveIterator.OfInt pixels() {
+        return new PixelIterator();
+    }
+
+    private static int getBgr(byte[] data, int index) {
+        return 0xFF000000
+                | (data[index + 2] & 0xFF) << 16
+                | (data[index + 1] & 0xFF) << 8
+                | (data[index] & 0xFF);
+    }
+
+    private static int getAbgr(byte[] data, int index) {
+        return (data[index] & 0xFF) << 24
+                | (data[index + 3] & 0xFF) << 16
+                | (data[index + 2] & 0xFF) << 8
+                | (data[index + 1] & 0xFF);
+    }
+
+    private class PixelIterator implements PrimitiveIterator.OfInt {
+
+        private final int[] row = new int[width];
+        private int x = width;
+        private int y = -1;
+
+        @Override
+        public boolean hasNext() {
+            return x < width || (y + 1 < height && width > 0);
+        }
+
+        @Override
+        public int nextInt() {
+            if (x >= width) {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                getRow(++y, row);
+                x = 0;
+            }
+            return row[x++];
+        }
+    }
+}
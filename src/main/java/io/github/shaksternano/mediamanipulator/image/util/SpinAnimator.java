@@ -0,0 +1,463 @@
+package io.github.shaksternano.mediamanipulator.image.util;
+
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+import org.jetbrains.annotations.Nullable;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Creates the frames of a spinning image.
+ * <p>
+ * The number of frames in a rotation is chosen from the speed, so that faster spins use fewer frames
+ * at the minimum GIF frame duration, and slower spins keep the same frames but show each one for longer.
+ * Every frame that shows the same image at the same angle is only rotated once, which matters for
+ * looping animations that are longer than a rotation. Frames that are a whole number of quarter turns
+ * from another frame of the same image are made by moving the pixels of that frame, rather than rotating the image again.
+ * <p>
+ * Frames are rotated by working out, for each pixel of the result, where it comes from in the original image,
+ * and blending the four pixels around that point. This reads the pixels straight from an int array,
+ * rather than going through Java2D, and gives smooth edges.
+ */
+public class SpinAnimator {
+
+    /**
+     * The number of frames in one rotation at a speed of 1.
+     */
+    private static final int BASE_FRAMES_PER_ROTATION = 150;
+
+    /**
+     * How much work rotating a frame does per pixel, compared to drawing it once.
+     */
+    private static final int ROTATION_WEIGHT = 4;
+
+    private static final int FIXED_POINT_SHIFT = 16;
+    private static final double FIXED_POINT_ONE = 1 << FIXED_POINT_SHIFT;
+
+    private static final int TURN_TILE_SIZE = 32;
+
+    /**
+     * The largest width or height of an image whose fixed point coordinates fit in an int.
+     */
+    private static final int MAXIMUM_INTERIOR_SIZE = (1 << (31 - FIXED_POINT_SHIFT)) - 1;
+
+    /**
+     * Spins images.
+     *
+     * @param images          The images to spin, one for each {@link Frame#GIF_MINIMUM_FRAME_DURATION} of the animation.
+     * @param speed           The spin speed. Negative speeds spin anticlockwise.
+     * @param backgroundColor The colour of the area not covered by the image, or null to leave it transparent.
+     * @return The spinning images, which are square, with sides as long as the longest side of the first image.
+     */
+    public static ImageMedia spin(List<BufferedImage> images, float speed, @Nullable Color backgroundColor) {
+        BufferedImage firstImage = images.get(0);
+        int size = Math.max(firstImage.getWidth(), firstImage.getHeight());
+
+        float absoluteSpeed = Math.abs(speed);
+        int framesPerRotation = getFramesPerRotation(absoluteSpeed);
+        int duration = getFrameDuration(absoluteSpeed);
+        int frameCount = framesPerRotation * ((images.size() + (framesPerRotation - 1)) / framesPerRotation);
+        int turnsPerRotation = framesPerRotation % 4 == 0 ? 4 : framesPerRotation % 2 == 0 ? 2 : 1;
+
+        Map<BufferedImage, Integer> imageIndices = new IdentityHashMap<>();
+        List<BufferedImage> distinctImages = new ArrayList<>();
+        Map<Rotation, Integer> rotationIndices = new HashMap<>();
+        List<Rotation> rotations = new ArrayList<>();
+        Map<Rotation, Integer> sampledIndices = new HashMap<>();
+        List<Rotation> sampledRotations = new ArrayList<>();
+        List<Turn> turns = new ArrayList<>();
+        int[] frameRotations = new int[frameCount];
+        for (int i = 0; i < frameCount; i++) {
+            int imageIndex = imageIndices.computeIfAbsent(images.get(i % images.size()), image -> {
+                distinctImages.add(image);
+                return distinctImages.size() - 1;
+            });
+            frameRotations[i] = rotationIndices.computeIfAbsent(new Rotation(imageIndex, i % framesPerRotation), rotation -> {
+                // Rotations of the same image a whole number of turns apart only need one of them to be sampled.
+                BufferedImage image = distinctImages.get(rotation.imageIndex());
+                int imageTurns = isCentred(image, size) ? turnsPerRotation : 1;
+                int anglesPerTurn = framesPerRotation / imageTurns;
+                Rotation turnGroup = new Rotation(rotation.imageIndex(), rotation.angleIndex() % anglesPerTurn);
+                int sampledIndex = sampledIndices.computeIfAbsent(turnGroup, key -> {
+                    sampledRotations.add(rotation);
+                    return sampledRotations.size() - 1;
+                });
+                int angleDifference = Math.floorMod(rotation.angleIndex() - sampledRotations.get(sampledIndex).angleIndex(), framesPerRotation);
+                int quarterTurns = angleDifference / anglesPerTurn * (4 / imageTurns);
+                if (speed < 0) {
+                    quarterTurns = (4 - quarterTurns) % 4;
+                }
+                turns.add(new Turn(sampledIndex, quarterTurns));
+                rotations.add(rotation);
+                return rotations.size() - 1;
+            });
+        }
+
+        List<int[]> distinctPixels = ImageComputePool.map(distinctImages, SpinAnimator::getPremultipliedPixels);
+        BufferedImage[] sampledImages = new BufferedImage[sampledRotations.size()];
+        ImageComputePool.forEach(sampledImages.length, (long) size * size * ROTATION_WEIGHT, index -> {
+            Rotation rotation = sampledRotations.get(index);
+            BufferedImage image = distinctImages.get(rotation.imageIndex());
+            double angle = 360.0 * rotation.angleIndex() / framesPerRotation;
+            if (speed < 0) {
+                angle = -angle;
+            }
+            sampledImages[index] = rotate(
+                    distinctPixels.get(rotation.imageIndex()),
+                    image.getWidth(),
+                    image.getHeight(),
+                    Math.toRadians(angle),
+                    size,
+                    backgroundColor
+            );
+        });
+
+        BufferedImage[] rotatedImages = new BufferedImage[rotations.size()];
+        ImageComputePool.forEach(rotatedImages.length, (long) size * size, index -> {
+            Turn turn = turns.get(index);
+            rotatedImages[index] = turnClockwise(sampledImages[turn.sampledIndex()], turn.quarterTurns());
+        });
+
+        ImageMediaBuilder builder = new ImageMediaBuilder();
+        for (int rotationIndex : frameRotations) {
+            builder.add(new AwtFrame(rotatedImages[rotationIndex], duration));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Gets the number of frames in one rotation. A rotation at a speed of 1 takes about {@link #BASE_FRAMES_PER_ROTATION}
+     * frames of the minimum GIF frame duration. Faster rotations take as many frames of the minimum duration
+     * as fit in the shorter time, and slower ones take the same number of frames, each lasting longer.
+     * Rotations with enough frames that it changes the speed by no more than 2% have a multiple of 4 frames,
+     * so that three in every four frames are quarter turns of another frame.
+     */
+    private static int getFramesPerRotation(float absoluteSpeed) {
+        int framesPerRotation = BASE_FRAMES_PER_ROTATION;
+        if (absoluteSpeed >= 1) {
+            framesPerRotation = Math.max((int) (BASE_FRAMES_PER_ROTATION / absoluteSpeed), 1);
+        }
+        int quarterTurnFrames = Math.round(framesPerRotation / 4F) * 4;
+        if (Math.abs(quarterTurnFrames - framesPerRotation) * 50 <= framesPerRotation) {
+            return quarterTurnFrames;
+        } else {
+            return framesPerRotation;
+        }
+    }
+
+    private static int getFrameDuration(float absoluteSpeed) {
+        if (absoluteSpeed >= 1) {
+            return Frame.GIF_MINIMUM_FRAME_DURATION;
+        } else {
+            return (int) (Frame.GIF_MINIMUM_FRAME_DURATION / absoluteSpeed);
+        }
+    }
+
+    /**
+     * Rotates an image about its centre, in the same place as {@link ImageUtil#rotate(BufferedImage, float, Integer, Integer, Color)},
+     * blending the four pixels nearest to where each pixel of the result comes from.
+     *
+     * @param pixels          The premultiplied ARGB pixels of the image.
+     * @param width           The width of the image.
+     * @param height          The height of the image.
+     * @param radians         The angle to rotate the image by, clockwise.
+     * @param size            The width and height of the result.
+     * @param backgroundColor The colour of the area not covered by the image, or null to leave it transparent.
+     * @return The rotated image.
+     */
+    static BufferedImage rotate(int[] pixels, int width, int height, double radians, int size, @Nullable Color backgroundColor) {
+        BufferedImage rotated = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        int[] result = ((DataBufferInt) rotated.getRaster().getDataBuffer()).getData();
+        int background = backgroundColor == null ? 0 : premultiply(backgroundColor.getRGB());
+        int uncovered = unpremultiply(background);
+
+        double sin = Math.sin(radians);
+        double cos = Math.cos(radians);
+        // The image is moved by a whole number of pixels before being rotated, as in ImageUtil.rotate.
+        double centreX = (size - width) / 2 + width / 2.0;
+        double centreY = (size - height) / 2 + height / 2.0;
+        long stepX = Math.round(cos * FIXED_POINT_ONE);
+        long stepY = Math.round(-sin * FIXED_POINT_ONE);
+        // Samples in the interior have all four pixels inside the image, and samples on the edge have at least one.
+        long interiorMaxX = ((long) width - 1 << FIXED_POINT_SHIFT) - 1;
+        long interiorMaxY = ((long) height - 1 << FIXED_POINT_SHIFT) - 1;
+        long edgeMaxX = ((long) width << FIXED_POINT_SHIFT) - 1;
+        long edgeMaxY = ((long) height << FIXED_POINT_SHIFT) - 1;
+        long edgeMin = -(1L << FIXED_POINT_SHIFT);
+        for (int y = 0; y < size; y++) {
+            double offsetX = 0.5 - centreX;
+            double offsetY = y + 0.5 - centreY;
+            // Where the centre of the first pixel of the row comes from, with pixel centres at whole numbers.
+            long sourceX = Math.round((cos * offsetX + sin * offsetY + width / 2.0 - 0.5) * FIXED_POINT_ONE);
+            long sourceY = Math.round((-sin * offsetX + cos * offsetY + height / 2.0 - 0.5) * FIXED_POINT_ONE);
+            int row = y * size;
+
+            int edgeStart = Math.max(getSpanStart(sourceX, stepX, edgeMin, edgeMaxX), getSpanStart(sourceY, stepY, edgeMin, edgeMaxY));
+            int edgeEnd = Math.min(Math.min(getSpanEnd(sourceX, stepX, edgeMin, edgeMaxX, size), getSpanEnd(sourceY, stepY, edgeMin, edgeMaxY, size)), size);
+            if (edgeStart >= edgeEnd) {
+                Arrays.fill(result, row, row + size, uncovered);
+                continue;
+            }
+            int interiorStart = Math.max(Math.max(getSpanStart(sourceX, stepX, 0, interiorMaxX), getSpanStart(sourceY, stepY, 0, interiorMaxY)), edgeStart);
+            int interiorEnd = Math.min(Math.min(getSpanEnd(sourceX, stepX, 0, interiorMaxX, size), getSpanEnd(sourceY, stepY, 0, interiorMaxY, size)), edgeEnd);
+            if (interiorStart > interiorEnd || width > MAXIMUM_INTERIOR_SIZE || height > MAXIMUM_INTERIOR_SIZE) {
+                interiorStart = edgeEnd;
+                interiorEnd = edgeEnd;
+            }
+
+            Arrays.fill(result, row, row + edgeStart, uncovered);
+            sampleEdge(pixels, width, height, sourceX, sourceY, stepX, stepY, edgeStart, interiorStart, background, result, row);
+
+            // Pixels are read straight from the array here, without checking whether they are inside the image.
+            int interiorX = (int) (sourceX + interiorStart * stepX);
+            int interiorY = (int) (sourceY + interiorStart * stepY);
+            int intStepX = (int) stepX;
+            int intStepY = (int) stepY;
+            for (int x = interiorStart; x < interiorEnd; x++, interiorX += intStepX, interiorY += intStepY) {
+                int index = (interiorY >> FIXED_POINT_SHIFT) * width + (interiorX >> FIXED_POINT_SHIFT);
+                int weightX = (interiorX >> (FIXED_POINT_SHIFT - 8)) & 0xFF;
+                int weightY = (interiorY >> (FIXED_POINT_SHIFT - 8)) & 0xFF;
+                int top = lerp(pixels[index], pixels[index + 1], weightX);
+                int bottom = lerp(pixels[index + width], pixels[index + width + 1], weightX);
+                int argb = lerp(top, bottom, weightY);
+                result[row + x] = argb >>> 24 == 0xFF ? argb : unpremultiply(over(argb, background));
+            }
+
+            sampleEdge(pixels, width, height, sourceX, sourceY, stepX, stepY, interiorEnd, edgeEnd, background, result, row);
+            Arrays.fill(result, row + edgeEnd, row + size, uncovered);
+        }
+
+        return rotated;
+    }
+
+    private static void sampleEdge(int[] pixels, int width, int height, long sourceX, long sourceY, long stepX, long stepY, int start, int end, int background, int[] result, int row) {
+        sourceX += start * stepX;
+        sourceY += start * stepY;
+        for (int x = start; x < end; x++, sourceX += stepX, sourceY += stepY) {
+            int x0 = (int) (sourceX >> FIXED_POINT_SHIFT);
+            int y0 = (int) (sourceY >> FIXED_POINT_SHIFT);
+            int weightX = (int) (sourceX >> (FIXED_POINT_SHIFT - 8)) & 0xFF;
+            int weightY = (int) (sourceY >> (FIXED_POINT_SHIFT - 8)) & 0xFF;
+            int sample = sample(pixels, width, height, x0, y0, weightX, weightY);
+            result[row + x] = unpremultiply(over(sample, background));
+        }
+    }
+
+    /**
+     * Gets the first x for which start + x * step is between min and max, inclusive, or 0 if that is before 0.
+     */
+    private static int getSpanStart(long start, long step, long min, long max) {
+        long first;
+        if (step > 0) {
+            first = -Math.floorDiv(start - min, step);
+        } else if (step < 0) {
+            first = -Math.floorDiv(max - start, -step);
+        } else {
+            first = start >= min && start <= max ? 0 : Integer.MAX_VALUE;
+        }
+        return (int) Math.min(Math.max(first, 0), Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets the x after the last one for which start + x * step is between min and max, inclusive,
+     * or the limit if that is after the limit.
+     */
+    private static int getSpanEnd(long start, long step, long min, long max, int limit) {
+        long end;
+        if (step > 0) {
+            end = Math.floorDiv(max - start, step) + 1;
+        } else if (step < 0) {
+            end = Math.floorDiv(start - min, -step) + 1;
+        } else {
+            end = start >= min && start <= max ? limit : 0;
+        }
+        return (int) Math.max(Math.min(end, limit), 0);
+    }
+
+    /**
+     * Blends the four pixels with top left corner at (x0, y0). Pixels outside the image are transparent.
+     *
+     * @param weightX How far between the left and right pixels to sample, from 0 to 255.
+     * @param weightY How far between the top and bottom pixels to sample, from 0 to 255.
+     * @return The blended premultiplied ARGB colour.
+     */
+    private static int sample(int[] pixels, int width, int height, int x0, int y0, int weightX, int weightY) {
+        int topLeft;
+        int topRight;
+        int bottomLeft;
+        int bottomRight;
+        int index = y0 * width + x0;
+        if (x0 >= 0 && y0 >= 0 && x0 < width - 1 && y0 < height - 1) {
+            topLeft = pixels[index];
+            topRight = pixels[index + 1];
+            bottomLeft = pixels[index + width];
+            bottomRight = pixels[index + width + 1];
+        } else {
+            boolean left = x0 >= 0;
+            boolean right = x0 < width - 1;
+            boolean top = y0 >= 0;
+            boolean bottom = y0 < height - 1;
+            topLeft = left && top ? pixels[index] : 0;
+            topRight = right && top ? pixels[index + 1] : 0;
+            bottomLeft = left && bottom ? pixels[index + width] : 0;
+            bottomRight = right && bottom ? pixels[index + width + 1] : 0;
+        }
+
+        int top = lerp(topLeft, topRight, weightX);
+        int bottom = lerp(bottomLeft, bottomRight, weightX);
+        return lerp(top, bottom, weightY);
+    }
+
+    /**
+     * Blends two colours, with the red and blue channels blended together in one int,
+     * and the alpha and green channels in another.
+     *
+     * @param weight How far between the first and second colours to blend, from 0 to 255.
+     */
+    private static int lerp(int first, int second, int weight) {
+        if (first == second) {
+            return first;
+        }
+        int firstWeight = 256 - weight;
+        // Each channel stays within 16 bits, so the channels sharing an int don't overflow into each other.
+        int redBlue = ((first & 0xFF00FF) * firstWeight + (second & 0xFF00FF) * weight + 0x800080) >>> 8;
+        int alphaGreen = ((first >>> 8) & 0xFF00FF) * firstWeight + ((second >>> 8) & 0xFF00FF) * weight + 0x800080;
+        return (alphaGreen & 0xFF00FF00) | (redBlue & 0xFF00FF);
+    }
+
+    /**
+     * Draws a premultiplied colour over another.
+     */
+    private static int over(int source, int destination) {
+        int sourceAlpha = source >>> 24;
+        if (sourceAlpha == 0xFF || destination == 0) {
+            return source;
+        }
+        int remaining = 0xFF - sourceAlpha;
+        int argb = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int channel = ((source >>> shift) & 0xFF) + (((destination >>> shift) & 0xFF) * remaining + 127) / 0xFF;
+            argb |= Math.min(channel, 0xFF) << shift;
+        }
+        return argb;
+    }
+
+    /**
+     * Checks whether an image is rotated about the centre of the result, so that turning the result
+     * by a quarter turn gives exactly the same pixels as rotating the image by another quarter turn.
+     */
+    private static boolean isCentred(BufferedImage image, int size) {
+        return (size - image.getWidth()) % 2 == 0 && (size - image.getHeight()) % 2 == 0;
+    }
+
+    /**
+     * Turns a square image clockwise by a number of quarter turns, which only moves its pixels.
+     */
+    private static BufferedImage turnClockwise(BufferedImage image, int quarterTurns) {
+        if (quarterTurns == 0) {
+            return image;
+        }
+        int size = image.getWidth();
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        BufferedImage turned = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        int[] result = ((DataBufferInt) turned.getRaster().getDataBuffer()).getData();
+        int last = size - 1;
+        switch (quarterTurns) {
+            // Quarter turns read down the columns of the image, so they go a tile at a time to stay in the cache.
+            case 1 -> {
+                for (int tileY = 0; tileY < size; tileY += TURN_TILE_SIZE) {
+                    for (int tileX = 0; tileX < size; tileX += TURN_TILE_SIZE) {
+                        int endY = Math.min(tileY + TURN_TILE_SIZE, size);
+                        int endX = Math.min(tileX + TURN_TILE_SIZE, size);
+                        for (int y = tileY; y < endY; y++) {
+                            int row = y * size;
+                            for (int x = tileX; x < endX; x++) {
+                                result[row + x] = pixels[(last - x) * size + y];
+                            }
+                        }
+                    }
+                }
+            }
+            case 2 -> {
+                for (int i = 0, j = pixels.length - 1; i < pixels.length; i++, j--) {
+                    result[i] = pixels[j];
+                }
+            }
+            case 3 -> {
+                for (int tileY = 0; tileY < size; tileY += TURN_TILE_SIZE) {
+                    for (int tileX = 0; tileX < size; tileX += TURN_TILE_SIZE) {
+                        int endY = Math.min(tileY + TURN_TILE_SIZE, size);
+                        int endX = Math.min(tileX + TURN_TILE_SIZE, size);
+                        for (int y = tileY; y < endY; y++) {
+                            int row = y * size;
+                            for (int x = tileX; x < endX; x++) {
+                                result[row + x] = pixels[x * size + last - y];
+                            }
+                        }
+                    }
+                }
+            }
+            default -> throw new IllegalArgumentException("Invalid number of quarter turns: " + quarterTurns);
+        }
+        return turned;
+    }
+
+    private static int[] getPremultipliedPixels(BufferedImage image) {
+        int[] pixels = image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+        for (int i = 0; i < pixels.length; i++) {
+            pixels[i] = premultiply(pixels[i]);
+        }
+        return pixels;
+    }
+
+    private static int premultiply(int argb) {
+        int alpha = argb >>> 24;
+        if (alpha == 0xFF) {
+            return argb;
+        } else if (alpha == 0) {
+            return 0;
+        }
+        int red = (((argb >> 16) & 0xFF) * alpha + 127) / 0xFF;
+        int green = (((argb >> 8) & 0xFF) * alpha + 127) / 0xFF;
+        int blue = ((argb & 0xFF) * alpha + 127) / 0xFF;
+        return alpha << 24 | red << 16 | green << 8 | blue;
+    }
+
+    private static int unpremultiply(int argb) {
+        int alpha = argb >>> 24;
+        if (alpha == 0xFF) {
+            return argb;
+        } else if (alpha == 0) {
+            return 0;
+        }
+        int red = Math.min((((argb >> 16) & 0xFF) * 0xFF + alpha / 2) / alpha, 0xFF);
+        int green = Math.min((((argb >> 8) & 0xFF) * 0xFF + alpha / 2) / alpha, 0xFF);
+        int blue = Math.min(((argb & 0xFF) * 0xFF + alpha / 2) / alpha, 0xFF);
+        return alpha << 24 | red << 16 | green << 8 | blue;
+    }
+
+    /**
+     * One of the images being spun at one of the angles of a rotation.
+     *
+     * @param imageIndex The index of the image in the distinct images.
+     * @param angleIndex The index of the angle in a rotation.
+     */
+    private record Rotation(int imageIndex, int angleIndex) {
+    }
+
+    /**
+     * How to make a rotation from one that is sampled.
+     *
+     * @param sampledIndex The index of the sampled rotation.
+     * @param quarterTurns The number of quarter turns clockwise to turn the sampled rotation by.
+     */
+    private record Turn(int sampledIndex, int quarterTurns) {
+    }
+}
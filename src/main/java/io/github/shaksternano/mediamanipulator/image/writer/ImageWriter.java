@@ -10,5 +10,15 @@ public interface ImageWriter {
 
     void write(ImageMedia image, File file, String format) throws IOException;
 
+    /**
+     * Whether this writer writes every frame of animated images, rather than only the first one.
+     * Writers that do are always tried before ones that don't, however fast the others are.
+     *
+     * @return Whether this writer supports animation.
+     */
+    default boolean supportsAnimation() {
+        return false;
+    }
+
     Set<String> getSupportedFormats();
 }
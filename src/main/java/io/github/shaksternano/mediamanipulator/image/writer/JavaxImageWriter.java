@@ -14,7 +14,11 @@ public class JavaxImageWriter implements ImageWriter {
     @Override
     public void write(ImageMedia image, File file, String format) throws IOException {
         BufferedImage bufferedImage = image.getFirstImage();
-        ImageIO.write(bufferedImage, format, file);
+        // ImageIO returns false rather than throwing if it has no writer for the format and type of the image,
+        // such as when a transparent image is written as a JPEG file.
+        if (!ImageIO.write(bufferedImage, format, file)) {
+            throw new IOException("No ImageIO writer can write this image with format " + format + "!");
+        }
     }
 
     @Override
@@ -0,0 +1,54 @@
+package io.github.shaksternano.mediamanipulator.image.writer;
+
+import com.google.common.collect.ImmutableSet;
+import io.github.shaksternano.mediamanipulator.image.codec.png.ApngEncoder;
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Set;
+
+/**
+ * Writes APNG and PNG files using {@link ApngEncoder}, which compresses the frames of animations,
+ * and stripes of still images, in parallel.
+ */
+public class ParallelApngWriter implements ImageWriter {
+
+    private final ApngEncoder encoder;
+
+    public ParallelApngWriter() {
+        this(new ApngEncoder());
+    }
+
+    /**
+     * Creates a writer that uses a specific encoder, such as one with a higher compression level.
+     *
+     * @param encoder The encoder to use.
+     */
+    public ParallelApngWriter(ApngEncoder encoder) {
+        this.encoder = encoder;
+    }
+
+    @Override
+    public void write(ImageMedia image, File file, String format) throws IOException {
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file))) {
+            encoder.encode(image, outputStream);
+        }
+    }
+
+    @Override
+    public boolean supportsAnimation() {
+        return true;
+    }
+
+    @Override
+    public Set<String> getSupportedFormats() {
+        return ImmutableSet.of(
+                "apng",
+                "png"
+        );
+    }
+}
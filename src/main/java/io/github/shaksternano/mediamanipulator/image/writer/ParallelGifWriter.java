@@ -0,0 +1,52 @@
+package io.github.shaksternano.mediamanipulator.image.writer;
+
+import com.google.common.collect.ImmutableSet;
+import io.github.shaksternano.mediamanipulator.image.codec.gif.GifEncoder;
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Set;
+
+/**
+ * Writes GIF files using {@link GifEncoder}, which quantises and compresses the frames in parallel.
+ */
+public class ParallelGifWriter implements ImageWriter {
+
+    private final GifEncoder encoder;
+
+    public ParallelGifWriter() {
+        this(new GifEncoder());
+    }
+
+    /**
+     * Creates a writer that uses a specific encoder, such as one that compresses lossily.
+     *
+     * @param encoder The encoder to use.
+     */
+    public ParallelGifWriter(GifEncoder encoder) {
+        this.encoder = encoder;
+    }
+
+    @Override
+    public void write(ImageMedia image, File file, String format) throws IOException {
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file))) {
+            encoder.encode(image, outputStream);
+        }
+    }
+
+    @Override
+    public boolean supportsAnimation() {
+        return true;
+    }
+
+    @Override
+    public Set<String> getSupportedFormats() {
+        return ImmutableSet.of(
+                "gif"
+        );
+    }
+}
@@ -0,0 +1,39 @@
+package io.github.shaksternano.mediamanipulator.image.writer;
+
+import com.google.common.collect.ImmutableSet;
+import io.github.shaksternano.mediamanipulator.image.codec.webp.WebpEncoder;
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Set;
+
+/**
+ * Writes WebP files, including animated ones, using {@link WebpEncoder}, which encodes the frames in parallel.
+ */
+public class ParallelWebpWriter implements ImageWriter {
+
+    private final WebpEncoder encoder = new WebpEncoder();
+
+    @Override
+    public void write(ImageMedia image, File file, String format) throws IOException {
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file))) {
+            encoder.encode(image, outputStream);
+        }
+    }
+
+    @Override
+    public boolean supportsAnimation() {
+        return true;
+    }
+
+    @Override
+    public Set<String> getSupportedFormats() {
+        return ImmutableSet.of(
+                "webp"
+        );
+    }
+}
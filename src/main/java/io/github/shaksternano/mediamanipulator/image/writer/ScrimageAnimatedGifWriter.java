@@ -8,14 +8,13 @@ import com.sksamuel.scrimage.nio.StreamingGifWriter;
 import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
 import io.github.shaksternano.mediamanipulator.image.util.Frame;
 import io.github.shaksternano.mediamanipulator.image.util.ImageUtil;
+import io.github.shaksternano.mediamanipulator.image.util.PixelBuffer;
 
-import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.File;
 import java.io.IOException;
 import java.time.Duration;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Set;
 
 public class ScrimageAnimatedGifWriter implements ImageWriter {
@@ -67,6 +66,11 @@ public class ScrimageAnimatedGifWriter implements ImageWriter {
         }
     }
 
+    @Override
+    public boolean supportsAnimation() {
+        return true;
+    }
+
     @Override
     public Set<String> getSupportedFormats() {
         return ImmutableSet.of(
@@ -74,47 +78,47 @@ public class ScrimageAnimatedGifWriter implements ImageWriter {
         );
     }
 
+    /**
+     * Makes the pixels of the current frame that are close to the same pixels of the previous frame transparent,
+     * so that the previous frame shows through them.
+     *
+     * @param previousImage The previous frame, as {@link BufferedImage#TYPE_INT_ARGB}.
+     * @param currentImage  The current frame, as {@link BufferedImage#TYPE_INT_ARGB}.
+     * @return The current frame with the unchanged pixels made transparent.
+     * @throws CannotBeOptimisedException If a pixel of the current frame is transparent where the previous frame isn't.
+     */
     private static BufferedImage optimiseTransparency(BufferedImage previousImage, BufferedImage currentImage) throws CannotBeOptimisedException {
         int colorTolerance = 10;
-        List<Position> similarPixels = new ArrayList<>();
-        for (int x = 0; x < previousImage.getWidth(); x++) {
-            for (int y = 0; y < previousImage.getHeight(); y++) {
-                Color previousPixelColor = new Color(previousImage.getRGB(x, y), true);
-                Color currentPixelColor = new Color(currentImage.getRGB(x, y), true);
-                if (currentPixelColor.getAlpha() == 0 && previousPixelColor.getAlpha() != 0) {
+        int width = currentImage.getWidth();
+        int height = currentImage.getHeight();
+        PixelBuffer previousPixels = new PixelBuffer(previousImage);
+        PixelBuffer currentPixels = new PixelBuffer(currentImage);
+        int[] previousRow = new int[width];
+        int[] currentRow = new int[width];
+        BufferedImage optimised = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] optimisedPixels = ((DataBufferInt) optimised.getRaster().getDataBuffer()).getData();
+        int i = 0;
+        for (int y = 0; y < height; y++) {
+            previousPixels.getRow(y, previousRow);
+            currentPixels.getRow(y, currentRow);
+            for (int x = 0; x < width; x++) {
+                int previousRgb = previousRow[x];
+                int currentRgb = currentRow[x];
+                if (ImageUtil.isTransparent(currentRgb) && !ImageUtil.isTransparent(previousRgb)) {
                     throw new CannotBeOptimisedException();
+                } else if (ImageUtil.colorDistanceSquared(previousRgb, currentRgb) <= colorTolerance * colorTolerance) {
+                    optimisedPixels[i] = 0;
                 } else {
-                    double colorDistance = ImageUtil.colorDistance(previousPixelColor, currentPixelColor);
-                    if (colorDistance <= colorTolerance) {
-                        similarPixels.add(new Position(x, y));
-                    }
+                    optimisedPixels[i] = currentRgb;
                 }
+                i++;
             }
         }
-        return removePixels(currentImage, similarPixels);
-    }
-
-    private static BufferedImage removePixels(BufferedImage image, Iterable<Position> toRemove) {
-        BufferedImage newImage = ImageUtil.copy(image);
-        for (Position position : toRemove) {
-            newImage.setRGB(position.x(), position.y(), 0);
-        }
-        return newImage;
+        return optimised;
     }
 
     private static boolean fullyOpaque(BufferedImage image) {
-        for (int x = 0; x < image.getWidth(); x++) {
-            for (int y = 0; y < image.getHeight(); y++) {
-                Color pixelColor = new Color(image.getRGB(x, y), true);
-                if (pixelColor.getAlpha() < 255) {
-                    return false;
-                }
-            }
-        }
-        return true;
-    }
-
-    private record Position(int x, int y) {
+        return !ImageUtil.hasTransparency(image);
     }
 
     private static class CannotBeOptimisedException extends Exception {
@@ -2,7 +2,9 @@ package io.github.shaksternano.mediamanipulator.image.writer.util;
 
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.MultimapBuilder;
+import com.google.common.collect.Multimaps;
 import io.github.shaksternano.mediamanipulator.image.writer.ImageWriter;
+import io.github.shaksternano.mediamanipulator.image.util.CodecStatistics;
 
 import java.util.Collections;
 import java.util.List;
@@ -11,6 +13,7 @@ import java.util.Set;
 public class ImageWriterRegistry {
 
     private static final ListMultimap<String, ImageWriter> registry = MultimapBuilder.hashKeys().arrayListValues().build();
+    private static final CodecStatistics<ImageWriter> statistics = new CodecStatistics<>(ImageWriter::supportsAnimation);
 
     public static void register(ImageWriter writer) {
         for (String format : writer.getSupportedFormats()) {
@@ -18,8 +21,27 @@ public class ImageWriterRegistry {
         }
     }
 
+    /**
+     * Gets the writers for a format, ordered by how quickly each is expected to successfully write the format,
+     * with the writers that write animations first.
+     *
+     * @param format The format to get the writers for.
+     * @return The writers in the order they should be tried.
+     */
     public static List<ImageWriter> getWriters(String format) {
-        return Collections.unmodifiableList(registry.get(format.toLowerCase()));
+        return statistics.order(format, registry.get(format.toLowerCase()));
+    }
+
+    public static void recordSuccess(String format, ImageWriter writer, long nanos) {
+        statistics.recordSuccess(format, writer, nanos);
+    }
+
+    public static void recordFailure(String format, ImageWriter writer, long nanos) {
+        statistics.recordFailure(format, writer, nanos);
+    }
+
+    public static String getStatisticsSummary() {
+        return statistics.getSummary(Multimaps.asMap(registry));
     }
 
     public static Set<String> getSupportedFormats() {
@@ -5,6 +5,9 @@ import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
 import io.github.shaksternano.mediamanipulator.image.writer.Image4jIcoImageWriter;
 import io.github.shaksternano.mediamanipulator.image.writer.ImageWriter;
 import io.github.shaksternano.mediamanipulator.image.writer.JavaxImageWriter;
+import io.github.shaksternano.mediamanipulator.image.writer.ParallelApngWriter;
+import io.github.shaksternano.mediamanipulator.image.writer.ParallelGifWriter;
+import io.github.shaksternano.mediamanipulator.image.writer.ParallelWebpWriter;
 import io.github.shaksternano.mediamanipulator.image.writer.ScrimageAnimatedGifWriter;
 
 import java.io.File;
@@ -14,7 +17,10 @@ import java.util.List;
 public class ImageWriters {
 
     public static void registerImageWriters() {
+        ImageWriterRegistry.register(new ParallelGifWriter());
         ImageWriterRegistry.register(new ScrimageAnimatedGifWriter());
+        ImageWriterRegistry.register(new ParallelWebpWriter());
+        ImageWriterRegistry.register(new ParallelApngWriter());
         ImageWriterRegistry.register(new JavaxImageWriter());
         ImageWriterRegistry.register(new Image4jIcoImageWriter());
     }
@@ -23,21 +29,44 @@ public class ImageWriters {
         if (image.isEmpty()) {
             throw new IllegalArgumentException("ImageMedia is empty!");
         } else {
+            format = getWriterFormat(image, format);
             List<ImageWriter> writers = ImageWriterRegistry.getWriters(format);
             if (writers.isEmpty()) {
                 throw new IOException("No image writers found for format: " + format + "!");
             } else {
+                IOException lastException = null;
                 for (ImageWriter writer : writers) {
+                    long startTime = System.nanoTime();
                     try {
                         writer.write(image, file, format);
+                        ImageWriterRegistry.recordSuccess(format, writer, System.nanoTime() - startTime);
                         return;
                     } catch (IOException e) {
-                        Main.getLogger().error("Error while writing image with format " + format + "!", e);
+                        ImageWriterRegistry.recordFailure(format, writer, System.nanoTime() - startTime);
+                        Main.getLogger().warn("Writer " + writer.getClass().getSimpleName() + " could not write image with format " + format + ": " + e);
+                        lastException = e;
                     }
                 }
 
+                Main.getLogger().error("Could not write image with format " + format + " with any writer!", lastException);
                 throw new IOException("Could not write image with format " + format + "!");
             }
         }
     }
+
+    /**
+     * Gets the format used to look up the writers for an image. Animated images written as PNG files
+     * are written as APNG files, as most PNG writers only write the first frame.
+     *
+     * @param image  The image to write.
+     * @param format The format to write the image in.
+     * @return The format to look up the writers with.
+     */
+    private static String getWriterFormat(ImageMedia image, String format) {
+        if (format.equalsIgnoreCase("png") && image.isAnimated()) {
+            return "apng";
+        } else {
+            return format;
+        }
+    }
 }
@@ -1,8 +1,14 @@
 package io.github.shaksternano.mediamanipulator.io;
 
+import com.google.common.io.ByteStreams;
 import io.github.shaksternano.mediamanipulator.Main;
+import io.github.shaksternano.mediamanipulator.exception.FileTooLargeException;
+import io.github.shaksternano.mediamanipulator.exception.UnsupportedFileFormatException;
 import io.github.shaksternano.mediamanipulator.image.backgroundimage.ResourceContainerImageInfo;
 import io.github.shaksternano.mediamanipulator.image.util.ImageUtil;
+import io.github.shaksternano.mediamanipulator.mediamanipulator.util.MediaManipulatorRegistry;
+import io.github.shaksternano.mediamanipulator.util.MiscUtil;
+import io.github.shaksternano.mediamanipulator.util.NetworkUtil;
 import io.github.shaksternano.mediamanipulator.util.tenor.TenorMediaType;
 import io.github.shaksternano.mediamanipulator.util.tenor.TenorUtil;
 import org.apache.commons.io.FileUtils;
@@ -11,9 +17,7 @@ import org.reflections.Reflections;
 import org.reflections.scanners.Scanners;
 
 import java.io.*;
-import java.net.URL;
-import java.nio.channels.Channels;
-import java.nio.channels.ReadableByteChannel;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.util.Optional;
 import java.util.Set;
@@ -31,7 +35,7 @@ public class FileUtil {
     /**
      * The maximum file size that is allowed to be downloaded, 100MB.
      */
-    private static final long MAXIMUM_FILE_SIZE_TO_DOWNLOAD = 104857600;
+    public static final long MAXIMUM_FILE_SIZE_TO_DOWNLOAD = 104857600;
 
     private static File createTempDir() throws IOException {
         File tempDir = Files.createTempDirectory("mediamanipulator").toFile();
@@ -146,36 +150,72 @@ public class FileUtil {
     }
 
     /**
-     * Downloads a file from a URL.
+     * Downloads a media file from a URL. The format of the file is detected from the first bytes downloaded,
+     * and the download is stopped straight away if the format isn't supported.
      *
-     * @param url       The text to download the image from.
-     * @param directory The directory to download the image to.
-     * @return An {@link Optional} describing the image file.
+     * @param url         The URL to download the media from.
+     * @param directory   The directory to download the media to.
+     * @param maximumSize The maximum size of the media file in bytes.
+     * @return The downloaded media file.
+     * @throws UnsupportedFileFormatException If the format of the media isn't supported.
+     * @throws FileTooLargeException          If the media is larger than the maximum size.
+     * @throws IOException                    If an error occurred while downloading the media.
      */
-    public static Optional<File> downloadFile(String url, String directory) {
-        try {
-            Optional<String> tenorMediaUrlOptional = TenorUtil.getTenorMediaUrl(url, TenorMediaType.GIF_NORMAL, Main.getTenorApiKey());
-            url = tenorMediaUrlOptional.orElse(url);
-            String fileNameWithoutExtension = com.google.common.io.Files.getNameWithoutExtension(url);
-            String extension = com.google.common.io.Files.getFileExtension(url);
-
-            int index = extension.indexOf("?");
-            if (index != -1) {
-                extension = extension.substring(0, index);
-            }
+    public static MediaFile downloadMedia(String url, String directory, long maximumSize) throws IOException {
+        Optional<String> tenorMediaUrlOptional = TenorUtil.getTenorMediaUrl(url, TenorMediaType.GIF_NORMAL, Main.getTenorApiKey());
+        url = tenorMediaUrlOptional.orElse(url);
+        String fileNameWithoutExtension = com.google.common.io.Files.getNameWithoutExtension(url);
+        String extension = com.google.common.io.Files.getFileExtension(url);
 
-            String fileName = fileNameWithoutExtension;
-            if (!extension.isBlank()) {
-                fileName += "." + extension;
-            }
+        int index = extension.indexOf("?");
+        if (index != -1) {
+            extension = extension.substring(0, index);
+        }
 
-            File imageFile = getUniqueFile(directory, fileName);
-            downloadFile(url, imageFile);
-            return Optional.of(imageFile);
-        } catch (IOException ignored) {
+        String fileName = fileNameWithoutExtension;
+        if (!extension.isBlank()) {
+            fileName += "." + extension;
         }
 
-        return Optional.empty();
+        File mediaFile = getUniqueFile(directory, fileName);
+        try (InputStream inputStream = NetworkUtil.getInputStream(url)) {
+            return downloadMedia(inputStream, mediaFile, maximumSize);
+        }
+    }
+
+    /**
+     * Writes a media file from a stream. The format of the file is detected from the first bytes of the stream,
+     * and nothing is written if the format isn't supported. If the file's format can't be detected
+     * from its contents, the extension of the file is used instead.
+     *
+     * @param inputStream The stream to read the media from.
+     * @param file        The file to write the media to.
+     * @param maximumSize The maximum size of the media file in bytes.
+     * @return The media file.
+     * @throws UnsupportedFileFormatException If the format of the media isn't supported.
+     * @throws FileTooLargeException          If the media is larger than the maximum size.
+     * @throws IOException                    If an error occurred while reading or writing the media.
+     */
+    @SuppressWarnings("ResultOfMethodCallIgnored")
+    public static MediaFile downloadMedia(InputStream inputStream, File file, long maximumSize) throws IOException {
+        byte[] header = inputStream.readNBytes(ImageUtil.FORMAT_SIGNATURE_LENGTH);
+        String format = getFileFormat(header, file.getName());
+        if (MediaManipulatorRegistry.getManipulator(format).isEmpty()) {
+            throw new UnsupportedFileFormatException("Unsupported file format \"" + format + "\"!");
+        }
+
+        try (OutputStream outputStream = new FileOutputStream(file)) {
+            outputStream.write(header);
+            long size = header.length + ByteStreams.copy(ByteStreams.limit(inputStream, Math.max(maximumSize - header.length, 0) + 1), outputStream);
+            if (size > maximumSize) {
+                throw new FileTooLargeException("The file is too large, the maximum size is " + (maximumSize / MiscUtil.TO_MB) + "MB!");
+            }
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+
+        return new MediaFile(file, format);
     }
 
     /**
@@ -187,10 +227,10 @@ public class FileUtil {
      */
     public static void downloadFile(String url, File file) throws IOException {
         try (
-                FileOutputStream outputStream = new FileOutputStream(file);
-                ReadableByteChannel readableByteChannel = Channels.newChannel(new URL(url).openStream())
+                InputStream inputStream = NetworkUtil.getInputStream(url);
+                OutputStream outputStream = new FileOutputStream(file)
         ) {
-            outputStream.getChannel().transferFrom(readableByteChannel, 0, MAXIMUM_FILE_SIZE_TO_DOWNLOAD);
+            ByteStreams.limit(inputStream, MAXIMUM_FILE_SIZE_TO_DOWNLOAD).transferTo(outputStream);
         }
     }
 
@@ -202,6 +242,14 @@ public class FileUtil {
         }
     }
 
+    private static String getFileFormat(byte[] header, String fileName) {
+        try {
+            return ImageUtil.getImageFormat(ByteBuffer.wrap(header));
+        } catch (Exception ignored) {
+            return com.google.common.io.Files.getFileExtension(fileName);
+        }
+    }
+
     public static String changeFileName(String fileNameAndExtension, String newFileName) {
         String extension = com.google.common.io.Files.getFileExtension(fileNameAndExtension);
         return newFileName + "." + extension;
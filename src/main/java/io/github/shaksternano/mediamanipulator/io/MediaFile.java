@@ -0,0 +1,12 @@
+package io.github.shaksternano.mediamanipulator.io;
+
+import java.io.File;
+
+/**
+ * A media file along with its format, so that the format doesn't have to be detected again.
+ *
+ * @param file   The media file.
+ * @param format The format of the media file.
+ */
+public record MediaFile(File file, String format) {
+}
@@ -0,0 +1,36 @@
+package io.github.shaksternano.mediamanipulator.listener;
+
+import io.github.shaksternano.mediamanipulator.emoji.GuildEmojiIndex;
+import net.dv8tion.jda.api.events.emoji.EmojiAddedEvent;
+import net.dv8tion.jda.api.events.emoji.EmojiRemovedEvent;
+import net.dv8tion.jda.api.events.emoji.update.EmojiUpdateNameEvent;
+import net.dv8tion.jda.api.events.guild.GuildLeaveEvent;
+import net.dv8tion.jda.api.hooks.ListenerAdapter;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Keeps the {@link GuildEmojiIndex} up to date with changes to guild emojis.
+ */
+public class EmojiListener extends ListenerAdapter {
+
+    @Override
+    public void onEmojiAdded(@NotNull EmojiAddedEvent event) {
+        GuildEmojiIndex.updateEmojiName(event.getGuild(), event.getEmoji().getName(), 0);
+    }
+
+    @Override
+    public void onEmojiRemoved(@NotNull EmojiRemovedEvent event) {
+        GuildEmojiIndex.updateEmojiName(event.getGuild(), event.getEmoji().getName(), event.getEmoji().getIdLong());
+    }
+
+    @Override
+    public void onEmojiUpdateName(@NotNull EmojiUpdateNameEvent event) {
+        GuildEmojiIndex.updateEmojiName(event.getGuild(), event.getOldName(), 0);
+        GuildEmojiIndex.updateEmojiName(event.getGuild(), event.getNewName(), 0);
+    }
+
+    @Override
+    public void onGuildLeave(@NotNull GuildLeaveEvent event) {
+        GuildEmojiIndex.removeGuild(event.getGuild());
+    }
+}
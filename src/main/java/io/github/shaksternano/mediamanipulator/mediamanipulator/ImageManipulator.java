@@ -1,6 +1,5 @@
 package io.github.shaksternano.mediamanipulator.mediamanipulator;
 
-import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.sksamuel.scrimage.AutocropOps;
 import com.sksamuel.scrimage.ImmutableImage;
@@ -14,16 +13,32 @@ import io.github.shaksternano.mediamanipulator.graphics.TextAlignment;
 import io.github.shaksternano.mediamanipulator.graphics.drawable.Drawable;
 import io.github.shaksternano.mediamanipulator.graphics.drawable.OutlinedTextDrawable;
 import io.github.shaksternano.mediamanipulator.graphics.drawable.ParagraphCompositeDrawable;
+import io.github.shaksternano.mediamanipulator.graphics.layer.DrawableLayer;
+import io.github.shaksternano.mediamanipulator.graphics.layer.ImageLayer;
+import io.github.shaksternano.mediamanipulator.graphics.layer.Layer;
+import io.github.shaksternano.mediamanipulator.graphics.layer.LayerCompositor;
+import io.github.shaksternano.mediamanipulator.graphics.layer.ShapeLayer;
 import io.github.shaksternano.mediamanipulator.image.backgroundimage.ContainerImageInfo;
 import io.github.shaksternano.mediamanipulator.image.backgroundimage.CustomContainerImageInfo;
+import io.github.shaksternano.mediamanipulator.image.codec.gif.GifEncoder;
+import io.github.shaksternano.mediamanipulator.image.codec.jpeg.JpegEncoder;
+import io.github.shaksternano.mediamanipulator.image.codec.png.ApngDecoder;
+import io.github.shaksternano.mediamanipulator.image.codec.png.ApngEncoder;
 import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
-import io.github.shaksternano.mediamanipulator.image.imagemedia.StaticImage;
+import io.github.shaksternano.mediamanipulator.image.pipeline.FramePipeline;
+import io.github.shaksternano.mediamanipulator.image.pipeline.FramePipelineBuilder;
 import io.github.shaksternano.mediamanipulator.image.reader.util.ImageReaderRegistry;
 import io.github.shaksternano.mediamanipulator.image.reader.util.ImageReaders;
 import io.github.shaksternano.mediamanipulator.image.util.AwtFrame;
 import io.github.shaksternano.mediamanipulator.image.util.Frame;
+import io.github.shaksternano.mediamanipulator.image.util.ImageComputePool;
 import io.github.shaksternano.mediamanipulator.image.util.ImageMediaBuilder;
+import io.github.shaksternano.mediamanipulator.image.util.ImageSizeHint;
 import io.github.shaksternano.mediamanipulator.image.util.ImageUtil;
+import io.github.shaksternano.mediamanipulator.image.util.PixelBuffer;
+import io.github.shaksternano.mediamanipulator.image.util.SpinAnimator;
+import io.github.shaksternano.mediamanipulator.image.writer.ParallelApngWriter;
+import io.github.shaksternano.mediamanipulator.image.writer.ParallelGifWriter;
 import io.github.shaksternano.mediamanipulator.image.writer.util.ImageWriterRegistry;
 import io.github.shaksternano.mediamanipulator.image.writer.util.ImageWriters;
 import io.github.shaksternano.mediamanipulator.io.FileUtil;
@@ -41,8 +56,8 @@ import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.List;
 import java.util.*;
-import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.zip.Deflater;
 
 /**
  * A manipulator that works with image based media.
@@ -50,32 +65,209 @@ import java.util.function.Function;
 public class ImageManipulator implements MediaManipulator {
 
     private static final Set<String> ANIMATED_IMAGE_FORMATS = ImmutableSet.of(
-            "gif"
+            "gif",
+            "png"
     );
 
     private static final Drawable EMPTY = new EmptyDrawable();
 
-    private static File animatedOnlyOperation(File media, String fileFormat, Function<ImageMedia, ImageMedia> operation, String operationName, String staticImageErrorMessage) throws IOException {
-        if (ANIMATED_IMAGE_FORMATS.contains(fileFormat.toLowerCase())) {
-            ImageMedia imageMedia = ImageReaders.read(media, fileFormat, null);
+    private static final String SPEED_STATIC_IMAGE_ERROR = "Cannot change the speed of a static image.";
+
+    private static final String REDUCE_FPS_STATIC_IMAGE_ERROR = "Cannot reduce the FPS of a static image.";
+
+    /**
+     * The lossiness levels to try when compressing a GIF, in order, before its resolution or frame rate is reduced.
+     */
+    private static final int[] LOSSY_GIF_LEVELS = {20, 40, 80};
+
+    /**
+     * GIFs that are larger than this many times the maximum upload size are too large
+     * for lossy compression alone to make small enough, so it isn't tried.
+     */
+    private static final int MAXIMUM_LOSSY_GIF_SIZE_RATIO = 2;
+
+    /**
+     * PNG files that are larger than this many times the maximum upload size are too large
+     * for the highest compression level alone to make small enough, so it isn't tried.
+     */
+    private static final double MAXIMUM_RECOMPRESSED_PNG_SIZE_RATIO = 1.25;
+
+    /**
+     * The lowest JPEG quality that still images are compressed to before their resolution is reduced.
+     */
+    private static final float MINIMUM_JPEG_QUALITY = 0.5F;
+
+    private static final Set<String> JPEG_FORMATS = ImmutableSet.of(
+            "jpeg",
+            "jpg"
+    );
+
+    /**
+     * Formats that can't store transparency, so edited media in these formats that has become transparent is written as a PNG.
+     */
+    private static final Set<String> OPAQUE_IMAGE_FORMATS = ImmutableSet.of(
+            "bmp",
+            "jpeg",
+            "jpg",
+            "wbmp"
+    );
+
+    /**
+     * Still images that aren't already JPEG files are only compressed as JPEG files if they have at least this many
+     * colors, like photographs do. Screenshots and pixel art have fewer colors and flat areas that JPEG compression smears,
+     * so their resolution is reduced instead.
+     */
+    private static final int MINIMUM_JPEG_COLORS = 1 << 14;
+
+    /**
+     * The size the input media is needed at, or null if it should be read at full size.
+     */
+    @Nullable
+    private final ImageSizeHint inputSizeHint;
+
+    /**
+     * The format that animated media is converted to when it's compressed, or null if it keeps its format.
+     */
+    @Nullable
+    private final String preferredAnimatedFormat;
+
+    public ImageManipulator() {
+        this(null, null);
+    }
+
+    private ImageManipulator(@Nullable ImageSizeHint inputSizeHint, @Nullable String preferredAnimatedFormat) {
+        this.inputSizeHint = inputSizeHint;
+        this.preferredAnimatedFormat = preferredAnimatedFormat;
+    }
+
+    @Override
+    public MediaManipulator withInputSizeHint(@Nullable ImageSizeHint sizeHint) {
+        return Objects.equals(sizeHint, inputSizeHint) ? this : new ImageManipulator(sizeHint, preferredAnimatedFormat);
+    }
+
+    @Override
+    public MediaManipulator withPreferredAnimatedFormat(@Nullable String format) {
+        return Objects.equals(format, preferredAnimatedFormat) ? this : new ImageManipulator(inputSizeHint, format);
+    }
+
+    /**
+     * Reads the media being edited, shrinking it according to the input size hint.
+     */
+    private ImageMedia readInput(File media, String fileFormat, @Nullable Integer imageType) throws IOException {
+        return ImageReaders.read(media, fileFormat, imageType, inputSizeHint);
+    }
+
+    /**
+     * Reads a media file, edits it in memory, and writes the result to a new file.
+     * All file based operations go through this, so media is only read from and written to
+     * files at the edges, and the edits themselves work on {@link ImageMedia}.
+     *
+     * @param media      The media file to edit.
+     * @param fileFormat The format of the media file.
+     * @param operation  The edit to make.
+     * @param resultName The name of the resulting file, without its extension.
+     *                   If null, the name of the original file is used.
+     * @return The resulting file, or the original file if the edit didn't change the media.
+     * @throws IOException If an error occurs while reading, editing or writing the media.
+     */
+    private File applyOperation(File media, String fileFormat, MediaOperation operation, @Nullable String resultName) throws IOException {
+        return applyOperation(media, fileFormat, null, operation, resultName);
+    }
+
+    /**
+     * Reads a media file, edits it in memory, and writes the result to a new file.
+     *
+     * @param media      The media file to edit.
+     * @param fileFormat The format of the media file.
+     * @param imageType  The type of image to read the media as, or null to use the type it's stored as.
+     * @param operation  The edit to make. The result is written in the format it needs, if it needs one.
+     * @param resultName The name of the resulting file, without its extension.
+     *                   If null, the name of the original file is used.
+     * @return The resulting file, or the original file if the edit didn't change the media.
+     * @throws IOException If an error occurs while reading, editing or writing the media.
+     */
+    private File applyOperation(File media, String fileFormat, @Nullable Integer imageType, MediaOperation operation, @Nullable String resultName) throws IOException {
+        ImageMedia imageMedia = readInput(media, fileFormat, imageType);
+        boolean inputIsAnimated = imageMedia.isAnimated();
+        ImageMedia result = operation.apply(imageMedia, this);
+        String outputFormat = operation.getOutputFormat();
+        if (result == imageMedia && outputFormat == null) {
+            return media;
+        } else {
+            return writeOutput(result, inputIsAnimated, media, fileFormat, outputFormat, resultName);
+        }
+    }
 
-            if (imageMedia.isAnimated()) {
-                ImageMedia result = operation.apply(imageMedia);
-                File output = FileUtil.getUniqueTempFile(operationName + "." + fileFormat);
-                ImageWriters.write(result, output, fileFormat);
-                return output;
+    /**
+     * Writes edited media to a new file. Unless an output format is given, the result keeps the format
+     * of the original file, unless it became animated when the original wasn't, in which case it's written as a GIF,
+     * or it became transparent and the format of the original file can't store transparency,
+     * in which case it's written as a PNG.
+     */
+    private static File writeOutput(ImageMedia result, boolean inputIsAnimated, File media, String fileFormat, @Nullable String outputFormat, @Nullable String resultName) throws IOException {
+        if (outputFormat == null) {
+            if (result.isAnimated()) {
+                outputFormat = inputIsAnimated ? fileFormat : "gif";
+            } else if (OPAQUE_IMAGE_FORMATS.contains(fileFormat.toLowerCase()) && ImageUtil.hasTransparency(result.getFirstImage())) {
+                outputFormat = "png";
             } else {
-                throw new UnsupportedFileFormatException(staticImageErrorMessage);
+                outputFormat = fileFormat;
             }
+        }
+
+        String outputExtension = outputFormat.equals(fileFormat)
+                ? com.google.common.io.Files.getFileExtension(media.getName())
+                : outputFormat;
+        String outputName = FileUtil.changeExtension(resultName == null ? media.getName() : resultName, outputExtension);
+
+        File outputFile = FileUtil.getUniqueTempFile(outputName);
+        ImageWriters.write(result, outputFile, outputFormat);
+        return outputFile;
+    }
+
+    @Override
+    public File applyOperations(File media, String fileFormat, List<MediaOperation> operations) throws IOException {
+        // The result is written in the format needed by the last operation that needs one.
+        MediaOperation chain = (imageMedia, manipulator) -> imageMedia;
+        for (MediaOperation operation : operations) {
+            chain = chain.andThen(operation);
+        }
+        return applyOperation(media, fileFormat, chain, "edited");
+    }
+
+    /**
+     * Applies an operation that only works on animated media. Files in formats that can't be animated
+     * are rejected before they are read.
+     */
+    private File animatedOnlyOperation(File media, String fileFormat, MediaOperation operation, @Nullable String operationName, String staticImageErrorMessage) throws IOException {
+        if (ANIMATED_IMAGE_FORMATS.contains(fileFormat.toLowerCase())) {
+            return applyOperation(media, fileFormat, operation, operationName);
         } else {
             throw new UnsupportedFileFormatException(staticImageErrorMessage);
         }
     }
 
-    @SuppressWarnings("UnusedAssignment")
+    /**
+     * Checks that media is animated, for operations that only work on animated media.
+     *
+     * @param imageMedia              The media to check.
+     * @param staticImageErrorMessage The error message if the media isn't animated.
+     * @throws UnsupportedFileFormatException If the media isn't animated.
+     */
+    private static void checkAnimated(ImageMedia imageMedia, String staticImageErrorMessage) {
+        if (!imageMedia.isAnimated()) {
+            throw new UnsupportedFileFormatException(staticImageErrorMessage);
+        }
+    }
+
     @Override
     public File caption(File media, String fileFormat, List<String> words, Map<String, Drawable> nonTextParts, boolean caption2) throws IOException {
-        ImageMedia imageMedia = ImageReaders.read(media, fileFormat, null);
+        return applyOperation(media, fileFormat, (imageMedia, manipulator) -> manipulator.caption(imageMedia, words, nonTextParts, caption2), "captioned");
+    }
+
+    @SuppressWarnings("UnusedAssignment")
+    @Override
+    public ImageMedia caption(ImageMedia imageMedia, List<String> words, Map<String, Drawable> nonTextParts, boolean caption2) {
         BufferedImage firstImage = imageMedia.getFirstImage();
 
         int width = firstImage.getWidth();
@@ -120,9 +312,7 @@ public class ImageManipulator implements MediaManipulator {
 
         paragraph = null;
 
-        boolean originalIsAnimated = imageMedia.isAnimated();
-
-        ImageMedia withCaptionBox = ImageMediaBuilder.fromCollection(imageMedia.parallelStream().map(frame -> {
+        ImageMedia withCaptionBox = ImageMediaBuilder.fromCollection(ImageComputePool.mapFrames(imageMedia, frame -> {
             BufferedImage originalImage = frame.getImage();
             BufferedImage withCaptionBoxImage = new BufferedImage(originalImage.getWidth(), originalImage.getHeight() + fillHeight, ImageUtil.getType(originalImage));
             Graphics2D graphics = withCaptionBoxImage.createGraphics();
@@ -137,7 +327,7 @@ public class ImageManipulator implements MediaManipulator {
             int duration = frame.getDuration();
             frame.flush();
             return new AwtFrame(withCaptionBoxImage, duration);
-        }).collect(ImmutableList.toImmutableList()));
+        }));
 
         imageMedia = null;
 
@@ -159,31 +349,17 @@ public class ImageManipulator implements MediaManipulator {
                 null
         );
 
-        ImageMedia result = drawTextOnImage(words, nonTextParts, containerImageInfo);
-
-        String outputFormat;
-        String outputExtension;
-        if (result.isAnimated() && !originalIsAnimated) {
-            outputFormat = "gif";
-            outputExtension = "." + outputFormat;
-        } else {
-            outputFormat = fileFormat;
-            outputExtension = com.google.common.io.Files.getFileExtension(media.getName());
-
-            if (!outputExtension.isBlank()) {
-                outputExtension = "." + outputExtension;
-            }
-        }
+        return drawTextOnImage(words, nonTextParts, containerImageInfo);
+    }
 
-        File outputFile = FileUtil.getUniqueTempFile(containerImageInfo.getResultName() + outputExtension);
-        ImageWriters.write(result, outputFile, outputFormat);
-        return outputFile;
+    @Override
+    public File demotivate(File media, String fileFormat, List<String> words, List<String> subText, Map<String, Drawable> nonTextParts) throws IOException {
+        return applyOperation(media, fileFormat, (imageMedia, manipulator) -> manipulator.demotivate(imageMedia, words, subText, nonTextParts), "demotivated");
     }
 
     @SuppressWarnings("UnusedAssignment")
     @Override
-    public File demotivate(File media, String fileFormat, List<String> words, List<String> subText, Map<String, Drawable> nonTextParts) throws IOException {
-        ImageMedia imageMedia = ImageReaders.read(media, fileFormat, null);
+    public ImageMedia demotivate(ImageMedia imageMedia, List<String> words, List<String> subText, Map<String, Drawable> nonTextParts) {
         BufferedImage firstImage = imageMedia.getFirstImage();
 
         int contentWidth = firstImage.getWidth();
@@ -216,101 +392,62 @@ public class ImageManipulator implements MediaManipulator {
 
         graphics.dispose();
         firstImage = null;
-        imageMedia = null;
 
         int demotivateWidth = contentWidth + (demotivateImagePadding * 2);
         int demotivateHeight = contentHeight + (demotivateImagePadding * 2) + paragraphHeight + mainSubSpacing + subParagraphHeight;
-        BufferedImage demotivateBackground = new BufferedImage(demotivateWidth, demotivateHeight, contentImageType);
-        Graphics2D demotivateBackgroundGraphics = demotivateBackground.createGraphics();
-        demotivateBackgroundGraphics.setColor(Color.BLACK);
-        demotivateBackgroundGraphics.fillRect(0, 0, demotivateWidth, demotivateHeight);
 
         int lineDiameter = Math.max(Math.round(contentAverageDimension * 0.005F), 1);
         int lineImageSpacing = lineDiameter * 3;
+        int borderStart = demotivateImagePadding - (lineDiameter + lineImageSpacing);
+        int borderWidth = contentWidth + (lineDiameter * 2) + (lineImageSpacing * 2);
+        int borderHeight = contentHeight + (lineDiameter * 2) + (lineImageSpacing * 2);
 
-        demotivateBackgroundGraphics.setColor(Color.WHITE);
-
+        List<Layer> layers = new ArrayList<>();
+        layers.add(new ShapeLayer(new Rectangle(0, 0, demotivateWidth, demotivateHeight), Color.BLACK));
         // Top border
-        demotivateBackgroundGraphics.fillRect(demotivateImagePadding - (lineDiameter + lineImageSpacing), demotivateImagePadding - (lineDiameter + lineImageSpacing), contentWidth + (lineDiameter * 2) + (lineImageSpacing * 2), lineDiameter);
+        layers.add(new ShapeLayer(new Rectangle(borderStart, borderStart, borderWidth, lineDiameter), Color.WHITE));
         // Bottom border
-        demotivateBackgroundGraphics.fillRect(demotivateImagePadding - (lineDiameter + lineImageSpacing), demotivateImagePadding + contentHeight + lineImageSpacing, contentWidth + (lineDiameter * 2) + (lineImageSpacing * 2), lineDiameter);
+        layers.add(new ShapeLayer(new Rectangle(borderStart, demotivateImagePadding + contentHeight + lineImageSpacing, borderWidth, lineDiameter), Color.WHITE));
         // Left border
-        demotivateBackgroundGraphics.fillRect(demotivateImagePadding - (lineDiameter + lineImageSpacing), demotivateImagePadding - (lineDiameter + lineImageSpacing), lineDiameter, contentHeight + (lineDiameter * 2) + (lineImageSpacing * 2));
+        layers.add(new ShapeLayer(new Rectangle(borderStart, borderStart, lineDiameter, borderHeight), Color.WHITE));
         // Right border
-        demotivateBackgroundGraphics.fillRect(demotivateImagePadding + contentWidth + lineImageSpacing, demotivateImagePadding - (lineDiameter + lineImageSpacing), lineDiameter, contentHeight + (lineDiameter * 2) + (lineImageSpacing * 2));
+        layers.add(new ShapeLayer(new Rectangle(demotivateImagePadding + contentWidth + lineImageSpacing, borderStart, lineDiameter, borderHeight), Color.WHITE));
+        layers.add(new ImageLayer(imageMedia, demotivateImagePadding, demotivateImagePadding, null));
 
-        ImageMedia demotivateWithTextMedia;
-        if (words.isEmpty()) {
-            demotivateWithTextMedia = new StaticImage(demotivateBackground);
-        } else {
-            ImageMediaBuilder builder = new ImageMediaBuilder();
-            int paragraphFrames = paragraph.getFrameCount();
-            for (int i = 0; i < paragraphFrames; i++) {
-                BufferedImage demotivateWithText = new BufferedImage(demotivateWidth, demotivateHeight, contentImageType);
-                Graphics2D demotivateWithTextGraphics = demotivateWithText.createGraphics();
-                demotivateWithTextGraphics.drawImage(demotivateBackground, 0, 0, null);
-
-                demotivateWithTextGraphics.setColor(Color.WHITE);
-                demotivateWithTextGraphics.setFont(font);
-                ImageUtil.configureTextDrawQuality(demotivateWithTextGraphics);
-                paragraph.draw(
-                        demotivateWithTextGraphics,
-                        demotivateImagePadding,
-                        demotivateImagePadding + contentHeight + (demotivateImagePadding / 2)
-                );
-                demotivateWithTextGraphics.setFont(subFont);
-                subParagraph.draw(
-                        demotivateWithTextGraphics,
-                        demotivateImagePadding,
-                        demotivateImagePadding + contentHeight + (demotivateImagePadding / 2) + paragraphHeight + mainSubSpacing
-                );
-
-                builder.add(new AwtFrame(demotivateWithText, Frame.GIF_MINIMUM_FRAME_DURATION));
-            }
-            demotivateWithTextMedia = builder.build();
+        if (!words.isEmpty()) {
+            int paragraphY = demotivateImagePadding + contentHeight + (demotivateImagePadding / 2);
+            layers.add(new DrawableLayer(paragraph, demotivateImagePadding, paragraphY, font, Color.WHITE, null));
+            layers.add(new DrawableLayer(subParagraph, demotivateImagePadding, paragraphY + paragraphHeight + mainSubSpacing, subFont, Color.WHITE, null));
         }
 
-        ContainerImageInfo containerImageInfo = new CustomContainerImageInfo(
-                demotivateWithTextMedia,
-                "demotivated",
-                demotivateImagePadding,
-                demotivateImagePadding,
-                contentWidth,
-                contentHeight,
-                0,
-                Position.TOP,
-                textAlignment,
-                null,
-                null,
-                null,
-                null,
-                true,
-                null
-        );
+        imageMedia = null;
 
-        return containerImageWithImage(media, fileFormat, containerImageInfo);
+        return LayerCompositor.composite(layers, demotivateWidth, demotivateHeight, contentImageType);
     }
 
-    @SuppressWarnings("UnusedAssignment")
     @Override
     public File impact(File media, String fileFormat, List<String> topWords, List<String> bottomWords, Map<String, Drawable> nonTextParts) throws IOException {
-        ImageMedia imageMedia = ImageReaders.read(media, fileFormat, null);
+        return applyOperation(media, fileFormat, (imageMedia, manipulator) -> manipulator.impact(imageMedia, topWords, bottomWords, nonTextParts), "impacted");
+    }
+
+    @SuppressWarnings("UnusedAssignment")
+    @Override
+    public ImageMedia impact(ImageMedia imageMedia, List<String> topWords, List<String> bottomWords, Map<String, Drawable> nonTextParts) {
         BufferedImage firstImage = imageMedia.getFirstImage();
 
         int width = firstImage.getWidth();
-        int height = firstImage.getHeight() / 5;
+        int imageHeight = firstImage.getHeight();
+        int imageType = ImageUtil.getType(firstImage);
+        int height = imageHeight / 5;
 
         int smallestDimension = Math.min(width, height);
         int padding = (int) (smallestDimension * 0.04F);
 
         int topY = 0;
-        int bottomY = firstImage.getHeight() - height;
+        int bottomY = imageHeight - height;
 
-        firstImage.flush();
         firstImage = null;
 
-        boolean originalIsAnimated = imageMedia.isAnimated();
-
         ContainerImageInfo topWordsContainerImageInfo = new CustomContainerImageInfo(
                 imageMedia,
                 "impacted",
@@ -329,10 +466,8 @@ public class ImageManipulator implements MediaManipulator {
                 null
         );
 
-        ImageMedia result = drawTextOnImage(topWords, nonTextParts, topWordsContainerImageInfo);
-
         ContainerImageInfo bottomWordsContainerImageInfo = new CustomContainerImageInfo(
-                result,
+                imageMedia,
                 topWordsContainerImageInfo.getResultName(),
                 0,
                 bottomY,
@@ -349,44 +484,37 @@ public class ImageManipulator implements MediaManipulator {
                 topWordsContainerImageInfo.getFill().orElse(null)
         );
 
-        result = drawTextOnImage(bottomWords, nonTextParts, bottomWordsContainerImageInfo);
+        // Both blocks of text are drawn in the same pass over the frames.
+        List<Layer> layers = new ArrayList<>();
+        layers.add(new ImageLayer(imageMedia, 0, 0, null));
+        createTextLayer(topWords, nonTextParts, topWordsContainerImageInfo).ifPresent(layers::add);
+        createTextLayer(bottomWords, nonTextParts, bottomWordsContainerImageInfo).ifPresent(layers::add);
 
-        String outputFormat;
-        String outputExtension;
-        if (result.isAnimated() && !originalIsAnimated) {
-            outputFormat = "gif";
-            outputExtension = "." + outputFormat;
-        } else {
-            outputFormat = fileFormat;
-            outputExtension = com.google.common.io.Files.getFileExtension(media.getName());
+        imageMedia = null;
 
-            if (!outputExtension.isBlank()) {
-                outputExtension = "." + outputExtension;
-            }
-        }
+        return LayerCompositor.composite(layers, width, imageHeight, imageType);
+    }
 
-        File outputFile = FileUtil.getUniqueTempFile(topWordsContainerImageInfo.getResultName() + outputExtension);
-        ImageWriters.write(result, outputFile, outputFormat);
-        return outputFile;
+    @Override
+    public File containerImageWithImage(File media, String fileFormat, ContainerImageInfo containerImageInfo) throws IOException {
+        return applyOperation(media, fileFormat, (imageMedia, manipulator) -> manipulator.containerImageWithImage(imageMedia, containerImageInfo), containerImageInfo.getResultName());
     }
 
     @SuppressWarnings("UnusedAssignment")
     @Override
-    public File containerImageWithImage(File media, String fileFormat, ContainerImageInfo containerImageInfo) throws IOException {
+    public ImageMedia containerImageWithImage(ImageMedia contentImage, ContainerImageInfo containerImageInfo) throws IOException {
         ImageMedia containerImage = containerImageInfo.getImage();
-        ImageMedia contentImage = ImageReaders.read(media, fileFormat, null);
 
         int imageType = ImageUtil.getType(contentImage.getFirstImage());
-        boolean contentIsAnimated = contentImage.isAnimated();
 
-        ImageMedia resizedContentImage = ImageMediaBuilder.fromCollection(contentImage.parallelStream().map(frame -> {
+        ImageMedia resizedContentImage = ImageMediaBuilder.fromCollection(ImageComputePool.mapFrames(contentImage, frame -> {
             int width = containerImageInfo.getImageContentWidth();
             int height = containerImageInfo.getImageContentHeight();
             BufferedImage resizedImage = ImageUtil.fit(frame.getImage(), width, height);
             int duration = frame.getDuration();
             frame.flush();
             return new AwtFrame(resizedImage, duration);
-        }).collect(ImmutableList.toImmutableList()));
+        }));
 
         contentImage = null;
 
@@ -406,26 +534,7 @@ public class ImageManipulator implements MediaManipulator {
             fill = Color.WHITE;
         }
 
-        ImageMedia result = ImageUtil.overlayImage(containerImage, resizedContentImage, containerImageInfo.isBackground(), imageX, imageY, containerImageInfo.getContentClip().orElse(null), imageType, fill, false);
-
-        String outputFormat;
-        String outputExtension;
-        if (result.isAnimated() && !contentIsAnimated) {
-            outputFormat = "gif";
-            outputExtension = "." + outputFormat;
-        } else {
-            outputFormat = fileFormat;
-            outputExtension = com.google.common.io.Files.getFileExtension(media.getName());
-
-            if (!outputExtension.isBlank()) {
-                outputExtension = "." + outputExtension;
-            }
-        }
-
-        File output = FileUtil.getUniqueTempFile(containerImageInfo.getResultName() + outputExtension);
-        ImageWriters.write(result, output, outputFormat);
-
-        return output;
+        return ImageUtil.overlayImage(containerImage, resizedContentImage, containerImageInfo.isBackground(), imageX, imageY, containerImageInfo.getContentClip().orElse(null), imageType, fill, false);
     }
 
     @Override
@@ -447,89 +556,97 @@ public class ImageManipulator implements MediaManipulator {
         return outputFile;
     }
 
-    @SuppressWarnings("UnusedAssignment")
-    private static ImageMedia drawTextOnImage(List<String> words, Map<String, Drawable> nonTextParts, ContainerImageInfo containerImageInfo) throws IOException {
+    private static ImageMedia drawTextOnImage(List<String> words, Map<String, Drawable> nonTextParts, ContainerImageInfo containerImageInfo) {
         ImageMedia imageMedia = containerImageInfo.getImage();
-
-        if (words.isEmpty()) {
+        Optional<Layer> textLayer = createTextLayer(words, nonTextParts, containerImageInfo);
+        if (textLayer.isEmpty()) {
             return imageMedia;
-        } else {
-            ParagraphCompositeDrawable paragraph = new ParagraphCompositeDrawable.Builder(nonTextParts)
-                    .addWords(containerImageInfo.getCustomTextDrawableFactory().orElse(null), words)
-                    .build(containerImageInfo.getTextContentAlignment(), containerImageInfo.getTextContentWidth());
-
-            Graphics2D graphics = imageMedia.getFirstImage().createGraphics();
-
-            Font font = containerImageInfo.getFont();
-            graphics.setFont(font);
-            ImageUtil.configureTextDrawQuality(graphics);
+        }
 
-            GraphicsUtil.fontFitWidth(containerImageInfo.getTextContentWidth(), paragraph, graphics);
-            int paragraphHeight = GraphicsUtil.fontFitHeight(containerImageInfo.getTextContentHeight(), paragraph, graphics);
-            float fontSize = graphics.getFont().getSize2D();
+        BufferedImage firstImage = imageMedia.getFirstImage();
+        int width = firstImage.getWidth();
+        int height = firstImage.getHeight();
 
-            graphics.dispose();
+        List<Layer> layers = new ArrayList<>();
+        Shape contentClip = containerImageInfo.getContentClip().orElse(null);
+        containerImageInfo.getFill().ifPresent(color -> layers.add(new ShapeLayer(
+                contentClip == null ? new Rectangle(0, 0, width, height) : contentClip,
+                color
+        )));
 
-            int containerCentreY = containerImageInfo.getTextContentY() + (containerImageInfo.getTextContentHeight() / 2);
+        Layer imageLayer = new ImageLayer(imageMedia, 0, 0, null);
+        if (containerImageInfo.isBackground()) {
+            layers.add(imageLayer);
+            layers.add(textLayer.orElseThrow());
+        } else {
+            layers.add(textLayer.orElseThrow());
+            layers.add(imageLayer);
+        }
 
-            int paragraphX = containerImageInfo.getTextContentX();
-            int paragraphY = containerCentreY - (paragraphHeight / 2);
-            switch (containerImageInfo.getTextContentPosition()) {
-                case TOP -> paragraphY = containerImageInfo.getTextContentY();
-                case BOTTOM ->
-                        paragraphY = containerImageInfo.getTextContentY() + (containerImageInfo.getTextContentHeight() - paragraphHeight);
-            }
+        return LayerCompositor.composite(layers, width, height, ImageUtil.getType(firstImage));
+    }
 
-            ImageMediaBuilder builder = new ImageMediaBuilder();
+    /**
+     * Creates a layer that draws words inside the text area of a container image,
+     * with the font shrunk so that the words fit.
+     *
+     * @param words              The words to draw.
+     * @param nonTextParts       The parts of the words that aren't text, such as emojis.
+     * @param containerImageInfo The container image.
+     * @return The text layer, or an empty {@link Optional} if there are no words to draw.
+     */
+    private static Optional<Layer> createTextLayer(List<String> words, Map<String, Drawable> nonTextParts, ContainerImageInfo containerImageInfo) {
+        if (words.isEmpty()) {
+            return Optional.empty();
+        }
 
-            int paragraphFrameCount = paragraph.getFrameCount();
-            if (paragraphFrameCount == 1) {
-                for (Frame frame : imageMedia) {
-                    BufferedImage image = frame.getImage();
-                    BufferedImage imageWithText = drawOnImage(image, containerImageInfo, paragraph, paragraphX, paragraphY, fontSize);
-                    int duration = frame.getDuration();
-                    builder.add(new AwtFrame(imageWithText, duration));
-                    frame.flush();
-                }
-            } else {
-                List<BufferedImage> normalisedImages = imageMedia.toNormalisedImages();
-                List<BufferedImage> extendedImages = CollectionUtil.extendLoop(normalisedImages, paragraphFrameCount);
+        ParagraphCompositeDrawable paragraph = new ParagraphCompositeDrawable.Builder(nonTextParts)
+                .addWords(containerImageInfo.getCustomTextDrawableFactory().orElse(null), words)
+                .build(containerImageInfo.getTextContentAlignment(), containerImageInfo.getTextContentWidth());
 
-                normalisedImages = null;
+        Graphics2D graphics = containerImageInfo.getImage().getFirstImage().createGraphics();
 
-                BufferedImage previousImage = null;
+        Font font = containerImageInfo.getFont();
+        graphics.setFont(font);
+        ImageUtil.configureTextDrawQuality(graphics);
 
-                Iterator<BufferedImage> imageIterator = extendedImages.iterator();
-                while (imageIterator.hasNext()) {
-                    BufferedImage image = imageIterator.next();
+        GraphicsUtil.fontFitWidth(containerImageInfo.getTextContentWidth(), paragraph, graphics);
+        int paragraphHeight = GraphicsUtil.fontFitHeight(containerImageInfo.getTextContentHeight(), paragraph, graphics);
+        float fontSize = graphics.getFont().getSize2D();
 
-                    if (image.equals(previousImage) && paragraph.sameAsPreviousFrame()) {
-                        builder.increaseLastFrameDuration(Frame.GIF_MINIMUM_FRAME_DURATION);
-                    } else {
-                        BufferedImage imageWithText = drawOnImage(image, containerImageInfo, paragraph, paragraphX, paragraphY, fontSize);
-                        builder.add(new AwtFrame(imageWithText, Frame.GIF_MINIMUM_FRAME_DURATION));
-                        previousImage = imageWithText;
-                    }
+        graphics.dispose();
 
-                    imageIterator.remove();
-                }
-            }
+        int containerCentreY = containerImageInfo.getTextContentY() + (containerImageInfo.getTextContentHeight() / 2);
 
-            return builder.build();
+        int paragraphX = containerImageInfo.getTextContentX();
+        int paragraphY = containerCentreY - (paragraphHeight / 2);
+        switch (containerImageInfo.getTextContentPosition()) {
+            case TOP -> paragraphY = containerImageInfo.getTextContentY();
+            case BOTTOM ->
+                    paragraphY = containerImageInfo.getTextContentY() + (containerImageInfo.getTextContentHeight() - paragraphHeight);
         }
+
+        return Optional.of(new DrawableLayer(
+                paragraph,
+                paragraphX,
+                paragraphY,
+                font.deriveFont(fontSize),
+                containerImageInfo.getTextColor(),
+                containerImageInfo.getContentClip().orElse(null)
+        ));
     }
 
     @Override
     public File uncaption(File media, boolean coloredCaption, String fileFormat) throws IOException {
-        return cropImage(
-                media,
-                fileFormat,
-                image -> findNonCaptionAreaTopAndBottom(image, coloredCaption),
-                "uncaptioned"
-        );
+        return applyOperation(media, fileFormat, (imageMedia, manipulator) -> manipulator.uncaption(imageMedia, coloredCaption), "uncaptioned");
     }
 
-    private Rectangle findNonCaptionAreaTopAndBottom(BufferedImage image, boolean coloredCaption) {
+    @Override
+    public ImageMedia uncaption(ImageMedia imageMedia, boolean coloredCaption) {
+        return cropImage(imageMedia, image -> findNonCaptionAreaTopAndBottom(image, coloredCaption));
+    }
+
+    private static Rectangle findNonCaptionAreaTopAndBottom(BufferedImage image, boolean coloredCaption) {
         Rectangle nonCaptionArea = new Rectangle(0, 0, image.getWidth(), image.getHeight());
 
         Rectangle nonTopCaptionArea = coloredCaption ?
@@ -546,66 +663,48 @@ public class ImageManipulator implements MediaManipulator {
     }
 
     private static Rectangle findNonCaptionArea(BufferedImage image, boolean topCaption) {
-        boolean continueLooking = true;
+        PixelBuffer pixels = new PixelBuffer(image);
+        int[] row = new int[image.getWidth()];
+        int height = image.getHeight();
         int captionEnd = -1;
-        int y = topCaption ? 0 : image.getHeight() - 1;
-        while (topCaption ? y < image.getHeight() : y >= 0) {
-            for (int x = 0; x < image.getWidth(); x++) {
-                Color color = new Color(image.getRGB(x, y));
-                if (!ImageUtil.isGreyScale(color)) {
-                    continueLooking = false;
-                    break;
+        for (int i = 0; i < height; i++) {
+            int y = topCaption ? i : height - 1 - i;
+            pixels.getRow(y, row);
+            for (int rgb : row) {
+                if (!ImageUtil.isGreyScale(rgb)) {
+                    return createNonCaptionArea(image, topCaption, captionEnd);
                 }
             }
-
-            if (continueLooking) {
-                captionEnd = y;
-
-                if (topCaption) {
-                    y++;
-                } else {
-                    y--;
-                }
-            } else {
-                break;
-            }
+            captionEnd = y;
         }
 
         return createNonCaptionArea(image, topCaption, captionEnd);
     }
 
     private static Rectangle findNonCaptionAreaColored(BufferedImage image, boolean topCaption) {
-        boolean continueLooking = true;
-        int captionEnd = -1;
-        int y = topCaption ? 0 : image.getHeight() - 1;
         int colorTolerance = 150;
-        while (topCaption ? y < image.getHeight() : y >= 0) {
+        int white = Color.WHITE.getRGB();
+        PixelBuffer pixels = new PixelBuffer(image);
+        int width = image.getWidth();
+        int[] row = new int[width];
+        int height = image.getHeight();
+        int captionEnd = -1;
+        for (int i = 0; i < height; i++) {
+            int y = topCaption ? i : height - 1 - i;
+            pixels.getRow(y, row);
             boolean rowIsCompletelyWhite = true;
-            for (int x = 0; x < image.getWidth(); x++) {
-                Color color = new Color(image.getRGB(x, y));
-                double colorDistance = ImageUtil.colorDistance(color, Color.WHITE);
-                if (colorDistance > colorTolerance) {
+            for (int x = 0; x < width; x++) {
+                if (ImageUtil.colorDistanceSquared(row[x], white) > colorTolerance * colorTolerance) {
                     rowIsCompletelyWhite = false;
-                    if ((topCaption ? y == 0 : y == image.getHeight() - 1)
-                            || x == 0
-                            || x == image.getWidth() - 1
-                    ) {
-                        continueLooking = false;
-                        break;
+                    // Captions are white along their edges, so a colored pixel there means there is no more caption.
+                    if (i == 0 || x == 0 || x == width - 1) {
+                        return createNonCaptionArea(image, topCaption, captionEnd);
                     }
-                } else if (rowIsCompletelyWhite && x == image.getWidth() - 1) {
-                    captionEnd = y;
                 }
             }
 
-            if (continueLooking) {
-                if (topCaption) {
-                    y++;
-                } else {
-                    y--;
-                }
-            } else {
-                break;
+            if (rowIsCompletelyWhite && width > 0) {
+                captionEnd = y;
             }
         }
 
@@ -631,24 +730,42 @@ public class ImageManipulator implements MediaManipulator {
 
     @Override
     public File stretch(File media, String fileFormat, float widthMultiplier, float heightMultiplier, boolean raw) throws IOException {
-        return applyToEachFrame(media, fileFormat, null, image -> ImageUtil.stretch(image, (int) (image.getWidth() * widthMultiplier), (int) (image.getHeight() * heightMultiplier), raw), "stretched");
+        return applyOperation(media, fileFormat, (imageMedia, manipulator) -> manipulator.stretch(imageMedia, widthMultiplier, heightMultiplier, raw), "stretched");
+    }
+
+    @Override
+    public ImageMedia stretch(ImageMedia media, float widthMultiplier, float heightMultiplier, boolean raw) {
+        if (raw) {
+            return applyToEachFrame(media, new FramePipelineBuilder().stretch(widthMultiplier, heightMultiplier).build());
+        } else {
+            return applyToEachFrame(media, image -> ImageUtil.stretch(image, (int) (image.getWidth() * widthMultiplier), (int) (image.getHeight() * heightMultiplier), false));
+        }
     }
 
     @Override
     public File resize(File media, String fileFormat, float resizeMultiplier, boolean raw, boolean rename) throws IOException {
-        return applyToEachFrame(media, fileFormat, null, image -> ImageUtil.resize(image, resizeMultiplier, raw), rename ? "resized" : null);
+        return applyOperation(media, fileFormat, (imageMedia, manipulator) -> manipulator.resize(imageMedia, resizeMultiplier, raw), rename ? "resized" : null);
+    }
+
+    @Override
+    public ImageMedia resize(ImageMedia media, float resizeMultiplier, boolean raw) {
+        return stretch(media, resizeMultiplier, resizeMultiplier, raw);
     }
 
     @Override
     public File crop(File media, String fileFormat, float topRatio, float rightRatio, float bottomRatio, float leftRatio) throws IOException {
+        return applyOperation(media, fileFormat, (imageMedia, manipulator) -> manipulator.crop(imageMedia, topRatio, rightRatio, bottomRatio, leftRatio), "cropped");
+    }
+
+    @Override
+    public ImageMedia crop(ImageMedia imageMedia, float topRatio, float rightRatio, float bottomRatio, float leftRatio) {
         if (topRatio == 0 && rightRatio == 0 && bottomRatio == 0 && leftRatio == 0) {
-            return media;
+            return imageMedia;
         } else if (topRatio < 0 || rightRatio < 0 || bottomRatio < 0 || leftRatio < 0) {
             throw new InvalidArgumentException("Crop ratios must be positive");
         } else if (topRatio > 1 || rightRatio > 1 || bottomRatio > 1 || leftRatio > 1) {
             throw new InvalidArgumentException("Crop ratios must be less than 1");
         } else {
-            ImageMedia imageMedia = ImageReaders.read(media, fileFormat, null);
             BufferedImage firstImage = imageMedia.getFirstImage();
 
             int width = firstImage.getWidth();
@@ -659,23 +776,28 @@ public class ImageManipulator implements MediaManipulator {
             int newWidth = Math.max((int) (width * (1 - leftRatio - rightRatio)), 1);
             int newHeight = Math.max((int) (height * (1 - topRatio - bottomRatio)), 1);
 
-            return applyToEachFrame(media, fileFormat, null, image -> image.getSubimage(x, y, newWidth, newHeight), "cropped");
+            return applyToEachFrame(imageMedia, image -> image.getSubimage(x, y, newWidth, newHeight));
         }
     }
 
     @Override
     public File autoCrop(File media, String fileFormat, Color cropColor, int colorTolerance) throws IOException {
-        return cropImage(
-                media,
-                fileFormat,
-                image -> findAutoCropArea(image, cropColor, colorTolerance),
-                "cropped"
-        );
+        return applyOperation(media, fileFormat, (imageMedia, manipulator) -> manipulator.autoCrop(imageMedia, cropColor, colorTolerance), "cropped");
     }
 
-    @SuppressWarnings("UnusedAssignment")
-    private static File cropImage(File media, String imageFormat, Function<BufferedImage, Rectangle> cropKeepAreaFinder, @Nullable String operationName) throws IOException {
-        ImageMedia imageMedia = ImageReaders.read(media, imageFormat, null);
+    @Override
+    public ImageMedia autoCrop(ImageMedia imageMedia, Color cropColor, int colorTolerance) {
+        return cropImage(imageMedia, image -> findAutoCropArea(image, cropColor, colorTolerance));
+    }
+
+    /**
+     * Crops media to the smallest area that contains the area to keep of every frame.
+     *
+     * @param imageMedia         The media to crop.
+     * @param cropKeepAreaFinder A function that finds the area of a frame to keep.
+     * @return The cropped media, or the original media if nothing is cropped.
+     */
+    private static ImageMedia cropImage(ImageMedia imageMedia, Function<BufferedImage, Rectangle> cropKeepAreaFinder) {
         BufferedImage firstImage = imageMedia.getFirstImage();
 
         Rectangle toKeep = null;
@@ -700,29 +822,23 @@ public class ImageManipulator implements MediaManipulator {
             }
         }
 
-        firstImage.flush();
-        firstImage = null;
-        imageMedia = null;
-
         if (toKeep == null || (
                 toKeep.getX() == 0
                         && toKeep.getY() == 0
                         && toKeep.getWidth() == width
                         && toKeep.getHeight() == height
         )) {
-            return media;
+            return imageMedia;
         } else {
             final Rectangle finalToKeep = toKeep;
             return applyToEachFrame(
-                    media,
-                    imageFormat,
-                    null, image -> image.getSubimage(
+                    imageMedia,
+                    image -> image.getSubimage(
                             (int) finalToKeep.getX(),
                             (int) finalToKeep.getY(),
                             (int) finalToKeep.getWidth(),
                             (int) finalToKeep.getHeight()
-                    ),
-                    operationName
+                    )
             );
         }
     }
@@ -750,30 +866,33 @@ public class ImageManipulator implements MediaManipulator {
 
     @Override
     public File pixelate(File media, String fileFormat, int pixelationMultiplier) throws IOException {
-        return applyToEachFrame(
+        return applyOperation(media, fileFormat, (imageMedia, manipulator) -> manipulator.pixelate(imageMedia, pixelationMultiplier), "pixelated");
+    }
+
+    @Override
+    public ImageMedia pixelate(ImageMedia media, int pixelationMultiplier) {
+        return applyToEachFrame(media, new FramePipelineBuilder().pixelate(pixelationMultiplier).build());
+    }
+
+    @Override
+    public File speechBubble(File media, String fileFormat, boolean cutOut) throws IOException {
+        return applyOperation(
                 media,
                 fileFormat,
-                null, image -> ImageUtil.stretch(
-                        ImageUtil.stretch(
-                                image,
-                                image.getWidth() / pixelationMultiplier,
-                                image.getHeight() / pixelationMultiplier,
-                                true
-                        ),
-                        image.getWidth(),
-                        image.getHeight(),
-                        true
+                null,
+                MediaOperation.withOutputFormat(
+                        cutOut ? "png" : null,
+                        (imageMedia, manipulator) -> manipulator.speechBubble(imageMedia, cutOut)
                 ),
-                "pixelated"
+                "speech_bubbled"
         );
     }
 
     @SuppressWarnings("UnusedAssignment")
     @Override
-    public File speechBubble(File media, String fileFormat, boolean cutOut) throws IOException {
+    public ImageMedia speechBubble(ImageMedia imageMedia, boolean cutOut) throws IOException {
         String speechBubblePath = cutOut ? "image/overlay/speech_bubble_2_partial.png" : "image/overlay/speech_bubble_1_partial.png";
 
-        ImageMedia imageMedia = ImageReaders.read(media, fileFormat, null);
         BufferedImage firstImage = imageMedia.getFirstImage();
 
         int width = firstImage.getWidth();
@@ -795,71 +914,73 @@ public class ImageManipulator implements MediaManipulator {
             }
         }
 
-        firstImage.flush();
-        firstImage = null;
-        imageMedia = null;
-
         BufferedImage resizedSpeechBubble = ImageUtil.fitWidth(speechBubble, width);
 
         speechBubble.flush();
         speechBubble = null;
 
-        String operationName = "speech_bubbled";
+        FramePipeline pipeline;
         if (cutOut) {
-            final BufferedImage finalResizedSpeechBubble = resizedSpeechBubble;
-            return applyToEachFrame(
-                    media,
-                    fileFormat,
-                    ImageManipulator::convertToTransparentFormat,
-                    image -> ImageUtil.cutoutImage(image, finalResizedSpeechBubble, 0, 0, 0xFFFFFF),
-                    operationName
-            );
+            int bubbleWidth = resizedSpeechBubble.getWidth();
+            int bubbleHeight = resizedSpeechBubble.getHeight();
+            int[] bubblePixels = resizedSpeechBubble.getRGB(0, 0, bubbleWidth, bubbleHeight, null, 0, bubbleWidth);
+            pipeline = new FramePipelineBuilder()
+                    .map((argb, x, y) -> x < bubbleWidth && y < bubbleHeight && !ImageUtil.isTransparent(bubblePixels[y * bubbleWidth + x])
+                            ? 0xFFFFFF
+                            : argb
+                    )
+                    .convertType(BufferedImage.TYPE_INT_ARGB)
+                    .build();
         } else {
-            BufferedImage filledSpeechBubble = ImageUtil.fill(resizedSpeechBubble, Color.WHITE);
-
-            resizedSpeechBubble.flush();
-            resizedSpeechBubble = null;
-
-            return applyToEachFrame(media, fileFormat, null, image -> ImageUtil.overlayImage(image, filledSpeechBubble, false, 0, -filledSpeechBubble.getHeight(), null, null, null, true), operationName);
+            pipeline = new FramePipelineBuilder()
+                    .expand(resizedSpeechBubble.getHeight(), 0, 0, 0)
+                    .overlay(resizedSpeechBubble, 0, 0, Color.WHITE)
+                    .build();
         }
+
+        return applyToEachFrame(imageMedia, pipeline);
     }
 
     @Override
     public File speed(File media, String fileFormat, float speedMultiplier) throws IOException {
-        return animatedOnlyOperation(media, fileFormat, imageMedia -> {
-            if (speedMultiplier != 1 && speedMultiplier > 0) {
-                ImageMediaBuilder builder = new ImageMediaBuilder();
+        return animatedOnlyOperation(media, fileFormat, (imageMedia, manipulator) -> manipulator.speed(imageMedia, speedMultiplier), "changed_speed", SPEED_STATIC_IMAGE_ERROR);
+    }
 
-                for (Frame frame : imageMedia) {
-                    builder.add(new AwtFrame(frame.getImage(), Math.round(frame.getDuration() / speedMultiplier)));
-                }
+    @Override
+    public ImageMedia speed(ImageMedia imageMedia, float speedMultiplier) {
+        checkAnimated(imageMedia, SPEED_STATIC_IMAGE_ERROR);
+        if (speedMultiplier != 1 && speedMultiplier > 0) {
+            ImageMediaBuilder builder = new ImageMediaBuilder();
 
-                ImageMedia modifiedDurations = builder.build();
-                List<BufferedImage> keptFrames = modifiedDurations.toNormalisedImages();
+            for (Frame frame : imageMedia) {
+                builder.add(new AwtFrame(frame.getImage(), Math.round(frame.getDuration() / speedMultiplier)));
+            }
 
-                ImageMediaBuilder resultBuilder = new ImageMediaBuilder();
+            ImageMedia modifiedDurations = builder.build();
+            List<BufferedImage> keptFrames = modifiedDurations.toNormalisedImages();
 
-                for (BufferedImage image : keptFrames) {
-                    resultBuilder.add(new AwtFrame(image, Frame.GIF_MINIMUM_FRAME_DURATION));
-                }
+            ImageMediaBuilder resultBuilder = new ImageMediaBuilder();
 
-                int duration = resultBuilder.getDuration();
-                int expectedDuration = Math.round(imageMedia.getDuration() / speedMultiplier);
-                if (expectedDuration > duration) {
-                    resultBuilder.increaseLastFrameDuration(expectedDuration - duration);
-                }
+            for (BufferedImage image : keptFrames) {
+                resultBuilder.add(new AwtFrame(image, Frame.GIF_MINIMUM_FRAME_DURATION));
+            }
 
-                ImageMedia result = resultBuilder.build();
+            int duration = resultBuilder.getDuration();
+            int expectedDuration = Math.round(imageMedia.getDuration() / speedMultiplier);
+            if (expectedDuration > duration) {
+                resultBuilder.increaseLastFrameDuration(expectedDuration - duration);
+            }
 
-                if (result.isEmpty()) {
-                    result = new ImageMediaBuilder().add(imageMedia.getFrame(0)).build();
-                }
+            ImageMedia result = resultBuilder.build();
 
-                return result;
-            } else {
-                throw new InvalidArgumentException("Speed multiplier " + speedMultiplier + " is not allowed!");
+            if (result.isEmpty()) {
+                result = new ImageMediaBuilder().add(imageMedia.getFrame(0)).build();
             }
-        }, "changed_speed", "Cannot change the speed of a static image.");
+
+            return result;
+        } else {
+            throw new InvalidArgumentException("Speed multiplier " + speedMultiplier + " is not allowed!");
+        }
     }
 
     @Override
@@ -867,77 +988,56 @@ public class ImageManipulator implements MediaManipulator {
         return animatedOnlyOperation(
                 media,
                 fileFormat,
-                imageMedia -> MediaCompression.removeFrames(imageMedia, fpsReductionRatio),
+                (imageMedia, manipulator) -> manipulator.reduceFps(imageMedia, fpsReductionRatio),
                 rename ? "reduced_fps" : null,
-                "Cannot reduce the FPS of a static image."
+                REDUCE_FPS_STATIC_IMAGE_ERROR
         );
     }
 
+    @Override
+    public ImageMedia reduceFps(ImageMedia imageMedia, int fpsReductionRatio) {
+        checkAnimated(imageMedia, REDUCE_FPS_STATIC_IMAGE_ERROR);
+        return MediaCompression.removeFrames(imageMedia, fpsReductionRatio);
+    }
+
     @Override
     public File rotate(File media, String fileFormat, float degrees, @Nullable Color backgroundColor) throws IOException {
-        return applyToEachFrame(
+        // The corners are transparent, so the result is written as PNG, which keeps the full alpha of animated media too.
+        return applyOperation(
                 media,
                 fileFormat,
-                ImageManipulator::convertToTransparentFormat,
-                image -> ImageUtil.rotate(image, degrees, null, null, backgroundColor),
+                null,
+                MediaOperation.withOutputFormat(
+                        "png",
+                        (imageMedia, manipulator) -> manipulator.rotate(imageMedia, degrees, backgroundColor)
+                ),
                 "rotated"
         );
     }
 
-    @SuppressWarnings("UnusedAssignment")
     @Override
-    public File spin(File media, String fileFormat, float speed, @Nullable Color backgroundColor) throws IOException {
-        ImageMedia image = ImageReaders.read(media, fileFormat, BufferedImage.TYPE_INT_ARGB);
-        List<BufferedImage> keptImages = image.toNormalisedImages();
-
-        image = null;
-
-        BufferedImage firstFrame = keptImages.get(0);
-
-        int maxDimension = Math.max(firstFrame.getWidth(), firstFrame.getHeight());
-        float absoluteSpeed = Math.abs(speed);
-
-        int framesPerRotation = 150;
-        if (absoluteSpeed >= 1) {
-            framesPerRotation = Math.max((int) (framesPerRotation / absoluteSpeed), 1);
-        }
-
-        int size = framesPerRotation * ((keptImages.size() + (framesPerRotation - 1)) / framesPerRotation);
-        Map<Integer, Frame> indexedFrames = new LinkedHashMap<>(size);
-        for (int i = 0; i < size; i++) {
-            int duration = Frame.GIF_MINIMUM_FRAME_DURATION;
-            if (absoluteSpeed < 1) {
-                duration /= absoluteSpeed;
-            }
-
-            indexedFrames.put(i, new AwtFrame(keptImages.get(i % keptImages.size()), duration));
-        }
-
-        keptImages = null;
-
-        final int finalFramesPerRotation = framesPerRotation;
-        List<Frame> rotatedFrames = indexedFrames.entrySet().parallelStream().map(frameEntry -> {
-            float index = frameEntry.getKey();
-            Frame originalFrame = frameEntry.getValue();
-            BufferedImage originalImage = originalFrame.getImage();
-            float angle = 360 * (index / finalFramesPerRotation);
-
-            if (speed < 0) {
-                angle = -angle;
-            }
-
-            BufferedImage rotatedImage = ImageUtil.rotate(originalImage, angle, maxDimension, maxDimension, backgroundColor);
-            Frame frame = new AwtFrame(rotatedImage, originalFrame.getDuration());
-            originalFrame.flush();
-            return frame;
-        }).collect(ImmutableList.toImmutableList());
-        ImageMedia rotatedImage = ImageMediaBuilder.fromCollection(rotatedFrames);
-
-        File outputFile = FileUtil.getUniqueTempFile("spun.gif");
+    public ImageMedia rotate(ImageMedia media, float degrees, @Nullable Color backgroundColor) {
+        return applyToEachFrame(media, new FramePipelineBuilder().rotate(degrees, null, null, backgroundColor).build());
+    }
 
-        ImageWriters.write(rotatedImage, outputFile, "gif");
+    @Override
+    public File spin(File media, String fileFormat, float speed, @Nullable Color backgroundColor) throws IOException {
+        // Without a background color the corners are transparent, which APNG keeps the full alpha of.
+        return applyOperation(
+                media,
+                fileFormat,
+                BufferedImage.TYPE_INT_ARGB,
+                MediaOperation.withOutputFormat(
+                        backgroundColor == null ? "png" : "gif",
+                        (imageMedia, manipulator) -> manipulator.spin(imageMedia, speed, backgroundColor)
+                ),
+                "spun"
+        );
+    }
 
-        return outputFile;
+    @Override
+    public ImageMedia spin(ImageMedia image, float speed, @Nullable Color backgroundColor) {
+        return SpinAnimator.spin(image.toNormalisedImages(), speed, backgroundColor);
     }
 
     @Override
@@ -945,47 +1045,87 @@ public class ImageManipulator implements MediaManipulator {
         if (com.google.common.io.Files.getFileExtension(media.getName()).equalsIgnoreCase("gif")) {
             throw new UnsupportedFileFormatException("This file is already a GIF file!");
         } else {
-            File gifFile = FileUtil.getUniqueTempFile(FileUtil.changeExtension(media.getName(), "gif"));
-
             if (justRenameFile) {
+                File gifFile = FileUtil.getUniqueTempFile(FileUtil.changeExtension(media.getName(), "gif"));
                 Files.move(media.toPath(), gifFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                return gifFile;
             } else {
-                ImageMedia nonGifImage = ImageReaders.read(media, fileFormat, BufferedImage.TYPE_INT_ARGB);
-                ImageWriters.write(nonGifImage, gifFile, "gif");
+                return convertFormat(media, fileFormat, BufferedImage.TYPE_INT_ARGB, "gif");
             }
-
-            return gifFile;
         }
     }
 
     @Override
     public File makePngAndTransparent(File media, String fileFormat) throws IOException {
-        File pngFile = FileUtil.getUniqueTempFile(FileUtil.changeExtension(media.getName(), "png"));
-        ImageMedia imageMedia = ImageReaders.read(media, fileFormat, BufferedImage.TYPE_INT_ARGB);
-        ImageWriters.write(imageMedia, pngFile, "png");
-        return pngFile;
+        return convertFormat(media, fileFormat, BufferedImage.TYPE_INT_ARGB, "png");
     }
 
     @Override
     public File makeIco(File media, String fileFormat) throws IOException {
-        File icoFile = FileUtil.getUniqueTempFile(FileUtil.changeExtension(media.getName(), "ico"));
-        ImageMedia imageMedia = ImageReaders.read(media, fileFormat, null);
-        ImageWriters.write(imageMedia, icoFile, "ico");
-        return icoFile;
+        return convertFormat(media, fileFormat, null, "ico");
+    }
+
+    /**
+     * Writes a media file in another format, keeping its name.
+     */
+    private File convertFormat(File media, String fileFormat, @Nullable Integer imageType, String outputFormat) throws IOException {
+        ImageMedia imageMedia = readInput(media, fileFormat, imageType);
+        return writeOutput(imageMedia, imageMedia.isAnimated(), media, fileFormat, outputFormat, null);
     }
 
     @Override
     public File compress(File media, String fileFormat, @Nullable Guild guild) throws IOException {
-        if (media.length() > DiscordUtil.getMaxUploadSize(guild)) {
+        if (inputSizeHint != null) {
+            // The media being compressed is the final output, which should never be shrunk by a size hint.
+            return withInputSizeHint(null).compress(media, fileFormat, guild);
+        }
+
+        long maximumSize = DiscordUtil.getMaxUploadSize(guild);
+        boolean convertFormat = preferredAnimatedFormat != null && ANIMATED_IMAGE_FORMATS.contains(fileFormat) && !fileFormat.equals(preferredAnimatedFormat);
+        if (convertFormat && fileFormat.equals("png")) {
+            // Only animated PNG files are converted, and looking for the animation control chunk is much cheaper than decoding.
+            convertFormat = ApngDecoder.isAnimated(Files.readAllBytes(media.toPath()));
+        }
+        boolean tooLarge = media.length() > maximumSize;
+        boolean lossyGif = tooLarge && fileFormat.equals("gif") && media.length() <= maximumSize * MAXIMUM_LOSSY_GIF_SIZE_RATIO;
+        boolean recompressPng = tooLarge && fileFormat.equals("png") && media.length() <= maximumSize * MAXIMUM_RECOMPRESSED_PNG_SIZE_RATIO;
+        // GIF files never have enough colors to be compressed as JPEG files.
+        boolean jpeg = tooLarge && !fileFormat.equals("gif");
+        if (convertFormat || lossyGif || recompressPng || jpeg) {
+            // The media is only decoded once for all the steps that re-encode it at full resolution.
+            ImageMedia imageMedia = readInput(media, fileFormat, null);
+            Optional<File> compressed = Optional.empty();
+            if (convertFormat) {
+                compressed = convertToPreferredAnimatedFormat(imageMedia, media, Objects.requireNonNull(preferredAnimatedFormat), maximumSize);
+            }
+            if (compressed.isEmpty() && lossyGif) {
+                compressed = compressGifLossily(imageMedia, media, maximumSize);
+            }
+            if (compressed.isEmpty() && recompressPng) {
+                compressed = recompressPng(imageMedia, media, maximumSize);
+            }
+            if (compressed.isEmpty() && jpeg) {
+                compressed = compressStillImageAsJpeg(imageMedia, media, fileFormat, maximumSize);
+            }
+            if (compressed.isPresent()) {
+                return compressed.get();
+            }
+        }
+
+        if (tooLarge) {
             boolean reduceResolution = true;
+            // PNG files may or may not be animated, so this is checked again after every step.
+            boolean animated = ANIMATED_IMAGE_FORMATS.contains(fileFormat);
             while (media.length() > DiscordUtil.getMaxUploadSize(guild)) {
-                if (reduceResolution || !ANIMATED_IMAGE_FORMATS.contains(fileFormat)) {
+                if (reduceResolution || !animated) {
                     media = resize(media, fileFormat, 0.75F, false, false);
                 } else {
                     media = reduceFps(media, fileFormat, 2, false);
                 }
 
-                BufferedImage image = ImageReaders.read(media, fileFormat, null).getFirstImage();
+                ImageMedia compressed = readInput(media, fileFormat, null);
+                animated = compressed.isAnimated();
+                BufferedImage image = compressed.getFirstImage();
                 if (image.getWidth() <= DiscordUtil.DISCORD_MAX_DISPLAY_WIDTH || image.getHeight() <= DiscordUtil.DISCORD_MAX_DISPLAY_HEIGHT) {
                     reduceResolution = !reduceResolution;
                 }
@@ -997,95 +1137,162 @@ public class ImageManipulator implements MediaManipulator {
         return media;
     }
 
-    @Override
-    public Set<String> getSupportedExtensions() {
-        Set<String> readerFormats = ImageReaderRegistry.getSupportedFormats();
-        Set<String> writerFormats = ImageWriterRegistry.getSupportedFormats();
-        return CollectionUtil.intersection(readerFormats, writerFormats);
+    /**
+     * Converts animated media to the preferred animated format, which is usually much smaller,
+     * so that it doesn't have to be compressed any further. Still images keep their format.
+     *
+     * @param imageMedia      The decoded media.
+     * @param media           The media file.
+     * @param preferredFormat The format to convert to.
+     * @param maximumSize     The maximum size of the converted file, in bytes.
+     * @return An {@link Optional} describing the converted file, or an empty {@link Optional}
+     * if the media isn't animated or is still too large after being converted.
+     * @throws IOException If an error occurs while reading or writing the media.
+     */
+    private static Optional<File> convertToPreferredAnimatedFormat(ImageMedia imageMedia, File media, String preferredFormat, long maximumSize) throws IOException {
+        if (imageMedia.isAnimated()) {
+            File output = FileUtil.getUniqueTempFile(FileUtil.changeExtension(media.getName(), preferredFormat));
+            ImageWriters.write(imageMedia, output, preferredFormat);
+            if (output.length() <= maximumSize) {
+                return Optional.of(output);
+            } else {
+                output.delete();
+            }
+        }
+        return Optional.empty();
     }
 
-    private static BufferedImage drawOnImage(BufferedImage image, ContainerImageInfo containerImageInfo, Drawable drawable, int textX, int textY, float fontSize) throws IOException {
-        BufferedImage imageWithText = new BufferedImage(image.getWidth(), image.getHeight(), ImageUtil.getType(image));
-        Graphics2D graphics = imageWithText.createGraphics();
-
-        Optional<Shape> contentClipOptional = containerImageInfo.getContentClip();
-        containerImageInfo.getFill().ifPresent(color -> {
-            graphics.setColor(color);
-            contentClipOptional.ifPresentOrElse(
-                    graphics::fill,
-                    () -> graphics.fillRect(0, 0, imageWithText.getWidth(), imageWithText.getHeight())
-            );
-        });
-
-        if (containerImageInfo.isBackground()) {
-            graphics.drawImage(image, 0, 0, null);
+    /**
+     * Re-encodes a GIF with increasing lossiness until it is small enough. This adds a little noise,
+     * which looks much better than reducing the resolution or frame rate.
+     *
+     * @param imageMedia  The decoded GIF.
+     * @param media       The GIF file.
+     * @param maximumSize The maximum size of the compressed file, in bytes.
+     * @return An {@link Optional} describing the compressed file, or an empty {@link Optional}
+     * if the GIF is still too large at the highest lossiness.
+     * @throws IOException If an error occurs while reading or writing the GIF.
+     */
+    private static Optional<File> compressGifLossily(ImageMedia imageMedia, File media, long maximumSize) throws IOException {
+        for (int lossiness : LOSSY_GIF_LEVELS) {
+            File output = FileUtil.getUniqueTempFile(FileUtil.changeExtension(media.getName(), "gif"));
+            new ParallelGifWriter(new GifEncoder().withLossiness(lossiness)).write(imageMedia, output, "gif");
+            if (output.length() <= maximumSize) {
+                return Optional.of(output);
+            } else {
+                output.delete();
+            }
         }
+        return Optional.empty();
+    }
 
-        Font font = containerImageInfo.getFont().deriveFont(fontSize);
-        graphics.setFont(font);
-        ImageUtil.configureTextDrawQuality(graphics);
-        graphics.setColor(containerImageInfo.getTextColor());
-
-        contentClipOptional.ifPresent(graphics::setClip);
-
-        drawable.draw(graphics, textX, textY);
+    /**
+     * Re-encodes a PNG or APNG file at the highest compression level, which takes more CPU time
+     * than the default level, but doesn't lose any quality.
+     *
+     * @param imageMedia  The decoded PNG or APNG.
+     * @param media       The PNG file.
+     * @param maximumSize The maximum size of the compressed file, in bytes.
+     * @return An {@link Optional} describing the compressed file, or an empty {@link Optional}
+     * if the file is still too large at the highest compression level.
+     * @throws IOException If an error occurs while reading or writing the file.
+     */
+    private static Optional<File> recompressPng(ImageMedia imageMedia, File media, long maximumSize) throws IOException {
+        File output = FileUtil.getUniqueTempFile(FileUtil.changeExtension(media.getName(), "png"));
+        new ParallelApngWriter(new ApngEncoder().withCompressionLevel(Deflater.BEST_COMPRESSION)).write(imageMedia, output, "png");
+        if (output.length() <= maximumSize) {
+            return Optional.of(output);
+        } else {
+            output.delete();
+            return Optional.empty();
+        }
+    }
 
-        if (contentClipOptional.isPresent()) {
-            graphics.setClip(null);
+    /**
+     * Compresses a still photograph without transparency as a JPEG file, binary searching for the highest quality
+     * that is small enough. Only if the image is still too large at the minimum quality is its resolution
+     * reduced, after which the quality is searched for again. Every trial encode is done in memory,
+     * so only the final file is written.
+     *
+     * @param imageMedia  The decoded image.
+     * @param media       The image file.
+     * @param fileFormat  The format of the file.
+     * @param maximumSize The maximum size of the compressed file, in bytes.
+     * @return An {@link Optional} describing the compressed file, or an empty {@link Optional}
+     * if the image is animated, has transparency, which JPEG can't store, or isn't a JPEG file
+     * and has too few colors to be a photograph.
+     * @throws IOException If an error occurs while encoding or writing the image.
+     */
+    private static Optional<File> compressStillImageAsJpeg(ImageMedia imageMedia, File media, String fileFormat, long maximumSize) throws IOException {
+        if (imageMedia.isAnimated()) {
+            return Optional.empty();
+        }
+        BufferedImage image = imageMedia.getFirstImage();
+        if (ImageUtil.hasTransparency(image)) {
+            return Optional.empty();
+        }
+        if (!JPEG_FORMATS.contains(fileFormat) && !hasColors(image, MINIMUM_JPEG_COLORS)) {
+            return Optional.empty();
         }
 
-        if (!containerImageInfo.isBackground()) {
-            graphics.drawImage(image, 0, 0, null);
+        while (true) {
+            Optional<byte[]> jpeg = JpegEncoder.encodeWithin(image, maximumSize, MINIMUM_JPEG_QUALITY);
+            if (jpeg.isPresent()) {
+                File output = FileUtil.getUniqueTempFile(FileUtil.changeExtension(media.getName(), "jpg"));
+                Files.write(output.toPath(), jpeg.get());
+                return Optional.of(output);
+            } else if (image.getWidth() <= 1 || image.getHeight() <= 1) {
+                return Optional.empty();
+            }
+            image = ImageUtil.resize(image, 0.75F, false);
         }
+    }
 
-        graphics.dispose();
+    /**
+     * Checks whether an image has at least a number of distinct colors, stopping as soon as it finds enough.
+     *
+     * @param image         The image to check.
+     * @param minimumColors The number of colors to look for.
+     * @return Whether the image has at least the given number of colors. Alpha is ignored.
+     */
+    private static boolean hasColors(BufferedImage image, int minimumColors) {
+        BitSet seen = new BitSet(1 << 24);
+        int colors = 0;
+        for (PrimitiveIterator.OfInt pixels = new PixelBuffer(image).pixels(); pixels.hasNext(); ) {
+            int color = pixels.nextInt() & 0xFFFFFF;
+            if (!seen.get(color)) {
+                seen.set(color);
+                colors++;
+                if (colors >= minimumColors) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
 
-        return imageWithText;
+    @Override
+    public Set<String> getSupportedExtensions() {
+        Set<String> readerFormats = ImageReaderRegistry.getSupportedFormats();
+        Set<String> writerFormats = ImageWriterRegistry.getSupportedFormats();
+        return CollectionUtil.intersection(readerFormats, writerFormats);
     }
 
     /**
-     * Applies the given operation to the given image based file.
+     * Applies an operation to every frame of media in memory.
      *
-     * @param media                The image based file to apply the operation to.
-     * @param inputFormat          The image format of the file being edited.
-     * @param outputFormatFunction A bi-function that takes the input format and the and image media and returns the output format.
-     *                             If null, the input format will be used as the output format.
-     * @param operation            The operation to apply.
-     * @param operationName        The name of the operation.
-     * @return The resulting file.
-     * @throws IOException If an error occurs while applying the operation.
+     * @param imageMedia The media to apply the operation to.
+     * @param operation  The operation to apply.
+     * @return The resulting media.
      */
-    private static File applyToEachFrame(File media, String inputFormat, @Nullable BiFunction<String, ImageMedia, String> outputFormatFunction, Function<BufferedImage, BufferedImage> operation, @Nullable String operationName) throws IOException {
-        ImageMedia imageMedia = ImageReaders.read(media, inputFormat, null);
-
-        ImageMedia outputImage = ImageMediaBuilder.fromCollection(imageMedia.parallelStream().map(frame -> {
+    private static ImageMedia applyToEachFrame(ImageMedia imageMedia, Function<BufferedImage, BufferedImage> operation) {
+        return ImageMediaBuilder.fromCollection(ImageComputePool.mapFrames(imageMedia, frame -> {
             BufferedImage unmodifiedImage = frame.getImage();
             BufferedImage modifiedImage = operation.apply(unmodifiedImage);
             int duration = frame.getDuration();
             frame.flush();
             return new AwtFrame(modifiedImage, duration);
-        }).collect(ImmutableList.toImmutableList()));
-
-        String outputFormat = outputFormatFunction == null ? inputFormat : outputFormatFunction.apply(inputFormat, imageMedia);
-        String outputName;
-        if (operationName == null) {
-            outputName = FileUtil.changeExtension(media.getName(), outputFormat);
-        } else {
-            outputName = operationName + '.' + outputFormat;
-        }
-
-        File output = FileUtil.getUniqueTempFile(outputName);
-        ImageWriters.write(outputImage, output, outputFormat);
-
-        return output;
-    }
-
-    private static String convertToTransparentFormat(String originalFormat, ImageMedia image) {
-        if (image.isAnimated()) {
-            return originalFormat;
-        } else {
-            return "png";
-        }
+        }));
     }
 
     private static class EmptyDrawable implements Drawable {
@@ -3,6 +3,8 @@ package io.github.shaksternano.mediamanipulator.mediamanipulator;
 import io.github.shaksternano.mediamanipulator.exception.UnsupportedFileFormatException;
 import io.github.shaksternano.mediamanipulator.graphics.drawable.Drawable;
 import io.github.shaksternano.mediamanipulator.image.backgroundimage.ContainerImageInfo;
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+import io.github.shaksternano.mediamanipulator.image.util.ImageSizeHint;
 import net.dv8tion.jda.api.entities.Guild;
 import org.jetbrains.annotations.Nullable;
 
@@ -15,7 +17,9 @@ import java.util.Map;
 import java.util.Set;
 
 /**
- * Manipulates media files such as images.
+ * Manipulates media files such as images. Each file based operation has an in-memory counterpart
+ * that edits {@link ImageMedia} directly, which the file based operation reads the file into and
+ * writes the result of, so operations can be chained without going through files in between.
  */
 public interface MediaManipulator {
 
@@ -93,10 +97,94 @@ public interface MediaManipulator {
 
     File makeIco(File media, String fileFormat) throws IOException;
 
+    /**
+     * Applies operations to a media file one after the other. The file is only read before the first operation,
+     * and the result is only written after the last one, with every operation editing the media in memory.
+     *
+     * @param media      The media file to edit.
+     * @param fileFormat The format of the media file.
+     * @param operations The operations to apply, in order.
+     * @return The edited media file.
+     * @throws IOException                    If there is an error applying the operations.
+     * @throws UncheckedIOException           If there is an error applying the operations.
+     * @throws UnsupportedFileFormatException If one of the operations is not supported by this manipulator.
+     */
+    File applyOperations(File media, String fileFormat, List<MediaOperation> operations) throws IOException;
+
+    /**
+     * Adds a caption to media in memory.
+     *
+     * @param media        The media to add a caption to.
+     * @param words        The words of the caption.
+     * @param nonTextParts The non text parts to use in the caption.
+     * @param caption2     Whether to put text on the bottom of the image instead of the top.
+     * @return The media with the caption added.
+     * @see #caption(File, String, List, Map, boolean)
+     */
+    ImageMedia caption(ImageMedia media, List<String> words, Map<String, Drawable> nonTextParts, boolean caption2);
+
+    ImageMedia demotivate(ImageMedia media, List<String> words, List<String> subText, Map<String, Drawable> nonTextParts);
+
+    ImageMedia impact(ImageMedia media, List<String> topWords, List<String> bottomWords, Map<String, Drawable> nonTextParts);
+
+    ImageMedia containerImageWithImage(ImageMedia media, ContainerImageInfo containerImageInfo) throws IOException;
+
+    ImageMedia uncaption(ImageMedia media, boolean coloredCaption);
+
+    ImageMedia stretch(ImageMedia media, float widthMultiplier, float heightMultiplier, boolean raw);
+
+    ImageMedia resize(ImageMedia media, float resizeMultiplier, boolean raw);
+
+    /**
+     * Crops media in memory.
+     *
+     * @param media       The media to crop.
+     * @param topRatio    The ratio of the height to crop off the top.
+     * @param rightRatio  The ratio of the width to crop off the right.
+     * @param bottomRatio The ratio of the height to crop off the bottom.
+     * @param leftRatio   The ratio of the width to crop off the left.
+     * @return The cropped media, or the same media if nothing was cropped.
+     * @see #crop(File, String, float, float, float, float)
+     */
+    ImageMedia crop(ImageMedia media, float topRatio, float rightRatio, float bottomRatio, float leftRatio);
+
+    ImageMedia autoCrop(ImageMedia media, Color cropColor, int colorTolerance);
+
+    ImageMedia speed(ImageMedia media, float speedMultiplier);
+
+    ImageMedia pixelate(ImageMedia media, int pixelationMultiplier);
+
+    ImageMedia reduceFps(ImageMedia media, int fpsReductionRatio);
+
+    ImageMedia speechBubble(ImageMedia media, boolean cutOut) throws IOException;
+
+    ImageMedia rotate(ImageMedia media, float degrees, @Nullable Color backgroundColor);
+
+    ImageMedia spin(ImageMedia media, float speed, @Nullable Color backgroundColor);
+
     /**
      * Gets the set of supported media file extensions that this manipulator supports.
      *
      * @return The set of supported media file extensions that this manipulator supports.
      */
     Set<String> getSupportedExtensions();
+
+    /**
+     * Gets a manipulator that reads the media it edits at no more than the size given by a hint,
+     * so that large media isn't decoded at full size only to be shrunk later.
+     * Media that is compressed is always read at full size.
+     *
+     * @param sizeHint The size the input media is needed at, or null to read it at full size.
+     * @return A manipulator that uses the size hint.
+     */
+    MediaManipulator withInputSizeHint(@Nullable ImageSizeHint sizeHint);
+
+    /**
+     * Gets a manipulator that converts animated media to a preferred format when compressing it,
+     * such as WebP, which is usually much smaller than GIF. Other operations are unaffected.
+     *
+     * @param format The format to convert animated media to, or null to keep the original format.
+     * @return A manipulator that uses the preferred format.
+     */
+    MediaManipulator withPreferredAnimatedFormat(@Nullable String format);
 }
@@ -0,0 +1,81 @@
+package io.github.shaksternano.mediamanipulator.mediamanipulator;
+
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * An edit to media that is done in memory, such as adding a caption, so that several edits
+ * can be applied one after the other without the media being written to a file in between.
+ *
+ * @see MediaManipulator#applyOperations(java.io.File, String, java.util.List)
+ */
+@FunctionalInterface
+public interface MediaOperation {
+
+    /**
+     * Gets an operation whose result has to be written in a certain format, such as an edit that adds
+     * transparency that the format of the original media can't store.
+     *
+     * @param outputFormat The format to write the result in, or null if the result can be written in any format.
+     * @param operation    The edit.
+     * @return The operation.
+     */
+    static MediaOperation withOutputFormat(@Nullable String outputFormat, MediaOperation operation) {
+        if (outputFormat == null) {
+            return operation;
+        } else {
+            return new MediaOperation() {
+                @Override
+                public ImageMedia apply(ImageMedia imageMedia, MediaManipulator manipulator) throws IOException {
+                    return operation.apply(imageMedia, manipulator);
+                }
+
+                @Override
+                public String getOutputFormat() {
+                    return outputFormat;
+                }
+            };
+        }
+    }
+
+    /**
+     * Applies the edit.
+     *
+     * @param imageMedia  The media to edit. This shouldn't be used again afterwards.
+     * @param manipulator The manipulator to edit the media with.
+     * @return The edited media.
+     * @throws IOException          If there is an error editing the media.
+     * @throws UncheckedIOException If there is an error editing the media.
+     */
+    ImageMedia apply(ImageMedia imageMedia, MediaManipulator manipulator) throws IOException;
+
+    /**
+     * Gets the format the result of this edit has to be written in.
+     *
+     * @return The format, or null if the result can be written in the format chosen for it
+     * based on the original media.
+     */
+    @Nullable
+    default String getOutputFormat() {
+        return null;
+    }
+
+    /**
+     * Gets an operation that applies this operation, and then another one to the result.
+     * The result is written in the format the other operation needs, or if it doesn't need one,
+     * the format this operation needs.
+     *
+     * @param after The operation to apply after this one.
+     * @return The combined operation.
+     */
+    default MediaOperation andThen(MediaOperation after) {
+        String afterFormat = after.getOutputFormat();
+        return withOutputFormat(
+                afterFormat == null ? getOutputFormat() : afterFormat,
+                (imageMedia, manipulator) -> after.apply(apply(imageMedia, manipulator), manipulator)
+        );
+    }
+}
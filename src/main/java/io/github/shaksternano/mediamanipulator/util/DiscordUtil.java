@@ -1,5 +1,8 @@
 package io.github.shaksternano.mediamanipulator.util;
 
+import io.github.shaksternano.mediamanipulator.Main;
+import io.github.shaksternano.mediamanipulator.image.util.ImageSizeHint;
+import io.github.shaksternano.mediamanipulator.io.FileUtil;
 import net.dv8tion.jda.api.entities.Guild;
 import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.entities.Role;
@@ -16,6 +19,16 @@ public class DiscordUtil {
     public static final int DISCORD_MAX_DISPLAY_WIDTH = 400;
     public static final int DISCORD_MAX_DISPLAY_HEIGHT = 300;
 
+    /**
+     * How many times larger than the upload size limit a file that is downloaded to be edited can be.
+     */
+    private static final int MAX_DOWNLOAD_SIZE_TO_UPLOAD_SIZE_RATIO = 4;
+
+    /**
+     * How many times larger than the size Discord displays media at that media is decoded at, at the least.
+     */
+    private static final int MINIMUM_DECODE_SCALE = 2;
+
     public static long getMaxUploadSize(@Nullable Guild guild) {
         if (guild == null) {
             return Message.MAX_FILE_SIZE;
@@ -24,6 +37,44 @@ public class DiscordUtil {
         }
     }
 
+    /**
+     * Gets the maximum size of a media file that will be downloaded to be edited. Edited media has to fit
+     * in the upload size limit, so there is no point decoding files that are far larger than it.
+     *
+     * @param guild The guild the media is being edited in, or null if it's not being edited in a guild.
+     * @return The maximum size of a media file that will be downloaded in bytes.
+     */
+    public static long getMaxDownloadSize(@Nullable Guild guild) {
+        return Math.min(getMaxUploadSize(guild) * MAX_DOWNLOAD_SIZE_TO_UPLOAD_SIZE_RATIO, FileUtil.MAXIMUM_FILE_SIZE_TO_DOWNLOAD);
+    }
+
+    /**
+     * Gets the size that media being edited is decoded at. This is larger than the size Discord displays
+     * media at so that the edited media can still be opened at a decent size, and grows with the upload
+     * size limit, as larger edited media can be sent in guilds with a higher limit.
+     *
+     * @param guild The guild the media is being edited in, or null if it's not being edited in a guild.
+     * @return The size that media being edited is decoded at.
+     */
+    public static ImageSizeHint getDecodeSizeHint(@Nullable Guild guild) {
+        double uploadSizeRatio = Math.max((double) getMaxUploadSize(guild) / Message.MAX_FILE_SIZE, 1);
+        double scale = MINIMUM_DECODE_SCALE * Math.sqrt(uploadSizeRatio);
+        return new ImageSizeHint((int) (DISCORD_MAX_DISPLAY_WIDTH * scale), (int) (DISCORD_MAX_DISPLAY_HEIGHT * scale));
+    }
+
+    /**
+     * Gets the format that animated results are sent in, if it isn't GIF. WebP files are much smaller
+     * than GIF files of the same animation, but can't be favorited as GIFs, so they are only used in guilds
+     * that have opted in.
+     *
+     * @param guild The guild the result is being sent to, or null if it's not being sent to a guild.
+     * @return The format that animated results are sent in, or null if they are sent as GIF files.
+     */
+    @Nullable
+    public static String getPreferredAnimatedFormat(@Nullable Guild guild) {
+        return guild != null && Main.getWebpGuildIds().contains(guild.getIdLong()) ? "webp" : null;
+    }
+
     @SuppressWarnings("ConstantConditions")
     public static String getContentStrippedKeepEmotes(Message message) {
         String displayMessage = message.getContentRaw();
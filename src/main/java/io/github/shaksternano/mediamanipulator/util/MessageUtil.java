@@ -4,34 +4,31 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import io.github.shaksternano.mediamanipulator.Main;
+import io.github.shaksternano.mediamanipulator.emoji.EmojiImageCache;
 import io.github.shaksternano.mediamanipulator.emoji.EmojiUtil;
+import io.github.shaksternano.mediamanipulator.emoji.GuildEmojiIndex;
+import io.github.shaksternano.mediamanipulator.exception.FileTooLargeException;
+import io.github.shaksternano.mediamanipulator.exception.UnsupportedFileFormatException;
 import io.github.shaksternano.mediamanipulator.graphics.drawable.Drawable;
-import io.github.shaksternano.mediamanipulator.graphics.drawable.ImageDrawable;
-import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
-import io.github.shaksternano.mediamanipulator.image.reader.util.ImageReaders;
-import io.github.shaksternano.mediamanipulator.image.util.ImageUtil;
 import io.github.shaksternano.mediamanipulator.io.FileUtil;
+import io.github.shaksternano.mediamanipulator.io.MediaFile;
 import net.dv8tion.jda.api.entities.Message;
 import net.dv8tion.jda.api.entities.MessageEmbed;
 import net.dv8tion.jda.api.entities.channel.middleman.MessageChannel;
 import net.dv8tion.jda.api.entities.emoji.CustomEmoji;
 import net.dv8tion.jda.api.entities.emoji.Emoji;
 
-import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.net.URL;
 import java.util.*;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Function;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 
 /**
  * Contains static methods for dealing with {@link Message}s.
@@ -44,34 +41,51 @@ public class MessageUtil {
     private static final int MAX_PAST_MESSAGES_TO_CHECK = 50;
 
     /**
-     * Downloads a file.
+     * Downloads a media file. If a media file is found but its format isn't supported
+     * or it's too large, the search stops and an exception is thrown.
      *
-     * @param message   The message to download the file from.
-     * @param directory The directory to download the file to.
-     * @return An {@link Optional} describing the file.
+     * @param message     The message to download the media from.
+     * @param directory   The directory to download the media to.
+     * @param maximumSize The maximum size of the media file in bytes.
+     * @return An {@link Optional} describing the media file.
+     * @throws UnsupportedFileFormatException If the format of the media isn't supported.
+     * @throws FileTooLargeException          If the media is larger than the maximum size.
      */
-    public static Optional<File> downloadFile(Message message, String directory) {
-        return processMessages(message, messageToProcess -> {
-            Optional<File> fileOptional = downloadAttachment(messageToProcess, directory);
-            if (fileOptional.isPresent()) {
-                return fileOptional;
-            } else {
-                List<String> urls = StringUtil.extractUrls(messageToProcess.getContentRaw());
-                if (!urls.isEmpty()) {
-                    fileOptional = FileUtil.downloadFile(urls.get(0), directory);
-                    if (fileOptional.isPresent()) {
-                        return fileOptional;
-                    } else {
-                        fileOptional = downloadEmbedImage(messageToProcess, directory);
-                        if (fileOptional.isPresent()) {
-                            return fileOptional;
+    public static Optional<MediaFile> downloadMedia(Message message, String directory, long maximumSize) throws IOException {
+        try {
+            return processMessages(message, messageToProcess -> {
+                Optional<MediaFile> mediaOptional = downloadAttachment(messageToProcess, directory, maximumSize);
+                if (mediaOptional.isPresent()) {
+                    return mediaOptional;
+                } else {
+                    List<String> urls = StringUtil.extractUrls(messageToProcess.getContentRaw());
+                    if (!urls.isEmpty()) {
+                        UnsupportedFileFormatException unsupportedException = null;
+                        try {
+                            return Optional.of(FileUtil.downloadMedia(urls.get(0), directory, maximumSize));
+                        } catch (UnsupportedFileFormatException e) {
+                            // The URL might be a web page with an embedded image.
+                            unsupportedException = e;
+                        } catch (FileTooLargeException e) {
+                            throw new UncheckedIOException(e);
+                        } catch (IOException e) {
+                            Main.getLogger().error("Error downloading media from " + urls.get(0) + "!", e);
+                        }
+
+                        mediaOptional = downloadEmbedImage(messageToProcess, directory, maximumSize);
+                        if (mediaOptional.isPresent()) {
+                            return mediaOptional;
+                        } else if (unsupportedException != null) {
+                            throw new UncheckedIOException(unsupportedException);
                         }
                     }
                 }
-            }
 
-            return Optional.empty();
-        });
+                return Optional.empty();
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
     /**
@@ -138,24 +152,29 @@ public class MessageUtil {
     }
 
     /**
-     * Downloads an image from an attachment.
+     * Downloads media from an attachment.
      *
-     * @param message   The message to download the image from.
-     * @param directory The directory to download the image to.
-     * @return An {@link Optional} describing the image file.
+     * @param message     The message to download the media from.
+     * @param directory   The directory to download the media to.
+     * @param maximumSize The maximum size of the media file in bytes.
+     * @return An {@link Optional} describing the media file.
+     * @throws UncheckedIOException If the media isn't supported or is too large.
      */
-    private static Optional<File> downloadAttachment(Message message, String directory) {
+    private static Optional<MediaFile> downloadAttachment(Message message, String directory, long maximumSize) {
         List<Message.Attachment> attachments = message.getAttachments();
 
         for (Message.Attachment attachment : attachments) {
-            File imageFile = FileUtil.getUniqueFile(directory, attachment.getFileName());
+            if (attachment.getSize() > maximumSize) {
+                throw new UncheckedIOException(new FileTooLargeException("The file is too large, the maximum size is " + (maximumSize / MiscUtil.TO_MB) + "MB!"));
+            }
 
-            try {
-                return Optional.of(attachment.getProxy().downloadToFile(imageFile).get(10, TimeUnit.SECONDS));
-            } catch (ExecutionException | InterruptedException e) {
-                Main.getLogger().error("Error downloading image!", e);
-            } catch (TimeoutException e) {
-                Main.getLogger().error("Image took too long to download!", e);
+            File mediaFile = FileUtil.getUniqueFile(directory, attachment.getFileName());
+            try (InputStream inputStream = NetworkUtil.getInputStream(attachment.getProxyUrl())) {
+                return Optional.of(FileUtil.downloadMedia(inputStream, mediaFile, maximumSize));
+            } catch (UnsupportedFileFormatException | FileTooLargeException e) {
+                throw new UncheckedIOException(e);
+            } catch (IOException e) {
+                Main.getLogger().error("Error downloading attachment!", e);
             }
         }
 
@@ -165,18 +184,27 @@ public class MessageUtil {
     /**
      * Downloads an image file from an embed.
      *
-     * @param message   The message containing the embed to download the image from.
-     * @param directory The directory to download the image to.
+     * @param message     The message containing the embed to download the image from.
+     * @param directory   The directory to download the image to.
+     * @param maximumSize The maximum size of the image file in bytes.
      * @return An {@link Optional} describing the image file.
+     * @throws UncheckedIOException If the image isn't supported or is too large.
      */
-    private static Optional<File> downloadEmbedImage(Message message, String directory) {
+    private static Optional<MediaFile> downloadEmbedImage(Message message, String directory, long maximumSize) {
         List<MessageEmbed> embeds = message.getEmbeds();
 
         for (MessageEmbed embed : embeds) {
             MessageEmbed.ImageInfo imageInfo = embed.getImage();
 
-            if (imageInfo != null) {
-                return FileUtil.downloadFile(imageInfo.getUrl(), directory);
+            if (imageInfo != null && imageInfo.getUrl() != null) {
+                try {
+                    return Optional.of(FileUtil.downloadMedia(imageInfo.getUrl(), directory, maximumSize));
+                } catch (UnsupportedFileFormatException | FileTooLargeException e) {
+                    throw new UncheckedIOException(e);
+                } catch (IOException e) {
+                    Main.getLogger().error("Error downloading embed image!", e);
+                    return Optional.empty();
+                }
             }
         }
 
@@ -210,74 +238,65 @@ public class MessageUtil {
         }
 
         // Get emojis undetected by Discord.
-        Set<String> emoteNames = customEmojis.stream().map(Emoji::getName).collect(ImmutableSet.toImmutableSet());
-        for (CustomEmoji customEmoji : message.getGuild().getEmojiCache()) {
-            String emoteName = customEmoji.getName();
-            if (!emoteNames.contains(emoteName)) {
-                String emoteColonName = ":" + customEmoji.getName() + ":";
-                if (messageContent.contains(emoteColonName)) {
-                    builder.put(emoteColonName, customEmoji.getImageUrl());
-                    if (onlyGetFirst) {
-                        return builder.buildKeepingLast();
+        if (message.isFromGuild()) {
+            Set<String> emoteNames = customEmojis.stream().map(Emoji::getName).collect(ImmutableSet.toImmutableSet());
+            int nameStart = messageContent.indexOf(':');
+            while (nameStart >= 0) {
+                int nameEnd = messageContent.indexOf(':', nameStart + 1);
+                if (nameEnd < 0) {
+                    break;
+                }
+
+                String emoteName = messageContent.substring(nameStart + 1, nameEnd);
+                if (!emoteName.isEmpty() && !emoteNames.contains(emoteName)) {
+                    Optional<String> emojiUrlOptional = GuildEmojiIndex.getEmojiUrl(message.getGuild(), emoteName);
+                    if (emojiUrlOptional.isPresent()) {
+                        builder.put(":" + emoteName + ":", emojiUrlOptional.orElseThrow());
+                        if (onlyGetFirst) {
+                            return builder.buildKeepingLast();
+                        }
                     }
                 }
+
+                nameStart = nameEnd;
             }
         }
 
         // Get unicode emojis.
         int[] codePoints = messageContent.codePoints().toArray();
         for (int i = 0; i < codePoints.length; i++) {
-            for (int j = Math.min(codePoints.length - 1, 10 + i); j >= i; j--) {
-                List<Integer> compositeCodePoints = new ArrayList<>();
-                StringBuilder compositeUnicodeBuilder = new StringBuilder();
-                for (int k = i; k <= j; k++) {
-                    int codePoint = codePoints[k];
-                    String hexCodePoint = Integer.toHexString(codePoint);
-                    compositeCodePoints.add(codePoint);
-                    compositeUnicodeBuilder.append(hexCodePoint).append("-");
-                }
-                compositeUnicodeBuilder.deleteCharAt(compositeUnicodeBuilder.length() - 1);
-
-                if (EmojiUtil.isEmojiUnicode(compositeUnicodeBuilder.toString())) {
-                    StringBuilder emojiCharactersBuilder = new StringBuilder();
-                    for (int codePoint : compositeCodePoints) {
-                        emojiCharactersBuilder.appendCodePoint(codePoint);
-                    }
-
-                    builder.put(emojiCharactersBuilder.toString(), EmojiUtil.getEmojiUrl(compositeUnicodeBuilder.toString()));
+            int emojiLength = EmojiUtil.getEmojiLength(codePoints, i);
+            if (emojiLength > 0) {
+                String emojiUnicode = EmojiUtil.getEmojiUnicode(codePoints, i, emojiLength);
+                builder.put(new String(codePoints, i, emojiLength), EmojiUtil.getEmojiUrl(emojiUnicode));
 
-                    if (onlyGetFirst) {
-                        return builder.buildKeepingLast();
-                    } else {
-                        i += j - i;
-                        break;
-                    }
+                if (onlyGetFirst) {
+                    return builder.buildKeepingLast();
+                } else {
+                    i += emojiLength - 1;
                 }
             }
         }
 
         // Get unicode emojis from shortcodes.
-        StringBuilder emojiNameBuilder = new StringBuilder();
-        boolean emojiNameStartDetected = false;
+        int shortcodeStart = -1;
         for (int i = 0; i < messageContent.length(); i++) {
-            char character = messageContent.charAt(i);
-            if (emojiNameStartDetected) {
-                if (character == ':') {
-                    String emojiName = emojiNameBuilder.toString();
+            if (messageContent.charAt(i) == ':') {
+                if (shortcodeStart < 0) {
+                    shortcodeStart = i;
+                } else {
+                    String emojiName = messageContent.substring(shortcodeStart + 1, i);
                     Optional<String> emojiUrlOptional = EmojiUtil.getEmojiUrlFromShortcode(emojiName);
                     if (emojiUrlOptional.isPresent()) {
                         builder.put(':' + emojiName + ':', emojiUrlOptional.orElseThrow());
                         if (onlyGetFirst) {
                             return builder.buildKeepingLast();
                         }
-                        emojiNameStartDetected = false;
+                        shortcodeStart = -1;
+                    } else {
+                        shortcodeStart = i;
                     }
-                    emojiNameBuilder.setLength(0);
-                } else {
-                    emojiNameBuilder.append(character);
                 }
-            } else if (character == ':') {
-                emojiNameStartDetected = true;
             }
         }
 
@@ -325,24 +344,36 @@ public class MessageUtil {
         return Optional.empty();
     }
 
+    /**
+     * Gets the images of the emojis in a message. The images are downloaded at the same time,
+     * on the network executor rather than the pool used to process images.
+     *
+     * @param message The message to get the emoji images of.
+     * @return A map of the emoji codes to their images.
+     */
     public static Map<String, Drawable> getEmojiImages(Message message) {
         Map<String, String> imageUrls = MessageUtil.getEmojiUrls(message);
-        return imageUrls.entrySet().parallelStream().map(imageUrlEntry -> {
+        Map<String, CompletableFuture<Drawable>> futureImages = new LinkedHashMap<>();
+        imageUrls.forEach((emojiCode, emojiImageUrl) -> futureImages.put(emojiCode, CompletableFuture.supplyAsync(() -> {
             try {
-                String emojiCode = imageUrlEntry.getKey();
-                String emojiImageUrl = imageUrlEntry.getValue();
-                URL url = new URL(emojiImageUrl);
-                String imageType = ImageUtil.getImageFormat(url);
-
-                try (InputStream inputStream = url.openStream()) {
-                    ImageMedia imageMedia = ImageReaders.read(inputStream, imageType, null);
-                    List<BufferedImage> normalisedImages = imageMedia.toNormalisedImages();
-                    Drawable drawable = new ImageDrawable(normalisedImages);
-                    return Map.entry(emojiCode, drawable);
-                }
+                return EmojiImageCache.getEmojiDrawable(emojiImageUrl);
             } catch (IOException e) {
                 throw new UncheckedIOException(e);
             }
-        }).collect(Collectors.toConcurrentMap(Map.Entry::getKey, Map.Entry::getValue));
+        }, NetworkUtil.getExecutor())));
+
+        Map<String, Drawable> images = new HashMap<>();
+        futureImages.forEach((emojiCode, futureImage) -> {
+            try {
+                images.put(emojiCode, futureImage.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtimeException) {
+                    throw runtimeException;
+                } else {
+                    throw e;
+                }
+            }
+        });
+        return images;
     }
 }
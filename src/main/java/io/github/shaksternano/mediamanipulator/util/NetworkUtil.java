@@ -1,75 +1,447 @@
 package io.github.shaksternano.mediamanipulator.util;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
+import io.github.shaksternano.mediamanipulator.Main;
+import org.jetbrains.annotations.Nullable;
 
-import java.io.*;
-import java.net.ConnectException;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Contains static methods for making HTTP requests. All requests go through a single shared
+ * {@link HttpClient}, so connections are kept alive and reused, and HTTP/2 is used where supported.
+ * The number of requests made to each host at the same time is limited, with extra requests
+ * waiting until an earlier request to the same host has finished.
+ */
 public class NetworkUtil {
 
+    /**
+     * The maximum time to wait for a connection to be established.
+     */
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+
+    /**
+     * The maximum time to wait for the response to a request to arrive, and for each read of a streamed response body.
+     */
+    private static final Duration READ_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * How often streamed response bodies are checked for reads that have timed out.
+     */
+    private static final Duration READ_TIMEOUT_CHECK_INTERVAL = Duration.ofSeconds(1);
+
+    /**
+     * The maximum number of requests that can be made to a single host at the same time.
+     */
+    private static final int MAXIMUM_CONCURRENT_REQUESTS_PER_HOST = 6;
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setNameFormat("network-%d")
+            .setDaemon(true)
+            .build());
+
+    private static final ScheduledExecutorService TIMEOUT_SCHEDULER = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("network-timeout-%d")
+            .setDaemon(true)
+            .build());
+
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(CONNECT_TIMEOUT)
+            .executor(EXECUTOR)
+            .build();
+
+    private static final Map<String, HostRequestLimiter> HOST_REQUEST_LIMITERS = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the executor that network requests are run on. Work that mostly waits on the network should be
+     * run on this rather than on the pool used to process images, so that it doesn't hold up image processing.
+     *
+     * @return The executor used for network requests.
+     */
+    public static Executor getExecutor() {
+        return EXECUTOR;
+    }
+
     /**
      * Construct and run a GET request.
      *
      * @param url The URL to request.
-     * @return The response as a {@link JsonElement}.
+     * @return The response as a {@link JsonElement}, or {@link JsonUtil#EMPTY} if the request failed.
      */
     public static JsonElement httpGet(String url) {
-        HttpURLConnection connection = null;
+        return httpGetAsync(url).join();
+    }
+
+    /**
+     * Construct and run a GET request asynchronously.
+     *
+     * @param url The URL to request.
+     * @return A {@link CompletableFuture} that completes with the response as a {@link JsonElement},
+     * or {@link JsonUtil#EMPTY} if the request failed.
+     */
+    public static CompletableFuture<JsonElement> httpGetAsync(String url) {
+        return sendAsync(url, "application/json", HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8))
+                .thenApply(JsonParser::parseString)
+                .exceptionally(throwable -> {
+                    Throwable cause = unwrap(throwable);
+                    if (!(cause instanceof IOException) && !(cause instanceof JsonParseException)) {
+                        Main.getLogger().error("Unexpected error while requesting " + url + "!", cause);
+                    }
+                    return JsonUtil.EMPTY;
+                });
+    }
+
+    /**
+     * Downloads the contents of a URL.
+     *
+     * @param url          The URL to download.
+     * @param maximumBytes The maximum number of bytes to download. Any content past this is ignored.
+     * @return The downloaded bytes.
+     * @throws IOException If an error occurred while downloading.
+     */
+    public static byte[] getBytes(String url, int maximumBytes) throws IOException {
+        return await(getBytesAsync(url, maximumBytes));
+    }
+
+    /**
+     * Downloads the contents of a URL asynchronously.
+     *
+     * @param url          The URL to download.
+     * @param maximumBytes The maximum number of bytes to download. Any content past this is ignored.
+     * @return A {@link CompletableFuture} that completes with the downloaded bytes.
+     */
+    public static CompletableFuture<byte[]> getBytesAsync(String url, int maximumBytes) {
+        CompletableFuture<InputStream> inputStreamFuture = getInputStreamAsync(url);
+        CompletableFuture<byte[]> bytesFuture = inputStreamFuture.thenApplyAsync(inputStream -> {
+            try (inputStream) {
+                return inputStream.readNBytes(maximumBytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, EXECUTOR);
+        bytesFuture.whenComplete((bytes, throwable) -> {
+            if (bytesFuture.isCancelled()) {
+                // The stream would otherwise never be read and closed, holding on to the request slot.
+                inputStreamFuture.cancel(true);
+                inputStreamFuture.thenAccept(NetworkUtil::closeQuietly);
+            }
+        });
+        return bytesFuture;
+    }
+
+    /**
+     * Opens a stream to the contents of a URL. The stream must be closed once it is no longer needed,
+     * so that other requests to the same host can be made.
+     *
+     * @param url The URL to open.
+     * @return A stream of the contents of the URL.
+     * @throws IOException If an error occurred while opening the stream.
+     */
+    public static InputStream getInputStream(String url) throws IOException {
+        return await(getInputStreamAsync(url));
+    }
+
+    /**
+     * Opens a stream to the contents of a URL asynchronously. The stream must be closed
+     * once it is no longer needed, so that other requests to the same host can be made.
+     *
+     * @param url The URL to open.
+     * @return A {@link CompletableFuture} that completes with a stream of the contents of the URL.
+     */
+    public static CompletableFuture<InputStream> getInputStreamAsync(String url) {
+        return sendAsync(url, "*/*", HttpResponse.BodyHandlers.ofInputStream(), true);
+    }
+
+    private static <T> CompletableFuture<T> sendAsync(String url, String accept, HttpResponse.BodyHandler<T> bodyHandler) {
+        return sendAsync(url, accept, bodyHandler, false);
+    }
+
+    /**
+     * Sends a GET request once the host of the URL has a free request slot.
+     * Cancelling the returned future frees the slot, whether the request is still waiting for it,
+     * is being sent, or has already been answered.
+     *
+     * @param url         The URL to request.
+     * @param accept      The value of the Accept header.
+     * @param bodyHandler The handler for the response body.
+     * @param streamBody  Whether the response body is an {@link InputStream} that holds on
+     *                    to the request slot until it is closed.
+     * @param <T>         The type of the response body.
+     * @return A {@link CompletableFuture} that completes with the response body.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> CompletableFuture<T> sendAsync(String url, String accept, HttpResponse.BodyHandler<T> bodyHandler, boolean streamBody) {
+        HttpRequest request;
         try {
-            // Get request
-            connection = (HttpURLConnection) new URL(url).openConnection();
-            connection.setDoInput(true);
-            connection.setDoOutput(true);
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("Content-Type", "application/json");
-            connection.setRequestProperty("Accept", "application/json");
-            connection.setRequestProperty("Content-Type", "application/json; charset=UTF-8");
-
-            // Handle failure
-            int statusCode = connection.getResponseCode();
-            if (statusCode != HttpURLConnection.HTTP_OK && statusCode != HttpURLConnection.HTTP_CREATED) {
-                String error = String.format("HTTP Code: '%1$s' from '%2$s'", statusCode, url);
-                throw new ConnectException(error);
+            request = HttpRequest.newBuilder(new URI(url))
+                    .timeout(READ_TIMEOUT)
+                    .header("Accept", accept)
+                    .GET()
+                    .build();
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(new IOException("Invalid URL " + url + "!", e));
+        }
+
+        String host = request.uri().getHost();
+        HostRequestLimiter limiter = HOST_REQUEST_LIMITERS.computeIfAbsent(host == null ? "" : host, key -> new HostRequestLimiter());
+        CompletableFuture<T> result = new CompletableFuture<>();
+        CompletableFuture<Void> slot = limiter.acquire();
+        AtomicReference<CompletableFuture<HttpResponse<T>>> exchange = new AtomicReference<>();
+        slot.thenCompose(unused -> {
+                    CompletableFuture<HttpResponse<T>> responseFuture = HTTP_CLIENT.sendAsync(request, bodyHandler);
+                    exchange.set(responseFuture);
+                    if (result.isDone()) {
+                        responseFuture.cancel(true);
+                    } else if (!streamBody) {
+                        // The request timeout only covers the headers, so the whole body must arrive in time as well.
+                        ScheduledFuture<?> timeout = TIMEOUT_SCHEDULER.schedule(() -> responseFuture.cancel(true), READ_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+                        responseFuture.whenComplete((response, throwable) -> timeout.cancel(false));
+                    }
+                    return responseFuture;
+                })
+                .whenComplete((response, throwable) -> {
+                    if (throwable != null) {
+                        // A slot that was cancelled while waiting was never taken.
+                        if (!slot.isCancelled()) {
+                            limiter.release();
+                        }
+                        Throwable cause = unwrap(throwable);
+                        if (cause instanceof CancellationException && !result.isDone()) {
+                            // Only the timeout cancels the request without the result being cancelled first.
+                            cause = new HttpTimeoutException("Timed out receiving the response from " + url + "!");
+                        }
+                        result.completeExceptionally(cause);
+                        return;
+                    }
+
+                    int statusCode = response.statusCode();
+                    if (statusCode < 200 || statusCode >= 300) {
+                        if (response.body() instanceof InputStream inputStream) {
+                            closeQuietly(inputStream);
+                        }
+                        limiter.release();
+                        result.completeExceptionally(new IOException(String.format("HTTP Code: '%1$s' from '%2$s'", statusCode, url)));
+                        return;
+                    }
+
+                    T body = response.body();
+                    if (streamBody && body instanceof InputStream inputStream) {
+                        ReleasingInputStream releasingInputStream = new ReleasingInputStream(inputStream, limiter);
+                        releasingInputStream.startTimeoutChecks();
+                        if (!result.complete((T) releasingInputStream)) {
+                            closeQuietly(releasingInputStream);
+                        }
+                    } else {
+                        limiter.release();
+                        result.complete(body);
+                    }
+                });
+        result.whenComplete((body, throwable) -> {
+            if (result.isCancelled()) {
+                slot.cancel(false);
+                CompletableFuture<HttpResponse<T>> responseFuture = exchange.get();
+                if (responseFuture != null) {
+                    responseFuture.cancel(true);
+                }
             }
+        });
+        return result;
+    }
 
-            // Parse response
-            return parser(connection);
-        } catch (Exception ignored) {
-        } finally {
-            if (connection != null) {
-                connection.disconnect();
+    private static <T> T await(CompletableFuture<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a network request!");
+        } catch (ExecutionException | CancellationException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            } else {
+                throw new IOException(cause);
             }
         }
+    }
 
-        return JsonUtil.EMPTY;
+    private static Throwable unwrap(Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException || cause instanceof UncheckedIOException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    private static void closeQuietly(InputStream inputStream) {
+        try {
+            inputStream.close();
+        } catch (IOException ignored) {
+        }
     }
 
     /**
-     * Parse the response into JSONObject.
-     *
-     * @param connection The connection to parse.
-     * @return The response as a {@link JsonElement}.
+     * Limits the number of requests made to a single host at the same time.
+     * Requests waiting for a slot don't block a thread.
      */
-    private static JsonElement parser(HttpURLConnection connection) {
-        char[] buffer = new char[1024 * 4];
-        int characterCount;
+    private static class HostRequestLimiter {
 
-        try (InputStream stream = new BufferedInputStream(connection.getInputStream())) {
-            InputStreamReader reader = new InputStreamReader(stream, StandardCharsets.UTF_8);
-            StringWriter writer = new StringWriter();
+        private final Queue<CompletableFuture<Void>> waiting = new ArrayDeque<>();
+        private int availableSlots = MAXIMUM_CONCURRENT_REQUESTS_PER_HOST;
 
-            while (-1 != (characterCount = reader.read(buffer))) {
-                writer.write(buffer, 0, characterCount);
+        private synchronized CompletableFuture<Void> acquire() {
+            if (availableSlots > 0) {
+                availableSlots--;
+                return CompletableFuture.completedFuture(null);
+            } else {
+                CompletableFuture<Void> slot = new CompletableFuture<>();
+                waiting.add(slot);
+                return slot;
             }
+        }
 
-            return JsonParser.parseString(writer.toString());
-        } catch (IOException ignored) {
+        /**
+         * Frees a slot, handing it to the next request waiting for one that hasn't been cancelled.
+         */
+        private void release() {
+            CompletableFuture<Void> next;
+            synchronized (this) {
+                do {
+                    next = waiting.poll();
+                } while (next != null && next.isDone());
+                if (next == null) {
+                    availableSlots++;
+                    return;
+                }
+            }
+            CompletableFuture<Void> waiter = next;
+            EXECUTOR.execute(() -> {
+                // The waiter can still be cancelled before it is given the slot.
+                if (!waiter.complete(null)) {
+                    release();
+                }
+            });
+        }
+    }
+
+    /**
+     * An {@link InputStream} that frees its host's request slot when closed. A read that waits longer than
+     * {@link #READ_TIMEOUT} for data closes the stream and fails with an {@link HttpTimeoutException},
+     * so that a server sending the body very slowly can't hold on to the slot forever.
+     */
+    private static class ReleasingInputStream extends FilterInputStream {
+
+        private final HostRequestLimiter limiter;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+        private volatile long readStartTime;
+        private volatile boolean reading;
+        private volatile boolean timedOut;
+        @Nullable
+        private volatile ScheduledFuture<?> timeoutChecks;
+
+        private ReleasingInputStream(InputStream inputStream, HostRequestLimiter limiter) {
+            super(inputStream);
+            this.limiter = limiter;
         }
 
-        return JsonUtil.EMPTY;
+        private void startTimeoutChecks() {
+            long interval = READ_TIMEOUT_CHECK_INTERVAL.toMillis();
+            timeoutChecks = TIMEOUT_SCHEDULER.scheduleWithFixedDelay(this::checkTimeout, interval, interval, TimeUnit.MILLISECONDS);
+        }
+
+        private void checkTimeout() {
+            if (reading && System.nanoTime() - readStartTime >= READ_TIMEOUT.toNanos()) {
+                timedOut = true;
+                // Closing the stream wakes up the blocked read.
+                closeQuietly(this);
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            startRead();
+            try {
+                return checkTimedOut(super.read());
+            } catch (IOException e) {
+                throw checkTimedOut(e);
+            } finally {
+                reading = false;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            startRead();
+            try {
+                return checkTimedOut(super.read(b, off, len));
+            } catch (IOException e) {
+                throw checkTimedOut(e);
+            } finally {
+                reading = false;
+            }
+        }
+
+        private void startRead() throws IOException {
+            checkTimedOut(0);
+            readStartTime = System.nanoTime();
+            reading = true;
+        }
+
+        private int checkTimedOut(int result) throws IOException {
+            if (timedOut) {
+                throw new HttpTimeoutException("Timed out reading the response body!");
+            }
+            return result;
+        }
+
+        private IOException checkTimedOut(IOException e) {
+            return timedOut ? new HttpTimeoutException("Timed out reading the response body!") : e;
+        }
+
+        @Override
+        public void close() throws IOException {
+            ScheduledFuture<?> checks = timeoutChecks;
+            if (checks != null) {
+                checks.cancel(false);
+            }
+            try {
+                super.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    limiter.release();
+                }
+            }
+        }
     }
 }
@@ -0,0 +1,119 @@
+package io.github.shaksternano.mediamanipulator.command;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ListMultimap;
+import io.github.shaksternano.mediamanipulator.exception.InvalidArgumentException;
+import io.github.shaksternano.mediamanipulator.image.reader.util.ImageReaders;
+import io.github.shaksternano.mediamanipulator.image.writer.util.ImageWriters;
+import io.github.shaksternano.mediamanipulator.mediamanipulator.ImageManipulator;
+import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaManipulator;
+import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaOperation;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+class ChainedMediaCommandTest {
+
+    @BeforeAll
+    static void registerImageCodecs() {
+        ImageReaders.registerImageReaders();
+        ImageWriters.registerImageWriters();
+    }
+
+    @Test
+    void rejectEmptyChain() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ChainedMediaCommand(List.of()));
+    }
+
+    @Test
+    void rejectUnchainableCommand() {
+        List<List<String>> createdWith = new ArrayList<>();
+        ChainedMediaCommand chain = new ChainedMediaCommand(List.of(
+                link(new TestMediaCommand("chainable", true, createdWith), "a"),
+                link(new TestMediaCommand("unchainable", false, createdWith), "b")
+        ));
+        // The chain fails before it looks at the event to download the media.
+        InvalidArgumentException exception = Assertions.assertThrows(
+                InvalidArgumentException.class,
+                () -> chain.execute(List.of(), ImmutableListMultimap.of(), null)
+        );
+        Assertions.assertTrue(exception.getMessage().contains("%unchainable"));
+        Assertions.assertEquals(List.of(List.of("a"), List.of("b")), createdWith);
+    }
+
+    @Test
+    void rotateJpeg() throws IOException {
+        File jpeg = createJpeg();
+        // Rotating adds transparent corners, which the commands after it keep and a JPEG file can't store.
+        File result = new ImageManipulator().applyOperations(jpeg, "jpeg", List.of(
+                RotateCommand.createOperation(45, null),
+                (imageMedia, manipulator) -> manipulator.pixelate(imageMedia, 2)
+        ));
+        Assertions.assertTrue(result.getName().endsWith(".png"), result.getName());
+        BufferedImage image = ImageIO.read(result);
+        Assertions.assertNotNull(image);
+        Assertions.assertEquals(0, image.getRGB(0, 0) >>> 24);
+    }
+
+    @Test
+    void keepJpeg() throws IOException {
+        File jpeg = createJpeg();
+        File result = new ImageManipulator().applyOperations(jpeg, "jpeg", List.of(
+                (imageMedia, manipulator) -> manipulator.pixelate(imageMedia, 2),
+                (imageMedia, manipulator) -> manipulator.stretch(imageMedia, 2, 1, false)
+        ));
+        Assertions.assertTrue(result.getName().endsWith(".jpg"), result.getName());
+        BufferedImage image = ImageIO.read(result);
+        Assertions.assertNotNull(image);
+        Assertions.assertEquals(64, image.getWidth());
+    }
+
+    private static File createJpeg() throws IOException {
+        BufferedImage image = new BufferedImage(32, 16, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.ORANGE);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+        graphics.dispose();
+        File file = File.createTempFile("chain", ".jpg");
+        file.deleteOnExit();
+        ImageIO.write(image, "jpeg", file);
+        return file;
+    }
+
+    private static ChainedMediaCommand.Link link(MediaCommand command, String argument) {
+        return new ChainedMediaCommand.Link(command, List.of(argument), ImmutableListMultimap.of());
+    }
+
+    private static class TestMediaCommand extends MediaCommand {
+
+        private final boolean chainable;
+        private final List<List<String>> createdWith;
+
+        private TestMediaCommand(String name, boolean chainable, List<List<String>> createdWith) {
+            super(name, "");
+            this.chainable = chainable;
+            this.createdWith = createdWith;
+        }
+
+        @Override
+        public File applyOperation(File media, String fileFormat, List<String> arguments, ListMultimap<String, String> extraArguments, MediaManipulator manipulator, MessageReceivedEvent event) {
+            return media;
+        }
+
+        @Override
+        public Optional<MediaOperation> createOperation(List<String> arguments, ListMultimap<String, String> extraArguments, MessageReceivedEvent event) {
+            createdWith.add(arguments);
+            return chainable ? Optional.of((imageMedia, manipulator) -> imageMedia) : Optional.empty();
+        }
+    }
+}
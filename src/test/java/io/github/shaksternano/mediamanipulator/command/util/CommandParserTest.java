@@ -0,0 +1,111 @@
+package io.github.shaksternano.mediamanipulator.command.util;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ListMultimap;
+import io.github.shaksternano.mediamanipulator.command.BaseCommand;
+import io.github.shaksternano.mediamanipulator.command.ChainedMediaCommand;
+import io.github.shaksternano.mediamanipulator.command.MediaCommand;
+import io.github.shaksternano.mediamanipulator.mediamanipulator.MediaManipulator;
+import net.dv8tion.jda.api.events.message.MessageReceivedEvent;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+
+class CommandParserTest {
+
+    @BeforeAll
+    static void registerCommands() {
+        CommandRegistry.register(List.of(
+                new TestMediaCommand("testcaption", ImmutableSet.of()),
+                new TestMediaCommand("testimpact", ImmutableSet.of("bottom")),
+                new TestCommand("testhelp")
+        ));
+    }
+
+    @Test
+    void notChained() {
+        assertNotSplit("testcaption", "cats", "|", "dogs");
+        assertNotSplit("testcaption", "a", "|", "unknowncommand");
+        assertNotSplit("testcaption", "a", "|", "%unknowncommand");
+        assertNotSplit("testcaption", "a", "|", "testhelp");
+        assertNotSplit("testcaption", "a", "|");
+        assertNotSplit("testcaption", "|", "|");
+        assertNotSplit("testhelp", "|", "testcaption");
+    }
+
+    @Test
+    void splitBeforeMediaCommands() {
+        Assertions.assertEquals(
+                List.of(List.of("testcaption", "a", "|"), List.of("testimpact", "b")),
+                CommandParser.splitChain(List.of("testcaption", "a", "|", "|", "testimpact", "b"))
+        );
+        Assertions.assertEquals(
+                List.of(List.of("testcaption", "a"), List.of("testimpact"), List.of("testcaption", "b", "|", "c")),
+                CommandParser.splitChain(List.of("testcaption", "a", "|", "%TestImpact", "|", "testcaption", "b", "|", "c"))
+        );
+    }
+
+    @Test
+    void createChain() {
+        List<List<String>> chain = CommandParser.splitChain(List.of(
+                "testimpact", "top", "text", "%bottom", "bottom", "text", "|", "testcaption", "a", "%bottom", "b"
+        ));
+        List<ChainedMediaCommand.Link> links = CommandParser.createChain(chain).getLinks();
+        Assertions.assertEquals(2, links.size());
+
+        ChainedMediaCommand.Link impact = links.get(0);
+        Assertions.assertEquals("testimpact", impact.command().getName());
+        Assertions.assertEquals(List.of("top", "text"), impact.arguments());
+        Assertions.assertEquals(List.of("bottom", "text"), impact.extraArguments().get("bottom"));
+
+        // The caption command has no extra parameters, so %bottom is part of its text.
+        ChainedMediaCommand.Link caption = links.get(1);
+        Assertions.assertEquals("testcaption", caption.command().getName());
+        Assertions.assertEquals(List.of("a", "%bottom", "b"), caption.arguments());
+        Assertions.assertTrue(caption.extraArguments().isEmpty());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> CommandParser.createChain(List.of(List.of("testcaption"), List.of("testhelp"))));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> CommandParser.createChain(List.of(List.of("testcaption"), List.of("unknowncommand"))));
+    }
+
+    private static void assertNotSplit(String... commandParts) {
+        List<String> parts = ImmutableList.copyOf(commandParts);
+        Assertions.assertEquals(List.of(parts), CommandParser.splitChain(parts));
+    }
+
+    private static class TestMediaCommand extends MediaCommand {
+
+        private final Set<String> additionalParameterNames;
+
+        private TestMediaCommand(String name, Set<String> additionalParameterNames) {
+            super(name, "");
+            this.additionalParameterNames = additionalParameterNames;
+        }
+
+        @Override
+        public Set<String> getAdditionalParameterNames() {
+            return additionalParameterNames;
+        }
+
+        @Override
+        public File applyOperation(File media, String fileFormat, List<String> arguments, ListMultimap<String, String> extraArguments, MediaManipulator manipulator, MessageReceivedEvent event) {
+            return media;
+        }
+    }
+
+    private static class TestCommand extends BaseCommand {
+
+        private TestCommand(String name) {
+            super(name, "");
+        }
+
+        @Override
+        public void execute(List<String> arguments, ListMultimap<String, String> extraArguments, MessageReceivedEvent event) {
+        }
+    }
+}
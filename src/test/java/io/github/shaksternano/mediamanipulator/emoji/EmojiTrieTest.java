@@ -0,0 +1,22 @@
+package io.github.shaksternano.mediamanipulator.emoji;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class EmojiTrieTest {
+
+    @Test
+    void getLongestMatchLength() {
+        EmojiTrie trie = new EmojiTrie();
+        trie.add(new int[]{0x1f468});
+        trie.add(new int[]{0x1f468, 0x200d, 0x1f469, 0x200d, 0x1f467});
+        trie.add(new int[]{0x2764, 0xfe0f});
+
+        int[] codePoints = {'a', 0x1f468, 0x200d, 0x1f469, 0x200d, 0x1f467, 0x2764, 0xfe0f, 0x1f468, 0x200d, 'b'};
+        Assertions.assertEquals(0, trie.getLongestMatchLength(codePoints, 0));
+        Assertions.assertEquals(5, trie.getLongestMatchLength(codePoints, 1));
+        Assertions.assertEquals(2, trie.getLongestMatchLength(codePoints, 6));
+        Assertions.assertEquals(1, trie.getLongestMatchLength(codePoints, 8));
+        Assertions.assertEquals(0, trie.getLongestMatchLength(codePoints, 10));
+    }
+}
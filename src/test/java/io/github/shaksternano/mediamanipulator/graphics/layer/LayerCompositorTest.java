@@ -0,0 +1,94 @@
+package io.github.shaksternano.mediamanipulator.graphics.layer;
+
+import io.github.shaksternano.mediamanipulator.graphics.drawable.ImageDrawable;
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+import io.github.shaksternano.mediamanipulator.image.util.AwtFrame;
+import io.github.shaksternano.mediamanipulator.image.util.ImageMediaBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+
+class LayerCompositorTest {
+
+    @Test
+    void compositeInOrder() {
+        BufferedImage content = createImage(4, 4, Color.RED);
+        ImageMedia result = LayerCompositor.composite(List.of(
+                new ShapeLayer(new Rectangle(0, 0, 8, 8), Color.BLACK),
+                new ImageLayer(new ImageMediaBuilder().add(new AwtFrame(content, 0)).build(), 2, 2, new Rectangle(0, 0, 4, 4)),
+                new ShapeLayer(new Rectangle(3, 3, 1, 1), Color.BLUE)
+        ), 8, 8, BufferedImage.TYPE_INT_RGB);
+
+        Assertions.assertEquals(1, result.getFrameCount());
+        BufferedImage image = result.getFirstImage();
+        Assertions.assertEquals(Color.BLACK.getRGB(), image.getRGB(1, 1));
+        Assertions.assertEquals(Color.RED.getRGB(), image.getRGB(2, 2));
+        Assertions.assertEquals(Color.BLUE.getRGB(), image.getRGB(3, 3));
+        // Outside the clip.
+        Assertions.assertEquals(Color.BLACK.getRGB(), image.getRGB(5, 5));
+    }
+
+    @Test
+    void keepFrameDurationsOfOnlyAnimatedLayer() {
+        BufferedImage red = createImage(4, 4, Color.RED);
+        BufferedImage green = createImage(4, 4, Color.GREEN);
+        ImageMedia animated = new ImageMediaBuilder()
+                .add(new AwtFrame(red, 30))
+                .add(new AwtFrame(green, 70))
+                .add(new AwtFrame(green, 50))
+                .build();
+        ImageMedia result = LayerCompositor.composite(List.of(
+                new ImageLayer(animated, 0, 0, null),
+                new ShapeLayer(new Rectangle(0, 0, 1, 1), Color.BLUE)
+        ), 4, 4, BufferedImage.TYPE_INT_RGB);
+
+        // The last two frames are the same, so they are merged.
+        Assertions.assertEquals(2, result.getFrameCount());
+        Assertions.assertEquals(30, result.getFrame(0).getDuration());
+        Assertions.assertEquals(120, result.getFrame(1).getDuration());
+        Assertions.assertEquals(Color.GREEN.getRGB(), result.getFrame(1).getImage().getRGB(2, 2));
+        Assertions.assertEquals(Color.BLUE.getRGB(), result.getFrame(1).getImage().getRGB(0, 0));
+    }
+
+    @Test
+    void lineUpSeveralAnimatedLayers() {
+        BufferedImage red = createImage(4, 4, Color.RED);
+        BufferedImage green = createImage(4, 4, Color.GREEN);
+        ImageMedia animated = new ImageMediaBuilder()
+                .add(new AwtFrame(red, 40))
+                .add(new AwtFrame(green, 40))
+                .build();
+        BufferedImage black = createImage(1, 1, Color.BLACK);
+        BufferedImage white = createImage(1, 1, Color.WHITE);
+        ImageDrawable drawable = new ImageDrawable(List.of(black, white, white, white, white, white));
+        ImageMedia result = LayerCompositor.composite(List.of(
+                new ImageLayer(animated, 0, 0, null),
+                new DrawableLayer(drawable, 0, 0, new Font(Font.SANS_SERIF, Font.PLAIN, 12), Color.WHITE, null)
+        ), 4, 4, BufferedImage.TYPE_INT_RGB);
+
+        // The image is looped once to line up with the six frames of the drawable.
+        // Ticks where neither layer changes are merged.
+        int[] expectedDurations = {20, 20, 40, 40};
+        Color[] expectedImageColors = {Color.RED, Color.RED, Color.GREEN, Color.RED};
+        Color[] expectedDrawableColors = {Color.BLACK, Color.WHITE, Color.WHITE, Color.WHITE};
+        Assertions.assertEquals(expectedDurations.length, result.getFrameCount());
+        for (int i = 0; i < expectedDurations.length; i++) {
+            BufferedImage image = result.getFrame(i).getImage();
+            Assertions.assertEquals(expectedDurations[i], result.getFrame(i).getDuration(), "Frame " + i);
+            Assertions.assertEquals(expectedImageColors[i].getRGB(), image.getRGB(2, 2), "Frame " + i);
+            Assertions.assertEquals(expectedDrawableColors[i].getRGB(), image.getRGB(0, 0), "Frame " + i);
+        }
+    }
+
+    private static BufferedImage createImage(int width, int height, Color color) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(color);
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+        return image;
+    }
+}
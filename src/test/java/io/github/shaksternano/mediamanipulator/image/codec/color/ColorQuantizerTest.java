@@ -0,0 +1,50 @@
+package io.github.shaksternano.mediamanipulator.image.codec.color;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class ColorQuantizerTest {
+
+    private static final List<ColorQuantizer> QUANTIZERS = List.of(
+            new MedianCutQuantizer(),
+            new OctreeQuantizer()
+    );
+
+    @Test
+    void quantizeGradient() {
+        int[] pixels = new int[256 * 256];
+        for (int y = 0; y < 256; y++) {
+            for (int x = 0; x < 256; x++) {
+                pixels[y * 256 + x] = 0xFF000000 | (x << 16) | (y << 8) | ((x + y) / 2);
+            }
+        }
+        for (ColorQuantizer quantizer : QUANTIZERS) {
+            int[] colors = quantizer.quantize(pixels, 64);
+            Assertions.assertTrue(colors.length > 0 && colors.length <= 64, quantizer.getClass().getSimpleName());
+        }
+    }
+
+    @Test
+    void quantizeIgnoresTransparentPixels() {
+        int[] pixels = new int[1000];
+        for (int i = 0; i < pixels.length; i++) {
+            // Opaque pixels in two clusters of similar reds and blues, and transparent green pixels.
+            pixels[i] = switch (i % 3) {
+                case 0 -> 0xFFF00000 | (i % 16);
+                case 1 -> 0xFF0000F0 | ((i % 16) << 16);
+                default -> 0x0000FF00;
+            };
+        }
+        for (ColorQuantizer quantizer : QUANTIZERS) {
+            Palette palette = Palette.nearest(quantizer.quantize(pixels, 2));
+            Assertions.assertEquals(2, palette.size(), quantizer.getClass().getSimpleName());
+            int redIndex = palette.indexOf(0xF00000);
+            int blueIndex = palette.indexOf(0x0000F0);
+            Assertions.assertNotEquals(redIndex, blueIndex, quantizer.getClass().getSimpleName());
+            Assertions.assertTrue(Palette.distanceSquared(palette.getColor(redIndex), 0xF00000) < 400, quantizer.getClass().getSimpleName());
+            Assertions.assertTrue(Palette.distanceSquared(palette.getColor(blueIndex), 0x0000F0) < 400, quantizer.getClass().getSimpleName());
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package io.github.shaksternano.mediamanipulator.image.codec.gif;
+
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+class GifDecoderTest {
+
+    @Test
+    void decode() throws IOException {
+        BufferedImage image = new BufferedImage(37, 23, BufferedImage.TYPE_BYTE_INDEXED);
+        Random random = new Random(0);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, random.nextInt(4) * 0x404040);
+            }
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, "gif", outputStream);
+        byte[] bytes = outputStream.toByteArray();
+
+        BufferedImage expected = ImageIO.read(new ByteArrayInputStream(bytes));
+        ImageMedia decoded = GifDecoder.decode(bytes, null, null);
+        Assertions.assertEquals(1, decoded.getFrameCount());
+        BufferedImage actual = decoded.getFirstImage();
+        Assertions.assertEquals(expected.getWidth(), actual.getWidth());
+        Assertions.assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                Assertions.assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+            }
+        }
+    }
+
+    @Test
+    void decodeNotGif() {
+        Assertions.assertThrows(IOException.class, () -> GifDecoder.decode(new byte[]{'G', 'I', 'F'}, null, null));
+    }
+
+    @Test
+    void composeAcrossKeyframes() throws IOException {
+        Random random = new Random(1);
+        TestGif gif = new TestGif(16, 16);
+        // The first frame, partial frames drawn over it, a full opaque frame that starts a new run,
+        // and a full frame that is cleared afterwards, which makes the frame after it start a new run.
+        gif.frame(0, 0, 16, 16, GifFrame.DISPOSAL_NONE, -1, false, randomIndices(random, 256));
+        gif.frame(2, 3, 5, 4, GifFrame.DISPOSAL_NONE, 0, false, randomIndices(random, 20));
+        gif.frame(8, 8, 8, 8, GifFrame.DISPOSAL_RESTORE_TO_PREVIOUS, -1, false, randomIndices(random, 64));
+        gif.frame(0, 0, 16, 16, GifFrame.DISPOSAL_NONE, -1, false, randomIndices(random, 256));
+        gif.frame(4, 0, 4, 16, GifFrame.DISPOSAL_RESTORE_TO_BACKGROUND, 1, false, randomIndices(random, 64));
+        gif.frame(0, 0, 16, 16, GifFrame.DISPOSAL_RESTORE_TO_BACKGROUND, -1, false, randomIndices(random, 256));
+        gif.frame(3, 3, 6, 6, GifFrame.DISPOSAL_NONE, -1, false, randomIndices(random, 36));
+        gif.frame(10, 1, 3, 3, GifFrame.DISPOSAL_NONE, 2, true, randomIndices(random, 9));
+        byte[] bytes = gif.toByteArray();
+
+        List<GifFrame> frames = GifParser.parse(bytes).frames();
+        ImageMedia decoded = GifDecoder.decode(bytes, null, null);
+        assertFrames(composeSequentially(frames, 16, 16), decoded);
+    }
+
+    @Test
+    void disposalModes() throws IOException {
+        TestGif gif = new TestGif(4, 4);
+        gif.frame(0, 0, 4, 4, GifFrame.DISPOSAL_NONE, -1, false, filledIndices(16, 1));
+        gif.frame(1, 1, 2, 2, GifFrame.DISPOSAL_RESTORE_TO_PREVIOUS, -1, false, filledIndices(4, 2));
+        gif.frame(0, 0, 1, 1, GifFrame.DISPOSAL_RESTORE_TO_BACKGROUND, -1, false, filledIndices(1, 3));
+        gif.frame(3, 3, 1, 1, GifFrame.DISPOSAL_NONE, -1, false, filledIndices(1, 2));
+        ImageMedia decoded = GifDecoder.decode(gif.toByteArray(), null, null);
+
+        Assertions.assertEquals(4, decoded.getFrameCount());
+        Assertions.assertEquals(TestGif.PALETTE[2], decoded.getFrame(1).getImage().getRGB(1, 1), "Drawn over the first frame");
+        BufferedImage restoredToPrevious = decoded.getFrame(2).getImage();
+        Assertions.assertEquals(TestGif.PALETTE[1], restoredToPrevious.getRGB(1, 1), "Restored to the first frame");
+        Assertions.assertEquals(TestGif.PALETTE[3], restoredToPrevious.getRGB(0, 0));
+        BufferedImage restoredToBackground = decoded.getFrame(3).getImage();
+        Assertions.assertEquals(0, restoredToBackground.getRGB(0, 0), "Cleared to transparent");
+        Assertions.assertEquals(TestGif.PALETTE[1], restoredToBackground.getRGB(1, 1));
+        Assertions.assertEquals(TestGif.PALETTE[2], restoredToBackground.getRGB(3, 3));
+    }
+
+    @Test
+    void decodeInterlaced() throws IOException {
+        int width = 5;
+        int height = 11;
+        byte[] indices = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                indices[y * width + x] = (byte) ((y + x) % 4);
+            }
+        }
+        TestGif gif = new TestGif(width, height);
+        gif.frame(0, 0, width, height, GifFrame.DISPOSAL_NONE, -1, true, indices);
+        BufferedImage decoded = GifDecoder.decode(gif.toByteArray(), null, null).getFirstImage();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                Assertions.assertEquals(TestGif.PALETTE[(y + x) % 4], decoded.getRGB(x, y), "Pixel at " + x + ", " + y);
+            }
+        }
+    }
+
+    @Test
+    void decodeTruncated() throws IOException {
+        Random random = new Random(2);
+        TestGif gif = new TestGif(32, 32);
+        gif.frame(0, 0, 32, 32, GifFrame.DISPOSAL_NONE, -1, false, filledIndices(1024, 1));
+        int secondFrameStart = gif.size();
+        byte[] secondFrameIndices = new byte[1024];
+        for (int i = 0; i < secondFrameIndices.length; i++) {
+            secondFrameIndices[i] = (byte) (2 + random.nextInt(2));
+        }
+        gif.frame(0, 0, 32, 32, GifFrame.DISPOSAL_NONE, -1, false, secondFrameIndices);
+        byte[] bytes = gif.toByteArray();
+        byte[] truncated = Arrays.copyOf(bytes, secondFrameStart + (bytes.length - secondFrameStart) / 2);
+
+        ImageMedia decoded = GifDecoder.decode(truncated, null, null);
+        Assertions.assertEquals(2, decoded.getFrameCount());
+        BufferedImage first = decoded.getFrame(0).getImage();
+        BufferedImage second = decoded.getFrame(1).getImage();
+        // The decoded part of the second frame is drawn, and the first frame shows through the rest.
+        boolean decodedPart = true;
+        for (int i = 0; i < secondFrameIndices.length; i++) {
+            int x = i % 32;
+            int y = i / 32;
+            Assertions.assertEquals(TestGif.PALETTE[1], first.getRGB(x, y));
+            int rgb = second.getRGB(x, y);
+            if (decodedPart && rgb != TestGif.PALETTE[secondFrameIndices[i]]) {
+                decodedPart = false;
+            }
+            if (!decodedPart) {
+                Assertions.assertEquals(TestGif.PALETTE[1], rgb, "Pixel at " + x + ", " + y);
+            }
+        }
+        Assertions.assertEquals(TestGif.PALETTE[secondFrameIndices[0]], second.getRGB(0, 0));
+        Assertions.assertEquals(TestGif.PALETTE[1], second.getRGB(31, 31));
+
+        Assertions.assertThrows(IOException.class, () -> GifDecoder.decode(Arrays.copyOf(bytes, 20), null, null));
+    }
+
+    @Test
+    void rejectOversized() {
+        TestGif largeCanvas = new TestGif(65535, 65535);
+        largeCanvas.frame(0, 0, 1, 1, GifFrame.DISPOSAL_NONE, -1, false, filledIndices(1, 1));
+        Assertions.assertThrows(IOException.class, () -> GifDecoder.decode(largeCanvas.toByteArray(), null, null));
+
+        TestGif largeFrame = new TestGif(16, 16);
+        largeFrame.frame(0, 0, 65535, 65535, GifFrame.DISPOSAL_NONE, -1, false, filledIndices(1, 1));
+        Assertions.assertThrows(IOException.class, () -> GifDecoder.decode(largeFrame.toByteArray(), null, null));
+    }
+
+    private static byte[] randomIndices(Random random, int length) {
+        byte[] indices = new byte[length];
+        for (int i = 0; i < length; i++) {
+            indices[i] = (byte) random.nextInt(4);
+        }
+        return indices;
+    }
+
+    private static byte[] filledIndices(int length, int index) {
+        byte[] indices = new byte[length];
+        Arrays.fill(indices, (byte) index);
+        return indices;
+    }
+
+    /**
+     * Draws the frames one after the other on a single canvas, the simplest way of following the disposal methods.
+     */
+    private static List<int[]> composeSequentially(List<GifFrame> frames, int canvasWidth, int canvasHeight) {
+        List<int[]> composed = new ArrayList<>();
+        int[] canvas = new int[canvasWidth * canvasHeight];
+        for (GifFrame frame : frames) {
+            IndexedFrame indexedFrame = IndexedFrame.decode(frame);
+            int[] previous = canvas.clone();
+            for (int y = 0; y < frame.height(); y++) {
+                for (int x = 0; x < frame.width(); x++) {
+                    int index = indexedFrame.indices()[y * frame.width() + x] & 0xFF;
+                    if (index != frame.transparentIndex()) {
+                        canvas[(frame.top() + y) * canvasWidth + frame.left() + x] = frame.palette()[index];
+                    }
+                }
+            }
+            composed.add(canvas.clone());
+            if (frame.disposal() == GifFrame.DISPOSAL_RESTORE_TO_BACKGROUND) {
+                for (int y = 0; y < frame.height(); y++) {
+                    for (int x = 0; x < frame.width(); x++) {
+                        canvas[(frame.top() + y) * canvasWidth + frame.left() + x] = 0;
+                    }
+                }
+            } else if (frame.disposal() == GifFrame.DISPOSAL_RESTORE_TO_PREVIOUS) {
+                canvas = previous;
+            }
+        }
+        return composed;
+    }
+
+    private static void assertFrames(List<int[]> expected, ImageMedia actual) {
+        Assertions.assertEquals(expected.size(), actual.getFrameCount());
+        for (int i = 0; i < expected.size(); i++) {
+            BufferedImage image = actual.getFrame(i).getImage();
+            int width = image.getWidth();
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < width; x++) {
+                    Assertions.assertEquals(expected.get(i)[y * width + x], image.getRGB(x, y), "Frame " + i + " at " + x + ", " + y);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes GIF files with a four color global palette, with control over the placement, disposal,
+     * transparency and interlacing of each frame.
+     */
+    private static class TestGif {
+
+        private static final int[] PALETTE = {0xFF000000, 0xFFFF0000, 0xFF00FF00, 0xFF0000FF};
+
+        private final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        private TestGif(int width, int height) {
+            outputStream.writeBytes("GIF89a".getBytes());
+            writeShort(width);
+            writeShort(height);
+            // Global palette with 4 colors.
+            outputStream.write(0x81);
+            outputStream.write(0);
+            outputStream.write(0);
+            for (int color : PALETTE) {
+                outputStream.write(color >> 16);
+                outputStream.write(color >> 8);
+                outputStream.write(color);
+            }
+        }
+
+        private void frame(int left, int top, int width, int height, int disposal, int transparentIndex, boolean interlaced, byte[] indices) {
+            outputStream.write(0x21);
+            outputStream.write(0xF9);
+            outputStream.write(4);
+            outputStream.write(disposal << 2 | (transparentIndex >= 0 ? 1 : 0));
+            writeShort(10);
+            outputStream.write(Math.max(transparentIndex, 0));
+            outputStream.write(0);
+
+            outputStream.write(0x2C);
+            writeShort(left);
+            writeShort(top);
+            writeShort(width);
+            writeShort(height);
+            outputStream.write(interlaced ? 0x40 : 0);
+            LzwEncoder.encode(interlaced ? interlace(indices, width, height) : indices, 2, outputStream);
+        }
+
+        private static byte[] interlace(byte[] indices, int width, int height) {
+            byte[] interlaced = new byte[indices.length];
+            int row = 0;
+            int[][] passes = {{0, 8}, {4, 8}, {2, 4}, {1, 2}};
+            for (int[] pass : passes) {
+                for (int y = pass[0]; y < height; y += pass[1]) {
+                    System.arraycopy(indices, y * width, interlaced, row++ * width, width);
+                }
+            }
+            return interlaced;
+        }
+
+        private int size() {
+            return outputStream.size();
+        }
+
+        private byte[] toByteArray() {
+            outputStream.write(0x3B);
+            return outputStream.toByteArray();
+        }
+
+        private void writeShort(int value) {
+            outputStream.write(value);
+            outputStream.write(value >> 8);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package io.github.shaksternano.mediamanipulator.image.codec.gif;
+
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+import io.github.shaksternano.mediamanipulator.image.util.AwtFrame;
+import io.github.shaksternano.mediamanipulator.image.util.ImageMediaBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+class GifEncoderTest {
+
+    @Test
+    void encodeMovingSprite() throws IOException {
+        ImageMediaBuilder builder = new ImageMediaBuilder();
+        for (int i = 0; i < 10; i++) {
+            BufferedImage image = new BufferedImage(64, 32, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = image.createGraphics();
+            graphics.setColor(Color.RED);
+            graphics.fillRect(i * 4, 8, 16, 16);
+            if (i % 2 == 0) {
+                graphics.setColor(Color.BLUE);
+                graphics.fillRect(0, 28, 64, 4);
+            }
+            graphics.dispose();
+            builder.add(new AwtFrame(image, 50));
+        }
+        ImageMedia image = builder.build();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new GifEncoder().encode(image, outputStream);
+        ImageMedia decoded = GifDecoder.decode(outputStream.toByteArray(), null, null);
+
+        Assertions.assertEquals(image.getFrameCount(), decoded.getFrameCount());
+        for (int i = 0; i < image.getFrameCount(); i++) {
+            BufferedImage expected = image.getFrame(i).getImage();
+            BufferedImage actual = decoded.getFrame(i).getImage();
+            Assertions.assertEquals(50, decoded.getFrame(i).getDuration());
+            for (int y = 0; y < expected.getHeight(); y++) {
+                for (int x = 0; x < expected.getWidth(); x++) {
+                    Assertions.assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), "Frame " + i + " at " + x + ", " + y);
+                }
+            }
+        }
+    }
+
+    @Test
+    void encodeSlowFade() throws IOException {
+        // Each frame is only slightly lighter than the one before, so the fade is lost if small changes are left out.
+        ImageMediaBuilder builder = new ImageMediaBuilder();
+        for (int i = 0; i < 20; i++) {
+            BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+            int gray = 100 + i;
+            Graphics2D graphics = image.createGraphics();
+            graphics.setColor(new Color(gray, gray, gray));
+            graphics.fillRect(0, 0, 16, 16);
+            graphics.dispose();
+            builder.add(new AwtFrame(image, 50));
+        }
+        ImageMedia image = builder.build();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new GifEncoder().encode(image, outputStream);
+        ImageMedia decoded = GifDecoder.decode(outputStream.toByteArray(), null, null);
+
+        Assertions.assertEquals(image.getFrameCount(), decoded.getFrameCount());
+        for (int i = 0; i < image.getFrameCount(); i++) {
+            Assertions.assertEquals(image.getFrame(i).getImage().getRGB(8, 8), decoded.getFrame(i).getImage().getRGB(8, 8), "Frame " + i);
+        }
+    }
+
+    @Test
+    void encodeManyColors() throws IOException {
+        ImageMediaBuilder builder = new ImageMediaBuilder();
+        for (int i = 0; i < 2; i++) {
+            BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+            for (int y = 0; y < image.getHeight(); y++) {
+                for (int x = 0; x < image.getWidth(); x++) {
+                    image.setRGB(x, y, 0xFF000000 | (x * 4 << 16) | (y * 4 << 8) | (i * 128));
+                }
+            }
+            builder.add(new AwtFrame(image, 100));
+        }
+        ImageMedia image = builder.build();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new GifEncoder().encode(image, outputStream);
+        ImageMedia decoded = GifDecoder.decode(outputStream.toByteArray(), null, null);
+
+        Assertions.assertEquals(image.getFrameCount(), decoded.getFrameCount());
+        for (int i = 0; i < image.getFrameCount(); i++) {
+            BufferedImage expected = image.getFrame(i).getImage();
+            BufferedImage actual = decoded.getFrame(i).getImage();
+            for (int y = 0; y < expected.getHeight(); y++) {
+                for (int x = 0; x < expected.getWidth(); x++) {
+                    int expectedRgb = expected.getRGB(x, y);
+                    int actualRgb = actual.getRGB(x, y);
+                    for (int shift = 0; shift < 24; shift += 8) {
+                        int difference = Math.abs(((expectedRgb >> shift) & 0xFF) - ((actualRgb >> shift) & 0xFF));
+                        Assertions.assertTrue(difference <= 16, "Frame " + i + " at " + x + ", " + y);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void encodeDithered() throws IOException {
+        BufferedImage image = new BufferedImage(128, 128, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, 0xFF000000 | (x * 2 << 16) | (y * 2 << 8) | (x + y));
+            }
+        }
+        ImageMedia imageMedia = new ImageMediaBuilder().add(new AwtFrame(image, 0)).build();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new GifEncoder().withDithering(true).encode(imageMedia, outputStream);
+        BufferedImage decoded = GifDecoder.decode(outputStream.toByteArray(), null, null).getFirstImage();
+
+        // Dithering moves individual pixels further from their color, but keeps the average color of an area close,
+        // apart from at the corners of the color cube, where the palette colors are averages of the nearby colors.
+        for (int blockY = 0; blockY < image.getHeight(); blockY += 8) {
+            for (int blockX = 0; blockX < image.getWidth(); blockX += 8) {
+                for (int shift = 0; shift < 24; shift += 8) {
+                    int expectedSum = 0;
+                    int actualSum = 0;
+                    for (int y = blockY; y < blockY + 8; y++) {
+                        for (int x = blockX; x < blockX + 8; x++) {
+                            expectedSum += (image.getRGB(x, y) >> shift) & 0xFF;
+                            actualSum += (decoded.getRGB(x, y) >> shift) & 0xFF;
+                        }
+                    }
+                    Assertions.assertTrue(Math.abs(expectedSum - actualSum) / 64 <= 12, "Block at " + blockX + ", " + blockY);
+                }
+            }
+        }
+    }
+
+    @Test
+    void encodeLossy() throws IOException {
+        BufferedImage image = new BufferedImage(128, 128, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                // A gradient with a little noise, which lossy compression should smooth out.
+                int noise = (x * 7 + y * 13) % 5;
+                int gray = x + noise;
+                image.setRGB(x, y, 0xFF000000 | (gray << 16) | (gray << 8) | gray);
+            }
+        }
+        ImageMedia imageMedia = new ImageMediaBuilder().add(new AwtFrame(image, 0)).build();
+
+        ByteArrayOutputStream losslessOutputStream = new ByteArrayOutputStream();
+        new GifEncoder().encode(imageMedia, losslessOutputStream);
+        ByteArrayOutputStream lossyOutputStream = new ByteArrayOutputStream();
+        new GifEncoder().withLossiness(40).encode(imageMedia, lossyOutputStream);
+        Assertions.assertTrue(lossyOutputStream.size() < losslessOutputStream.size());
+
+        BufferedImage lossless = GifDecoder.decode(losslessOutputStream.toByteArray(), null, null).getFirstImage();
+        BufferedImage lossy = GifDecoder.decode(lossyOutputStream.toByteArray(), null, null).getFirstImage();
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                // Gray colors that are at most 40 apart have a channel difference of at most 13.
+                int difference = Math.abs((lossless.getRGB(x, y) & 0xFF) - (lossy.getRGB(x, y) & 0xFF));
+                Assertions.assertTrue(difference <= 13, "Pixel at " + x + ", " + y);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package io.github.shaksternano.mediamanipulator.image.codec.jpeg;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.Random;
+
+class JpegEncoderTest {
+
+    @Test
+    void encodeWithin() throws IOException {
+        BufferedImage image = createPhoto();
+        int lowQualitySize = new JpegEncoder().withQuality(0.5F).encode(image).length;
+        int highQualitySize = new JpegEncoder().withQuality(0.95F).encode(image).length;
+        Assertions.assertTrue(lowQualitySize < highQualitySize);
+
+        long maximumSize = (lowQualitySize + highQualitySize) / 2;
+        Optional<byte[]> jpeg = JpegEncoder.encodeWithin(image, maximumSize, 0.5F);
+        Assertions.assertTrue(jpeg.isPresent());
+        Assertions.assertTrue(jpeg.get().length <= maximumSize);
+        // The search should get reasonably close to the limit.
+        Assertions.assertTrue(jpeg.get().length > lowQualitySize);
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(jpeg.get()));
+        Assertions.assertEquals(image.getWidth(), decoded.getWidth());
+        Assertions.assertEquals(image.getHeight(), decoded.getHeight());
+
+        Assertions.assertTrue(JpegEncoder.encodeWithin(image, lowQualitySize - 1, 0.5F).isEmpty());
+        Assertions.assertArrayEquals(new JpegEncoder().withQuality(0.95F).encode(image), JpegEncoder.encodeWithin(image, highQualitySize, 0.5F).orElseThrow());
+    }
+
+    private static BufferedImage createPhoto() {
+        BufferedImage image = new BufferedImage(200, 150, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(0);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int red = x + random.nextInt(40);
+                int green = y + random.nextInt(40);
+                int blue = (x + y) / 2;
+                image.setRGB(x, y, 0xFF000000 | (red << 16) | (green << 8) | blue);
+            }
+        }
+        return image;
+    }
+}
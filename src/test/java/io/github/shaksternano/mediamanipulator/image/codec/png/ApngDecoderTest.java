@@ -0,0 +1,73 @@
+package io.github.shaksternano.mediamanipulator.image.codec.png;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+
+class ApngDecoderTest {
+
+    @Test
+    void decodeNotPng() {
+        Assertions.assertThrows(IOException.class, () -> ApngDecoder.decode(new byte[]{(byte) 0x89, 'P', 'N', 'G'}, null, null));
+    }
+
+    @Test
+    void rejectOversized() {
+        byte[] largeCanvas = createPng(65535, 65535, 1, 1);
+        Assertions.assertThrows(IOException.class, () -> ApngDecoder.decode(largeCanvas, null, null));
+
+        byte[] largeFrame = createPng(16, 16, 65535, 65535);
+        Assertions.assertThrows(IOException.class, () -> ApngDecoder.decode(largeFrame, null, null));
+    }
+
+    /**
+     * Creates an APNG file with a single frame, with the image data of a single transparent pixel.
+     */
+    private static byte[] createPng(int canvasWidth, int canvasHeight, int frameWidth, int frameHeight) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        outputStream.writeBytes(PngChunks.SIGNATURE);
+        byte[] header = ByteBuffer.allocate(13)
+                .putInt(canvasWidth)
+                .putInt(canvasHeight)
+                .put((byte) 8)
+                .put((byte) PngChunks.COLOR_TYPE_RGBA)
+                .array();
+        PngChunks.writeChunk(outputStream, PngChunks.IHDR, header);
+        byte[] animationControl = ByteBuffer.allocate(8)
+                .putInt(1)
+                .putInt(0)
+                .array();
+        PngChunks.writeChunk(outputStream, PngChunks.ACTL, animationControl);
+        byte[] frameControl = ByteBuffer.allocate(26)
+                .putInt(0)
+                .putInt(frameWidth)
+                .putInt(frameHeight)
+                .putInt(0)
+                .putInt(0)
+                .putShort((short) 1)
+                .putShort((short) 10)
+                .put((byte) PngChunks.DISPOSE_NONE)
+                .put((byte) PngChunks.BLEND_SOURCE)
+                .array();
+        PngChunks.writeChunk(outputStream, PngChunks.FCTL, frameControl);
+        PngChunks.writeChunk(outputStream, PngChunks.IDAT, compress(new byte[5]));
+        PngChunks.writeChunk(outputStream, PngChunks.IEND, new byte[0]);
+        return outputStream.toByteArray();
+    }
+
+    private static byte[] compress(byte[] data) {
+        Deflater deflater = new Deflater();
+        deflater.setInput(data);
+        deflater.finish();
+        byte[] buffer = new byte[64];
+        int length = deflater.deflate(buffer);
+        deflater.end();
+        byte[] compressed = new byte[length];
+        System.arraycopy(buffer, 0, compressed, 0, length);
+        return compressed;
+    }
+}
@@ -0,0 +1,102 @@
+package io.github.shaksternano.mediamanipulator.image.codec.png;
+
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+import io.github.shaksternano.mediamanipulator.image.util.AwtFrame;
+import io.github.shaksternano.mediamanipulator.image.util.Frame;
+import io.github.shaksternano.mediamanipulator.image.util.ImageMediaBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+class ApngEncoderTest {
+
+    @Test
+    void encodeAnimated() throws IOException {
+        ImageMediaBuilder builder = new ImageMediaBuilder();
+        for (int i = 0; i < 6; i++) {
+            BufferedImage image = new BufferedImage(63, 31, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = image.createGraphics();
+            graphics.setColor(new Color(255, 0, 0, 128));
+            graphics.fillRect(0, 0, 63, 31);
+            // The square only moves on some frames, and is partially transparent on others.
+            graphics.setColor(new Color(0, 0, 255, i % 3 == 2 ? 64 : 255));
+            graphics.fillRect(i / 2 * 9 + 1, 7, 16, 16);
+            graphics.dispose();
+            builder.add(new AwtFrame(image, 40 + i));
+        }
+        ImageMedia image = builder.build();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new ApngEncoder().encode(image, outputStream);
+        byte[] bytes = outputStream.toByteArray();
+
+        Assertions.assertTrue(ApngDecoder.isAnimated(bytes));
+        ImageMedia decoded = ApngDecoder.decode(bytes, null, null);
+        Assertions.assertEquals(image.getFrameCount(), decoded.getFrameCount());
+        for (int i = 0; i < image.getFrameCount(); i++) {
+            Frame expected = image.getFrame(i);
+            Frame actual = decoded.getFrame(i);
+            Assertions.assertEquals(expected.getDuration(), actual.getDuration());
+            assertSamePixels(expected.getImage(), actual.getImage(), "Frame " + i);
+        }
+
+        // Programs that don't support APNG show the first frame.
+        assertSamePixels(image.getFirstImage(), ImageIO.read(new ByteArrayInputStream(bytes)), "Default image");
+    }
+
+    @Test
+    void encodeStill() throws IOException {
+        BufferedImage image = new BufferedImage(40, 20, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, Color.GREEN, 40, 20, new Color(0, 0, 0, 0)));
+        graphics.fillRect(0, 0, 40, 20);
+        graphics.dispose();
+        ImageMedia imageMedia = new ImageMediaBuilder().add(new AwtFrame(image, 0)).build();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new ApngEncoder().encode(imageMedia, outputStream);
+        byte[] bytes = outputStream.toByteArray();
+
+        Assertions.assertFalse(ApngDecoder.isAnimated(bytes));
+        assertSamePixels(image, ImageIO.read(new ByteArrayInputStream(bytes)), "Still image");
+        assertSamePixels(image, ApngDecoder.decode(bytes, null, null).getFirstImage(), "Decoded still image");
+    }
+
+    @Test
+    void encodeStillInStripes() throws IOException {
+        // Large enough to be split into several stripes, which have to join into a single valid zlib stream.
+        BufferedImage image = new BufferedImage(300, 700, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(0);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                int noise = y % 100 < 50 ? random.nextInt(16) : 0;
+                image.setRGB(x, y, new Color(x * 255 / 300, y * 255 / 700, noise * 8).getRGB());
+            }
+        }
+        ImageMedia imageMedia = new ImageMediaBuilder().add(new AwtFrame(image, 0)).build();
+
+        for (int level : new int[]{Deflater.NO_COMPRESSION, Deflater.BEST_SPEED, Deflater.DEFAULT_COMPRESSION, Deflater.BEST_COMPRESSION}) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            new ApngEncoder().withCompressionLevel(level).encode(imageMedia, outputStream);
+            assertSamePixels(image, ImageIO.read(new ByteArrayInputStream(outputStream.toByteArray())), "Level " + level);
+        }
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual, String message) {
+        Assertions.assertEquals(expected.getWidth(), actual.getWidth(), message);
+        Assertions.assertEquals(expected.getHeight(), actual.getHeight(), message);
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                Assertions.assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), message + " differs at " + x + ", " + y);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package io.github.shaksternano.mediamanipulator.image.codec.webp;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+class HuffmanCodeTest {
+
+    private static final int MAXIMUM_CODE_LENGTH = 15;
+
+    @Test
+    void createSingleSymbol() {
+        int[] frequencies = new int[256];
+        frequencies[42] = 10;
+        HuffmanCode code = HuffmanCode.create(frequencies);
+        for (int symbol = 0; symbol < frequencies.length; symbol++) {
+            Assertions.assertEquals(symbol == 42 ? 1 : 0, code.getLength(symbol));
+        }
+    }
+
+    @Test
+    void createRandomFrequencies() {
+        Random random = new Random(0);
+        for (int i = 0; i < 100; i++) {
+            int[] frequencies = new int[280];
+            for (int symbol = 0; symbol < frequencies.length; symbol++) {
+                if (random.nextInt(4) > 0) {
+                    frequencies[symbol] = random.nextInt(1000);
+                }
+            }
+            checkLengths(frequencies);
+        }
+    }
+
+    @Test
+    void createSkewedFrequencies() {
+        // Fibonacci frequencies give the deepest possible tree, far over the maximum code length.
+        int[] frequencies = new int[40];
+        frequencies[0] = 1;
+        frequencies[1] = 1;
+        for (int symbol = 2; symbol < frequencies.length; symbol++) {
+            frequencies[symbol] = frequencies[symbol - 1] + frequencies[symbol - 2];
+        }
+        checkLengths(frequencies);
+    }
+
+    /**
+     * Checks that every used symbol has a code no longer than the maximum, and that the code lengths
+     * satisfy the Kraft inequality with equality, so that they form a complete prefix code.
+     */
+    private static void checkLengths(int[] frequencies) {
+        HuffmanCode code = HuffmanCode.create(frequencies);
+        long kraftSum = 0;
+        for (int symbol = 0; symbol < frequencies.length; symbol++) {
+            int length = code.getLength(symbol);
+            if (frequencies[symbol] > 0) {
+                Assertions.assertTrue(length >= 1 && length <= MAXIMUM_CODE_LENGTH, "Symbol " + symbol + " has a code length of " + length);
+                kraftSum += 1L << (MAXIMUM_CODE_LENGTH - length);
+            } else {
+                Assertions.assertEquals(0, length, "Unused symbol " + symbol + " has a code");
+            }
+        }
+        Assertions.assertEquals(1L << MAXIMUM_CODE_LENGTH, kraftSum);
+    }
+}
@@ -0,0 +1,23 @@
+package io.github.shaksternano.mediamanipulator.image.codec.webp;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class Vp8lEncoderTest {
+
+    @Test
+    void encodeSinglePixel() {
+        byte[] bytes = Vp8lEncoder.encodeArgb(new int[]{0xFF102030}, 1, 1, false);
+        byte[] expected = {
+                // Signature, then a width and height of 1, no alpha and version 0.
+                0x2F, 0x00, 0x00, 0x00, 0x00,
+                /*
+                 * The subtract green transform, then no color cache or meta Huffman codes.
+                 * Each channel has a simple code with one symbol, green 0x20, red 0xF0, blue 0x10 and alpha 0xFF,
+                 * and the unused distance code has symbol 0. Symbols of single symbol codes take no bits.
+                 */
+                0x45, 0x41, 0x0A, 0x5F, (byte) 0x88, (byte) 0xFE, 0x07,
+        };
+        Assertions.assertArrayEquals(expected, bytes);
+    }
+}
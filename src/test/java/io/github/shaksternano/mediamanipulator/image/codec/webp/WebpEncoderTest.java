@@ -0,0 +1,103 @@
+package io.github.shaksternano.mediamanipulator.image.codec.webp;
+
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+import io.github.shaksternano.mediamanipulator.image.util.AwtFrame;
+import io.github.shaksternano.mediamanipulator.image.util.ImageMediaBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+class WebpEncoderTest {
+
+    @Test
+    void encodeAnimated() throws IOException {
+        ImageMediaBuilder builder = new ImageMediaBuilder();
+        for (int i = 0; i < 5; i++) {
+            BufferedImage image = new BufferedImage(63, 31, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D graphics = image.createGraphics();
+            graphics.setColor(Color.RED);
+            graphics.fillRect(i * 9 + 1, 7, 16, 16);
+            graphics.dispose();
+            builder.add(new AwtFrame(image, 40 + i));
+        }
+        ImageMedia image = builder.build();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new WebpEncoder().encode(image, outputStream);
+        byte[] bytes = outputStream.toByteArray();
+
+        Assertions.assertEquals("RIFF", readFourCc(bytes, 0));
+        Assertions.assertEquals(bytes.length - 8, readInt(bytes, 4, 4));
+        Assertions.assertEquals("WEBP", readFourCc(bytes, 8));
+        Assertions.assertEquals("VP8X", readFourCc(bytes, 12));
+        // Animation and alpha flags.
+        Assertions.assertEquals(0x12, bytes[20]);
+        Assertions.assertEquals(63, readInt(bytes, 24, 3) + 1);
+        Assertions.assertEquals(31, readInt(bytes, 27, 3) + 1);
+        Assertions.assertEquals("ANIM", readFourCc(bytes, 30));
+
+        int position = 30 + 8 + readInt(bytes, 34, 4);
+        int frameCount = 0;
+        while (position < bytes.length) {
+            Assertions.assertEquals("ANMF", readFourCc(bytes, position));
+            int size = readInt(bytes, position + 4, 4);
+            int frameStart = position + 8;
+            int x = readInt(bytes, frameStart, 3) * 2;
+            int y = readInt(bytes, frameStart + 3, 3) * 2;
+            int width = readInt(bytes, frameStart + 6, 3) + 1;
+            int height = readInt(bytes, frameStart + 9, 3) + 1;
+            Assertions.assertTrue(x + width <= 63 && y + height <= 31, "Frame " + frameCount + " is outside the canvas");
+            Assertions.assertEquals(40 + frameCount, readInt(bytes, frameStart + 12, 3));
+            Assertions.assertEquals("VP8L", readFourCc(bytes, frameStart + 16));
+            Assertions.assertEquals(0x2F, bytes[frameStart + 24]);
+            if (frameCount > 0) {
+                // Only the area around the moving square is stored.
+                Assertions.assertTrue(width < 63 && height < 31, "Frame " + frameCount + " covers the whole canvas");
+            }
+            position = frameStart + size + (size & 1);
+            frameCount++;
+        }
+        Assertions.assertEquals(image.getFrameCount(), frameCount);
+    }
+
+    @Test
+    void encodeStill() throws IOException {
+        BufferedImage image = new BufferedImage(40, 20, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                image.setRGB(x, y, 0xFF000000 | (x * 6 << 16) | (y * 12 << 8) | (x * y));
+            }
+        }
+        ImageMedia imageMedia = new ImageMediaBuilder().add(new AwtFrame(image, 0)).build();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        new WebpEncoder().encode(imageMedia, outputStream);
+        byte[] bytes = outputStream.toByteArray();
+
+        Assertions.assertEquals("RIFF", readFourCc(bytes, 0));
+        Assertions.assertEquals(bytes.length - 8, readInt(bytes, 4, 4));
+        Assertions.assertEquals("WEBP", readFourCc(bytes, 8));
+        Assertions.assertEquals("VP8L", readFourCc(bytes, 12));
+        Assertions.assertEquals(0x2F, bytes[20]);
+        int header = readInt(bytes, 21, 4);
+        Assertions.assertEquals(40, (header & 0x3FFF) + 1);
+        Assertions.assertEquals(20, ((header >> 14) & 0x3FFF) + 1);
+    }
+
+    private static String readFourCc(byte[] bytes, int offset) {
+        return new String(bytes, offset, 4, StandardCharsets.US_ASCII);
+    }
+
+    private static int readInt(byte[] bytes, int offset, int length) {
+        int value = 0;
+        for (int i = 0; i < length; i++) {
+            value |= (bytes[offset + i] & 0xFF) << (8 * i);
+        }
+        return value;
+    }
+}
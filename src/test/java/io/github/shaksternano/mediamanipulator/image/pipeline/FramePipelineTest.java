@@ -0,0 +1,152 @@
+package io.github.shaksternano.mediamanipulator.image.pipeline;
+
+import io.github.shaksternano.mediamanipulator.image.util.ImageUtil;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+class FramePipelineTest {
+
+    @Test
+    void stretchSameAsImageUtil() {
+        BufferedImage image = createImage(57, 43, BufferedImage.TYPE_INT_ARGB);
+        FramePipeline pipeline = new FramePipelineBuilder().stretch(1.7F, 0.6F).build();
+        BufferedImage expected = ImageUtil.stretch(image, (int) (57 * 1.7F), (int) (43 * 0.6F), true);
+        assertSamePixels(expected, pipeline.apply(image), "Stretched");
+    }
+
+    @Test
+    void rotateSameAsImageUtil() {
+        BufferedImage image = createImage(40, 25, BufferedImage.TYPE_INT_RGB);
+        for (Color backgroundColor : new Color[]{null, Color.RED}) {
+            FramePipeline pipeline = new FramePipelineBuilder().rotate(37, null, null, backgroundColor).build();
+            BufferedImage expected = ImageUtil.rotate(image, 37, null, null, backgroundColor);
+            assertSamePixels(expected, pipeline.apply(image), "Rotated with background " + backgroundColor);
+        }
+    }
+
+    @Test
+    void pixelateSameAsStretchingTwice() {
+        for (int[] size : new int[][]{{64, 48}, {101, 37}, {7, 300}}) {
+            BufferedImage image = createImage(size[0], size[1], BufferedImage.TYPE_INT_ARGB);
+            for (int multiplier : new int[]{2, 3, 10}) {
+                BufferedImage shrunk = ImageUtil.stretch(image, Math.max(size[0] / multiplier, 1), Math.max(size[1] / multiplier, 1), true);
+                BufferedImage expected = ImageUtil.stretch(shrunk, size[0], size[1], true);
+                BufferedImage actual = new FramePipelineBuilder().pixelate(multiplier).build().apply(image);
+                assertSamePixels(expected, actual, size[0] + "x" + size[1] + " pixelated by " + multiplier);
+            }
+        }
+    }
+
+    @Test
+    void composeGeometryIntoOneDraw() {
+        BufferedImage image = createImage(30, 20, BufferedImage.TYPE_INT_ARGB);
+        FramePipeline pipeline = new FramePipelineBuilder()
+                .stretch(2, 2)
+                .rotate(90, null, null, null)
+                .convertType(BufferedImage.TYPE_INT_ARGB_PRE)
+                .build();
+        Assertions.assertEquals(1, pipeline.getStageCount());
+
+        BufferedImage expected = ImageUtil.rotate(ImageUtil.stretch(image, 60, 40, true), 90, null, null, null);
+        BufferedImage actual = pipeline.apply(image);
+        Assertions.assertEquals(BufferedImage.TYPE_INT_ARGB_PRE, actual.getType());
+        assertSamePixels(expected, actual, "Stretched and rotated");
+    }
+
+    @Test
+    void cropWithoutCopying() {
+        BufferedImage image = createImage(30, 20, BufferedImage.TYPE_INT_ARGB);
+        BufferedImage cropped = new FramePipelineBuilder().crop(new Rectangle(5, 4, 10, 8)).build().apply(image);
+        Assertions.assertTrue(cropped.getRaster().getDataBuffer() == image.getRaster().getDataBuffer());
+        assertSamePixels(image.getSubimage(5, 4, 10, 8), cropped, "Cropped");
+    }
+
+    @Test
+    void keepCropWhenRotatingAfterwards() {
+        BufferedImage image = createImage(30, 20, BufferedImage.TYPE_INT_ARGB);
+        FramePipeline pipeline = new FramePipelineBuilder()
+                .crop(new Rectangle(0, 0, 15, 20))
+                .rotate(45, null, null, null)
+                .build();
+        Assertions.assertEquals(1, pipeline.getStageCount());
+        // The cropped off half of the image must not show up in the corners of the rotated image.
+        BufferedImage expected = ImageUtil.rotate(image.getSubimage(0, 0, 15, 20), 45, null, null, null);
+        assertSamePixels(expected, pipeline.apply(image), "Cropped and rotated");
+    }
+
+    @Test
+    void drawAgainAfterCuttingRotation() {
+        BufferedImage image = createImage(30, 20, BufferedImage.TYPE_INT_ARGB);
+        FramePipeline pipeline = new FramePipelineBuilder()
+                .rotate(45, 30, 30, null)
+                .stretch(2, 2)
+                .build();
+        Assertions.assertEquals(2, pipeline.getStageCount());
+
+        BufferedImage expected = ImageUtil.stretch(ImageUtil.rotate(image, 45, 30, 30, null), 60, 60, true);
+        assertSamePixels(expected, pipeline.apply(image), "Rotated and stretched");
+    }
+
+    @Test
+    void fusePixelOperationsInPlace() {
+        BufferedImage image = createImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+        FramePipeline pipeline = new FramePipelineBuilder()
+                .stretch(2, 1)
+                .map((argb, x, y) -> argb & 0xFF00FFFF)
+                .map((argb, x, y) -> y < 4 ? 0 : argb)
+                .build();
+        Assertions.assertEquals(2, pipeline.getStageCount());
+
+        BufferedImage stretched = ImageUtil.stretch(image, 32, 16, true);
+        BufferedImage actual = pipeline.apply(image);
+        for (int y = 0; y < 16; y++) {
+            for (int x = 0; x < 32; x++) {
+                int expected = y < 4 ? 0 : stretched.getRGB(x, y) & 0xFF00FFFF;
+                Assertions.assertEquals(expected, actual.getRGB(x, y), "Pixel at " + x + ", " + y);
+            }
+        }
+    }
+
+    @Test
+    void expandAndOverlay() {
+        BufferedImage image = createImage(20, 10, BufferedImage.TYPE_INT_RGB);
+        BufferedImage overlay = new BufferedImage(20, 6, BufferedImage.TYPE_INT_ARGB);
+        overlay.setRGB(3, 2, Color.BLUE.getRGB());
+        BufferedImage result = new FramePipelineBuilder()
+                .expand(6, 0, 0, 0)
+                .overlay(overlay, 0, 0, Color.WHITE)
+                .build()
+                .apply(image);
+
+        Assertions.assertEquals(20, result.getWidth());
+        Assertions.assertEquals(16, result.getHeight());
+        Assertions.assertEquals(Color.BLUE.getRGB(), result.getRGB(3, 2), "Overlay");
+        Assertions.assertEquals(Color.WHITE.getRGB(), result.getRGB(4, 2), "Overlay fill");
+        assertSamePixels(image, result.getSubimage(0, 6, 20, 10), "Expanded image");
+    }
+
+    private static BufferedImage createImage(int width, int height, int type) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Random random = new Random(width * 31L + height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt() | 0xFF000000);
+            }
+        }
+        return image;
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual, String message) {
+        Assertions.assertEquals(expected.getWidth(), actual.getWidth(), message);
+        Assertions.assertEquals(expected.getHeight(), actual.getHeight(), message);
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                Assertions.assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), message + " differs at " + x + ", " + y);
+            }
+        }
+    }
+}
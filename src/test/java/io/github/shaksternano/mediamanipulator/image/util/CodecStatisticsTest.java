@@ -0,0 +1,54 @@
+package io.github.shaksternano.mediamanipulator.image.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class CodecStatisticsTest {
+
+    private static final String ANIMATED_SLOW = "animated slow";
+    private static final String ANIMATED_FAST = "animated fast";
+    private static final String STILL_SLOW = "still slow";
+    private static final String STILL_FAST = "still fast";
+
+    @Test
+    void stillCodecNeverAheadOfAnimated() {
+        CodecStatistics<String> statistics = new CodecStatistics<>(codec -> codec.startsWith("animated"));
+        List<String> registered = List.of(ANIMATED_SLOW, STILL_FAST);
+        for (int i = 0; i < 20; i++) {
+            statistics.recordFailure("gif", ANIMATED_SLOW, 1_000_000_000);
+            statistics.recordSuccess("gif", STILL_FAST, 1);
+        }
+        Assertions.assertEquals(registered, statistics.order("gif", registered));
+        Assertions.assertEquals(registered, statistics.order("gif", List.of(STILL_FAST, ANIMATED_SLOW)));
+    }
+
+    @Test
+    void orderWithinCapability() {
+        CodecStatistics<String> statistics = new CodecStatistics<>(codec -> codec.startsWith("animated"));
+        List<String> registered = List.of(ANIMATED_SLOW, ANIMATED_FAST, STILL_SLOW, STILL_FAST);
+        Assertions.assertEquals(registered, statistics.order("gif", registered));
+
+        for (int i = 0; i < 5; i++) {
+            statistics.recordSuccess("gif", ANIMATED_SLOW, 1_000_000);
+            statistics.recordSuccess("gif", ANIMATED_FAST, 1_000);
+            statistics.recordSuccess("gif", STILL_SLOW, 1_000_000);
+            statistics.recordSuccess("gif", STILL_FAST, 1_000);
+        }
+        Assertions.assertEquals(List.of(ANIMATED_FAST, ANIMATED_SLOW, STILL_FAST, STILL_SLOW), statistics.order("gif", registered));
+        Assertions.assertEquals(registered, statistics.order("png", registered), "Statistics are kept per format");
+    }
+
+    @Test
+    void keepUnsampledAfterSampled() {
+        CodecStatistics<String> statistics = new CodecStatistics<>(codec -> codec.startsWith("animated"));
+        List<String> registered = List.of(ANIMATED_SLOW, ANIMATED_FAST);
+        for (int i = 0; i < 4; i++) {
+            statistics.recordSuccess("gif", ANIMATED_FAST, 1);
+        }
+        Assertions.assertEquals(registered, statistics.order("gif", registered));
+        statistics.recordSuccess("gif", ANIMATED_FAST, 1);
+        Assertions.assertEquals(List.of(ANIMATED_FAST, ANIMATED_SLOW), statistics.order("gif", registered));
+    }
+}
@@ -0,0 +1,67 @@
+package io.github.shaksternano.mediamanipulator.image.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+class ImageComputePoolTest {
+
+    @Test
+    void keepOrder() {
+        List<Integer> elements = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+        List<Integer> results = ImageComputePool.map(elements, element -> element * 2);
+        for (int i = 0; i < elements.size(); i++) {
+            Assertions.assertEquals(i * 2, (int) results.get(i));
+        }
+    }
+
+    @Test
+    void runEveryIndexOnce() {
+        AtomicInteger[] counts = new AtomicInteger[500];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new AtomicInteger();
+        }
+        ImageComputePool.forEach(counts.length, index -> counts[index].incrementAndGet());
+        for (int i = 0; i < counts.length; i++) {
+            Assertions.assertEquals(1, counts[i].get(), "Index " + i);
+        }
+    }
+
+    @Test
+    void runEveryCheapIndexOnce() {
+        AtomicInteger[] counts = new AtomicInteger[10_000];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new AtomicInteger();
+        }
+        ImageComputePool.forEach(counts.length, 1, index -> counts[index].incrementAndGet());
+        for (int i = 0; i < counts.length; i++) {
+            Assertions.assertEquals(1, counts[i].get(), "Index " + i);
+        }
+    }
+
+    @Test
+    void finishNestedJobs() {
+        AtomicInteger count = new AtomicInteger();
+        // Every thread of the pool is busy with the outer job, so the inner jobs must not wait for a free thread.
+        ImageComputePool.forEach(ImageComputePool.THREAD_COUNT * 4, outer ->
+                ImageComputePool.forEach(20, inner -> count.incrementAndGet())
+        );
+        Assertions.assertEquals(ImageComputePool.THREAD_COUNT * 4 * 20, count.get());
+    }
+
+    @Test
+    void throwTaskException() {
+        IllegalStateException exception = Assertions.assertThrows(IllegalStateException.class, () ->
+                ImageComputePool.forEach(100, index -> {
+                    if (index == 37) {
+                        throw new IllegalStateException("Index " + index);
+                    }
+                })
+        );
+        Assertions.assertEquals("Index 37", exception.getMessage());
+    }
+}
@@ -0,0 +1,56 @@
+package io.github.shaksternano.mediamanipulator.image.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+class ImageUtilTest {
+
+    @Test
+    void getImageFormat() throws IOException {
+        BufferedImage image = new BufferedImage(4, 4, BufferedImage.TYPE_INT_RGB);
+        Assertions.assertEquals("gif", getImageFormat(image, "gif"));
+        Assertions.assertEquals("png", getImageFormat(image, "png"));
+        Assertions.assertEquals("jpeg", getImageFormat(image, "jpeg"));
+        Assertions.assertEquals("bmp", getImageFormat(image, "bmp"));
+        Assertions.assertEquals("tiff", getImageFormat(image, "tiff"));
+
+        byte[] webp = {'R', 'I', 'F', 'F', 0x24, 0, 0, 0, 'W', 'E', 'B', 'P', 'V', 'P', '8', 'L'};
+        Assertions.assertEquals("webp", ImageUtil.getImageFormat(ByteBuffer.wrap(webp)));
+
+        byte[] ico = {0, 0, 1, 0, 1, 0, 16, 16, 0, 0, 1, 0, 32, 0};
+        Assertions.assertEquals("ico", ImageUtil.getImageFormat(ByteBuffer.wrap(ico)));
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ImageUtil.getImageFormat(ByteBuffer.wrap(new byte[]{'t', 'e', 'x', 't'})));
+    }
+
+    @Test
+    void packedColorHelpers() {
+        Random random = new Random(0);
+        for (int i = 0; i < 1000; i++) {
+            int rgb1 = random.nextInt();
+            int rgb2 = random.nextInt();
+            Assertions.assertEquals(ImageUtil.colorDistance(rgb1, rgb2), ImageUtil.colorDistance(rgb2, rgb1));
+            Assertions.assertEquals(Math.sqrt(ImageUtil.colorDistanceSquared(rgb1, rgb2)), ImageUtil.colorDistance(rgb1, rgb2));
+        }
+
+        Assertions.assertEquals(0, ImageUtil.colorDistance(0x00123456, 0xFF123456), "Alpha is ignored");
+        Assertions.assertEquals(765, ImageUtil.colorDistance(Color.BLACK, Color.WHITE), 1);
+        Assertions.assertTrue(ImageUtil.isGreyScale(0x807858));
+        Assertions.assertFalse(ImageUtil.isGreyScale(0x807857));
+    }
+
+    private static String getImageFormat(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ImageIO.write(image, format, outputStream);
+        return ImageUtil.getImageFormat(new ByteArrayInputStream(outputStream.toByteArray()));
+    }
+}
@@ -0,0 +1,80 @@
+package io.github.shaksternano.mediamanipulator.image.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+class PixelBufferTest {
+
+    private static final int[] TYPES = {
+            BufferedImage.TYPE_INT_ARGB,
+            BufferedImage.TYPE_INT_RGB,
+            BufferedImage.TYPE_3BYTE_BGR,
+            BufferedImage.TYPE_4BYTE_ABGR,
+            BufferedImage.TYPE_INT_ARGB_PRE,
+            BufferedImage.TYPE_BYTE_GRAY,
+    };
+
+    @Test
+    void readSameAsGetRgb() {
+        for (int type : TYPES) {
+            BufferedImage image = createImage(23, 17, type);
+            assertSamePixels(image, "Type " + type);
+        }
+    }
+
+    @Test
+    void readSubimageSameAsGetRgb() {
+        for (int type : TYPES) {
+            BufferedImage subimage = createImage(23, 17, type).getSubimage(5, 3, 11, 9);
+            assertSamePixels(subimage, "Subimage of type " + type);
+        }
+    }
+
+    @Test
+    void iterateRowByRow() {
+        BufferedImage image = createImage(7, 5, BufferedImage.TYPE_4BYTE_ABGR);
+        PrimitiveIterator.OfInt pixels = new PixelBuffer(image).pixels();
+        for (int y = 0; y < image.getHeight(); y++) {
+            for (int x = 0; x < image.getWidth(); x++) {
+                Assertions.assertTrue(pixels.hasNext());
+                Assertions.assertEquals(image.getRGB(x, y), pixels.nextInt(), "Pixel at " + x + ", " + y);
+            }
+        }
+        Assertions.assertFalse(pixels.hasNext());
+    }
+
+    @Test
+    void rejectPixelsOutsideImage() {
+        PixelBuffer pixels = new PixelBuffer(createImage(4, 3, BufferedImage.TYPE_INT_ARGB));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> pixels.getRgb(4, 0));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> pixels.getRow(3, new int[4]));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> pixels.getRow(0, new int[3]));
+    }
+
+    private static void assertSamePixels(BufferedImage image, String message) {
+        PixelBuffer pixels = new PixelBuffer(image);
+        int[] row = new int[image.getWidth()];
+        for (int y = 0; y < image.getHeight(); y++) {
+            pixels.getRow(y, row);
+            for (int x = 0; x < image.getWidth(); x++) {
+                Assertions.assertEquals(image.getRGB(x, y), row[x], message + " row differs at " + x + ", " + y);
+                Assertions.assertEquals(image.getRGB(x, y), pixels.getRgb(x, y), message + " differs at " + x + ", " + y);
+            }
+        }
+    }
+
+    private static BufferedImage createImage(int width, int height, int type) {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Random random = new Random(width * 31L + height + type);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+        return image;
+    }
+}
@@ -0,0 +1,130 @@
+package io.github.shaksternano.mediamanipulator.image.util;
+
+import io.github.shaksternano.mediamanipulator.image.imagemedia.ImageMedia;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+class SpinAnimatorTest {
+
+    @Test
+    void chooseFrameCountFromSpeed() {
+        BufferedImage image = createGradient(40, 30);
+        // Rounded up from 150 to a multiple of 4.
+        assertFrames(SpinAnimator.spin(List.of(image), 1, null), 152, Frame.GIF_MINIMUM_FRAME_DURATION);
+        // Rounding 50 to a multiple of 4 would change the speed by too much.
+        assertFrames(SpinAnimator.spin(List.of(image), -3, null), 50, Frame.GIF_MINIMUM_FRAME_DURATION);
+        assertFrames(SpinAnimator.spin(List.of(image), 0.5F, null), 152, Frame.GIF_MINIMUM_FRAME_DURATION * 2);
+    }
+
+    @Test
+    void keepImageWhenNotRotated() {
+        BufferedImage image = createGradient(16, 16);
+        int[] pixels = image.getRGB(0, 0, 16, 16, null, 0, 16);
+        BufferedImage rotated = SpinAnimator.rotate(pixels, 16, 16, 0, 16, null);
+        assertSamePixels(image, rotated);
+    }
+
+    @Test
+    void quarterTurnSameAsImageUtil() {
+        BufferedImage image = createGradient(20, 20);
+        int[] pixels = image.getRGB(0, 0, 20, 20, null, 0, 20);
+        BufferedImage rotated = SpinAnimator.rotate(pixels, 20, 20, Math.toRadians(90), 20, null);
+        assertSamePixels(ImageUtil.rotate(image, 90, 20, 20, null), rotated);
+    }
+
+    @Test
+    void closeToImageUtil() {
+        BufferedImage image = createGradient(64, 48);
+        int[] pixels = image.getRGB(0, 0, 64, 48, null, 0, 64);
+        BufferedImage rotated = SpinAnimator.rotate(pixels, 64, 48, Math.toRadians(30), 64, Color.BLACK);
+        BufferedImage expected = ImageUtil.rotate(image, 30, 64, 64, Color.BLACK);
+        // Away from the edges of the image, blending neighbouring pixels of a smooth gradient
+        // only differs a little from picking the nearest one.
+        for (int y = 24; y < 40; y++) {
+            for (int x = 24; x < 40; x++) {
+                int expectedRgb = expected.getRGB(x, y);
+                int actualRgb = rotated.getRGB(x, y);
+                for (int shift = 0; shift < 32; shift += 8) {
+                    int difference = Math.abs(((expectedRgb >>> shift) & 0xFF) - ((actualRgb >>> shift) & 0xFF));
+                    Assertions.assertTrue(difference <= 8, "Pixel at " + x + ", " + y + " differs by " + difference);
+                }
+            }
+        }
+        Assertions.assertEquals(Color.BLACK.getRGB(), rotated.getRGB(0, 0));
+    }
+
+    @Test
+    void turnedFramesSameAsRotated() {
+        BufferedImage image = createGradient(40, 30);
+        int[] pixels = image.getRGB(0, 0, 40, 30, null, 0, 40);
+        for (float speed : new float[]{1, -1, 3}) {
+            ImageMedia spun = SpinAnimator.spin(List.of(image), speed, Color.BLUE);
+            int framesPerRotation = spun.getFrameCount();
+            for (int index : new int[]{7, framesPerRotation / 4 + 7, framesPerRotation / 2 + 7, framesPerRotation * 3 / 4 + 7}) {
+                double angle = Math.toRadians(Math.signum(speed) * 360.0 * index / framesPerRotation);
+                BufferedImage expected = SpinAnimator.rotate(pixels, 40, 30, angle, 40, Color.BLUE);
+                BufferedImage actual = spun.getFrame(index).getImage();
+                for (int y = 0; y < 40; y++) {
+                    for (int x = 0; x < 40; x++) {
+                        int expectedRgb = expected.getRGB(x, y);
+                        int actualRgb = actual.getRGB(x, y);
+                        for (int shift = 0; shift < 32; shift += 8) {
+                            int difference = Math.abs(((expectedRgb >>> shift) & 0xFF) - ((actualRgb >>> shift) & 0xFF));
+                            Assertions.assertTrue(difference <= 2, "Speed " + speed + ", frame " + index + ", pixel at " + x + ", " + y + " differs by " + difference);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void rotateRepeatedImagesOnce() {
+        BufferedImage first = createGradient(10, 10);
+        BufferedImage second = createGradient(10, 10);
+        List<BufferedImage> images = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            images.add(i % 2 == 0 ? first : second);
+        }
+        ImageMedia spun = SpinAnimator.spin(images, 1, null);
+        Assertions.assertEquals(304, spun.getFrameCount());
+        for (int i = 0; i < 152; i++) {
+            Assertions.assertSame(spun.getFrame(i).getImage(), spun.getFrame(i + 152).getImage(), "Frame " + i);
+        }
+        Assertions.assertNotSame(spun.getFrame(0).getImage(), spun.getFrame(1).getImage());
+    }
+
+    private static void assertFrames(ImageMedia imageMedia, int frameCount, int duration) {
+        Assertions.assertEquals(frameCount, imageMedia.getFrameCount());
+        for (Frame frame : imageMedia) {
+            Assertions.assertEquals(duration, frame.getDuration());
+            Assertions.assertEquals(40, frame.getImage().getWidth());
+            Assertions.assertEquals(40, frame.getImage().getHeight());
+        }
+    }
+
+    private static BufferedImage createGradient(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, 0xFF000000 | (x * 255 / width) << 16 | (y * 255 / height) << 8 | 0x80);
+            }
+        }
+        return image;
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+        Assertions.assertEquals(expected.getWidth(), actual.getWidth());
+        Assertions.assertEquals(expected.getHeight(), actual.getHeight());
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                Assertions.assertEquals(expected.getRGB(x, y), actual.getRGB(x, y), "Pixel at " + x + ", " + y);
+            }
+        }
+    }
+}